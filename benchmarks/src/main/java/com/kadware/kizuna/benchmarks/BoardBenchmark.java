@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna.benchmarks;
+
+import com.kadware.kizuna.Bid;
+import com.kadware.kizuna.Board;
+import com.kadware.kizuna.Position;
+import com.kadware.kizuna.Suit;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Board.establishBid() - a complete auction of twelve calls, each checked for legality and applied
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    //  1C (1D) 1H (X) XX (1S) 2NT (P) 3NT (P) P (P)
+    private static final Bid[] AUCTION = {
+        Bid.of(Position.SOUTH, Bid.getCode(1, Suit.CLUBS._bidOrder)),
+        Bid.of(Position.WEST, Bid.getCode(1, Suit.DIAMONDS._bidOrder)),
+        Bid.of(Position.NORTH, Bid.getCode(1, Suit.HEARTS._bidOrder)),
+        Bid.getDouble(Position.EAST),
+        Bid.getRedouble(Position.SOUTH),
+        Bid.of(Position.WEST, Bid.getCode(1, Suit.SPADES._bidOrder)),
+        Bid.of(Position.NORTH, Bid.getCode(2, Bid.NO_TRUMP)),
+        Bid.getPass(Position.EAST),
+        Bid.of(Position.SOUTH, Bid.getCode(3, Bid.NO_TRUMP)),
+        Bid.getPass(Position.WEST),
+        Bid.getPass(Position.NORTH),
+        Bid.getPass(Position.EAST),
+    };
+
+    @Benchmark
+    public Board establishAuction() {
+        Board board = new Board();
+        for (Bid bid : AUCTION) {
+            if (!board.establishBid(bid)) {
+                throw new RuntimeException("Benchmark auction is not legal");
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna.benchmarks;
+
+import com.kadware.kizuna.Deck;
+import com.kadware.kizuna.Hand;
+import com.kadware.kizuna.Position;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Deck.shuffle() followed by Deck.deal(), which builds the four Hands
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Thread)
+public class DealingBenchmark {
+
+    private final Deck _deck = new Deck(1);
+
+    @Benchmark
+    public Map<Position, Hand> shuffleAndDeal() {
+        _deck.shuffle();
+        return _deck.deal();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna.benchmarks;
+
+import com.kadware.kizuna.CardMask;
+import com.kadware.kizuna.DealGenerator;
+import com.kadware.kizuna.Distribution;
+import com.kadware.kizuna.Hand;
+import com.kadware.kizuna.Position;
+import com.kadware.kizuna.Suit;
+import com.kadware.kizuna.SuitSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building and evaluating single hands, cycling through a fixed set of random hands
+ * so that the results are not constant
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Thread)
+public class HandBenchmark {
+
+    private static final int HANDS = 1024;      //  a power of two
+
+    private final long[] _cards = new long[HANDS];
+    private final Hand[] _hands = new Hand[HANDS];
+    private final SuitSet[] _suitSets = new SuitSet[HANDS];
+    private int _index = 0;
+
+    @Setup
+    public void setup() {
+        DealGenerator generator = new DealGenerator(1);
+        long[] deal = new long[4];
+        for (int hx = 0; hx < HANDS; ++hx) {
+            generator.deal(hx / 4, deal);
+            _cards[hx] = deal[hx % 4];
+            _hands[hx] = new Hand(Position.SOUTH, _cards[hx]);
+            Suit suit = Suit.values()[hx % 4];
+            _suitSets[hx] = new SuitSet(suit, CardMask.getHolding(_cards[hx], suit));
+        }
+    }
+
+    private int next() {
+        _index = (_index + 1) & (HANDS - 1);
+        return _index;
+    }
+
+    @Benchmark
+    public Hand newHand() {
+        return new Hand(Position.SOUTH, _cards[next()]);
+    }
+
+    @Benchmark
+    public Distribution newDistribution() {
+        return new Distribution(_cards[next()]);
+    }
+
+    @Benchmark
+    public boolean hasStopper() {
+        return _suitSets[next()].hasStopper();
+    }
+
+    @Benchmark
+    public float countQuickTricks() {
+        return _hands[next()].countQuickTricks();
+    }
+}
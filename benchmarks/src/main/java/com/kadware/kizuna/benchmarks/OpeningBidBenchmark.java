@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna.benchmarks;
+
+import com.kadware.kizuna.AmericanStandardSystem;
+import com.kadware.kizuna.Bid;
+import com.kadware.kizuna.Board;
+import com.kadware.kizuna.Commentary;
+import com.kadware.kizuna.DealGenerator;
+import com.kadware.kizuna.Hand;
+import com.kadware.kizuna.Position;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * AmericanStandardSystem.recommendOpeningBid() for the first seat, with commentary discarded and recorded,
+ * with and without the compiled opening table (which is only used when commentary is disabled)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Thread)
+public class OpeningBidBenchmark {
+
+    private static final int HANDS = 1024;      //  a power of two
+
+    @Param({ "false", "true" })
+    public boolean _compileOpenings;
+
+    private AmericanStandardSystem _system;
+    private final Board _board = new Board();
+    private final Hand[] _hands = new Hand[HANDS];
+    private final Commentary.Recorder _recorder = new Commentary.Recorder();
+    private int _index = 0;
+
+    @Setup
+    public void setup() {
+        _system = new AmericanStandardSystem(true, false, false, _compileOpenings);
+        DealGenerator generator = new DealGenerator(1);
+        long[] deal = new long[4];
+        for (int hx = 0; hx < HANDS; ++hx) {
+            generator.deal(hx / 4, deal);
+            _hands[hx] = new Hand(Position.SOUTH, deal[hx % 4]);
+        }
+    }
+
+    private int next() {
+        _index = (_index + 1) & (HANDS - 1);
+        return _index;
+    }
+
+    @Benchmark
+    public Bid withoutCommentary() {
+        return _system.recommendOpeningBid(_hands[next()], _board, Commentary.DISABLED);
+    }
+
+    @Benchmark
+    public Bid withCommentary() {
+        _recorder.clear();
+        return _system.recommendOpeningBid(_hands[next()], _board, _recorder);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna.benchmarks;
+
+import com.kadware.kizuna.Deal;
+import com.kadware.kizuna.DealGenerator;
+import com.kadware.kizuna.DoubleDummySolver;
+import com.kadware.kizuna.Position;
+import com.kadware.kizuna.Suit;
+import com.kadware.kizuna.TrickTable;
+import com.kadware.kizuna.TrickTableSolver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TrickTableSolver.solveAll() for a set of full deals, on the common pool - the work of finding par for a short
+ * session. Each operation solves the whole set, so divide by DEALS for the time per deal.
+ * solveEach() does the same work as 20 separate solves per deal, each from an empty table, for comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+@State(Scope.Thread)
+public class TrickTableBenchmark {
+
+    private static final int DEALS = 8;
+
+    private final List<Deal> _deals = new ArrayList<>(DEALS);
+    private final TrickTableSolver _solver = new TrickTableSolver();
+    private final DoubleDummySolver _single = new DoubleDummySolver();
+
+    @Setup
+    public void setup() {
+        DealGenerator generator = new DealGenerator(1);
+        for (int dx = 0; dx < DEALS; ++dx) {
+            _deals.add(generator.deal(dx));
+        }
+    }
+
+    @Benchmark
+    public List<TrickTable> solveAll() {
+        return _solver.solveAll(_deals);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 3)
+    @Fork(1)
+    public int solveEach() {
+        int total = 0;
+        for (Deal deal : _deals) {
+            for (int strain = 0; strain < TrickTable.STRAINS; ++strain) {
+                Suit trumps = (strain == TrickTable.NO_TRUMP) ? null : Suit.values()[strain];
+                for (Position declarer : Position.values()) {
+                    _single.clear();
+                    total += _single.solve(deal, trumps, declarer);
+                }
+            }
+        }
+        return total;
+    }
+}
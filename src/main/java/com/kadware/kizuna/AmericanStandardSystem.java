@@ -4,15 +4,14 @@
 
 package com.kadware.kizuna;
 
-import java.util.Arrays;
-import java.util.List;
-
 public class AmericanStandardSystem extends BiddingSystem {
 
     public final boolean _fiveCardMajors;
     public final boolean _invertedMinorRaise;   // see pg 54
     public final boolean _staymanConvention;
 
+    private final OpeningTable _openingTable;   //  null unless the opening rules are compiled
+
     private static class ScratchPad {
         private int _hcPoints;
         private float _quickTricks;
@@ -25,14 +24,147 @@ public class AmericanStandardSystem extends BiddingSystem {
         private Bid _leadDirect = null;
     }
 
+    /**
+     * Everything this system says about its reasoning.
+     * Arguments are plain ints - Position and Suit ordinals, and bids as encoded by encodeBid().
+     */
+    public enum Remark implements Commentary.Rule {
+        CHECKING_OPENING("Checking opening bid for player %s", Argument.POSITION),
+        OPENING_SUMMARY("HCP=%d QTricks=%f reBiddableSuit=%s lengthInMajors=%s position=%d 3rd=%s 4th=%s") {
+            //  hcp, quick tricks in halves, 1 (rebiddable suit) | 2 (length in majors), previous passes
+            @Override
+            public String render(
+                final int[] arguments,
+                final int offset
+            ) {
+                int flags = arguments[offset + 2];
+                int passes = arguments[offset + 3];
+                return String.format(_format,
+                                     arguments[offset],
+                                     arguments[offset + 1] / 2.0f,
+                                     (flags & 1) != 0,
+                                     (flags & 2) != 0,
+                                     passes + 1,
+                                     passes == 2,
+                                     passes == 3);
+            }
+        },
+        RECOMMEND("Recommending %s", Argument.BID),
+        RECOMMEND_LEAD_DIRECTING("Recommending weak lead directing bid %s", Argument.BID),
+        FOUR_FOUR_FOUR_ONE("4-4-4-1 distribution, singleton is %s", Argument.SUIT),
+        STOPPERS("  Stoppers=%d  Probable Stoppers=%d", Argument.NUMBER, Argument.NUMBER),
+        RECOMMEND_PASS("Recommending pass"),
+        ONE_BIDDABLE_SUIT("One biddable suit"),
+        TWO_EQUAL_LONG_SUITS("6-6 or 5-5, recommending higher-ranking suit"),
+        SIX_FIVE_STRONG("6-5 strong hand - recommending 6-card suit"),
+        SIX_FIVE_WEAK("6-5 weaker hand - recommending higher-ranking suit"),
+        FIVE_FOUR_STRONG("5-4 strong hand - recommending long suit"),
+        FIVE_FOUR_WEAK_FOUR_CARD_MAJOR("5-4 weaker hand, higher-ranking suit is 4-card major, recommending 5-card suit"),
+        FIVE_FOUR_WEAK("5-4 weaker hand, recommending higher-ranking suit"),
+        BALANCED_FIVE_CARD_MAJORS("Balanced hand not suitable for NT, five-card majors required"),
+        FOUR_FOUR_THREE_TWO("With 4-4-3-2 distribution, bid appropriately to keep bidding low"),
+        SUITS_TOUCH("  Suits touch, bid highest ranking suit"),
+        SUITS_DO_NOT_TOUCH("  Suits do not touch, bid highest ranking suit"),
+        FOUR_THREE_THREE_THREE("With 4-3-3-3 distribution and no NT option, we bid the longest suit"),
+        CONSIDERING_NO_TRUMP("Balanced Hand - considering NoTrump..."),
+        STRONG_FIVE_CARD_SUIT("Strong hand has strong 5-card suit; bid suit"),
+        INSUFFICIENT_STOPPERS("  Insufficient stoppers for NoTrump"),
+        ONE_NO_TRUMP("  16-18 points with sufficient stoppers, recommending 1NT"),
+        ONE_NO_TRUMP_STOPPERS("  16-18 points, but insufficient stoppers"),
+        TWO_NO_TRUMP("  22-24 points with sufficient stoppers, recommending 2NT"),
+        TWO_NO_TRUMP_STOPPERS("  22-24 points, but insufficient stoppers"),
+        THREE_NO_TRUMP("  25-27 points with sufficient stoppers, recommending 3NT"),
+        THREE_NO_TRUMP_STOPPERS("  25-27 points, but insufficient stoppers"),
+        NO_TRUMP_RANGE("  Unsuitable point range"),
+        SUFFICIENT_HCP("Sufficient HCP, needs nothing else to proceed"),
+        GOOD_HCP("Good HCP, quick tricks, and reBiddable suit, proceeding"),
+        WEAK_THIRD("Weak hand, 3rd position..."),
+        WEAK_THIRD_OPEN("has quick tricks, reBiddable suit, length in majors."),
+        WEAK_THIRD_LACKING("insufficient quick tricks, no reBiddable suit, or no length in majors"),
+        WEAK_THIRD_LEAD_DIRECTING("has good direction for partner's opening lead."),
+        WEAK_THIRD_PASS("has no good suit for suggesting an opening lead."),
+        WEAK_FOURTH("Weak hand, 4th position..."),
+        WEAK_FOURTH_OPEN("has quick tricks, reBiddable suit, length in majors esp. spades."),
+        WEAK_FOURTH_PASS("insufficient quick tricks, no reBiddable suit, or no length in majors esp. spades."),
+        WEAK_EARLY("Weak hand, 1st or 2nd position"),
+        WEAK_EARLY_OPEN("has quick tricks, rebiddable suit, length in majors."),
+        WEAK_EARLY_PASS("insufficient quick tricks, no rebiddable suit, or no length in majors."),
+        NOTHING_WORTH_BIDDING("Nothing worth bidding.");
+
+        private enum Argument {
+            NUMBER,
+            POSITION,
+            SUIT,
+            BID,
+        }
+
+        protected final String _format;
+        private final Argument[] _arguments;
+
+        Remark(
+            final String format,
+            final Argument... arguments
+        ) {
+            _format = format;
+            _arguments = arguments;
+        }
+
+        @Override
+        public String render(
+            final int[] arguments,
+            final int offset
+        ) {
+            Object[] values = new Object[_arguments.length];
+            for (int ax = 0; ax < values.length; ++ax) {
+                int value = arguments[offset + ax];
+                switch (_arguments[ax]) {
+                    case NUMBER:    values[ax] = value; break;
+                    case POSITION:  values[ax] = Position.values()[value]; break;
+                    case SUIT:      values[ax] = Suit.values()[value]; break;
+                    case BID:       values[ax] = decodeBid(value); break;
+                }
+            }
+            return String.format(_format, values);
+        }
+
+        /**
+         * Encodes a bid as an int argument - bidder's Position ordinal in bits 6 and 7, then Bid._code
+         */
+        static int encodeBid(
+            final Bid bid
+        ) {
+            return (bid._position.ordinal() << 6) | bid._code;
+        }
+
+        private static Bid decodeBid(
+            final int encoded
+        ) {
+            return Bid.of(Position.values()[encoded >> 6], encoded & 0x3f);
+        }
+    }
+
     public AmericanStandardSystem(
         final boolean fiveCardMajors,
         final boolean invertedMinorRaise,
         final boolean staymanConvention
+    ) {
+        this(fiveCardMajors, invertedMinorRaise, staymanConvention, false);
+    }
+
+    /**
+     * As above - if compileOpenings is set, the opening-bid rules are compiled into an OpeningTable, which is used
+     * in place of the rules whenever no commentary is wanted
+     */
+    public AmericanStandardSystem(
+        final boolean fiveCardMajors,
+        final boolean invertedMinorRaise,
+        final boolean staymanConvention,
+        final boolean compileOpenings
     ) {
         _fiveCardMajors = fiveCardMajors;
         _invertedMinorRaise = invertedMinorRaise;
         _staymanConvention = staymanConvention;
+        _openingTable = compileOpenings ? new OpeningTable(fiveCardMajors) : null;
     }
 
     //  ----------------------------------------------------------------------------------------------------------------------------
@@ -45,9 +177,24 @@ public class AmericanStandardSystem extends BiddingSystem {
     public Bid recommendOpeningBid(
         final Hand hand,
         final Board biddingBoard,
-        final List<String> commentary
+        final Commentary commentary
+    ) {
+        int passes = biddingBoard.getConsecutivePasses();
+        if ((_openingTable != null) && !commentary.isEnabled()) {
+            return Bid.of(hand._position, _openingTable.getOpeningCode(hand.getCards(), passes));
+        }
+        return applyOpeningRules(hand, passes, commentary);
+    }
+
+    /**
+     * The opening-bid rules, for the given number of passes so far
+     */
+    private Bid applyOpeningRules(
+        final Hand hand,
+        final int passes,
+        final Commentary commentary
     ) {
-        commentary.add(String.format("Checking opening bid for player %s", hand._position.toString()));
+        commentary.add(Remark.CHECKING_OPENING, hand._position.ordinal());
 
         ScratchPad sp = new ScratchPad();
         sp._hcPoints = hand.countHighCardPoints();
@@ -55,25 +202,22 @@ public class AmericanStandardSystem extends BiddingSystem {
         sp._reBiddableSuit = hand.hasLongSuit();
         sp._lengthInMajors = hand.hasLengthInMajors();
         sp._lengthInSpades = hand._distribution.getSuitSet(Suit.SPADES).size() >= 5;
-        sp._passes = biddingBoard.getConsecutivePasses();
+        sp._passes = passes;
         sp._thirdHand = sp._passes == 2;
         sp._fourthHand = sp._passes == 3;
-        commentary.add(String.format("HCP=%d QTricks=%f reBiddableSuit=%s lengthInMajors=%s position=%d 3rd=%s 4th=%s",
-                                     sp._hcPoints,
-                                     sp._quickTricks,
-                                     sp._reBiddableSuit,
-                                     sp._lengthInMajors,
-                                     sp._passes + 1,
-                                     sp._thirdHand,
-                                     sp._fourthHand));
+        commentary.add(Remark.OPENING_SUMMARY,
+                       sp._hcPoints,
+                       (int) (sp._quickTricks * 2),
+                       (sp._reBiddableSuit ? 1 : 0) | (sp._lengthInMajors ? 2 : 0),
+                       sp._passes);
 
         if (!shouldOpen(hand, sp, commentary)) {
-            commentary.add("Recommending pass");
-            return new Bid.Pass(hand._position);
+            commentary.add(Remark.RECOMMEND_PASS);
+            return Bid.getPass(hand._position);
         }
 
         Bid bid = selectOpeningBid(hand, sp, commentary);
-        commentary.add(String.format("Recommending %s", bid.toString()));
+        commentary.add(Remark.RECOMMEND, Remark.encodeBid(bid));
         return bid;
     }
 
@@ -93,14 +237,15 @@ public class AmericanStandardSystem extends BiddingSystem {
     private Bid selectOpeningBid(
         final Hand hand,
         final ScratchPad sp,
-        final List<String> commentary
+        final Commentary commentary
     ) {
         if (sp._leadDirect != null) {
-            commentary.add(String.format("Recommending weak lead directing bid %s", sp._leadDirect.toString()));
+            commentary.add(Remark.RECOMMEND_LEAD_DIRECTING, Remark.encodeBid(sp._leadDirect));
             return sp._leadDirect;
         }
 
-        int[] dist = hand._distribution._numericalDistribution;
+        int longest = hand._distribution.getLength(0);
+        int second = hand._distribution.getLength(1);
         if (hand._distribution.isBalanced()) {
             Bid bid = selectOpeningNoTrump(hand, sp, commentary);
             if (bid != null) {
@@ -108,113 +253,114 @@ public class AmericanStandardSystem extends BiddingSystem {
             }
         }
 
-        if ((dist[0] >= 7)
-            || ((dist[0] == 6) && (dist[1] < 5))
-            || ((dist[0] == 5) && (dist[1] < 4))) {
+        if ((longest >= 7)
+            || ((longest == 6) && (second < 5))
+            || ((longest == 5) && (second < 4))) {
             //  Only one biddable suit.  Bid it.
-            commentary.add("One biddable suit");
-            return new Bid.SuitBid(hand._position, 1, hand._distribution.get(0)._suit);
+            commentary.add(Remark.ONE_BIDDABLE_SUIT);
+            return Bid.getSuitBid(hand._position, 1, hand._distribution.get(0)._suit);
         }
 
-        if ( ((dist[0] == 6) || (dist[0] == 5)) && (dist[0] == dist[1]) ) {
+        if ( ((longest == 6) || (longest == 5)) && (longest == second) ) {
             //  6-6 or 5-5: Bid the higher-ranking suit first.
             //  We'll bid the other one (and maybe rebid it) later (unless partner raises this one)
-            commentary.add("6-6 or 5-5, recommending higher-ranking suit");
+            commentary.add(Remark.TWO_EQUAL_LONG_SUITS);
             SuitSet set0 = hand._distribution.get(0);
             SuitSet set1 = hand._distribution.get(1);
             Suit bidSuit = (set0._suit._bidOrder > set1._suit._bidOrder) ? set0._suit : set1._suit;
-            return new Bid.SuitBid(hand._position, 1, bidSuit);
+            return Bid.getSuitBid(hand._position, 1, bidSuit);
         }
 
-        if ((dist[0] == 6) && (dist[1] == 5)) {
+        if ((longest == 6) && (second == 5)) {
             //  6-5: Bid the 6-card suit first, unless we've got a minimum hand;
             //  In that case, bid the higher-ranking suit to keep bidding lower.
             if (sp._hcPoints >= 13) {
-                commentary.add("6-5 strong hand - recommending 6-card suit");
-                return new Bid.SuitBid(hand._position, 1, hand._distribution.get(0)._suit);
+                commentary.add(Remark.SIX_FIVE_STRONG);
+                return Bid.getSuitBid(hand._position, 1, hand._distribution.get(0)._suit);
             } else {
-                commentary.add("6-5 weaker hand - recommending higher-ranking suit");
+                commentary.add(Remark.SIX_FIVE_WEAK);
                 SuitSet set0 = hand._distribution.get(0);
                 SuitSet set1 = hand._distribution.get(1);
                 Suit bidSuit = (set0._suit._bidOrder > set1._suit._bidOrder) ? set0._suit : set1._suit;
-                return new Bid.SuitBid(hand._position, 1, bidSuit);
+                return Bid.getSuitBid(hand._position, 1, bidSuit);
             }
         }
 
-        if ((dist[0] == 5) && (dist[1] == 4)) {
+        if ((longest == 5) && (second == 4)) {
             //  5-4: With a strong hand, bid the long suit and maybe come back with the shorter suit.
             //  With a weak hand, start with the shorter suit (but observe 4-card-major setting)
             //  unless there is room between the suits - i.e., clubs and hearts or spades.
             if (sp._hcPoints >= 13) {
-                commentary.add("5-4 strong hand - recommending long suit");
-                return new Bid.SuitBid(hand._position, 1, hand._distribution.get(0)._suit);
+                commentary.add(Remark.FIVE_FOUR_STRONG);
+                return Bid.getSuitBid(hand._position, 1, hand._distribution.get(0)._suit);
             } else {
                 SuitSet set0 = hand._distribution.get(0);
                 SuitSet set1 = hand._distribution.get(1);
                 Suit higherSuit = (set0._suit._bidOrder > set1._suit._bidOrder) ? set0._suit : set1._suit;
                 if (_fiveCardMajors && ((higherSuit == Suit.SPADES) || (higherSuit == Suit.HEARTS))) {
-                    commentary.add("5-4 weaker hand, higher-ranking suit is 4-card major, recommending 5-card suit");
-                    return new Bid.SuitBid(hand._position, 1, set0._suit);
+                    commentary.add(Remark.FIVE_FOUR_WEAK_FOUR_CARD_MAJOR);
+                    return Bid.getSuitBid(hand._position, 1, set0._suit);
                 } else {
-                    commentary.add("5-4 weaker hand, recommending higher-ranking suit");
-                    return new Bid.SuitBid(hand._position, 1, higherSuit);
+                    commentary.add(Remark.FIVE_FOUR_WEAK);
+                    return Bid.getSuitBid(hand._position, 1, higherSuit);
                 }
             }
         }
 
-        if (Arrays.equals(dist, Distribution.ND_4_4_4_1)) {
+        if (hand._distribution._pattern == ShapeTable.PATTERN_4_4_4_1) {
             //  Some trouble here. Generally we want to find a suit fit, but we may end up in NT.
             //  Bid the middle suit generally, but bid the lower suit if the next suit up is the singleton.
             //  In practice, this means we bid clubs if the singleton is diamonds,
             //  We bid hearts if the singleton is clubs,
             //  And we bid the stronger of clubs or diamonds otherwise.
             SuitSet singleton = hand._distribution.get(3);
-            commentary.add(String.format("4-4-4-1 distribution, singleton is %s", singleton._suit.toString()));
+            commentary.add(Remark.FOUR_FOUR_FOUR_ONE, singleton._suit.ordinal());
             if (singleton._suit == Suit.CLUBS) {
-                return new Bid.SuitBid(hand._position, 1, Suit.DIAMONDS);
+                return Bid.getSuitBid(hand._position, 1, Suit.DIAMONDS);
             } else if (singleton._suit == Suit.DIAMONDS) {
-                return new Bid.SuitBid(hand._position, 1, Suit.CLUBS);
+                return Bid.getSuitBid(hand._position, 1, Suit.CLUBS);
             } else {
                 SuitSet clubs = hand._distribution.getSuitSet(Suit.CLUBS);
                 SuitSet diamonds = hand._distribution.getSuitSet(Suit.DIAMONDS);
                 Suit strongest = selectStrongestSuit(clubs, diamonds);
-                return new Bid.SuitBid(hand._position, 1, strongest);
+                return Bid.getSuitBid(hand._position, 1, strongest);
             }
         }
 
-        if ((dist[0] == 4) && !_fiveCardMajors) {
+        if ((longest == 4) && !_fiveCardMajors) {
             //  We are prevented from opening hearts or spades.
             //  Open the stronger of clubs or diamonds.
-            commentary.add("Balanced hand not suitable for NT, five-card majors required");
+            commentary.add(Remark.BALANCED_FIVE_CARD_MAJORS);
             SuitSet clubs = hand._distribution.getSuitSet(Suit.CLUBS);
             SuitSet diamonds = hand._distribution.getSuitSet(Suit.DIAMONDS);
             Suit strongest = selectStrongestSuit(clubs, diamonds);
-            return new Bid.SuitBid(hand._position, 1, strongest);
+            return Bid.getSuitBid(hand._position, 1, strongest);
         }
 
-        if (Arrays.equals(dist, Distribution.ND_4_4_3_2)) {
+        if (hand._distribution._pattern == ShapeTable.PATTERN_4_4_3_2) {
             //  Some trouble here - if the two suits touch, bid the higher ranking one first.
             //  Otherwise, bid the lower-ranking suit - the idea is to preserve bidding space.
             //  We've already handled the five-card-major issue.
-            commentary.add("With 4-4-3-2 distribution, bid appropriately to keep bidding low");
+            commentary.add(Remark.FOUR_FOUR_THREE_TWO);
             SuitSet set0 = hand._distribution.get(0);
             SuitSet set1 = hand._distribution.get(1);
             int distance = set0._suit._bidOrder - set1._suit._bidOrder;
             if ((distance == 1) || (distance == -1)) {
-                commentary.add("  Suits touch, bid highest ranking suit");
+                commentary.add(Remark.SUITS_TOUCH);
                 Suit suit = set0._suit._bidOrder < set1._suit._bidOrder ? set1._suit : set0._suit;
-                return new Bid.SuitBid(hand._position, 1, suit);
+                return Bid.getSuitBid(hand._position, 1, suit);
             } else {
-                commentary.add("  Suits do not touch, bid highest ranking suit");
+                commentary.add(Remark.SUITS_DO_NOT_TOUCH);
                 Suit suit = set0._suit._bidOrder < set1._suit._bidOrder ? set0._suit : set1._suit;
-                return new Bid.SuitBid(hand._position, 1, suit);
+                return Bid.getSuitBid(hand._position, 1, suit);
             }
         }
 
-        if (Arrays.equals(dist, Distribution.ND_4_3_3_3) || Arrays.equals(dist, Distribution.ND_4_4_3_2)) {
+        if ((hand._distribution._pattern == ShapeTable.PATTERN_4_3_3_3)
+            || (hand._distribution._pattern == ShapeTable.PATTERN_4_4_3_2)) {
             //  Bid the four card suit.  We already filtered out the five-card-major issue.
-            commentary.add("With 4-3-3-3 distribution and no NT option, we bid the longest suit");
-            return new Bid.SuitBid(hand._position, 1, hand._distribution.get(0)._suit);
+            commentary.add(Remark.FOUR_THREE_THREE_THREE);
+            return Bid.getSuitBid(hand._position, 1, hand._distribution.get(0)._suit);
         }
 
         throw new RuntimeException("Fell through all the possibilities");
@@ -226,14 +372,14 @@ public class AmericanStandardSystem extends BiddingSystem {
     private Bid selectOpeningNoTrump(
         final Hand hand,
         final ScratchPad sp,
-        final List<String> commentary
+        final Commentary commentary
     ) {
-        commentary.add("Balanced Hand - considering NoTrump...");
+        commentary.add(Remark.CONSIDERING_NO_TRUMP);
 
         //  If we have a 'good' 5-card suit, bail out and bid the suit
         SuitSet highSet = hand._distribution.get(0);
         if ((highSet.size() == 5) && (highSet.countHonors() > 2)) {
-            commentary.add("Strong hand has strong 5-card suit; bid suit");
+            commentary.add(Remark.STRONG_FIVE_CARD_SUIT);
             return null;
         }
 
@@ -247,43 +393,43 @@ public class AmericanStandardSystem extends BiddingSystem {
                 ++probableStoppers;
             }
         }
-        commentary.add(String.format("  Stoppers=%d  Probable Stoppers=%d", stoppers, probableStoppers));
+        commentary.add(Remark.STOPPERS, stoppers, probableStoppers);
         if (stoppers + probableStoppers < 4) {
-            commentary.add("  Insufficient stoppers for NoTrump");
+            commentary.add(Remark.INSUFFICIENT_STOPPERS);
             return null;
         }
 
         if ((sp._hcPoints >= 16) && (sp._hcPoints <= 18)) {
             if (stoppers + probableStoppers == 4) {
-                commentary.add("  16-18 points with sufficient stoppers, recommending 1NT");
-                return new Bid.NoTrumpBid(hand._position, 1);
+                commentary.add(Remark.ONE_NO_TRUMP);
+                return Bid.getNoTrumpBid(hand._position, 1);
             } else {
-                commentary.add("  16-18 points, but insufficient stoppers");
+                commentary.add(Remark.ONE_NO_TRUMP_STOPPERS);
                 return null;
             }
         }
 
         if ((sp._hcPoints >= 22) && (sp._hcPoints <= 24)) {
             if (stoppers == 4) {
-                commentary.add("  22-24 points with sufficient stoppers, recommending 2NT");
-                return new Bid.NoTrumpBid(hand._position, 2);
+                commentary.add(Remark.TWO_NO_TRUMP);
+                return Bid.getNoTrumpBid(hand._position, 2);
             } else {
-                commentary.add("  22-24 points, but insufficient stoppers");
+                commentary.add(Remark.TWO_NO_TRUMP_STOPPERS);
                 return null;
             }
         }
 
         if ((sp._hcPoints >= 25) && (sp._hcPoints <= 27)) {
             if (stoppers == 4) {
-                commentary.add("  25-27 points with sufficient stoppers, recommending 3NT");
-                return new Bid.NoTrumpBid(hand._position, 3);
+                commentary.add(Remark.THREE_NO_TRUMP);
+                return Bid.getNoTrumpBid(hand._position, 3);
             } else {
-                commentary.add("  25-27 points, but insufficient stoppers");
+                commentary.add(Remark.THREE_NO_TRUMP_STOPPERS);
                 return null;
             }
         }
 
-        commentary.add("  Unsuitable point range");
+        commentary.add(Remark.NO_TRUMP_RANGE);
         return null;
     }
 
@@ -338,68 +484,117 @@ public class AmericanStandardSystem extends BiddingSystem {
     private boolean shouldOpen(
         final Hand hand,
         final ScratchPad sp,
-        final List<String> commentary
+        final Commentary commentary
     ) {
         if (sp._hcPoints >= 14) {
-            commentary.add("Sufficient HCP, needs nothing else to proceed");
+            commentary.add(Remark.SUFFICIENT_HCP);
             return true;
         }
 
         if ((sp._hcPoints >= 12) && (sp._quickTricks >= 2.0) && sp._reBiddableSuit) {
-            commentary.add("Good HCP, quick tricks, and reBiddable suit, proceeding");
+            commentary.add(Remark.GOOD_HCP);
             return true;
         }
 
         if (sp._hcPoints >= 10) {
             if (sp._thirdHand) {
-                commentary.add("Weak hand, 3rd position...");
+                commentary.add(Remark.WEAK_THIRD);
                 if ((sp._quickTricks >= 2.0) && sp._reBiddableSuit && sp._lengthInMajors) {
-                    commentary.add("has quick tricks, reBiddable suit, length in majors.");
+                    commentary.add(Remark.WEAK_THIRD_OPEN);
                     return true;
                 }
 
-                commentary.add("insufficient quick tricks, no reBiddable suit, or no length in majors");
+                commentary.add(Remark.WEAK_THIRD_LACKING);
                 //  Do we have a lead direct? AKQ or AQJ four-long is good
                 for (SuitSet suitSet : hand._distribution) {
                     if (suitSet.size() >= 4) {
-                        if (suitSet.contains(new Card(suitSet._suit, Rank.ACE))
-                            && suitSet.contains(new Card(suitSet._suit, Rank.QUEEN))
-                            && (suitSet.contains(new Card(suitSet._suit, Rank.KING))
-                            || suitSet.contains(new Card(suitSet._suit, Rank.JACK)))) {
-                            commentary.add("has good direction for partner's opening lead.");
-                            sp._leadDirect = new Bid.SuitBid(hand._position, 1, suitSet._suit);
+                        if (suitSet.hasRank(Rank.ACE)
+                            && suitSet.hasRank(Rank.QUEEN)
+                            && (suitSet.hasRank(Rank.KING) || suitSet.hasRank(Rank.JACK))) {
+                            commentary.add(Remark.WEAK_THIRD_LEAD_DIRECTING);
+                            sp._leadDirect = Bid.getSuitBid(hand._position, 1, suitSet._suit);
                             return true;
                         }
                     }
                 }
 
-                commentary.add("has no good suit for suggesting an opening lead.");
+                commentary.add(Remark.WEAK_THIRD_PASS);
                 return false;
             } else if (sp._fourthHand) {
-                commentary.add("Weak hand, 4th position...");
+                commentary.add(Remark.WEAK_FOURTH);
                 if ((sp._quickTricks >= 2.0) && sp._reBiddableSuit && sp._lengthInMajors && sp._lengthInSpades) {
-                    commentary.add("has quick tricks, reBiddable suit, length in majors esp. spades.");
+                    commentary.add(Remark.WEAK_FOURTH_OPEN);
                     return true;
                 }
 
-                commentary.add("insufficient quick tricks, no reBiddable suit, or no length in majors esp. spades.");
+                commentary.add(Remark.WEAK_FOURTH_PASS);
                 return false;
             } else {
-                commentary.add("Weak hand, 1st or 2nd position");
+                commentary.add(Remark.WEAK_EARLY);
                 if ((sp._quickTricks >= 2.0) && sp._reBiddableSuit && sp._lengthInMajors) {
-                    commentary.add("has quick tricks, rebiddable suit, length in majors.");
+                    commentary.add(Remark.WEAK_EARLY_OPEN);
                     return true;
                 }
 
-                commentary.add("insufficient quick tricks, no rebiddable suit, or no length in majors.");
+                commentary.add(Remark.WEAK_EARLY_PASS);
                 return false;
             }
         }
 
-        commentary.add("Nothing worth bidding.");
+        commentary.add(Remark.NOTHING_WORTH_BIDDING);
         return false;
     }
 
+    /**
+     * Proves that the compiled OpeningTable (one is built for the purpose if this system has none) gives the same
+     * opening call as the rules, for one hand of every kind the rules can tell apart, in every seat.
+     * Where the rules throw, the table must also throw.
+     * @return number of hands and seats checked
+     * @throws RuntimeException describing the first disagreement
+     */
+    public long verifyOpeningTable() {
+        return verifyOpeningTable(Long.MAX_VALUE);
+    }
+
+    /**
+     * As above, but for at most the given number of hands of each shape (see OpeningTable.forEachDistinctHand()) -
+     * the commonest shapes have a few hundred thousand
+     */
+    public long verifyOpeningTable(
+        final long perShape
+    ) {
+        OpeningTable table = (_openingTable != null) ? _openingTable : new OpeningTable(_fiveCardMajors);
+        long[] checked = { 0 };
+        OpeningTable.forEachDistinctHand(perShape, cards -> {
+            Hand hand = new Hand(Position.SOUTH, cards);
+            for (int passes = 0; passes < 4; ++passes) {
+                String expected;
+                try {
+                    expected = applyOpeningRules(hand, passes, Commentary.DISABLED).toString();
+                } catch (RuntimeException ex) {
+                    expected = ex.getMessage();
+                }
+
+                String actual;
+                try {
+                    actual = Bid.of(hand._position, table.getOpeningCode(cards, passes)).toString();
+                } catch (RuntimeException ex) {
+                    actual = ex.getMessage();
+                }
+
+                if (!expected.equals(actual)) {
+                    throw new RuntimeException(String.format("Opening table gives %s but rules give %s after %d passes for %s",
+                                                             actual,
+                                                             expected,
+                                                             passes,
+                                                             hand.toString()));
+                }
+                ++checked[0];
+            }
+        });
+        return checked[0];
+    }
+
     //  ----------------------------------------------------------------------------------------------------------------------------
 
     /**
@@ -410,7 +605,7 @@ public class AmericanStandardSystem extends BiddingSystem {
     public Bid recommendOpeningResponse(
         final Hand hand,
         final Board biddingBoard,
-        final List<String> commentary
+        final Commentary commentary
     ) {
         return null;    //TODO
     }
@@ -425,7 +620,7 @@ public class AmericanStandardSystem extends BiddingSystem {
     public Bid recommendOvercall(
         final Hand hand,
         final Board biddingBoard,
-        final List<String> commentary
+        final Commentary commentary
     ) {
         return null;    //TODO
     }
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable auction, for search code which needs to branch and backtrack.
+ * Each Auction is the previous Auction plus one call, sharing everything before that call, so extending an auction
+ * (append) and backing up (getParent) are both O(1) and never copy. The running state - passes, doubling, highest
+ * and opening bids, and who would declare - is computed once per node, so the queries are O(1) as for Board.
+ * All fields are final, so auctions may be shared freely between threads.
+ */
+public final class Auction {
+
+    public static final Auction EMPTY = new Auction();
+
+    private final Auction _parent;          //  null for EMPTY
+    private final Bid _call;                //  the last call, null for EMPTY
+    private final int _size;
+    private final int _passes;              //  consecutive passes at the end of the auction
+    private final int _doubling;            //  Contract.UNDOUBLED, DOUBLED, or REDOUBLED
+    private final Bid _highestBid;
+    private final Bid _openingBid;
+    private final int _firstToBid;          //  as for Board, three bits for each side and strain
+    private final int _hash;
+
+    private Auction() {
+        _parent = null;
+        _call = null;
+        _size = 0;
+        _passes = 0;
+        _doubling = Contract.UNDOUBLED;
+        _highestBid = null;
+        _openingBid = null;
+        _firstToBid = 0;
+        _hash = 0;
+    }
+
+    private Auction(
+        final Auction parent,
+        final Bid call
+    ) {
+        _parent = parent;
+        _call = call;
+        _size = parent._size + 1;
+        _hash = parent._hash * 31 + ((call._position.ordinal() << 6) | call._code) + 1;
+
+        if (call._code == Bid.PASS) {
+            _passes = parent._passes + 1;
+            _doubling = parent._doubling;
+            _highestBid = parent._highestBid;
+            _openingBid = parent._openingBid;
+            _firstToBid = parent._firstToBid;
+        } else if (!call.isContract()) {
+            _passes = 0;
+            _doubling = (call._code == Bid.DOUBLE) ? Contract.DOUBLED : Contract.REDOUBLED;
+            _highestBid = parent._highestBid;
+            _openingBid = parent._openingBid;
+            _firstToBid = parent._firstToBid;
+        } else {
+            _passes = 0;
+            _doubling = Contract.UNDOUBLED;
+            _highestBid = call;
+            _openingBid = (parent._openingBid == null) ? call : parent._openingBid;
+            int shift = getFirstToBidShift(call);
+            _firstToBid = (((parent._firstToBid >> shift) & 0x07) == 0)
+                ? parent._firstToBid | ((call._position.ordinal() + 1) << shift)
+                : parent._firstToBid;
+        }
+    }
+
+    /**
+     * Position of the three bits of _firstToBid for the side and strain of the given contract bid
+     */
+    private static int getFirstToBidShift(
+        final Bid bid
+    ) {
+        return 3 * ((bid._position.ordinal() & 1) * 5 + (bid._code - Bid.FIRST_CONTRACT) % 5);
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Creates the auction which is this one followed by the given call.
+     * Legality is not checked - use getLegalCalls() or isLegal() for that.
+     */
+    public Auction append(
+        final Bid call
+    ) {
+        return new Auction(this, call);
+    }
+
+    /**
+     * Creates an auction from a sequence of calls
+     */
+    public static Auction of(
+        final Iterable<Bid> calls
+    ) {
+        Auction result = EMPTY;
+        for (Bid call : calls) {
+            result = result.append(call);
+        }
+        return result;
+    }
+
+    /**
+     * The auction without its last call - null for EMPTY
+     */
+    public Auction getParent() {
+        return _parent;
+    }
+
+    /**
+     * The last call made, or null for EMPTY
+     */
+    public Bid getLastCall() {
+        return _call;
+    }
+
+    /**
+     * Retrieves the call at the given index - O(n), as it walks back from the end
+     */
+    public Bid get(
+        final int index
+    ) {
+        if ((index < 0) || (index >= _size)) {
+            throw new IndexOutOfBoundsException("No call at index " + index);
+        }
+        Auction auction = this;
+        while (auction._size > index + 1) {
+            auction = auction._parent;
+        }
+        return auction._call;
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public Bid getHighestBid() {
+        return _highestBid;
+    }
+
+    public Bid getOpeningBid() {
+        return _openingBid;
+    }
+
+    /**
+     * Number of consecutive passes after most recent real bid or double or redouble
+     */
+    public int getConsecutivePasses() {
+        return _passes;
+    }
+
+    /**
+     * Player who would declare the highest bid if the auction ended now, or null if there has been no contract bid
+     */
+    public Position getDeclarer() {
+        if (_highestBid == null) {
+            return null;
+        }
+        return Position.values()[((_firstToBid >> getFirstToBidShift(_highestBid)) & 0x07) - 1];
+    }
+
+    /**
+     * Doubling of the highest bid - Contract.UNDOUBLED, DOUBLED, or REDOUBLED
+     */
+    public int getDoubling() {
+        return _doubling;
+    }
+
+    public boolean isDoubled() {
+        return _doubling != Contract.UNDOUBLED;
+    }
+
+    public boolean isRedoubled() {
+        return _doubling == Contract.REDOUBLED;
+    }
+
+    /**
+     * Indicates whether the auction is over - four passes, or three after a contract bid
+     */
+    public boolean isPassedOut() {
+        return _passes == ((_highestBid == null) ? 4 : 3);
+    }
+
+    /**
+     * Legal calls for the given position, as a mask with bit Bid._code set for each - see Board.getLegalCalls()
+     */
+    public long getLegalCalls(
+        final Position position
+    ) {
+        return Board.getLegalCalls(position, _highestBid, _doubling, isPassedOut());
+    }
+
+    public boolean isLegal(
+        final Bid call
+    ) {
+        return (getLegalCalls(call._position) & (1L << call._code)) != 0;
+    }
+
+    /**
+     * The final contract, if the auction is over and was not passed out; otherwise null
+     */
+    public Contract getContract() {
+        if ((_highestBid == null) || !isPassedOut()) {
+            return null;
+        }
+        Suit trumps = (_highestBid instanceof Bid.SuitBid) ? ((Bid.SuitBid) _highestBid)._suit : null;
+        return new Contract(((Bid.RealBid) _highestBid)._level, trumps, getDeclarer(), _doubling);
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * The calls in order, as a new list
+     */
+    public List<Bid> toList() {
+        Bid[] calls = new Bid[_size];
+        for (Auction auction = this; auction._size > 0; auction = auction._parent) {
+            calls[auction._size - 1] = auction._call;
+        }
+        return Arrays.asList(calls);
+    }
+
+    /**
+     * Creates a Board holding the same calls, for passing to a BiddingSystem
+     */
+    public Board toBoard() {
+        Board board = new Board();
+        board.addAll(toList());
+        return board;
+    }
+
+    /**
+     * Generate an array of strings to display the bidding
+     */
+    public String[] getDisplay() {
+        String[] result = new String[_size];
+        int rx = 0;
+        for (Bid call : toList()) {
+            result[rx++] = call.toString();
+        }
+        return result;
+    }
+
+    /**
+     * Auctions are equal if they have the same calls by the same positions
+     */
+    @Override
+    public boolean equals(
+        final Object obj
+    ) {
+        if (!(obj instanceof Auction)) {
+            return false;
+        }
+
+        Auction a1 = this;
+        Auction a2 = (Auction) obj;
+        if ((a1._size != a2._size) || (a1._hash != a2._hash)) {
+            return false;
+        }
+        while ((a1 != a2) && (a1._size > 0)) {
+            if (a1._call != a2._call) {
+                return false;
+            }
+            a1 = a1._parent;
+            a2 = a2._parent;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return _hash;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(" ", getDisplay());
+    }
+}
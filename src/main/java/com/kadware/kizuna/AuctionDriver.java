@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Bids deals to completion with a BiddingSystem.
+ * Starting with the dealer and going round the table in Position.getValuesByOrdinal() order, each position is asked
+ * for its call via recommendBid(), and the call is applied with Board.establishBid(), until the auction is over.
+ * A position whose system has nothing to say (null) or recommends an illegal call is taken to pass, and the number
+ * of such substitutions is reported with the result.
+ *
+ * Batches of deals are split into chunks which run on a ForkJoinPool. The BiddingSystem must be safe to call from
+ * several threads at once - AmericanStandardSystem and CachingBiddingSystem are.
+ */
+public class AuctionDriver {
+
+    private static final int CHUNK_SIZE = 1 << 8;
+
+    private final BiddingSystem _system;
+    private final ForkJoinPool _pool;
+
+    public AuctionDriver(
+        final BiddingSystem system
+    ) {
+        this(system, ForkJoinPool.commonPool());
+    }
+
+    public AuctionDriver(
+        final BiddingSystem system,
+        final ForkJoinPool pool
+    ) {
+        _system = system;
+        _pool = pool;
+    }
+
+    /**
+     * The completed auction for one deal
+     */
+    public static class Result {
+
+        public final Auction _auction;
+        public final int _substitutions;    //  calls taken to be passes, as the system gave none or an illegal one
+
+        private Result(
+            final Auction auction,
+            final int substitutions
+        ) {
+            _auction = auction;
+            _substitutions = substitutions;
+        }
+
+        /**
+         * The final contract, or null if the deal was passed out
+         */
+        public Contract getContract() {
+            return _auction.getContract();
+        }
+
+        @Override
+        public String toString() {
+            Contract contract = getContract();
+            return String.format("%s -> %s", _auction, (contract == null) ? "Passed out" : contract.toString());
+        }
+    }
+
+    /**
+     * Results for a batch of deals, in the same order as the deals
+     */
+    public static class Batch {
+
+        public final List<Result> _results;
+        public final long _elapsedNanos;
+
+        private Batch(
+            final List<Result> results,
+            final long elapsedNanos
+        ) {
+            _results = results;
+            _elapsedNanos = elapsedNanos;
+        }
+
+        public double getAuctionsPerSecond() {
+            return _elapsedNanos == 0 ? 0.0 : _results.size() * 1e9 / _elapsedNanos;
+        }
+
+        public long getCalls() {
+            long calls = 0;
+            for (Result result : _results) {
+                calls += result._auction.size();
+            }
+            return calls;
+        }
+
+        public double getCallsPerSecond() {
+            return _elapsedNanos == 0 ? 0.0 : getCalls() * 1e9 / _elapsedNanos;
+        }
+
+        public long getPassedOut() {
+            long count = 0;
+            for (Result result : _results) {
+                if (result._auction.getHighestBid() == null) {
+                    ++count;
+                }
+            }
+            return count;
+        }
+
+        public long getSubstitutions() {
+            long count = 0;
+            for (Result result : _results) {
+                count += result._substitutions;
+            }
+            return count;
+        }
+
+        /**
+         * Generates an array of strings describing the batch - totals, then the number of contracts at each
+         * level (columns) in each strain (rows)
+         */
+        public String[] getDisplay() {
+            long[] contracts = new long[35];
+            for (Result result : _results) {
+                Bid highest = result._auction.getHighestBid();
+                if (highest != null) {
+                    ++contracts[highest._code - Bid.FIRST_CONTRACT];
+                }
+            }
+
+            String[] result = new String[7];
+            result[0] = String.format("Auctions=%d  Passed out=%d  Calls=%d  Substitutions=%d  Auctions/sec=%.0f  Calls/sec=%.0f",
+                                      _results.size(),
+                                      getPassedOut(),
+                                      getCalls(),
+                                      getSubstitutions(),
+                                      getAuctionsPerSecond(),
+                                      getCallsPerSecond());
+            result[1] = String.format("  %-3s%10s%10s%10s%10s%10s%10s%10s", "", "1", "2", "3", "4", "5", "6", "7");
+            String[] strains = { "C", "D", "H", "S", "NT" };
+            for (int strain = 0; strain < 5; ++strain) {
+                StringBuilder sb = new StringBuilder();
+                sb.append(String.format("  %-3s", strains[strain]));
+                for (int level = 1; level <= 7; ++level) {
+                    sb.append(String.format("%10d", contracts[(level - 1) * 5 + strain]));
+                }
+                result[strain + 2] = sb.toString();
+            }
+            return result;
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Bids one deal to completion
+     */
+    public Result run(
+        final Deal deal,
+        final Position dealer
+    ) {
+        return run(deal, dealer, Commentary.DISABLED);
+    }
+
+    /**
+     * Bids one deal to completion, with the system explaining each call to the given commentary
+     */
+    public Result run(
+        final Deal deal,
+        final Position dealer,
+        final Commentary commentary
+    ) {
+        Position[] positions = Position.getValuesByOrdinal();
+        Hand[] hands = new Hand[4];
+        for (int px = 0; px < 4; ++px) {
+            hands[px] = deal.getHand(positions[px]);
+        }
+
+        Board board = new Board();
+        int substitutions = bid(hands, dealer, board, (hand, current) -> _system.recommendBid(hand, current, commentary));
+        return new Result(Auction.of(board), substitutions);
+    }
+
+    /**
+     * Source of the calls for bid()
+     */
+    @FunctionalInterface
+    interface Caller {
+
+        Bid getCall(
+            final Hand hand,
+            final Board board
+        );
+    }
+
+    /**
+     * Bids an auction to completion on the given empty board, asking the caller for each call in turn from the dealer
+     * and substituting a pass for a missing or illegal one. This is the auction loop for run(), and for
+     * BiddingRegression, whose calls must be exactly those which run() would make.
+     * @param hands indexed by Position.ordinal()
+     * @return the number of substitutions
+     */
+    static int bid(
+        final Hand[] hands,
+        final Position dealer,
+        final Board board,
+        final Caller caller
+    ) {
+        int substitutions = 0;
+        int px = dealer.ordinal();
+        while (!board.isPassedOut()) {
+            Position position = hands[px]._position;
+            Bid bid = caller.getCall(hands[px], board);
+            if ((bid == null) || (bid._position != position) || !board.establishBid(bid)) {
+                ++substitutions;
+                board.add(Bid.getPass(position));
+            }
+            px = (px + 1) & 3;
+        }
+        return substitutions;
+    }
+
+    /**
+     * Runs a contiguous range of deals
+     */
+    @SuppressWarnings("serial")
+    private class Task extends RecursiveAction {
+
+        private final List<Deal> _deals;
+        private final Position _dealer;
+        private final Result[] _results;
+        private final int _first;
+        private final int _limit;
+
+        private Task(
+            final List<Deal> deals,
+            final Position dealer,
+            final Result[] results,
+            final int first,
+            final int limit
+        ) {
+            _deals = deals;
+            _dealer = dealer;
+            _results = results;
+            _first = first;
+            _limit = limit;
+        }
+
+        @Override
+        protected void compute() {
+            if (_limit - _first > CHUNK_SIZE) {
+                int middle = _first + (_limit - _first) / 2;
+                invokeAll(new Task(_deals, _dealer, _results, _first, middle),
+                          new Task(_deals, _dealer, _results, middle, _limit));
+                return;
+            }
+
+            for (int dx = _first; dx < _limit; ++dx) {
+                _results[dx] = run(_deals.get(dx), _dealer);
+            }
+        }
+    }
+
+    /**
+     * Bids a batch of deals, all with the same dealer
+     */
+    public Batch runAll(
+        final List<Deal> deals,
+        final Position dealer
+    ) {
+        long startTime = System.nanoTime();
+        Result[] results = new Result[deals.size()];
+        if (!deals.isEmpty()) {
+            _pool.invoke(new Task(deals instanceof RandomAccess ? deals : new ArrayList<>(deals),
+                                  dealer,
+                                  results,
+                                  0,
+                                  deals.size()));
+        }
+        return new Batch(Arrays.asList(results), System.nanoTime() - startTime);
+    }
+}
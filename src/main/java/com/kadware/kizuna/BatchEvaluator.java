@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+/**
+ * Evaluates many hands at once - the same metrics Hand provides (HCP, quick tricks, suit lengths, stoppers,
+ * length in majors, and long suit), for an array of CardMasks, written into the primitive arrays of a Results.
+ * No Hand, Distribution, or SuitSet objects are created.
+ *
+ * getInstance() returns an implementation using the incubating jdk.incubator.vector API if that module is present
+ * (--add-modules jdk.incubator.vector) and the machine has 512-bit vectors; otherwise the scalar implementation.
+ * Both give identical results. Evaluators hold no state, and may be used from several threads at once.
+ */
+public abstract class BatchEvaluator {
+
+    private static final BatchEvaluator SCALAR = new Scalar();
+    private static final BatchEvaluator INSTANCE = createInstance();
+
+    BatchEvaluator() {}
+
+    private static BatchEvaluator createInstance() {
+        try {
+            return (BatchEvaluator) Class.forName("com.kadware.kizuna.VectorBatchEvaluator")
+                                         .getDeclaredConstructor()
+                                         .newInstance();
+        } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException ex) {
+            return SCALAR;
+        }
+    }
+
+    /**
+     * The fastest evaluator available
+     */
+    public static BatchEvaluator getInstance() {
+        return INSTANCE;
+    }
+
+    public static BatchEvaluator getScalarInstance() {
+        return SCALAR;
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Results of evaluating a batch - one column per metric, with the hands in the order given to evaluate()
+     */
+    public static class Results {
+
+        public final byte[] _highCardPoints;
+        public final byte[] _quickTrickHalves;  //  quick tricks in half-trick units
+        public final byte[][] _lengths;         //  indexed by Suit._bidOrder, then hand
+        public final byte[] _stoppers;          //  bit Suit._bidOrder set for each suit with a stopper
+        public final byte[] _probableStoppers;  //  bit Suit._bidOrder set for each suit with a probable stopper
+        public final boolean[] _lengthInMajors; //  as for Hand.hasLengthInMajors()
+        public final boolean[] _longSuit;       //  as for Hand.hasLongSuit()
+
+        public Results(
+            final int capacity
+        ) {
+            _highCardPoints = new byte[capacity];
+            _quickTrickHalves = new byte[capacity];
+            _lengths = new byte[4][capacity];
+            _stoppers = new byte[capacity];
+            _probableStoppers = new byte[capacity];
+            _lengthInMajors = new boolean[capacity];
+            _longSuit = new boolean[capacity];
+        }
+
+        public int getCapacity() {
+            return _highCardPoints.length;
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Evaluates the hands in cards[offset] to cards[offset + count - 1], storing the results for each
+     * at index 0 to count - 1 of the results
+     */
+    public void evaluate(
+        final long[] cards,
+        final int offset,
+        final int count,
+        final Results results
+    ) {
+        if ((offset < 0) || (count < 0) || (offset + count > cards.length)) {
+            throw new RuntimeException("Batch is outside the array of cards");
+        }
+        if (count > results.getCapacity()) {
+            throw new RuntimeException("Batch is larger than the results");
+        }
+        evaluateRange(cards, offset, count, results);
+    }
+
+    public void evaluate(
+        final long[] cards,
+        final Results results
+    ) {
+        evaluate(cards, 0, cards.length, results);
+    }
+
+    /**
+     * Indicates whether this evaluator uses vector instructions
+     */
+    public abstract boolean isVectorized();
+
+    abstract void evaluateRange(
+        final long[] cards,
+        final int offset,
+        final int count,
+        final Results results
+    );
+
+    /**
+     * Evaluates hands one at a time, with one HoldingTable entry per suit
+     */
+    static void evaluateScalar(
+        final long[] cards,
+        final int offset,
+        final int first,
+        final int limit,
+        final Results results
+    ) {
+        byte[] clubs = results._lengths[Suit.CLUBS._bidOrder];
+        byte[] diamonds = results._lengths[Suit.DIAMONDS._bidOrder];
+        byte[] hearts = results._lengths[Suit.HEARTS._bidOrder];
+        byte[] spades = results._lengths[Suit.SPADES._bidOrder];
+        byte[] highCardPoints = results._highCardPoints;
+        byte[] quickTricks = results._quickTrickHalves;
+        byte[] stopperBits = results._stoppers;
+        byte[] probableStopperBits = results._probableStoppers;
+        boolean[] lengthInMajors = results._lengthInMajors;
+        boolean[] longSuit = results._longSuit;
+        for (int hx = first; hx < limit; ++hx) {
+            long hand = cards[offset + hx];
+            int hcp = 0;
+            int quickTrickHalves = 0;
+            int stoppers = 0;
+            int probableStoppers = 0;
+            for (int sx = 0; sx < 4; ++sx) {
+                int holding = (int) (hand >>> (sx * CardMask.RANKS_PER_SUIT)) & CardMask.HOLDING_MASK;
+                hcp += HoldingTable.getHighCardPoints(holding);
+                quickTrickHalves += HoldingTable.getQuickTrickHalves(holding);
+                stoppers |= (HoldingTable.hasStopper(holding) ? 1 : 0) << sx;
+                probableStoppers |= (HoldingTable.hasProbableStopper(holding) ? 1 : 0) << sx;
+            }
+
+            //  Non-short-circuit operators, so there are no branches to mispredict
+            int c = Long.bitCount(hand & CardMask.HOLDING_MASK);
+            int d = Long.bitCount((hand >>> CardMask.RANKS_PER_SUIT) & CardMask.HOLDING_MASK);
+            int h = Long.bitCount((hand >>> (2 * CardMask.RANKS_PER_SUIT)) & CardMask.HOLDING_MASK);
+            int s = Long.bitCount(hand >>> (3 * CardMask.RANKS_PER_SUIT));
+            clubs[hx] = (byte) c;
+            diamonds[hx] = (byte) d;
+            hearts[hx] = (byte) h;
+            spades[hx] = (byte) s;
+            highCardPoints[hx] = (byte) hcp;
+            quickTricks[hx] = (byte) quickTrickHalves;
+            stopperBits[hx] = (byte) stoppers;
+            probableStopperBits[hx] = (byte) probableStoppers;
+            lengthInMajors[hx] = ((s >= 5) & (h >= 3)) | ((h >= 5) & (s >= 3)) | ((h == 4) & (s == 4));
+            longSuit[hx] = (Math.max(Math.max(c, d), Math.max(h, s)) >= 5);
+        }
+    }
+
+    private static class Scalar extends BatchEvaluator {
+
+        @Override
+        public boolean isVectorized() {
+            return false;
+        }
+
+        @Override
+        void evaluateRange(
+            final long[] cards,
+            final int offset,
+            final int count,
+            final Results results
+        ) {
+            evaluateScalar(cards, offset, 0, count, results);
+        }
+    }
+}
@@ -1,67 +1,174 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
 package com.kadware.kizuna;
 
-public abstract class Bid {
+/**
+ * A call made during the auction.
+ * Calls are interned - there is exactly one instance for each call by each position, obtained from the static
+ * factory methods - and each has a small integer code whose order is the order of the calls: PASS, DOUBLE,
+ * and REDOUBLE, then the contract bids from 1C (FIRST_CONTRACT) up to 7NT.
+ * Bids compare, hash, and are equal according to the code alone, regardless of position.
+ */
+public abstract class Bid implements Comparable<Bid> {
+
+    public static final int PASS = 0;
+    public static final int DOUBLE = 1;
+    public static final int REDOUBLE = 2;
+    public static final int FIRST_CONTRACT = 3;     //  contract codes are FIRST_CONTRACT + (level - 1) * 5 + strain
+    public static final int CODES = FIRST_CONTRACT + 35;
+    public static final int NO_TRUMP = 4;           //  strain for no-trump - suits are Suit._bidOrder
+
+    //  Interned calls, indexed by Position.ordinal() * CODES + code
+    private static final Bid[] CALLS = new Bid[4 * CODES];
+    static {
+        for (Position position : Position.values()) {
+            int base = position.ordinal() * CODES;
+            CALLS[base + PASS] = new Pass(position);
+            CALLS[base + DOUBLE] = new Double(position);
+            CALLS[base + REDOUBLE] = new Redouble(position);
+            for (int level = 1; level <= 7; ++level) {
+                for (Suit suit : Suit.values()) {
+                    CALLS[base + getCode(level, suit._bidOrder)] = new SuitBid(position, level, suit);
+                }
+                CALLS[base + getCode(level, NO_TRUMP)] = new NoTrumpBid(position, level);
+            }
+        }
+    }
 
     public final Position _position;
+    public final int _code;
 
     private Bid(
-        final Position position
+        final Position position,
+        final int code
     ) {
         _position = position;
+        _code = code;
+    }
+
+    /**
+     * Retrieves the given position's call with the given code
+     */
+    public static Bid of(
+        final Position position,
+        final int code
+    ) {
+        if ((code < 0) || (code >= CODES)) {
+            throw new RuntimeException("Invalid code for Bid");
+        }
+        return CALLS[position.ordinal() * CODES + code];
+    }
+
+    public static Pass getPass(
+        final Position position
+    ) {
+        return (Pass) CALLS[position.ordinal() * CODES + PASS];
+    }
+
+    public static Double getDouble(
+        final Position position
+    ) {
+        return (Double) CALLS[position.ordinal() * CODES + DOUBLE];
+    }
+
+    public static Redouble getRedouble(
+        final Position position
+    ) {
+        return (Redouble) CALLS[position.ordinal() * CODES + REDOUBLE];
+    }
+
+    public static SuitBid getSuitBid(
+        final Position position,
+        final int level,
+        final Suit suit
+    ) {
+        checkLevel(level);
+        return (SuitBid) CALLS[position.ordinal() * CODES + getCode(level, suit._bidOrder)];
+    }
+
+    public static NoTrumpBid getNoTrumpBid(
+        final Position position,
+        final int level
+    ) {
+        checkLevel(level);
+        return (NoTrumpBid) CALLS[position.ordinal() * CODES + getCode(level, NO_TRUMP)];
+    }
+
+    /**
+     * Code for the contract bid at the given level and strain (Suit._bidOrder, or NO_TRUMP)
+     */
+    public static int getCode(
+        final int level,
+        final int strain
+    ) {
+        return FIRST_CONTRACT + (level - 1) * 5 + strain;
+    }
+
+    private static void checkLevel(
+        final int level
+    ) {
+        if ((level < 1) || (level > 7)) {
+            throw new RuntimeException("Invalid level in Bid");
+        }
+    }
+
+    /**
+     * Indicates whether this is a contract bid, rather than pass, double, or redouble
+     */
+    public boolean isContract() {
+        return _code >= FIRST_CONTRACT;
+    }
+
+    @Override
+    public int compareTo(
+        final Bid bid
+    ) {
+        return _code - bid._code;
     }
 
+    @Override
+    public boolean equals(
+        final Object obj
+    ) {
+        return (obj instanceof Bid) && (((Bid) obj)._code == _code);
+    }
+
+    @Override
+    public int hashCode() {
+        return _code;
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
     public static abstract class RealBid extends Bid {
 
         public final int _level;
 
         private RealBid(
             final Position position,
-            final int level
+            final int level,
+            final int strain
         ) {
-            super(position);
+            super(position, getCode(level, strain));
             _level = level;
         }
-
-        public abstract int compareTo(
-            final Bid bid
-        );
     }
 
     public static class SuitBid extends RealBid {
 
         public final Suit _suit;
 
-        SuitBid(
+        private SuitBid(
             final Position position,
             final int level,
             final Suit suit
         ) {
-            super(position, level);
+            super(position, level, suit._bidOrder);
             _suit = suit;
         }
 
-        @Override
-        public int compareTo(
-            final Bid bid
-        ) {
-            if (bid instanceof SuitBid) {
-                if (_level < ((SuitBid) bid)._level) return -1;
-                if (_level > ((SuitBid) bid)._level) return 1;
-                return _suit._bidOrder - ((SuitBid) bid)._suit._bidOrder;
-            } else if (bid instanceof NoTrumpBid) {
-                return (_level <= ((NoTrumpBid) bid)._level) ? -1 : 1;
-            } else {
-                throw new RuntimeException("Nonsense comparison");
-            }
-        }
-
-        @Override
-        public boolean equals(
-            final Object obj
-        ) {
-            return (obj instanceof SuitBid) && (_level == ((SuitBid) obj)._level) && (_suit == ((SuitBid) obj)._suit);
-        }
-
         @Override
         public String toString() {
             return String.format("%s:%d%s", _position.toString(), _level, _suit.toString());
@@ -70,31 +177,11 @@ public abstract class Bid {
 
     public static class NoTrumpBid extends RealBid {
 
-        public NoTrumpBid(
+        private NoTrumpBid(
             final Position position,
             final int level
         ) {
-            super(position, level);
-        }
-
-        @Override
-        public int compareTo(
-            final Bid bid
-        ) {
-            if (bid instanceof SuitBid) {
-                return _level >= ((SuitBid) bid)._level ? 1 : -1;
-            } else if (bid instanceof NoTrumpBid) {
-                return _level - ((NoTrumpBid) bid)._level;
-            } else {
-                throw new RuntimeException("Nonsense comparison");
-            }
-        }
-
-        @Override
-        public boolean equals(
-            final Object obj
-        ) {
-            return (obj instanceof NoTrumpBid) && (_level == ((NoTrumpBid) obj)._level);
+            super(position, level, NO_TRUMP);
         }
 
         @Override
@@ -105,17 +192,10 @@ public abstract class Bid {
 
     public static class Double extends Bid {
 
-        public Double(
+        private Double(
             final Position position
         ) {
-            super(position);
-        }
-
-        @Override
-        public boolean equals(
-            final Object obj
-        ) {
-            return obj instanceof Double;
+            super(position, DOUBLE);
         }
 
         @Override
@@ -126,17 +206,10 @@ public abstract class Bid {
 
     public static class Redouble extends Bid {
 
-        public Redouble(
+        private Redouble(
             final Position position
         ) {
-            super(position);
-        }
-
-        @Override
-        public boolean equals(
-            final Object obj
-        ) {
-            return obj instanceof Redouble;
+            super(position, REDOUBLE);
         }
 
         @Override
@@ -147,17 +220,10 @@ public abstract class Bid {
 
     public static class Pass extends Bid {
 
-        public Pass(
+        private Pass(
             final Position position
         ) {
-            super(position);
-        }
-
-        @Override
-        public boolean equals(
-            final Object obj
-        ) {
-            return obj instanceof Pass;
+            super(position, PASS);
         }
 
         @Override
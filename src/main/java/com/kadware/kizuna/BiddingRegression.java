@@ -0,0 +1,735 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Regression harness for bidding systems - replays a fixed corpus of seeded deals through recommendBid(),
+ * bidding each to completion as AuctionDriver does, and compares the result with a golden run recorded earlier.
+ * The check fails if any call differs from the golden run, if the system makes a different call when asked to explain
+ * itself, or if deals per second fall below the budget - a fraction of the golden rate, and optionally a fixed minimum.
+ * This is what allows the rule code to be refactored for speed with confidence.
+ *
+ * Every call is also attributed to the rule path which produced it - the sequence of rules the system remarked upon
+ * when asked again with a Commentary.Recorder - and timed, so that the report can name the paths whose decisions
+ * changed or which got slower. Path timings include the cost of reading the clock, so they are only comparable
+ * with other runs of this harness; calls longer than MAX_CALL_NANOS are left out of them, as such a call was
+ * interrupted by a collection or a compilation which would otherwise be charged to whichever path was running.
+ *
+ * Everything runs on the calling thread, as the timings are the point. The corpus is deal numbers 0 to deals - 1
+ * of a DealGenerator with the given seed, with the dealer rotating from SOUTH, so the golden file holds only
+ * the calls, paths, and timings - not the deals.
+ */
+public class BiddingRegression {
+
+    public static final long DEFAULT_SEED = 20200101L;
+    public static final int DEFAULT_DEALS = 4_000_000;
+    public static final double DEFAULT_TOLERANCE = 0.10;
+
+    private static final long MAGIC = 0x324E45444C4F474BL;   //  "KGOLDEN2"
+    private static final int NO_CALL = 0xFF;                   //  recorded when the system has nothing to say
+    private static final int WARMUP_DEALS = 1 << 18;
+    private static final int TIMED_PASSES = 5;                 //  the fastest is kept
+    private static final long MIN_TIMED_CALLS = 1000;          //  paths with fewer calls are too noisy to compare
+    private static final long MAX_CALL_NANOS = 50_000;         //  longer calls were interrupted by GC or compilation
+    private static final int MAX_EXAMPLES = 10;
+
+    private final BiddingSystem _system;
+    private final long _seed;
+    private final int _deals;
+    private final long[] _hands;    //  CardMasks, four per deal, by Position.ordinal()
+
+    public BiddingRegression(
+        final BiddingSystem system
+    ) {
+        this(system, DEFAULT_SEED, DEFAULT_DEALS);
+    }
+
+    public BiddingRegression(
+        final BiddingSystem system,
+        final long seed,
+        final int deals
+    ) {
+        if ((deals <= 0) || (deals > Integer.MAX_VALUE / 4)) {
+            throw new RuntimeException("Invalid corpus size: " + deals);
+        }
+
+        _system = system;
+        _seed = seed;
+        _deals = deals;
+        _hands = new long[deals * 4];
+        DealGenerator generator = new DealGenerator(seed);
+        long[] hands = new long[4];
+        for (int dx = 0; dx < deals; ++dx) {
+            generator.deal(dx, hands);
+            System.arraycopy(hands, 0, _hands, dx * 4, 4);
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * The outcome of one replay of the corpus, which may be written out as the golden run and read back later
+     */
+    public static class Run {
+
+        public final String _system;
+        public final long _seed;
+        public final int _deals;
+        public final double _dealsPerSecond;
+        public final long _inconsistentCalls;   //  calls which came out differently when the system explained itself
+
+        private final short[] _callCounts;      //  number of calls in each deal's auction - there may be up to 319
+        private final byte[] _calls;            //  every call of every deal, in order (see encodeCall())
+        private final short[] _paths;           //  path of each call
+        private final String[] _pathNames;
+        private final long[] _pathCalls;
+        private final long[] _pathTimedCalls;
+        private final long[] _pathNanos;
+
+        private Run(
+            final String system,
+            final long seed,
+            final int deals,
+            final double dealsPerSecond,
+            final long inconsistentCalls,
+            final short[] callCounts,
+            final byte[] calls,
+            final short[] paths,
+            final String[] pathNames,
+            final long[] pathCalls,
+            final long[] pathTimedCalls,
+            final long[] pathNanos
+        ) {
+            _system = system;
+            _seed = seed;
+            _deals = deals;
+            _dealsPerSecond = dealsPerSecond;
+            _inconsistentCalls = inconsistentCalls;
+            _callCounts = callCounts;
+            _calls = calls;
+            _paths = paths;
+            _pathNames = pathNames;
+            _pathCalls = pathCalls;
+            _pathTimedCalls = pathTimedCalls;
+            _pathNanos = pathNanos;
+        }
+
+        public int getPathCount() {
+            return _pathNames.length;
+        }
+
+        public String getPathName(
+            final int path
+        ) {
+            return _pathNames[path];
+        }
+
+        public long getPathCalls(
+            final int path
+        ) {
+            return _pathCalls[path];
+        }
+
+        public double getPathNanosPerCall(
+            final int path
+        ) {
+            return _pathTimedCalls[path] == 0 ? 0.0 : (double) _pathNanos[path] / _pathTimedCalls[path];
+        }
+
+        private int findPath(
+            final String name
+        ) {
+            for (int px = 0; px < _pathNames.length; ++px) {
+                if (_pathNames[px].equals(name)) {
+                    return px;
+                }
+            }
+            return -1;
+        }
+
+        public static Run read(
+            final Path path
+        ) throws IOException {
+            try (DataInputStream input =
+                     new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+                if (input.readLong() != MAGIC) {
+                    throw new RuntimeException("Not a golden bidding run: " + path);
+                }
+                String system = input.readUTF();
+                long seed = input.readLong();
+                int deals = input.readInt();
+                double dealsPerSecond = input.readDouble();
+                long inconsistentCalls = input.readLong();
+
+                int pathCount = input.readInt();
+                String[] pathNames = new String[pathCount];
+                long[] pathCalls = new long[pathCount];
+                long[] pathTimedCalls = new long[pathCount];
+                long[] pathNanos = new long[pathCount];
+                for (int px = 0; px < pathCount; ++px) {
+                    pathNames[px] = input.readUTF();
+                    pathCalls[px] = input.readLong();
+                    pathTimedCalls[px] = input.readLong();
+                    pathNanos[px] = input.readLong();
+                }
+
+                short[] callCounts = new short[deals];
+                for (int dx = 0; dx < deals; ++dx) {
+                    callCounts[dx] = input.readShort();
+                }
+                byte[] calls = new byte[input.readInt()];
+                input.readFully(calls);
+                short[] paths = new short[calls.length];
+                for (int cx = 0; cx < paths.length; ++cx) {
+                    paths[cx] = input.readShort();
+                }
+                return new Run(system,
+                               seed,
+                               deals,
+                               dealsPerSecond,
+                               inconsistentCalls,
+                               callCounts,
+                               calls,
+                               paths,
+                               pathNames,
+                               pathCalls,
+                               pathTimedCalls,
+                               pathNanos);
+            }
+        }
+
+        public void write(
+            final Path path
+        ) throws IOException {
+            try (DataOutputStream output =
+                     new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path))))) {
+                output.writeLong(MAGIC);
+                output.writeUTF(_system);
+                output.writeLong(_seed);
+                output.writeInt(_deals);
+                output.writeDouble(_dealsPerSecond);
+                output.writeLong(_inconsistentCalls);
+
+                output.writeInt(_pathNames.length);
+                for (int px = 0; px < _pathNames.length; ++px) {
+                    output.writeUTF(_pathNames[px]);
+                    output.writeLong(_pathCalls[px]);
+                    output.writeLong(_pathTimedCalls[px]);
+                    output.writeLong(_pathNanos[px]);
+                }
+
+                for (short count : _callCounts) {
+                    output.writeShort(count);
+                }
+                output.writeInt(_calls.length);
+                output.write(_calls);
+                for (short p : _paths) {
+                    output.writeShort(p);
+                }
+            }
+        }
+
+        /**
+         * Generates an array of strings describing the run - totals, then each path with its share of the calls
+         */
+        public String[] getDisplay() {
+            List<String> result = new ArrayList<>();
+            result.add(String.format("System=%s  Seed=%d  Deals=%d  Calls=%d  Deals/sec=%.0f  Inconsistent calls=%d",
+                                     _system,
+                                     _seed,
+                                     _deals,
+                                     _paths.length,
+                                     _dealsPerSecond,
+                                     _inconsistentCalls));
+            Integer[] order = new Integer[_pathNames.length];
+            for (int px = 0; px < order.length; ++px) {
+                order[px] = px;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(_pathCalls[b], _pathCalls[a]));
+            for (int px : order) {
+                result.add(String.format("  %10d calls %8.1f ns/call  %s",
+                                         _pathCalls[px],
+                                         getPathNanosPerCall(px),
+                                         _pathNames[px]));
+            }
+            return result.toArray(new String[0]);
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * The comparison of a run with the golden run
+     */
+    public static class Report {
+
+        public final Run _golden;
+        public final Run _current;
+        public final double _minimumDealsPerSecond;     //  the budget - the larger of the tolerance and fixed minimum
+        public final long _changedDeals;                //  deals with any call different from the golden run
+        public final long _reroutedCalls;               //  calls which are the same, but reached by a different path
+        public final Map<String, Long> _changedPaths;   //  golden path of the first differing call -> number of deals
+        public final Map<String, Long> _reroutedPaths;  //  "golden path -> current path" -> number of calls
+        public final Map<String, Double> _slowerPaths;  //  path -> current ns/call over golden ns/call
+        public final List<String> _examples;            //  the first few changed deals
+
+        private Report(
+            final Run golden,
+            final Run current,
+            final double minimumDealsPerSecond,
+            final long changedDeals,
+            final long reroutedCalls,
+            final Map<String, Long> changedPaths,
+            final Map<String, Long> reroutedPaths,
+            final Map<String, Double> slowerPaths,
+            final List<String> examples
+        ) {
+            _golden = golden;
+            _current = current;
+            _minimumDealsPerSecond = minimumDealsPerSecond;
+            _changedDeals = changedDeals;
+            _reroutedCalls = reroutedCalls;
+            _changedPaths = changedPaths;
+            _reroutedPaths = reroutedPaths;
+            _slowerPaths = slowerPaths;
+            _examples = examples;
+        }
+
+        public boolean isWithinBudget() {
+            return _current._dealsPerSecond >= _minimumDealsPerSecond;
+        }
+
+        /**
+         * True if every call matches the golden run, the system made the same calls when explaining itself,
+         * and the run is within budget
+         */
+        public boolean isPassed() {
+            return (_changedDeals == 0) && (_current._inconsistentCalls == 0) && isWithinBudget();
+        }
+
+        public String[] getDisplay() {
+            List<String> result = new ArrayList<>();
+            result.add(String.format("%s  Deals=%d  Changed deals=%d  Inconsistent calls=%d  Rerouted calls=%d",
+                                     isPassed() ? "PASSED" : "FAILED",
+                                     _current._deals,
+                                     _changedDeals,
+                                     _current._inconsistentCalls,
+                                     _reroutedCalls));
+            result.add(String.format("Deals/sec=%.0f  Golden=%.0f (%+.1f%%)  Budget=%.0f%s",
+                                     _current._dealsPerSecond,
+                                     _golden._dealsPerSecond,
+                                     100.0 * (_current._dealsPerSecond / _golden._dealsPerSecond - 1.0),
+                                     _minimumDealsPerSecond,
+                                     isWithinBudget() ? "" : "  OVER BUDGET"));
+            if (!_changedPaths.isEmpty()) {
+                result.add("Changed decisions, by golden path:");
+                for (Map.Entry<String, Long> entry : _changedPaths.entrySet()) {
+                    result.add(String.format("  %10d deals  %s", entry.getValue(), entry.getKey()));
+                }
+                for (String example : _examples) {
+                    result.add("  " + example);
+                }
+            }
+            if (!_reroutedPaths.isEmpty()) {
+                result.add("Same decisions by different paths:");
+                for (Map.Entry<String, Long> entry : _reroutedPaths.entrySet()) {
+                    result.add(String.format("  %10d calls  %s", entry.getValue(), entry.getKey()));
+                }
+            }
+            if (!_slowerPaths.isEmpty()) {
+                result.add("Slower paths:");
+                for (Map.Entry<String, Double> entry : _slowerPaths.entrySet()) {
+                    int cx = _current.findPath(entry.getKey());
+                    int gx = _golden.findPath(entry.getKey());
+                    result.add(String.format("  %8.1f ns/call  golden %8.1f (%+.1f%%)  %s",
+                                             _current.getPathNanosPerCall(cx),
+                                             _golden.getPathNanosPerCall(gx),
+                                             100.0 * (entry.getValue() - 1.0),
+                                             entry.getKey()));
+                }
+            }
+            return result.toArray(new String[0]);
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Describes the system, so that a golden run is never compared with a run of a differently configured system.
+     * Whether the opening rules are compiled is deliberately left out - that must not change any decision.
+     */
+    private static String describe(
+        final BiddingSystem system
+    ) {
+        if (system instanceof AmericanStandardSystem) {
+            AmericanStandardSystem american = (AmericanStandardSystem) system;
+            return String.format("AmericanStandard(fiveCardMajors=%s,invertedMinorRaise=%s,stayman=%s)",
+                                 american._fiveCardMajors,
+                                 american._invertedMinorRaise,
+                                 american._staymanConvention);
+        }
+        return system.getClass().getSimpleName();
+    }
+
+    /**
+     * A call as a byte - the bidder's Position ordinal in bits 6 and 7, then Bid._code; or NO_CALL
+     */
+    private static int encodeCall(
+        final Bid bid
+    ) {
+        return (bid == null) ? NO_CALL : (bid._position.ordinal() << 6) | bid._code;
+    }
+
+    private static String decodeCall(
+        final int call
+    ) {
+        return (call == NO_CALL) ? "none" : Bid.of(Position.values()[call >> 6], call & 0x3f).toString();
+    }
+
+    /**
+     * The path of the rules which a commentary recorded, as the rule names joined by '>'
+     */
+    private static String getPathName(
+        final Commentary.Recorder recorder
+    ) {
+        StringBuilder sb = new StringBuilder();
+        for (int rx = 0; rx < recorder.size(); ++rx) {
+            Commentary.Rule rule = recorder.getRule(rx);
+            if (rx > 0) {
+                sb.append('>');
+            }
+            sb.append((rule instanceof Enum) ? ((Enum<?>) rule).name() : rule.toString());
+        }
+        return (sb.length() == 0) ? "(no remarks)" : sb.toString();
+    }
+
+    private void getHands(
+        final int deal,
+        final Hand[] hands
+    ) {
+        Position[] positions = Position.values();
+        for (int px = 0; px < 4; ++px) {
+            hands[px] = new Hand(positions[px], _hands[deal * 4 + px]);
+        }
+    }
+
+    /**
+     * Makes each call without commentary, and appends it to a buffer which grows as needed - this is what is timed
+     */
+    private class CallWriter implements AuctionDriver.Caller {
+
+        private byte[] _calls = new byte[1 << 16];
+        private int _size;
+
+        @Override
+        public Bid getCall(
+            final Hand hand,
+            final Board board
+        ) {
+            Bid bid = _system.recommendBid(hand, board, Commentary.DISABLED);
+            if (_size == _calls.length) {
+                _calls = Arrays.copyOf(_calls, _size * 2);
+            }
+            _calls[_size++] = (byte) encodeCall(bid);
+            return bid;
+        }
+    }
+
+    /**
+     * Makes each call twice - timed without commentary, then again with a recorder to find its path
+     */
+    private class PathTracer implements AuctionDriver.Caller {
+
+        private final Commentary.Recorder _recorder = new Commentary.Recorder();
+        private final Map<String, Integer> _pathIds = new HashMap<>();
+        private final List<String> _pathNames = new ArrayList<>();
+        private long[] _pathCalls = new long[16];
+        private long[] _pathTimedCalls = new long[16];
+        private long[] _pathNanos = new long[16];
+        private final short[] _paths;
+        private int _size;
+        private long _inconsistentCalls;
+
+        private PathTracer(
+            final int calls
+        ) {
+            _paths = new short[calls];
+        }
+
+        @Override
+        public Bid getCall(
+            final Hand hand,
+            final Board board
+        ) {
+            long startTime = System.nanoTime();
+            Bid bid = _system.recommendBid(hand, board, Commentary.DISABLED);
+            long nanos = System.nanoTime() - startTime;
+
+            _recorder.clear();
+            Bid explained = _system.recommendBid(hand, board, _recorder);
+            if (encodeCall(explained) != encodeCall(bid)) {
+                ++_inconsistentCalls;
+            }
+
+            String name = getPathName(_recorder);
+            Integer id = _pathIds.get(name);
+            if (id == null) {
+                id = _pathNames.size();
+                if (id > Short.MAX_VALUE) {
+                    throw new RuntimeException("Too many rule paths");
+                }
+                _pathIds.put(name, id);
+                _pathNames.add(name);
+                if (id == _pathCalls.length) {
+                    _pathCalls = Arrays.copyOf(_pathCalls, id * 2);
+                    _pathTimedCalls = Arrays.copyOf(_pathTimedCalls, id * 2);
+                    _pathNanos = Arrays.copyOf(_pathNanos, id * 2);
+                }
+            }
+            ++_pathCalls[id];
+            if (nanos <= MAX_CALL_NANOS) {
+                ++_pathTimedCalls[id];
+                _pathNanos[id] += nanos;
+            }
+            _paths[_size++] = (short) (int) id;
+            return bid;
+        }
+    }
+
+    /**
+     * Bids the given deals, with the dealer rotating from SOUTH, and returns the number of calls in each auction
+     */
+    private short[] bidDeals(
+        final int first,
+        final int limit,
+        final AuctionDriver.Caller caller
+    ) {
+        Position[] positions = Position.values();
+        Hand[] hands = new Hand[4];
+        Board board = new Board();
+        short[] callCounts = new short[limit - first];
+        for (int dx = first; dx < limit; ++dx) {
+            getHands(dx, hands);
+            board.clear();
+            AuctionDriver.bid(hands, positions[dx & 3], board, caller);
+            callCounts[dx - first] = (short) board.size();
+        }
+        return callCounts;
+    }
+
+    /**
+     * Replays the corpus - first untimed to warm up, then timed several times keeping the fastest,
+     * then once more timing each call and asking the system to explain it, to attribute calls and time to paths
+     */
+    public Run run() {
+        return run(Math.min(_deals, WARMUP_DEALS), TIMED_PASSES);
+    }
+
+    private Run run(
+        final int warmupDeals,
+        final int timedPasses
+    ) {
+        CallWriter writer = new CallWriter();
+        bidDeals(0, warmupDeals, writer);
+        long bestNanos = Long.MAX_VALUE;
+        short[] callCounts = null;
+        for (int tx = 0; tx < timedPasses; ++tx) {
+            writer._size = 0;
+            long startTime = System.nanoTime();
+            callCounts = bidDeals(0, _deals, writer);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - startTime);
+        }
+        byte[] calls = Arrays.copyOf(writer._calls, writer._size);
+
+        PathTracer tracer = new PathTracer(calls.length);
+        bidDeals(0, _deals, tracer);
+        int pathCount = tracer._pathNames.size();
+        return new Run(describe(_system),
+                       _seed,
+                       _deals,
+                       _deals * 1e9 / bestNanos,
+                       tracer._inconsistentCalls,
+                       callCounts,
+                       calls,
+                       tracer._paths,
+                       tracer._pathNames.toArray(new String[0]),
+                       Arrays.copyOf(tracer._pathCalls, pathCount),
+                       Arrays.copyOf(tracer._pathTimedCalls, pathCount),
+                       Arrays.copyOf(tracer._pathNanos, pathCount));
+    }
+
+    /**
+     * Replays the corpus and compares the outcome with the golden run.
+     * The budget is the golden deals per second less the tolerance (e.g., 0.10 for 10%), but no less than
+     * minimumDealsPerSecond (zero for none). A path is slower if its time per call grows by more than the tolerance.
+     */
+    public Report check(
+        final Run golden,
+        final double tolerance,
+        final double minimumDealsPerSecond
+    ) {
+        checkCorpus(golden);
+        return compare(golden,
+                       run(),
+                       tolerance,
+                       Math.max(golden._dealsPerSecond * (1.0 - tolerance), minimumDealsPerSecond));
+    }
+
+    /**
+     * Replays the corpus once, without warming up, and compares only the decisions with the golden run - there is
+     * no budget, and no path is reported as slower. Unlike check(), the outcome does not depend on the machine,
+     * so a golden run recorded anywhere may be checked in and replayed by the tests.
+     */
+    public Report checkDecisions(
+        final Run golden
+    ) {
+        checkCorpus(golden);
+        return compare(golden, run(0, 1), Double.POSITIVE_INFINITY, 0.0);
+    }
+
+    private void checkCorpus(
+        final Run golden
+    ) {
+        String system = describe(_system);
+        if (!golden._system.equals(system) || (golden._seed != _seed) || (golden._deals != _deals)) {
+            String format = "Golden run is of %s over %d deals with seed %d, not %s over %d deals with seed %d";
+            throw new RuntimeException(String.format(format, golden._system, golden._deals, golden._seed, system, _deals, _seed));
+        }
+    }
+
+    private Report compare(
+        final Run golden,
+        final Run current,
+        final double tolerance,
+        final double minimumDealsPerSecond
+    ) {
+        long changedDeals = 0;
+        long reroutedCalls = 0;
+        Map<String, Long> changedPaths = new TreeMap<>();
+        Map<String, Long> reroutedPaths = new TreeMap<>();
+        List<String> examples = new ArrayList<>();
+        int gcx = 0;    //  offsets in the calls (and paths) of each run
+        int ccx = 0;
+        for (int dx = 0; dx < _deals; ++dx) {
+            int goldenCount = golden._callCounts[dx];
+            int currentCount = current._callCounts[dx];
+            int differs = -1;   //  index of the first differing call, if any
+            for (int cx = 0; cx < Math.min(goldenCount, currentCount); ++cx) {
+                if (golden._calls[gcx + cx] != current._calls[ccx + cx]) {
+                    differs = cx;
+                    break;
+                }
+                String goldenPath = golden._pathNames[golden._paths[gcx + cx]];
+                String currentPath = current._pathNames[current._paths[ccx + cx]];
+                if (!goldenPath.equals(currentPath)) {
+                    ++reroutedCalls;
+                    reroutedPaths.merge(goldenPath + " -> " + currentPath, 1L, Long::sum);
+                }
+            }
+            if ((differs < 0) && (goldenCount != currentCount)) {
+                differs = Math.min(goldenCount, currentCount);
+            }
+
+            if (differs >= 0) {
+                ++changedDeals;
+                String goldenPath = (differs < goldenCount) ? golden._pathNames[golden._paths[gcx + differs]] : "(no call)";
+                changedPaths.merge(goldenPath, 1L, Long::sum);
+                if (examples.size() < MAX_EXAMPLES) {
+                    boolean inGolden = differs < goldenCount;
+                    boolean inCurrent = differs < currentCount;
+                    examples.add(String.format("Deal %d call %d: golden %s by %s, now %s by %s",
+                                               dx,
+                                               differs + 1,
+                                               inGolden ? decodeCall(golden._calls[gcx + differs] & 0xFF) : "(no call)",
+                                               goldenPath,
+                                               inCurrent ? decodeCall(current._calls[ccx + differs] & 0xFF) : "(no call)",
+                                               inCurrent ? current._pathNames[current._paths[ccx + differs]] : "(no call)"));
+                }
+            }
+
+            gcx += goldenCount;
+            ccx += currentCount;
+        }
+
+        Map<String, Double> slowerPaths = new TreeMap<>();
+        for (int px = 0; px < current._pathNames.length; ++px) {
+            int gx = golden.findPath(current._pathNames[px]);
+            if ((gx >= 0) && (golden._pathTimedCalls[gx] >= MIN_TIMED_CALLS) && (current._pathTimedCalls[px] >= MIN_TIMED_CALLS)) {
+                double ratio = current.getPathNanosPerCall(px) / golden.getPathNanosPerCall(gx);
+                if (ratio > 1.0 + tolerance) {
+                    slowerPaths.put(current._pathNames[px], ratio);
+                }
+            }
+        }
+
+        return new Report(golden,
+                          current,
+                          minimumDealsPerSecond,
+                          changedDeals,
+                          reroutedCalls,
+                          changedPaths,
+                          reroutedPaths,
+                          slowerPaths,
+                          examples);
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Records or checks a golden run of the default AmericanStandardSystem:
+     *      record {file} [deals [seed]]
+     *      check {file} [tolerance [minimum deals/sec]]
+     * check exits with status 1 if the run fails.
+     */
+    public static void main(
+        final String[] args
+    ) throws IOException {
+        if ((args.length < 2) || !(args[0].equals("record") || args[0].equals("check"))) {
+            System.err.println("Usage: BiddingRegression record {file} [deals [seed]]");
+            System.err.println("       BiddingRegression check {file} [tolerance [minimum deals/sec]]");
+            System.exit(2);
+        }
+
+        BiddingSystem system = new AmericanStandardSystem(false, false, false);
+        Path path = Paths.get(args[1]);
+        if (args[0].equals("record")) {
+            int deals = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_DEALS;
+            long seed = (args.length > 3) ? Long.parseLong(args[3]) : DEFAULT_SEED;
+            Run run = new BiddingRegression(system, seed, deals).run();
+            run.write(path);
+            for (String line : run.getDisplay()) {
+                System.out.println(line);
+            }
+        } else {
+            double tolerance = (args.length > 2) ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE;
+            double minimum = (args.length > 3) ? Double.parseDouble(args[3]) : 0.0;
+            Run golden = Run.read(path);
+            Report report = new BiddingRegression(system, golden._seed, golden._deals).check(golden, tolerance, minimum);
+            for (String line : report.getDisplay()) {
+                System.out.println(line);
+            }
+            if (!report.isPassed()) {
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -4,8 +4,6 @@
 
 package com.kadware.kizuna;
 
-import java.util.List;
-
 public abstract class BiddingSystem {
 
     public static enum Name {
@@ -15,12 +13,13 @@ public abstract class BiddingSystem {
     /**
      * Recommends what the player holding the given hand should be at this point,
      * as evidenced by the current content of the given bidding board.
+     * The system explains its reasoning to commentary - pass Commentary.DISABLED if the explanation is not wanted.
      * Do not call if the hand is passed out
      */
     public Bid recommendBid(
         final Hand hand,
         final Board biddingBoard,
-        final List<String> commentary
+        final Commentary commentary
     ) {
         //  Where is the auction at?
         if (biddingBoard._openingBid == null) {
@@ -40,24 +39,24 @@ public abstract class BiddingSystem {
         }
 
         //  How about an overcall of an opening bid?
-        return new Bid.Pass(hand._position);
+        return Bid.getPass(hand._position);
     }
 
     public abstract Bid recommendOpeningBid(
         final Hand hand,
         final Board biddingBoard,
-        final List<String> commentary
+        final Commentary commentary
     );
 
     public abstract Bid recommendOpeningResponse(
         final Hand hand,
         final Board biddingBoard,
-        final List<String> commentary
+        final Commentary commentary
     );
 
     public abstract Bid recommendOvercall(
         final Hand hand,
         final Board biddingBoard,
-        final List<String> commentary
+        final Commentary commentary
     );
 }
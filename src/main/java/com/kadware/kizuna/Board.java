@@ -4,13 +4,21 @@
 
 package com.kadware.kizuna;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.RandomAccess;
 
 /**
  * This is the bidding board - contains the list of bids in order, and related information
+ *
+ * The calls are kept packed one per byte, and the state of the auction (passes since the last action, doubling,
+ * the highest bid and who would declare it, suit mentions) is brought up to date as each call is added,
+ * so none of the queries need to look back through the calls.
+ * Calls may only be appended - they cannot be removed or replaced, other than by clearing the whole board.
  */
-public class Board extends LinkedList<Bid> {
+public class Board extends AbstractList<Bid> implements RandomAccess {
 
     public static class SuitMention {
         public Position _openedBy = null;   //  honestly opened by this person
@@ -18,9 +26,25 @@ public class Board extends LinkedList<Bid> {
         public boolean _rebid = false;      //  rebid by opener
     }
 
+    //  Mask of the codes of all the contract bids, for getLegalCalls()
+    private static final long ALL_CONTRACTS = ((1L << Bid.CODES) - 1) & ~((1L << Bid.FIRST_CONTRACT) - 1);
+
+    public final Map<Suit, SuitMention> _suitMentions = new EnumMap<>(Suit.class);
     public Bid _highestBid = null;          //  highest real bid so-far (not pass, double, redouble)
     public Bid _openingBid = null;          //  opening bid
 
+    //  Calls in order - caller's Position ordinal in bits 6 and 7, Bid._code in bits 0 to 5
+    private byte[] _calls = new byte[16];
+    private int _size = 0;
+
+    private int _passes = 0;                //  consecutive passes at the end of the auction
+    private int _doubling = Contract.UNDOUBLED;
+    private Position _declarer = null;
+
+    //  For each side (Position.ordinal() & 1) and strain, 1 + ordinal of the first player of that side
+    //  to bid the strain, or 0 if neither has
+    private final byte[] _firstToBid = new byte[2 * 5];
+
     /**
      * Convenience wrapper
      */
@@ -32,52 +56,194 @@ public class Board extends LinkedList<Bid> {
         }
     }
 
-    public boolean establishBid(
+    /**
+     * Appends a call, bringing the state of the auction up to date.
+     * Legality is not checked - use establishBid() for that.
+     */
+    @Override
+    public void add(
+        final int index,
         final Bid bid
     ) {
-        if ((_highestBid instanceof Bid.RealBid) && (bid instanceof Bid.RealBid)) {
-            if (((Bid.RealBid) bid).compareTo(_highestBid) <= 0) {
-                return false;
-            }
+        if (index != _size) {
+            throw new UnsupportedOperationException("Calls may only be appended to the board");
         }
 
-        if ((bid instanceof Bid.Double) && !isDoubleAllowed(bid._position)) {
-            return false;
+        if (_size == _calls.length) {
+            _calls = Arrays.copyOf(_calls, _size * 2);
         }
+        _calls[_size++] = (byte) ((bid._position.ordinal() << 6) | bid._code);
+        ++modCount;
 
-        if ((bid instanceof Bid.Redouble) && !isRedoubleAllowed(bid._position)) {
-            return false;
+        switch (bid._code) {
+            case Bid.PASS:
+                ++_passes;
+                return;
+
+            case Bid.DOUBLE:
+                _doubling = Contract.DOUBLED;
+                break;
+
+            case Bid.REDOUBLE:
+                _doubling = Contract.REDOUBLED;
+                break;
+
+            default:
+                int strain = (bid._code - Bid.FIRST_CONTRACT) % 5;
+                int fx = (bid._position.ordinal() & 1) * 5 + strain;
+                if (_firstToBid[fx] == 0) {
+                    _firstToBid[fx] = (byte) (bid._position.ordinal() + 1);
+                }
+                _declarer = Position.values()[_firstToBid[fx] - 1];
+                _doubling = Contract.UNDOUBLED;
+                if (_openingBid == null) {
+                    _openingBid = bid;
+                }
+                _highestBid = bid;
+                if (strain != Bid.NO_TRUMP) {
+                    noteSuitMention(Suit.values()[strain], bid._position);
+                }
+                break;
         }
+        _passes = 0;
+    }
 
-        if (bid instanceof Bid.RealBid) {
-            Bid.RealBid rb = (Bid.RealBid) bid;
-            if ((rb._level < 1) || (rb._level > 7)) {
-                throw new RuntimeException("Invalid level in Bid");
-            }
-            if (_openingBid == null) {
-                _openingBid = bid;
-            }
-            _highestBid = bid;
+    /**
+     * Discards all the calls
+     */
+    @Override
+    public void clear() {
+        _size = 0;
+        ++modCount;
+        _suitMentions.clear();
+        _highestBid = null;
+        _openingBid = null;
+        _passes = 0;
+        _doubling = Contract.UNDOUBLED;
+        _declarer = null;
+        Arrays.fill(_firstToBid, (byte) 0);
+    }
+
+    /**
+     * Appends the given bid if it is legal at this point in the auction
+     * @return true if the bid was legal (and has been appended)
+     */
+    public boolean establishBid(
+        final Bid bid
+    ) {
+        if ((getLegalCalls(bid._position) & (1L << bid._code)) == 0) {
+            return false;
         }
 
+        add(bid);
         return true;
     }
 
+    /**
+     * Finds the calls the given position may legally make now, as a mask with bit Bid._code set for each:
+     * pass, any contract bid above the highest bid, double of an undoubled contract bid by the opponents,
+     * and redouble of a doubled contract bid by the position's own side.
+     * Nothing is legal once the auction is over.
+     */
+    public long getLegalCalls(
+        final Position position
+    ) {
+        return getLegalCalls(position, _highestBid, _doubling, isPassedOut());
+    }
+
+    /**
+     * Legal calls as above, given the state of the auction - shared with Auction
+     */
+    static long getLegalCalls(
+        final Position position,
+        final Bid highestBid,
+        final int doubling,
+        final boolean passedOut
+    ) {
+        if (passedOut) {
+            return 0;
+        }
+
+        long result = 1L << Bid.PASS;
+        if (highestBid == null) {
+            return result | ALL_CONTRACTS;
+        }
+
+        result |= ALL_CONTRACTS & (-2L << highestBid._code);
+        boolean sameSide = ((highestBid._position.ordinal() ^ position.ordinal()) & 1) == 0;
+        if ((doubling == Contract.UNDOUBLED) && !sameSide) {
+            result |= 1L << Bid.DOUBLE;
+        } else if ((doubling == Contract.DOUBLED) && sameSide) {
+            result |= 1L << Bid.REDOUBLE;
+        }
+        return result;
+    }
+
+    /**
+     * As above, storing the legal calls (lowest first) into the given array, which must have room for Bid.CODES
+     * @return number of calls stored
+     */
+    public int getLegalCalls(
+        final Position position,
+        final Bid[] calls
+    ) {
+        long mask = getLegalCalls(position);
+        int count = 0;
+        while (mask != 0) {
+            calls[count++] = Bid.of(position, Long.numberOfTrailingZeros(mask));
+            mask &= mask - 1;
+        }
+        return count;
+    }
+
+    @Override
+    public Bid get(
+        final int index
+    ) {
+        if ((index < 0) || (index >= _size)) {
+            throw new IndexOutOfBoundsException("No call at index " + index);
+        }
+        return Bid.of(getPosition(index), getCode(index));
+    }
+
+    /**
+     * Bid._code of the call at the given index - cheaper than get(index)._code
+     */
+    public int getCode(
+        final int index
+    ) {
+        return _calls[index] & 0x3f;
+    }
+
+    /**
+     * Position which made the call at the given index
+     */
+    public Position getPosition(
+        final int index
+    ) {
+        return Position.values()[(_calls[index] >> 6) & 0x03];
+    }
+
     /**
      * Calculates number of consecutive passes after most recent real bid or double or redouble
      */
     public int getConsecutivePasses() {
-        int passes = 0;
-        Iterator<Bid> iter = descendingIterator();
-        while (iter.hasNext()) {
-            Bid bid = iter.next();
-            if (!(bid instanceof Bid.Pass)) {
-                break;
-            }
-            ++passes;
-        }
+        return _passes;
+    }
 
-        return passes;
+    /**
+     * Player who would declare the highest bid if the auction ended now - the first of that side to bid its strain.
+     * null if there has been no contract bid.
+     */
+    public Position getDeclarer() {
+        return _declarer;
+    }
+
+    /**
+     * Doubling of the highest bid - Contract.UNDOUBLED, DOUBLED, or REDOUBLED
+     */
+    public int getDoubling() {
+        return _doubling;
     }
 
     /**
@@ -92,25 +258,19 @@ public class Board extends LinkedList<Bid> {
         return result;
     }
 
+    /**
+     * Indicates whether the given position may double - the highest bid must be an opponent's, and not yet doubled
+     */
     public boolean isDoubleAllowed(
         final Position position
     ) {
         return (_highestBid != null)
-            && ((_highestBid._position != position) || (_highestBid._position != position.getPartner()));
+            && (_doubling == Contract.UNDOUBLED)
+            && (((_highestBid._position.ordinal() ^ position.ordinal()) & 1) != 0);
     }
 
     public boolean isDoubled() {
-        Iterator<Bid> iter = descendingIterator();
-        while (iter.hasNext()) {
-            Bid bid = iter.next();
-            if ((bid instanceof Bid.Double) || (bid instanceof Bid.Redouble)) {
-                return true;
-            } else if (!(bid instanceof Bid.Pass)) {
-                break;
-            }
-        }
-
-        return false;
+        return _doubling != Contract.UNDOUBLED;
     }
 
     /**
@@ -120,30 +280,49 @@ public class Board extends LinkedList<Bid> {
      */
     public boolean isPassedOut() {
         if (_highestBid == null) {
-            return getConsecutivePasses() == 4;
+            return _passes == 4;
         } else {
-            return getConsecutivePasses() == 3;
+            return _passes == 3;
         }
     }
 
+    /**
+     * Indicates whether the given position may redouble - the highest bid must be its own side's, doubled but not
+     * yet redoubled
+     */
     public boolean isRedoubleAllowed(
         final Position position
     ) {
-        return isDoubled()
-            && ((position == _highestBid._position) || (position.getPartner() == _highestBid._position));
+        return (_doubling == Contract.DOUBLED)
+            && (((_highestBid._position.ordinal() ^ position.ordinal()) & 1) == 0);
     }
 
     public boolean isRedoubled() {
-        Iterator<Bid> iter = descendingIterator();
-        while (iter.hasNext()) {
-            Bid bid = iter.next();
-            if (bid instanceof Bid.Redouble) {
-                return true;
-            } else if (!(bid instanceof Bid.Pass)) {
-                break;
-            }
+        return _doubling == Contract.REDOUBLED;
+    }
+
+    /**
+     * Records a bid of the given suit - the first bid of a suit opens it, a later bid by the opener's partner
+     * supports it, and a later bid by the opener rebids it
+     */
+    private void noteSuitMention(
+        final Suit suit,
+        final Position position
+    ) {
+        SuitMention mention = _suitMentions.get(suit);
+        if (mention == null) {
+            mention = new SuitMention();
+            mention._openedBy = position;
+            _suitMentions.put(suit, mention);
+        } else if (position == mention._openedBy) {
+            mention._rebid = true;
+        } else if (position == mention._openedBy.getPartner()) {
+            mention._supported = true;
         }
+    }
 
-        return false;
+    @Override
+    public int size() {
+        return _size;
     }
 }
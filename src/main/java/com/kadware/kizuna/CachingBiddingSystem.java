@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps a BiddingSystem, remembering its recommendations so that asking again about the same hand in the same
+ * auction costs a table lookup rather than a fresh evaluation.
+ *
+ * Recommendations are keyed by the hand's cards and position, the method called, and the calls made so far.
+ * The wrapped system must give the same answer every time for the same key, which is true of any system which
+ * looks only at the hand and the board.
+ *
+ * Auctions of more than MAX_CALLS calls are passed straight through.
+ *
+ * The cache is split into stripes, each a set-associative table of primitive keys with its own lock, so it may be
+ * shared by many threads. A full set drops its least recently used entry.
+ * Calls made with enabled commentary go straight to the wrapped system, since a cached bid has no explanation.
+ */
+public class CachingBiddingSystem extends BiddingSystem {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final int STRIPES = 16;      //  selected by the top four bits of the hash
+    private static final int WAYS = 4;
+    private static final int KEY_SIZE = 3;
+    private static final int FIRST_CALLS = 8;   //  calls which fit in the second long of the key
+    private static final int MAX_CALLS = FIRST_CALLS + 10;
+
+    //  Methods, as part of the key
+    private static final int RECOMMEND_BID = 0;
+    private static final int RECOMMEND_OPENING_BID = 1;
+    private static final int RECOMMEND_OPENING_RESPONSE = 2;
+    private static final int RECOMMEND_OVERCALL = 3;
+
+    private final BiddingSystem _system;
+    private final Stripe[] _stripes = new Stripe[STRIPES];
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+
+    public CachingBiddingSystem(
+        final BiddingSystem system
+    ) {
+        this(system, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache holding at most the given number of recommendations (rounded down to a power of two)
+     */
+    public CachingBiddingSystem(
+        final BiddingSystem system,
+        final int capacity
+    ) {
+        if (capacity < STRIPES * WAYS) {
+            throw new RuntimeException("Cache capacity is too small");
+        }
+
+        //  Each stripe gets the largest power of two number of sets which keeps the total within capacity
+        int sets = Integer.highestOneBit(capacity / (STRIPES * WAYS));
+        _system = system;
+        for (int sx = 0; sx < STRIPES; ++sx) {
+            _stripes[sx] = new Stripe(sets);
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * One stripe of the cache - a set-associative table of WAYS entries per set.
+     * A full set replaces its least recently used entry.
+     */
+    private final class Stripe {
+
+        private final long[] _keys;             //  KEY_SIZE longs per entry
+        private final Bid[] _bids;              //  null for an empty entry
+        private final int[] _stamps;            //  value of _clock when the entry was last used
+        private final int _setMask;
+        private int _clock = 0;
+        private int _size = 0;
+
+        private Stripe(
+            final int sets
+        ) {
+            _keys = new long[sets * WAYS * KEY_SIZE];
+            _bids = new Bid[sets * WAYS];
+            _stamps = new int[sets * WAYS];
+            _setMask = sets - 1;
+        }
+
+        private synchronized Bid get(
+            final long cards,
+            final long situation,
+            final long calls,
+            final int hash
+        ) {
+            int first = (hash & _setMask) * WAYS;
+            for (int ex = first; ex < first + WAYS; ++ex) {
+                int kx = ex * KEY_SIZE;
+                if ((_bids[ex] != null)
+                    && (_keys[kx] == cards)
+                    && (_keys[kx + 1] == situation)
+                    && (_keys[kx + 2] == calls)) {
+                    _stamps[ex] = ++_clock;
+                    return _bids[ex];
+                }
+            }
+            return null;
+        }
+
+        private synchronized void put(
+            final long cards,
+            final long situation,
+            final long calls,
+            final int hash,
+            final Bid bid
+        ) {
+            int first = (hash & _setMask) * WAYS;
+            int victim = first;
+            for (int ex = first; ex < first + WAYS; ++ex) {
+                if (_bids[ex] == null) {
+                    victim = ex;
+                    break;
+                }
+                if (_stamps[ex] - _stamps[victim] < 0) {
+                    victim = ex;
+                }
+            }
+
+            if (_bids[victim] == null) {
+                ++_size;
+            } else {
+                _evictions.increment();
+            }
+            int kx = victim * KEY_SIZE;
+            _keys[kx] = cards;
+            _keys[kx + 1] = situation;
+            _keys[kx + 2] = calls;
+            _bids[victim] = bid;
+            _stamps[victim] = ++_clock;
+        }
+
+        private synchronized void clear() {
+            Arrays.fill(_bids, null);
+            _size = 0;
+        }
+
+        private synchronized int size() {
+            return _size;
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Finds the recommendation for the given situation, asking the wrapped system if it is not cached.
+     * Two threads missing on the same key at the same time will both ask - the answers are the same.
+     *
+     * The key is three longs: the hand's CardMask; then the hand's position (bits 0-1), the method (bits 2-3),
+     * the first bidder (bits 4-5), the number of calls (bits 6-10) and the first FIRST_CALLS calls, six bits each,
+     * from bit 11; then the rest of the calls, six bits each.  Longer auctions are not cached.
+     */
+    private Bid lookup(
+        final int method,
+        final Hand hand,
+        final Board biddingBoard
+    ) {
+        int count = biddingBoard.size();
+        if (count > MAX_CALLS) {
+            return ask(method, hand, biddingBoard);
+        }
+
+        long cards = hand.getCards();
+        long situation = hand._position.ordinal() | (method << 2) | (count << 6);
+        long calls = 0;
+        if (count > 0) {
+            situation |= biddingBoard.getPosition(0).ordinal() << 4;
+        }
+        for (int cx = 0; cx < count; ++cx) {
+            if (cx < FIRST_CALLS) {
+                situation |= (long) biddingBoard.getCode(cx) << (11 + 6 * cx);
+            } else {
+                calls |= (long) biddingBoard.getCode(cx) << (6 * (cx - FIRST_CALLS));
+            }
+        }
+
+        long hash = (cards * 0x9E3779B97F4A7C15L) ^ (situation * 0xC2B2AE3D27D4EB4FL) ^ (calls * 0x165667B19E3779F9L);
+        hash ^= hash >>> 29;
+        Stripe stripe = _stripes[(int) (hash >>> 60)];
+        Bid bid = stripe.get(cards, situation, calls, (int) hash);
+        if (bid != null) {
+            _hits.increment();
+            return bid;
+        }
+
+        _misses.increment();
+        bid = ask(method, hand, biddingBoard);
+        if (bid != null) {
+            stripe.put(cards, situation, calls, (int) hash, bid);
+        }
+        return bid;
+    }
+
+    /**
+     * Asks the wrapped system
+     */
+    private Bid ask(
+        final int method,
+        final Hand hand,
+        final Board biddingBoard
+    ) {
+        switch (method) {
+            case RECOMMEND_BID:                 return _system.recommendBid(hand, biddingBoard, Commentary.DISABLED);
+            case RECOMMEND_OPENING_BID:         return _system.recommendOpeningBid(hand, biddingBoard, Commentary.DISABLED);
+            case RECOMMEND_OPENING_RESPONSE:    return _system.recommendOpeningResponse(hand, biddingBoard, Commentary.DISABLED);
+            default:                            return _system.recommendOvercall(hand, biddingBoard, Commentary.DISABLED);
+        }
+    }
+
+    @Override
+    public Bid recommendBid(
+        final Hand hand,
+        final Board biddingBoard,
+        final Commentary commentary
+    ) {
+        return commentary.isEnabled()
+            ? _system.recommendBid(hand, biddingBoard, commentary)
+            : lookup(RECOMMEND_BID, hand, biddingBoard);
+    }
+
+    @Override
+    public Bid recommendOpeningBid(
+        final Hand hand,
+        final Board biddingBoard,
+        final Commentary commentary
+    ) {
+        return commentary.isEnabled()
+            ? _system.recommendOpeningBid(hand, biddingBoard, commentary)
+            : lookup(RECOMMEND_OPENING_BID, hand, biddingBoard);
+    }
+
+    @Override
+    public Bid recommendOpeningResponse(
+        final Hand hand,
+        final Board biddingBoard,
+        final Commentary commentary
+    ) {
+        return commentary.isEnabled()
+            ? _system.recommendOpeningResponse(hand, biddingBoard, commentary)
+            : lookup(RECOMMEND_OPENING_RESPONSE, hand, biddingBoard);
+    }
+
+    @Override
+    public Bid recommendOvercall(
+        final Hand hand,
+        final Board biddingBoard,
+        final Commentary commentary
+    ) {
+        return commentary.isEnabled()
+            ? _system.recommendOvercall(hand, biddingBoard, commentary)
+            : lookup(RECOMMEND_OVERCALL, hand, biddingBoard);
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Discards all cached recommendations (statistics are kept)
+     */
+    public void clear() {
+        for (Stripe stripe : _stripes) {
+            stripe.clear();
+        }
+    }
+
+    public long getHits() {
+        return _hits.sum();
+    }
+
+    public long getMisses() {
+        return _misses.sum();
+    }
+
+    public long getEvictions() {
+        return _evictions.sum();
+    }
+
+    /**
+     * Fraction of lookups answered from the cache, or zero if there have been none
+     */
+    public double getHitRate() {
+        long hits = _hits.sum();
+        long lookups = hits + _misses.sum();
+        return (lookups == 0) ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Number of recommendations currently cached
+     */
+    public int size() {
+        int result = 0;
+        for (Stripe stripe : _stripes) {
+            result += stripe.size();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d cached, %d hits, %d misses, %d evictions, hit rate %.3f",
+                             size(), getHits(), getMisses(), getEvictions(), getHitRate());
+    }
+}
@@ -4,21 +4,51 @@
 
 package com.kadware.kizuna;
 
-public class Card implements Comparable<Card> {
+/**
+ * Describes a single card. Cards are immutable, so they may be shared between deals and threads;
+ * the state of a card within a particular deal (who holds it, whether it has been played) is kept elsewhere.
+ * See Deal.
+ */
+public final class Card implements Comparable<Card> {
 
+    public final int _index;    //  bit index of this card within a CardMask
     public final Rank _rank;
     public final Suit _suit;
-    public Position _position;  //  hand the is holding, or held, this card
-    public boolean _played;     //  true if the card has been played, false if it is still in the player's hand
 
     public Card(
         Suit suit,
         Rank rank
     ) {
+        _index = CardMask.getIndex(suit, rank);
         _rank = rank;
         _suit = suit;
-        _position = null;
-        _played = false;
+    }
+
+    //  One canonical instance of each card, indexed by CardMask bit index
+    private static final Card[] CARDS = new Card[52];
+    static {
+        for (Suit suit : Suit.values()) {
+            for (Rank rank : Rank.values()) {
+                Card card = new Card(suit, rank);
+                CARDS[card._index] = card;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the canonical card for the given CardMask bit index
+     */
+    public static Card get(
+        final int index
+    ) {
+        return CARDS[index];
+    }
+
+    public static Card get(
+        final Suit suit,
+        final Rank rank
+    ) {
+        return CARDS[CardMask.getIndex(suit, rank)];
     }
 
     @Override
@@ -33,9 +63,16 @@ public class Card implements Comparable<Card> {
         }
     }
 
+    /**
+     * Retrieves the single-bit CardMask representing this card
+     */
+    public long getMask() {
+        return 1L << _index;
+    }
+
     @Override
     public int hashCode() {
-        return (_rank.hashCode() << 16) & _suit.hashCode();
+        return _index;
     }
 
     /**
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.Collection;
+
+/**
+ * Helpers for the compact representation of a set of cards as a 52-bit long.
+ * Each suit occupies 13 contiguous bits, clubs in the lowest bits and spades in the highest.
+ * Within a suit the two is the lowest bit and the ace is the highest, so a 13-bit holding
+ * compares numerically in rank order.
+ */
+public final class CardMask {
+
+    public static final int RANKS_PER_SUIT = 13;
+    public static final int HOLDING_MASK = 0x1FFF;
+    public static final long FULL_DECK = (1L << 52) - 1;
+
+    private CardMask() {}
+
+    /**
+     * Retrieves the bit within a 13-bit holding which represents the given rank
+     */
+    public static int getBit(
+        final Rank rank
+    ) {
+        return 1 << (RANKS_PER_SUIT - 1 - rank._sortOrder);
+    }
+
+    /**
+     * Retrieves the index (0 to 51) of the bit representing the given card
+     */
+    public static int getIndex(
+        final Suit suit,
+        final Rank rank
+    ) {
+        return suit._bidOrder * RANKS_PER_SUIT + RANKS_PER_SUIT - 1 - rank._sortOrder;
+    }
+
+    /**
+     * Retrieves the 13-bit holding for the given suit
+     */
+    public static int getHolding(
+        final long cards,
+        final Suit suit
+    ) {
+        return getHolding(cards, suit._bidOrder);
+    }
+
+    /**
+     * Retrieves the 13-bit holding for the suit with the given _bidOrder - for loops over suit numbers, which would
+     * otherwise need a Suit for each
+     */
+    public static int getHolding(
+        final long cards,
+        final int bidOrder
+    ) {
+        return (int) (cards >>> (bidOrder * RANKS_PER_SUIT)) & HOLDING_MASK;
+    }
+
+    /**
+     * Produces a mask with the given 13-bit holding in the position for the given suit
+     */
+    public static long getMask(
+        final Suit suit,
+        final int holding
+    ) {
+        return ((long) (holding & HOLDING_MASK)) << (suit._bidOrder * RANKS_PER_SUIT);
+    }
+
+    public static long getMask(
+        final Collection<Card> cards
+    ) {
+        long result = 0;
+        for (Card card : cards) {
+            result |= card.getMask();
+        }
+        return result;
+    }
+
+    public static int count(
+        final long cards
+    ) {
+        return Long.bitCount(cards);
+    }
+}
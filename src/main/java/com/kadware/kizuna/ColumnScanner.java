@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Tests a block of BLOCK_SIZE consecutive entries of a DealDatabase column at a time, producing a long with
+ * bit N set if entry N of the block passes. Queries are answered by ANDing these together.
+ *
+ * getInstance() returns an implementation using the incubating jdk.incubator.vector API if that module is present
+ * and the machine has 512-bit vectors (so that a block of bytes is a single vector); otherwise the scalar one.
+ * Scanners hold no state, and may be used from several threads at once.
+ */
+abstract class ColumnScanner {
+
+    static final int BLOCK_SIZE = 64;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    static final long BYTE_ONES = 0x0101010101010101L;
+    static final long GATHER_BYTES = 0x0102040810204080L;  //  moves bit 0 of each byte to bit 56 + the byte's index
+
+    private static final ColumnScanner SCALAR = new Scalar();
+    private static final ColumnScanner INSTANCE = createInstance();
+
+    ColumnScanner() {}
+
+    private static ColumnScanner createInstance() {
+        try {
+            return (ColumnScanner) Class.forName("com.kadware.kizuna.VectorColumnScanner")
+                                        .getDeclaredConstructor()
+                                        .newInstance();
+        } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException ex) {
+            return SCALAR;
+        }
+    }
+
+    static ColumnScanner getInstance() {
+        return INSTANCE;
+    }
+
+    static ColumnScanner getScalarInstance() {
+        return SCALAR;
+    }
+
+    abstract boolean isVectorized();
+
+    /**
+     * Entries from min to max inclusive - the entries, min, and max must all be from 0 to 127
+     */
+    abstract long matchRange(
+        final byte[] column,
+        final int offset,
+        final int min,
+        final int max
+    );
+
+    /**
+     * Entries containing all of the bits of the mask
+     */
+    abstract long matchAll(
+        final long[] column,
+        final int offset,
+        final long mask
+    );
+
+    /**
+     * Entries containing any of the bits of the mask
+     */
+    abstract long matchAny(
+        final long[] column,
+        final int offset,
+        final long mask
+    );
+
+    private static class Scalar extends ColumnScanner {
+
+        @Override
+        boolean isVectorized() {
+            return false;
+        }
+
+        @Override
+        long matchRange(
+            final byte[] column,
+            final int offset,
+            final int min,
+            final int max
+        ) {
+            //  Eight entries at a time, SWAR-fashion - the entries and bounds are all below 128, so the high bit of
+            //  each byte is free to show whether the entry is above min - 1, and whether it is below max + 1
+            long lowBias = BYTE_ONES * (128 - min);
+            long highBias = BYTE_ONES * (128 + max);
+            long result = 0;
+            for (int ex = 0; ex < BLOCK_SIZE; ex += 8) {
+                long values = (long) LONGS.get(column, offset + ex);
+                long low = values & (BYTE_ONES * 0x7F);
+                long passed = (highBias - low) & ~values & (low + lowBias) & (BYTE_ONES * 0x80);
+                result |= (passed >>> 7) * GATHER_BYTES >>> 56 << ex;
+            }
+            return result;
+        }
+
+        @Override
+        long matchAll(
+            final long[] column,
+            final int offset,
+            final long mask
+        ) {
+            long result = 0;
+            for (int ex = 0; ex < BLOCK_SIZE; ++ex) {
+                long missing = ~column[offset + ex] & mask;
+                result |= ((missing | -missing) >>> 63 ^ 1) << ex;
+            }
+            return result;
+        }
+
+        @Override
+        long matchAny(
+            final long[] column,
+            final int offset,
+            final long mask
+        ) {
+            long result = 0;
+            for (int ex = 0; ex < BLOCK_SIZE; ++ex) {
+                long present = column[offset + ex] & mask;
+                result |= ((present | -present) >>> 63) << ex;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.Arrays;
+
+/**
+ * Receives a bidding system's explanation of its reasoning.
+ * Each remark is a Rule plus a few numeric arguments - nothing is formatted until somebody asks for the text,
+ * so a system can explain itself freely without slowing down callers which only want the bid.
+ * Use DISABLED when the explanation is not wanted, or a Commentary.Recorder to keep it.
+ */
+public interface Commentary {
+
+    /**
+     * A kind of remark, which knows how to turn its arguments into text
+     */
+    interface Rule {
+
+        String render(
+            final int[] arguments,
+            final int offset
+        );
+    }
+
+    /**
+     * Discards everything
+     */
+    Commentary DISABLED = new Commentary() {
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void add(
+            final Rule rule
+        ) {
+        }
+
+        @Override
+        public void add(
+            final Rule rule,
+            final int arg0
+        ) {
+        }
+
+        @Override
+        public void add(
+            final Rule rule,
+            final int arg0,
+            final int arg1
+        ) {
+        }
+
+        @Override
+        public void add(
+            final Rule rule,
+            final int arg0,
+            final int arg1,
+            final int arg2
+        ) {
+        }
+
+        @Override
+        public void add(
+            final Rule rule,
+            final int arg0,
+            final int arg1,
+            final int arg2,
+            final int arg3
+        ) {
+        }
+    };
+
+    /**
+     * Indicates whether remarks are kept - callers may skip any work needed only to produce arguments if not
+     */
+    boolean isEnabled();
+
+    void add(
+        final Rule rule
+    );
+
+    void add(
+        final Rule rule,
+        final int arg0
+    );
+
+    void add(
+        final Rule rule,
+        final int arg0,
+        final int arg1
+    );
+
+    void add(
+        final Rule rule,
+        final int arg0,
+        final int arg1,
+        final int arg2
+    );
+
+    void add(
+        final Rule rule,
+        final int arg0,
+        final int arg1,
+        final int arg2,
+        final int arg3
+    );
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Keeps remarks in arrays of rules and arguments, to be rendered on request.
+     * May be cleared and reused.
+     */
+    class Recorder implements Commentary {
+
+        private Rule[] _rules = new Rule[16];
+        private int[] _offsets = new int[17];   //  _offsets[i] to _offsets[i + 1] are the arguments of remark i
+        private int[] _arguments = new int[32];
+        private int _count = 0;
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void add(
+            final Rule rule
+        ) {
+            begin(rule, 0);
+        }
+
+        @Override
+        public void add(
+            final Rule rule,
+            final int arg0
+        ) {
+            int ax = begin(rule, 1);
+            _arguments[ax] = arg0;
+        }
+
+        @Override
+        public void add(
+            final Rule rule,
+            final int arg0,
+            final int arg1
+        ) {
+            int ax = begin(rule, 2);
+            _arguments[ax] = arg0;
+            _arguments[ax + 1] = arg1;
+        }
+
+        @Override
+        public void add(
+            final Rule rule,
+            final int arg0,
+            final int arg1,
+            final int arg2
+        ) {
+            int ax = begin(rule, 3);
+            _arguments[ax] = arg0;
+            _arguments[ax + 1] = arg1;
+            _arguments[ax + 2] = arg2;
+        }
+
+        @Override
+        public void add(
+            final Rule rule,
+            final int arg0,
+            final int arg1,
+            final int arg2,
+            final int arg3
+        ) {
+            int ax = begin(rule, 4);
+            _arguments[ax] = arg0;
+            _arguments[ax + 1] = arg1;
+            _arguments[ax + 2] = arg2;
+            _arguments[ax + 3] = arg3;
+        }
+
+        /**
+         * Makes room for a remark with the given number of arguments, returning the index of its first argument
+         */
+        private int begin(
+            final Rule rule,
+            final int arguments
+        ) {
+            if (_count == _rules.length) {
+                _rules = Arrays.copyOf(_rules, _count * 2);
+                _offsets = Arrays.copyOf(_offsets, _count * 2 + 1);
+            }
+            int ax = _offsets[_count];
+            if (ax + arguments > _arguments.length) {
+                _arguments = Arrays.copyOf(_arguments, Math.max(_arguments.length * 2, ax + arguments));
+            }
+            _rules[_count] = rule;
+            _offsets[_count + 1] = ax + arguments;
+            ++_count;
+            return ax;
+        }
+
+        public void clear() {
+            _count = 0;
+        }
+
+        public int size() {
+            return _count;
+        }
+
+        /**
+         * Rule for the remark at the given index
+         */
+        public Rule getRule(
+            final int index
+        ) {
+            return _rules[index];
+        }
+
+        /**
+         * Number of arguments to the remark at the given index
+         */
+        public int getArgumentCount(
+            final int index
+        ) {
+            return _offsets[index + 1] - _offsets[index];
+        }
+
+        /**
+         * One argument of the remark at the given index
+         */
+        public int getArgument(
+            final int index,
+            final int argument
+        ) {
+            return _arguments[_offsets[index] + argument];
+        }
+
+        /**
+         * Renders the remark at the given index
+         */
+        public String getText(
+            final int index
+        ) {
+            return _rules[index].render(_arguments, _offsets[index]);
+        }
+
+        /**
+         * Renders all the remarks, one per line
+         */
+        public String[] getDisplay() {
+            String[] result = new String[_count];
+            for (int rx = 0; rx < _count; ++rx) {
+                result[rx] = getText(rx);
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return String.join("\n", getDisplay());
+        }
+    }
+}
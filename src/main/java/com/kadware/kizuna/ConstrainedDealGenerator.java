@@ -0,0 +1,472 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Produces random deals in which each position's hand satisfies a HandSpec, without rejection sampling.
+ *
+ * Fixed hands are placed first. Each constrained hand is then built constructively from the cards still available:
+ * for every shape and high-card point total we count the conforming holdings exactly, pick a shape and a
+ * point split in proportion to those counts, and then pick the holdings in each suit. Each constrained hand
+ * is therefore uniformly distributed over the conforming hands which could be made from the cards available to it.
+ * Unconstrained hands are dealt uniformly from whatever cards remain.
+ *
+ * With only one constrained (non-fixed) position the deals are exactly uniform over all conforming deals.
+ * With more than one, the constrained hands are built in turn, so the joint distribution favors hands which
+ * leave fewer choices to the later positions; it is close to, but not exactly, uniform.
+ *
+ * Like DealGenerator, the deals form a seekable stream - deal number N depends only upon the seed and N.
+ * Instances are not thread-safe.
+ */
+public class ConstrainedDealGenerator {
+
+    private static final int MAX_ATTEMPTS = 1_000_000;
+
+    private final long _seed;
+    private long _index = 0;                        //  number of the deal which next() will produce
+    private final DealRandom _random = new DealRandom();
+    private final long _fixedCards;                 //  CardMask of all cards in fixed hands
+    private final long[] _fixedHands = new long[4];
+    private final Sampler[] _samplers = new Sampler[4];
+    private final byte[] _cards = new byte[52];     //  scratch for dealing the unconstrained hands
+
+    /**
+     * Counts of conforming holdings, and sampling from them, for one constrained position
+     */
+    private static final class Sampler {
+
+        private static final int SPOTS = 0x01FF;   //  ten down to two
+        private static final int SUIT_HCP = 11;    //  0 to 10 in a single suit
+        private static final int PAIR_HCP = 21;    //  0 to 20 across two suits
+        private static final long[][] BINOMIALS = new long[14][14];
+        private static final int[] HONOR_POINTS = new int[16];  //  indexed by the A-K-Q-J bits of a holding
+        static {
+            for (int n = 0; n < 14; ++n) {
+                BINOMIALS[n][0] = 1;
+                for (int k = 1; k <= n; ++k) {
+                    BINOMIALS[n][k] = BINOMIALS[n - 1][k - 1] + BINOMIALS[n - 1][k];
+                }
+            }
+            for (int honors = 0; honors < 16; ++honors) {
+                HONOR_POINTS[honors] = HoldingTable.getHighCardPoints(honors << 9);
+            }
+        }
+
+        private final HandSpec _spec;
+        private final boolean[] _acceptedShapes = new boolean[14 * 14 * 14];    //  indexed by shapeIndex()
+        private long _available = -1;
+        private final int[] _holdings = new int[4];
+        private final long[][][] _counts = new long[4][14][SUIT_HCP];           //  [suit][length][hcp]
+        private final long[][][] _lowPairs = new long[14][14][PAIR_HCP];        //  clubs and diamonds
+        private final long[][][] _highPairs = new long[14][14][PAIR_HCP];       //  hearts and spades
+        private final long[][][] _highPrefixes = new long[14][14][PAIR_HCP + 1];
+        private final int[] _shapes = new int[560];
+        private final long[] _shapeWeights = new long[560];
+        private int _shapeCount;
+        private long _total;
+
+        private Sampler(
+            final HandSpec spec
+        ) {
+            _spec = spec;
+            int[] lengths = new int[4];
+            for (int c = 0; c < 14; ++c) {
+                for (int d = 0; c + d < 14; ++d) {
+                    for (int h = 0; c + d + h < 14; ++h) {
+                        lengths[0] = c;
+                        lengths[1] = d;
+                        lengths[2] = h;
+                        lengths[3] = 13 - c - d - h;
+                        _acceptedShapes[shapeIndex(c, d, h)] = spec.acceptsShape(lengths);
+                    }
+                }
+            }
+        }
+
+        private static int shapeIndex(
+            final int clubs,
+            final int diamonds,
+            final int hearts
+        ) {
+            return (clubs * 14 + diamonds) * 14 + hearts;
+        }
+
+        /**
+         * Sum of the high pair counts for the given lengths, over the given (inclusive, unclipped) point range
+         */
+        private long highRange(
+            final int length0,
+            final int length1,
+            final int minPoints,
+            final int maxPoints
+        ) {
+            int lo = Math.max(minPoints, 0);
+            int hi = Math.min(maxPoints, PAIR_HCP - 1);
+            if (lo > hi) {
+                return 0;
+            }
+            long[] prefix = _highPrefixes[length0][length1];
+            return prefix[hi + 1] - prefix[lo];
+        }
+
+        /**
+         * Recomputes the counts for the given set of available cards.
+         * Returns the total number of conforming hands.
+         */
+        private long prepare(
+            final long available
+        ) {
+            if (available == _available) {
+                return _total;
+            }
+            _available = available;
+
+            for (Suit suit : Suit.values()) {
+                int sx = suit._bidOrder;
+                int holding = CardMask.getHolding(available, suit);
+                int honors = holding >>> 9;
+                int spots = Integer.bitCount(holding & SPOTS);
+                _holdings[sx] = holding;
+                for (int len = 0; len < 14; ++len) {
+                    long[] row = _counts[sx][len];
+                    Arrays.fill(row, 0);
+                    if ((len < _spec.getMinLength(suit)) || (len > _spec.getMaxLength(suit))) {
+                        continue;
+                    }
+                    for (int sub = honors; ; sub = (sub - 1) & honors) {
+                        int spotCount = len - Integer.bitCount(sub);
+                        if ((spotCount >= 0) && (spotCount <= spots)) {
+                            row[HONOR_POINTS[sub]] += BINOMIALS[spots][spotCount];
+                        }
+                        if (sub == 0) {
+                            break;
+                        }
+                    }
+                }
+            }
+
+            combine(_counts[0], _counts[1], _lowPairs);
+            combine(_counts[2], _counts[3], _highPairs);
+            for (int l0 = 0; l0 < 14; ++l0) {
+                for (int l1 = 0; l0 + l1 < 14; ++l1) {
+                    long[] prefix = _highPrefixes[l0][l1];
+                    for (int hcp = 0; hcp < PAIR_HCP; ++hcp) {
+                        prefix[hcp + 1] = prefix[hcp] + _highPairs[l0][l1][hcp];
+                    }
+                }
+            }
+
+            _shapeCount = 0;
+            _total = 0;
+            for (int c = 0; c < 14; ++c) {
+                for (int d = 0; c + d < 14; ++d) {
+                    for (int h = 0; c + d + h < 14; ++h) {
+                        int shape = shapeIndex(c, d, h);
+                        if (!_acceptedShapes[shape]) {
+                            continue;
+                        }
+                        int s = 13 - c - d - h;
+                        long weight = 0;
+                        for (int lowPoints = 0; lowPoints < PAIR_HCP; ++lowPoints) {
+                            long lowCount = _lowPairs[c][d][lowPoints];
+                            if (lowCount != 0) {
+                                weight += lowCount * highRange(h,
+                                                               s,
+                                                               _spec._minHighCardPoints - lowPoints,
+                                                               _spec._maxHighCardPoints - lowPoints);
+                            }
+                        }
+                        if (weight != 0) {
+                            _shapes[_shapeCount] = shape;
+                            _shapeWeights[_shapeCount] = weight;
+                            ++_shapeCount;
+                            _total += weight;
+                        }
+                    }
+                }
+            }
+
+            return _total;
+        }
+
+        /**
+         * Convolves the per-suit counts of two suits into counts by pair of lengths and total points
+         */
+        private static void combine(
+            final long[][] counts0,
+            final long[][] counts1,
+            final long[][][] pairs
+        ) {
+            for (int l0 = 0; l0 < 14; ++l0) {
+                for (int l1 = 0; l1 < 14; ++l1) {
+                    long[] pair = pairs[l0][l1];
+                    Arrays.fill(pair, 0);
+                    if (l0 + l1 > 13) {
+                        continue;
+                    }
+                    for (int p0 = 0; p0 < SUIT_HCP; ++p0) {
+                        long c0 = counts0[l0][p0];
+                        if (c0 != 0) {
+                            for (int p1 = 0; p1 < SUIT_HCP; ++p1) {
+                                pair[p0 + p1] += c0 * counts1[l1][p1];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Picks the points held in the first of two suits, given the points held in both
+         */
+        private static int split(
+            final DealRandom random,
+            final long[] counts0,
+            final long[] counts1,
+            final int points,
+            final long total
+        ) {
+            long pick = random.nextLong(total);
+            for (int p0 = Math.max(0, points - (SUIT_HCP - 1)); p0 <= Math.min(points, SUIT_HCP - 1); ++p0) {
+                pick -= counts0[p0] * counts1[points - p0];
+                if (pick < 0) {
+                    return p0;
+                }
+            }
+            throw new RuntimeException("Impossible failure");
+        }
+
+        /**
+         * Picks a conforming hand uniformly from the available cards most recently given to prepare()
+         */
+        private long sample(
+            final DealRandom random
+        ) {
+            //  Shape
+            long pick = random.nextLong(_total);
+            int sx = 0;
+            while (pick >= _shapeWeights[sx]) {
+                pick -= _shapeWeights[sx++];
+            }
+            int shape = _shapes[sx];
+            int c = shape / 196;
+            int d = (shape / 14) % 14;
+            int h = shape % 14;
+            int s = 13 - c - d - h;
+
+            //  Points in the minors and in the majors
+            pick = random.nextLong(_shapeWeights[sx]);
+            int lowPoints = 0;
+            long highWeight = 0;
+            for (; ; ++lowPoints) {
+                highWeight = highRange(h, s, _spec._minHighCardPoints - lowPoints, _spec._maxHighCardPoints - lowPoints);
+                long weight = _lowPairs[c][d][lowPoints] * highWeight;
+                if (pick < weight) {
+                    break;
+                }
+                pick -= weight;
+            }
+
+            pick = random.nextLong(highWeight);
+            int highPoints = Math.max(_spec._minHighCardPoints - lowPoints, 0);
+            while (pick >= _highPairs[h][s][highPoints]) {
+                pick -= _highPairs[h][s][highPoints++];
+            }
+
+            //  Points in each suit
+            int clubPoints = split(random, _counts[0][c], _counts[1][d], lowPoints, _lowPairs[c][d][lowPoints]);
+            int heartPoints = split(random, _counts[2][h], _counts[3][s], highPoints, _highPairs[h][s][highPoints]);
+
+            return pickHolding(random, Suit.CLUBS, c, clubPoints)
+                | pickHolding(random, Suit.DIAMONDS, d, lowPoints - clubPoints)
+                | pickHolding(random, Suit.HEARTS, h, heartPoints)
+                | pickHolding(random, Suit.SPADES, s, highPoints - heartPoints);
+        }
+
+        /**
+         * Picks a holding uniformly from the available cards of the given suit, with the given length and points
+         */
+        private long pickHolding(
+            final DealRandom random,
+            final Suit suit,
+            final int length,
+            final int points
+        ) {
+            int sx = suit._bidOrder;
+            int available = _holdings[sx];
+            int honors = available >>> 9;
+            int spots = Integer.bitCount(available & SPOTS);
+
+            //  Which honors
+            long pick = random.nextLong(_counts[sx][length][points]);
+            int chosenHonors = 0;
+            for (int sub = honors; ; sub = (sub - 1) & honors) {
+                int spotCount = length - Integer.bitCount(sub);
+                if ((HONOR_POINTS[sub] == points) && (spotCount >= 0) && (spotCount <= spots)) {
+                    pick -= BINOMIALS[spots][spotCount];
+                    if (pick < 0) {
+                        chosenHonors = sub;
+                        break;
+                    }
+                }
+                if (sub == 0) {
+                    throw new RuntimeException("Impossible failure");
+                }
+            }
+
+            //  Which spot cards - selection sampling over the available spots
+            int holding = chosenHonors << 9;
+            int needed = length - Integer.bitCount(chosenHonors);
+            int remaining = spots;
+            for (int bits = available & SPOTS; needed > 0; bits &= bits - 1) {
+                if (random.nextInt(remaining) < needed) {
+                    holding |= Integer.lowestOneBit(bits);
+                    --needed;
+                }
+                --remaining;
+            }
+
+            return CardMask.getMask(suit, holding);
+        }
+    }
+
+    /**
+     * Creates a generator for the given specs. Positions which do not appear in the map are unconstrained.
+     */
+    public ConstrainedDealGenerator(
+        final long seed,
+        final Map<Position, HandSpec> specs
+    ) {
+        _seed = seed;
+
+        long fixed = 0;
+        for (Map.Entry<Position, HandSpec> entry : specs.entrySet()) {
+            HandSpec spec = entry.getValue();
+            int px = entry.getKey().ordinal();
+            if (spec.isFixed()) {
+                if ((fixed & spec._cards) != 0) {
+                    throw new RuntimeException("Fixed hands have cards in common");
+                }
+                fixed |= spec._cards;
+                _fixedHands[px] = spec._cards;
+            } else if (!spec.isAny()) {
+                _samplers[px] = new Sampler(spec);
+            }
+        }
+        _fixedCards = fixed;
+
+        for (Position pos : Position.getValuesByOrdinal()) {
+            Sampler sampler = _samplers[pos.ordinal()];
+            if ((sampler != null) && (sampler.prepare(CardMask.FULL_DECK & ~fixed) == 0)) {
+                throw new RuntimeException(String.format("No hand for %s satisfies %s", pos, sampler._spec));
+            }
+        }
+    }
+
+    /**
+     * Generates the deal with the given number into the given array, which must have at least four elements.
+     * Each element receives the CardMask for the Position with the corresponding ordinal.
+     */
+    public void deal(
+        final long index,
+        final long[] hands
+    ) {
+        _random.reset(_seed, index);
+
+        long available = 0;
+        boolean satisfied = false;
+        for (int attempt = 0; !satisfied && (attempt < MAX_ATTEMPTS); ++attempt) {
+            available = CardMask.FULL_DECK & ~_fixedCards;
+            satisfied = true;
+            for (Position pos : Position.getValuesByOrdinal()) {
+                int px = pos.ordinal();
+                Sampler sampler = _samplers[px];
+                if (sampler == null) {
+                    hands[px] = _fixedHands[px];
+                } else if (sampler.prepare(available) == 0) {
+                    //  The earlier hands left nothing which satisfies this one - start over
+                    satisfied = false;
+                    break;
+                } else {
+                    hands[px] = sampler.sample(_random);
+                    available &= ~hands[px];
+                }
+            }
+        }
+
+        if (!satisfied) {
+            throw new RuntimeException("Unable to satisfy the hand specifications");
+        }
+
+        //  Deal whatever remains to the unconstrained hands
+        int count = 0;
+        for (long bits = available; bits != 0; bits &= bits - 1) {
+            _cards[count++] = (byte) Long.numberOfTrailingZeros(bits);
+        }
+        for (int cx = count - 1; cx > 0; --cx) {
+            int sx = _random.nextInt(cx + 1);
+            byte temp = _cards[cx];
+            _cards[cx] = _cards[sx];
+            _cards[sx] = temp;
+        }
+
+        int cx = 0;
+        for (int px = 0; px < 4; ++px) {
+            if ((_samplers[px] == null) && (_fixedHands[px] == 0)) {
+                long mask = 0;
+                for (int limit = cx + 13; cx < limit; ++cx) {
+                    mask |= 1L << _cards[cx];
+                }
+                hands[px] = mask;
+            }
+        }
+    }
+
+    /**
+     * Generates the deal with the given number
+     */
+    public Deal deal(
+        final long index
+    ) {
+        long[] hands = new long[4];
+        deal(index, hands);
+        return new Deal(hands);
+    }
+
+    /**
+     * Number of the deal which next() will produce
+     */
+    public long getIndex() {
+        return _index;
+    }
+
+    /**
+     * Generates the next deal
+     */
+    public Deal next() {
+        return deal(_index++);
+    }
+
+    /**
+     * Generates the next deal into the given array - see deal(long, long[])
+     */
+    public void next(
+        final long[] hands
+    ) {
+        deal(_index++, hands);
+    }
+
+    /**
+     * Positions the stream so that next() produces the deal with the given number
+     */
+    public void seek(
+        final long index
+    ) {
+        _index = index;
+    }
+}
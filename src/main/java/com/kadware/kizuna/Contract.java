@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+/**
+ * A final contract - level, strain, declarer, and whether it was doubled or redoubled - along with duplicate scoring
+ */
+public final class Contract {
+
+    public static final int UNDOUBLED = 0;
+    public static final int DOUBLED = 1;
+    public static final int REDOUBLED = 2;
+
+    public final int _level;
+    public final Suit _trumps;          //  null for no-trump
+    public final Position _declarer;
+    public final int _doubling;         //  UNDOUBLED, DOUBLED, or REDOUBLED
+
+    public Contract(
+        final int level,
+        final Suit trumps,
+        final Position declarer,
+        final int doubling
+    ) {
+        if ((level < 1) || (level > 7)) {
+            throw new RuntimeException("Invalid level for contract");
+        }
+        if ((doubling < UNDOUBLED) || (doubling > REDOUBLED)) {
+            throw new RuntimeException("Invalid doubling for contract");
+        }
+
+        _level = level;
+        _trumps = trumps;
+        _declarer = declarer;
+        _doubling = doubling;
+    }
+
+    /**
+     * Number of tricks declarer must take to make the contract
+     */
+    public int getRequiredTricks() {
+        return _level + 6;
+    }
+
+    /**
+     * Duplicate score for declarer's side, given the number of tricks declarer takes - negative if the contract fails
+     */
+    public int getScore(
+        final int tricks,
+        final boolean vulnerable
+    ) {
+        return getScore(_level, _trumps, _doubling, vulnerable, tricks);
+    }
+
+    /**
+     * Duplicate score for declarer's side, for a contract at the given level, strain (null for no-trump) and doubling
+     */
+    public static int getScore(
+        final int level,
+        final Suit trumps,
+        final int doubling,
+        final boolean vulnerable,
+        final int tricks
+    ) {
+        int required = level + 6;
+        if (tricks < required) {
+            int undertricks = required - tricks;
+            if (doubling == UNDOUBLED) {
+                return -undertricks * (vulnerable ? 100 : 50);
+            }
+
+            //  Doubled: 200 then 300 each vulnerable; 100, then 200 for the second and third, then 300 each otherwise
+            int penalty = vulnerable
+                ? 200 + 300 * (undertricks - 1)
+                : 100 + 200 * Math.min(undertricks - 1, 2) + 300 * Math.max(undertricks - 3, 0);
+            return -penalty * doubling;
+        }
+
+        int trickValue = ((trumps == null) || trumps._isMajor) ? 30 : 20;
+        int contractPoints = (level * trickValue + ((trumps == null) ? 10 : 0)) << doubling;
+        int score = contractPoints;
+        score += (contractPoints >= 100) ? (vulnerable ? 500 : 300) : 50;
+        if (level == 6) {
+            score += vulnerable ? 750 : 500;
+        } else if (level == 7) {
+            score += vulnerable ? 1500 : 1000;
+        }
+
+        int overtricks = tricks - required;
+        if (doubling == UNDOUBLED) {
+            score += overtricks * trickValue;
+        } else {
+            score += 50 * doubling + overtricks * (vulnerable ? 200 : 100) * doubling;
+        }
+
+        return score;
+    }
+
+    @Override
+    public boolean equals(
+        final Object obj
+    ) {
+        if (obj instanceof Contract) {
+            Contract contract = (Contract) obj;
+            return (contract._level == _level)
+                && (contract._trumps == _trumps)
+                && (contract._declarer == _declarer)
+                && (contract._doubling == _doubling);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((_level * 5 + ((_trumps == null) ? 4 : _trumps._bidOrder)) * 4 + _declarer.ordinal()) * 3 + _doubling;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d%s%s by %s",
+                             _level,
+                             (_trumps == null) ? "NT" : _trumps._symbol,
+                             (_doubling == DOUBLED) ? "X" : ((_doubling == REDOUBLED) ? "XX" : ""),
+                             _declarer);
+    }
+}
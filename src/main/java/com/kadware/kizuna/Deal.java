@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * An immutable deal - the CardMask held by each Position.
+ * This is where the per-deal state of a card (i.e., who holds it) lives, so that Card instances can be shared freely.
+ */
+public final class Deal {
+
+    private final long[] _hands;    //  indexed by Position.ordinal()
+
+    public Deal(
+        final long[] hands
+    ) {
+        long all = 0;
+        for (int hx = 0; hx < 4; ++hx) {
+            if ((all & hands[hx]) != 0) {
+                throw new RuntimeException("Card dealt to more than one hand");
+            }
+            all |= hands[hx];
+        }
+
+        _hands = Arrays.copyOf(hands, 4);
+    }
+
+    /**
+     * Copies the CardMasks for all four positions into the given array
+     */
+    public void getHands(
+        final long[] hands
+    ) {
+        System.arraycopy(_hands, 0, hands, 0, 4);
+    }
+
+    /**
+     * Retrieves the CardMask held by the given position
+     */
+    public long getCards(
+        final Position position
+    ) {
+        return _hands[position.ordinal()];
+    }
+
+    /**
+     * Builds a Hand for the given position
+     */
+    public Hand getHand(
+        final Position position
+    ) {
+        return new Hand(position, _hands[position.ordinal()]);
+    }
+
+    /**
+     * Builds Hand objects for all four positions
+     */
+    public Map<Position, Hand> getHands() {
+        Map<Position, Hand> result = new EnumMap<>(Position.class);
+        for (Position pos : Position.values()) {
+            result.put(pos, getHand(pos));
+        }
+        return result;
+    }
+
+    /**
+     * Indicates which position holds the given card, or null if it was not dealt
+     */
+    public Position getHolder(
+        final Card card
+    ) {
+        long mask = card.getMask();
+        for (Position pos : Position.values()) {
+            if ((_hands[pos.ordinal()] & mask) != 0) {
+                return pos;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean equals(
+        final Object obj
+    ) {
+        return (obj instanceof Deal) && Arrays.equals(_hands, ((Deal) obj)._hands);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(_hands);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Position pos : Position.getValuesByOrdinal()) {
+            if (sb.length() > 0) {
+                sb.append(" / ");
+            }
+            sb.append(getHand(pos).toString());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A read-only, memory-mapped file of complete deals in 13 bytes apiece, any of which can be fetched by number.
+ *
+ * Each card is two bits giving the ordinal of the Position which holds it, cards in CardMask bit order,
+ * four to a byte starting with the low bits. The file is a short header followed by the deals, so deal N starts
+ * at a fixed offset. Files are written by DealArchiveWriter.
+ *
+ * The mapping is split into segments of DEALS_PER_SEGMENT deals, since a single mapping is limited to 2GB.
+ * Instances are thread-safe - a deal is decoded with absolute reads and nothing is cached.
+ */
+public class DealArchive implements Closeable {
+
+    static final long MAGIC = 0x314C4145444B5A4BL;         //  "KZKDEAL1" read little-endian
+    static final int HEADER_SIZE = 16;                      //  magic, then eight bytes reserved
+    static final int DEAL_SIZE = 13;
+
+    private static final int SEGMENT_BITS = 27;
+    private static final long DEALS_PER_SEGMENT = 1L << SEGMENT_BITS;
+    private static final int PARALLEL_GRAIN = 1 << 16;     //  deals per leaf task in a parallel scan
+
+    //  For each nibble, its four bits spread to the low bit of four two-bit fields
+    private static final int[] SPREAD = new int[16];
+    static {
+        for (int nibble = 0; nibble < 16; ++nibble) {
+            for (int cx = 0; cx < 4; ++cx) {
+                SPREAD[nibble] |= ((nibble >>> cx) & 0x01) << (cx * 2);
+            }
+        }
+    }
+
+    /**
+     * Receives the deals from a scan.
+     * The array holds the CardMask of each Position by ordinal, and is reused for the next deal.
+     */
+    public interface Visitor {
+
+        void visit(
+            final long index,
+            final long[] hands
+        );
+    }
+
+    private final FileChannel _channel;
+    private final ByteBuffer[] _segments;
+    private final long _size;       //  number of deals
+    private final ForkJoinPool _pool;
+
+    public DealArchive(
+        final Path path
+    ) throws IOException {
+        this(path, ForkJoinPool.commonPool());
+    }
+
+    public DealArchive(
+        final Path path,
+        final ForkJoinPool pool
+    ) throws IOException {
+        _channel = FileChannel.open(path, StandardOpenOption.READ);
+        _pool = pool;
+
+        long length = _channel.size();
+        if (length < HEADER_SIZE) {
+            _channel.close();
+            throw new RuntimeException("Not a deal archive: " + path);
+        }
+        ByteBuffer header = _channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.order(ByteOrder.LITTLE_ENDIAN).getLong(0) != MAGIC) {
+            _channel.close();
+            throw new RuntimeException("Not a deal archive: " + path);
+        }
+        if ((length - HEADER_SIZE) % DEAL_SIZE != 0) {
+            _channel.close();
+            throw new RuntimeException("Deal archive is truncated: " + path);
+        }
+
+        _size = (length - HEADER_SIZE) / DEAL_SIZE;
+        _segments = new ByteBuffer[(int) ((_size + DEALS_PER_SEGMENT - 1) >>> SEGMENT_BITS)];
+        for (int sx = 0; sx < _segments.length; ++sx) {
+            long first = sx * DEALS_PER_SEGMENT;
+            long count = Math.min(DEALS_PER_SEGMENT, _size - first);
+            _segments[sx] = _channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * DEAL_SIZE, count * DEAL_SIZE)
+                                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        _channel.close();
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Encodes a complete deal into DEAL_SIZE bytes of the given array.
+     * Every card must be in exactly one hand - covering the deck is not enough, as a card held twice would be
+     * written as the OR of the two positions' ordinals.
+     */
+    static void encode(
+        final long[] hands,
+        final byte[] buffer,
+        final int offset
+    ) {
+        if (((hands[0] | hands[1] | hands[2] | hands[3]) != CardMask.FULL_DECK)
+            || (Long.bitCount(hands[0]) + Long.bitCount(hands[1]) + Long.bitCount(hands[2]) + Long.bitCount(hands[3]) != 52)) {
+            throw new RuntimeException("Only complete deals can be archived");
+        }
+
+        for (int bx = 0; bx < DEAL_SIZE; ++bx) {
+            int shift = bx * 4;
+            int value = 0;
+            for (int hx = 1; hx < 4; ++hx) {
+                value |= SPREAD[(int) (hands[hx] >>> shift) & 0x0F] * hx;
+            }
+            buffer[offset + bx] = (byte) value;
+        }
+    }
+
+    /**
+     * Gathers the even-numbered bits of a long into its low 32 bits
+     */
+    private static long getEvenBits(
+        final long value
+    ) {
+        long x = value & 0x5555555555555555L;
+        x = (x | (x >>> 1)) & 0x3333333333333333L;
+        x = (x | (x >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x >>> 4)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x >>> 8)) & 0x0000FFFF0000FFFFL;
+        return (x | (x >>> 16)) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Decodes the deal at the given byte offset of a segment.
+     * The low and high bits of the two-bit codes are gathered into a CardMask each, from which every hand
+     * is a single AND - the first 32 cards come from the first eight bytes, the rest from the last five.
+     */
+    private static void decode(
+        final ByteBuffer segment,
+        final int offset,
+        final long[] hands
+    ) {
+        long first = segment.getLong(offset);
+        long second = segment.getLong(offset + DEAL_SIZE - 8) >>> 24;
+        long low = getEvenBits(first) | (getEvenBits(second) << 32);
+        long high = getEvenBits(first >>> 1) | (getEvenBits(second >>> 1) << 32);
+        hands[0] = ~(low | high) & CardMask.FULL_DECK;
+        hands[1] = low & ~high;
+        hands[2] = high & ~low;
+        hands[3] = low & high;
+    }
+
+    private void checkIndex(
+        final long index
+    ) {
+        if ((index < 0) || (index >= _size)) {
+            throw new RuntimeException("Deal number out of range: " + index);
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Number of deals in the archive
+     */
+    public long size() {
+        return _size;
+    }
+
+    /**
+     * Decodes the deal with the given number into the given array, which must have at least four elements -
+     * the CardMask of each Position by ordinal, as DealGenerator.deal() produces
+     */
+    public void getHands(
+        final long index,
+        final long[] hands
+    ) {
+        checkIndex(index);
+        decode(_segments[(int) (index >>> SEGMENT_BITS)], (int) (index & (DEALS_PER_SEGMENT - 1)) * DEAL_SIZE, hands);
+    }
+
+    /**
+     * Retrieves the CardMask held by one position in the deal with the given number
+     */
+    public long getCards(
+        final long index,
+        final Position position
+    ) {
+        long[] hands = new long[4];
+        getHands(index, hands);
+        return hands[position.ordinal()];
+    }
+
+    public Deal getDeal(
+        final long index
+    ) {
+        long[] hands = new long[4];
+        getHands(index, hands);
+        return new Deal(hands);
+    }
+
+    public Map<Position, Hand> getHands(
+        final long index
+    ) {
+        return getDeal(index).getHands();
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Passes the deals numbered first (inclusive) through limit (exclusive) to the visitor, in order
+     */
+    public void forEach(
+        final long first,
+        final long limit,
+        final Visitor visitor
+    ) {
+        if ((first < 0) || (limit > _size) || (first > limit)) {
+            throw new RuntimeException("Deal range out of range");
+        }
+
+        long[] hands = new long[4];
+        long index = first;
+        while (index < limit) {
+            int sx = (int) (index >>> SEGMENT_BITS);
+            ByteBuffer segment = _segments[sx];
+            long segmentLimit = Math.min(limit, (sx + 1) * DEALS_PER_SEGMENT);
+            int offset = (int) (index & (DEALS_PER_SEGMENT - 1)) * DEAL_SIZE;
+            for (; index < segmentLimit; ++index, offset += DEAL_SIZE) {
+                decode(segment, offset, hands);
+                visitor.visit(index, hands);
+            }
+        }
+    }
+
+    /**
+     * Passes every deal to the visitor, in order
+     */
+    public void forEach(
+        final Visitor visitor
+    ) {
+        forEach(0, _size, visitor);
+    }
+
+    /**
+     * Scans a range of deals, splitting it until it is small enough for one task
+     */
+    @SuppressWarnings("serial")
+    private class Task extends RecursiveAction {
+
+        private final long _first;
+        private final long _limit;
+        private final Visitor _visitor;
+
+        private Task(
+            final long first,
+            final long limit,
+            final Visitor visitor
+        ) {
+            _first = first;
+            _limit = limit;
+            _visitor = visitor;
+        }
+
+        @Override
+        protected void compute() {
+            if (_limit - _first > PARALLEL_GRAIN) {
+                long middle = _first + (_limit - _first) / 2;
+                invokeAll(new Task(_first, middle, _visitor), new Task(middle, _limit, _visitor));
+            } else {
+                forEach(_first, _limit, _visitor);
+            }
+        }
+    }
+
+    /**
+     * Passes every deal to the visitor, scanning ranges of the archive in parallel.
+     * The visitor is called from several threads at once; each range is visited in order, but the ranges are not.
+     */
+    public void parallelForEach(
+        final Visitor visitor
+    ) {
+        if (_size > 0) {
+            _pool.invoke(new Task(0, _size, visitor));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes complete deals to a file which DealArchive can read, numbering them in the order they are written
+ */
+public class DealArchiveWriter implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream _stream;
+    private final byte[] _buffer = new byte[DealArchive.DEAL_SIZE];
+    private long _count = 0;
+
+    /**
+     * Creates (or replaces) an archive
+     */
+    public DealArchiveWriter(
+        final Path path
+    ) throws IOException {
+        _stream = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE);
+        byte[] header = new byte[DealArchive.HEADER_SIZE];
+        for (int bx = 0; bx < 8; ++bx) {
+            header[bx] = (byte) (DealArchive.MAGIC >>> (bx * 8));
+        }
+        _stream.write(header);
+    }
+
+    /**
+     * Appends a deal given as the CardMask of each Position by ordinal
+     */
+    public void write(
+        final long[] hands
+    ) throws IOException {
+        DealArchive.encode(hands, _buffer, 0);
+        _stream.write(_buffer);
+        ++_count;
+    }
+
+    public void write(
+        final Deal deal
+    ) throws IOException {
+        long[] hands = new long[4];
+        deal.getHands(hands);
+        write(hands);
+    }
+
+    /**
+     * Number of deals written so far
+     */
+    public long getCount() {
+        return _count;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        _stream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        _stream.close();
+    }
+}
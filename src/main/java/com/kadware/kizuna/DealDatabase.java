@@ -0,0 +1,535 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-position feature columns for a range of the deals in a DealArchive, for answering DealQuery's quickly.
+ *
+ * For each position there is a column of CardMasks (the suit holdings), of high-card points and quick tricks
+ * (as Hand.countHighCardPoints() and Hand.countQuickTricks() count them, via BatchEvaluator), of the length
+ * of each suit, and of the ShapeTable pattern - about 60 bytes a deal in all, so 10^8 deals want a 6GB heap.
+ *
+ * A query is compiled into scans of the columns it mentions - conditions on the same column are merged, and
+ * the scans are ordered by how many deals a sample of the database lets through, most selective first. The
+ * deals are then taken a block of 64 at a time: each scan produces a 64-bit mask of the deals in the block which
+ * pass it, the masks are ANDed, and the remaining scans are skipped once nothing is left. Blocks are scanned
+ * in parallel on a ForkJoinPool.
+ *
+ * Deals are identified by their numbers in the archive. Instances are thread-safe once built.
+ */
+public class DealDatabase {
+
+    private static final int BLOCK_SIZE = ColumnScanner.BLOCK_SIZE;
+    private static final int BUILD_GRAIN = 1 << 16;     //  deals per leaf task while building the columns
+    private static final int SCAN_GRAIN = 1 << 12;      //  blocks per leaf task while scanning
+    private static final int SAMPLE_BLOCKS = 64;        //  blocks used to estimate how selective each scan is
+    private static final int MAX_QUICK_TRICK_HALVES = 16;
+    private static final long ALL_PATTERNS = (1L << ShapeTable.PATTERNS) - 1;
+
+    private final long _first;                  //  archive number of the first deal
+    private final int _size;
+    private final int _blocks;
+    private final long[][] _cards;              //  [Position.ordinal()][deal]
+    private final byte[][] _highCardPoints;     //  [Position.ordinal()][deal]
+    private final byte[][] _quickTrickHalves;   //  [Position.ordinal()][deal]
+    private final byte[][][] _lengths;          //  [Position.ordinal()][Suit._bidOrder][deal]
+    private final byte[][] _patterns;           //  [Position.ordinal()][deal]
+    private final ForkJoinPool _pool;
+    private final ColumnScanner _scanner;
+
+    /**
+     * Builds the columns for every deal in the archive
+     */
+    public DealDatabase(
+        final DealArchive archive
+    ) {
+        this(archive, 0, archive.size(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds the columns for the deals numbered first (inclusive) through limit (exclusive) in the archive
+     */
+    public DealDatabase(
+        final DealArchive archive,
+        final long first,
+        final long limit,
+        final ForkJoinPool pool
+    ) {
+        this(archive, first, limit, pool, ColumnScanner.getInstance());
+    }
+
+    DealDatabase(
+        final DealArchive archive,
+        final long first,
+        final long limit,
+        final ForkJoinPool pool,
+        final ColumnScanner scanner
+    ) {
+        if ((first < 0) || (limit > archive.size()) || (first > limit)) {
+            throw new RuntimeException("Deal range out of range");
+        }
+        if (limit - first > Integer.MAX_VALUE - BLOCK_SIZE) {
+            throw new RuntimeException("Too many deals for one database");
+        }
+
+        _first = first;
+        _size = (int) (limit - first);
+        _blocks = (_size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        _pool = pool;
+        _scanner = scanner;
+
+        //  Columns are padded to whole blocks; the padding is never reported, as the last block is masked
+        int capacity = _blocks * BLOCK_SIZE;
+        _cards = new long[4][capacity];
+        _highCardPoints = new byte[4][capacity];
+        _quickTrickHalves = new byte[4][capacity];
+        _lengths = new byte[4][4][capacity];
+        _patterns = new byte[4][capacity];
+        if (_size > 0) {
+            _pool.invoke(new BuildTask(archive, 0, _size));
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Fills in the columns for a range of deals, splitting it until it is small enough for one task
+     */
+    @SuppressWarnings("serial")
+    private class BuildTask extends RecursiveAction {
+
+        private final DealArchive _archive;
+        private final int _firstDeal;
+        private final int _limitDeal;
+
+        private BuildTask(
+            final DealArchive archive,
+            final int firstDeal,
+            final int limitDeal
+        ) {
+            _archive = archive;
+            _firstDeal = firstDeal;
+            _limitDeal = limitDeal;
+        }
+
+        @Override
+        protected void compute() {
+            if (_limitDeal - _firstDeal > BUILD_GRAIN) {
+                int middle = _firstDeal + (_limitDeal - _firstDeal) / 2;
+                invokeAll(new BuildTask(_archive, _firstDeal, middle), new BuildTask(_archive, middle, _limitDeal));
+            } else {
+                build(_archive, _firstDeal, _limitDeal);
+            }
+        }
+    }
+
+    private void build(
+        final DealArchive archive,
+        final int first,
+        final int limit
+    ) {
+        archive.forEach(_first + first, _first + limit, (index, hands) -> {
+            int dx = (int) (index - _first);
+            for (int hx = 0; hx < 4; ++hx) {
+                _cards[hx][dx] = hands[hx];
+            }
+        });
+
+        int count = limit - first;
+        BatchEvaluator.Results results = new BatchEvaluator.Results(count);
+        for (int hx = 0; hx < 4; ++hx) {
+            BatchEvaluator.getInstance().evaluate(_cards[hx], first, count, results);
+            System.arraycopy(results._highCardPoints, 0, _highCardPoints[hx], first, count);
+            System.arraycopy(results._quickTrickHalves, 0, _quickTrickHalves[hx], first, count);
+            for (int sx = 0; sx < 4; ++sx) {
+                System.arraycopy(results._lengths[sx], 0, _lengths[hx][sx], first, count);
+            }
+
+            byte[] clubs = results._lengths[Suit.CLUBS._bidOrder];
+            byte[] diamonds = results._lengths[Suit.DIAMONDS._bidOrder];
+            byte[] hearts = results._lengths[Suit.HEARTS._bidOrder];
+            for (int dx = 0; dx < count; ++dx) {
+                int shape = ShapeTable.getShape(clubs[dx], diamonds[dx], hearts[dx]);
+                _patterns[hx][first + dx] = (byte) ShapeTable.getPattern(shape);
+            }
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * One compiled condition - a test of one column, a block at a time
+     */
+    private abstract static class Scan {
+
+        double _passRate = 1.0;     //  estimated fraction of deals passing
+
+        abstract long match(
+            final ColumnScanner scanner,
+            final int offset
+        );
+    }
+
+    /**
+     * Entries of a byte column within any one of a set of ranges
+     */
+    private static class RangeScan extends Scan {
+
+        private final byte[] _column;
+        private final int[] _mins;
+        private final int[] _maxes;
+
+        private RangeScan(
+            final byte[] column,
+            final int[] mins,
+            final int[] maxes
+        ) {
+            _column = column;
+            _mins = mins;
+            _maxes = maxes;
+        }
+
+        private RangeScan(
+            final byte[] column,
+            final int min,
+            final int max
+        ) {
+            this(column, new int[]{ min }, new int[]{ max });
+        }
+
+        @Override
+        long match(
+            final ColumnScanner scanner,
+            final int offset
+        ) {
+            long result = scanner.matchRange(_column, offset, _mins[0], _maxes[0]);
+            for (int rx = 1; rx < _mins.length; ++rx) {
+                result |= scanner.matchRange(_column, offset, _mins[rx], _maxes[rx]);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Hands holding all (or, if _none is set, none) of the cards of a CardMask
+     */
+    private static class CardScan extends Scan {
+
+        private final long[] _column;
+        private final long _mask;
+        private final boolean _none;
+
+        private CardScan(
+            final long[] column,
+            final long mask,
+            final boolean none
+        ) {
+            _column = column;
+            _mask = mask;
+            _none = none;
+        }
+
+        @Override
+        long match(
+            final ColumnScanner scanner,
+            final int offset
+        ) {
+            return _none ? ~scanner.matchAny(_column, offset, _mask) : scanner.matchAll(_column, offset, _mask);
+        }
+    }
+
+    /**
+     * Builds a RangeScan for a set of pattern numbers, with one range per run of consecutive numbers
+     */
+    private static RangeScan compilePatterns(
+        final byte[] column,
+        final long patterns
+    ) {
+        List<Integer> mins = new ArrayList<>();
+        List<Integer> maxes = new ArrayList<>();
+        long remaining = patterns;
+        while (remaining != 0) {
+            int min = Long.numberOfTrailingZeros(remaining);
+            int max = Long.numberOfTrailingZeros(~(remaining >>> min)) + min - 1;
+            mins.add(min);
+            maxes.add(max);
+            remaining &= -1L << max << 1;
+        }
+        return new RangeScan(column,
+                             mins.stream().mapToInt(Integer::intValue).toArray(),
+                             maxes.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Compiles a query into scans, most selective first
+     * @return null if no deal can satisfy the query
+     */
+    private Scan[] compile(
+        final DealQuery query
+    ) {
+        int[] minHighCardPoints = new int[4];
+        int[] maxHighCardPoints = new int[4];
+        int[] minQuickTrickHalves = new int[4];
+        int[] maxQuickTrickHalves = new int[4];
+        int[][] minLengths = new int[4][4];
+        int[][] maxLengths = new int[4][4];
+        long[] patterns = new long[4];
+        long[] allCards = new long[4];
+        long[] noCards = new long[4];
+        for (int hx = 0; hx < 4; ++hx) {
+            maxHighCardPoints[hx] = HandSpec.MAX_HIGH_CARD_POINTS;
+            maxQuickTrickHalves[hx] = MAX_QUICK_TRICK_HALVES;
+            for (int sx = 0; sx < 4; ++sx) {
+                maxLengths[hx][sx] = 13;
+            }
+            patterns[hx] = ALL_PATTERNS;
+        }
+
+        //  Merge the conditions on each column
+        for (DealQuery.Condition condition : query.getConditions()) {
+            int hx = condition._position.ordinal();
+            switch (condition._kind) {
+                case DealQuery.HIGH_CARD_POINTS:
+                    minHighCardPoints[hx] = Math.max(minHighCardPoints[hx], condition._min);
+                    maxHighCardPoints[hx] = Math.min(maxHighCardPoints[hx], condition._max);
+                    break;
+
+                case DealQuery.QUICK_TRICK_HALVES:
+                    minQuickTrickHalves[hx] = Math.max(minQuickTrickHalves[hx], condition._min);
+                    maxQuickTrickHalves[hx] = Math.min(maxQuickTrickHalves[hx], condition._max);
+                    break;
+
+                case DealQuery.LENGTH:
+                    minLengths[hx][condition._suit] = Math.max(minLengths[hx][condition._suit], condition._min);
+                    maxLengths[hx][condition._suit] = Math.min(maxLengths[hx][condition._suit], condition._max);
+                    break;
+
+                case DealQuery.PATTERNS:
+                    patterns[hx] &= condition._mask;
+                    break;
+
+                case DealQuery.ALL_CARDS:
+                    allCards[hx] |= condition._mask;
+                    break;
+
+                case DealQuery.NO_CARDS:
+                    noCards[hx] |= condition._mask;
+                    break;
+            }
+        }
+
+        List<Scan> scans = new ArrayList<>();
+        long dealt = 0;
+        for (int hx = 0; hx < 4; ++hx) {
+            if ((minHighCardPoints[hx] > maxHighCardPoints[hx])
+                || (minQuickTrickHalves[hx] > maxQuickTrickHalves[hx])
+                || (patterns[hx] == 0)
+                || ((allCards[hx] & noCards[hx]) != 0)
+                || ((allCards[hx] & dealt) != 0)) {
+                return null;
+            }
+            dealt |= allCards[hx];
+
+            if ((minHighCardPoints[hx] > 0) || (maxHighCardPoints[hx] < HandSpec.MAX_HIGH_CARD_POINTS)) {
+                scans.add(new RangeScan(_highCardPoints[hx], minHighCardPoints[hx], maxHighCardPoints[hx]));
+            }
+            if ((minQuickTrickHalves[hx] > 0) || (maxQuickTrickHalves[hx] < MAX_QUICK_TRICK_HALVES)) {
+                scans.add(new RangeScan(_quickTrickHalves[hx], minQuickTrickHalves[hx], maxQuickTrickHalves[hx]));
+            }
+            for (int sx = 0; sx < 4; ++sx) {
+                if (minLengths[hx][sx] > maxLengths[hx][sx]) {
+                    return null;
+                }
+                if ((minLengths[hx][sx] > 0) || (maxLengths[hx][sx] < 13)) {
+                    scans.add(new RangeScan(_lengths[hx][sx], minLengths[hx][sx], maxLengths[hx][sx]));
+                }
+            }
+            if (patterns[hx] != ALL_PATTERNS) {
+                scans.add(compilePatterns(_patterns[hx], patterns[hx]));
+            }
+            if (allCards[hx] != 0) {
+                scans.add(new CardScan(_cards[hx], allCards[hx], false));
+            }
+            if (noCards[hx] != 0) {
+                scans.add(new CardScan(_cards[hx], noCards[hx], true));
+            }
+        }
+
+        //  Estimate the pass rate of each scan from blocks spread evenly through the database
+        int samples = Math.min(SAMPLE_BLOCKS, _blocks);
+        for (Scan scan : scans) {
+            long passed = 0;
+            long total = 0;
+            for (int sx = 0; sx < samples; ++sx) {
+                int block = (int) ((long) sx * _blocks / samples);
+                long valid = getValidBits(block);
+                passed += Long.bitCount(scan.match(_scanner, block * BLOCK_SIZE) & valid);
+                total += Long.bitCount(valid);
+            }
+            scan._passRate = (total == 0) ? 1.0 : (double) passed / total;
+        }
+        scans.sort(Comparator.comparingDouble(scan -> scan._passRate));
+        return scans.toArray(new Scan[0]);
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Bits for the deals which exist in the given block - all of them, except in the last block
+     */
+    private long getValidBits(
+        final int block
+    ) {
+        int remaining = _size - block * BLOCK_SIZE;
+        return (remaining >= BLOCK_SIZE) ? -1L : (1L << remaining) - 1;
+    }
+
+    /**
+     * Bits for the deals in the given block which pass all of the scans
+     */
+    private long scanBlock(
+        final Scan[] scans,
+        final int block
+    ) {
+        int offset = block * BLOCK_SIZE;
+        long bits = getValidBits(block);
+        for (int sx = 0; (sx < scans.length) && (bits != 0); ++sx) {
+            bits &= scans[sx].match(_scanner, offset);
+        }
+        return bits;
+    }
+
+    /**
+     * Scans a range of blocks, splitting it until it is small enough for one task.
+     * The bits for each block are stored in the bitmap, if there is one, and counted.
+     */
+    @SuppressWarnings("serial")
+    private class ScanTask extends RecursiveAction {
+
+        private final Scan[] _scans;
+        private final int _firstBlock;
+        private final int _limitBlock;
+        private final long[] _bitmap;
+        private final LongAdder _count;
+
+        private ScanTask(
+            final Scan[] scans,
+            final int firstBlock,
+            final int limitBlock,
+            final long[] bitmap,
+            final LongAdder count
+        ) {
+            _scans = scans;
+            _firstBlock = firstBlock;
+            _limitBlock = limitBlock;
+            _bitmap = bitmap;
+            _count = count;
+        }
+
+        @Override
+        protected void compute() {
+            if (_limitBlock - _firstBlock > SCAN_GRAIN) {
+                int middle = _firstBlock + (_limitBlock - _firstBlock) / 2;
+                invokeAll(new ScanTask(_scans, _firstBlock, middle, _bitmap, _count),
+                          new ScanTask(_scans, middle, _limitBlock, _bitmap, _count));
+                return;
+            }
+
+            long count = 0;
+            for (int bx = _firstBlock; bx < _limitBlock; ++bx) {
+                long bits = scanBlock(_scans, bx);
+                if (_bitmap != null) {
+                    _bitmap[bx] = bits;
+                }
+                count += Long.bitCount(bits);
+            }
+            _count.add(count);
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Number of deals in the database
+     */
+    public int size() {
+        return _size;
+    }
+
+    private int getOffset(
+        final long index
+    ) {
+        if ((index < _first) || (index >= _first + _size)) {
+            throw new RuntimeException("Deal number out of range: " + index);
+        }
+        return (int) (index - _first);
+    }
+
+    /**
+     * Retrieves the CardMask held by one position in the deal with the given archive number
+     */
+    public long getCards(
+        final long index,
+        final Position position
+    ) {
+        return _cards[position.ordinal()][getOffset(index)];
+    }
+
+    public Deal getDeal(
+        final long index
+    ) {
+        int dx = getOffset(index);
+        return new Deal(new long[]{ _cards[0][dx], _cards[1][dx], _cards[2][dx], _cards[3][dx] });
+    }
+
+    /**
+     * Counts the deals which satisfy the query
+     */
+    public long count(
+        final DealQuery query
+    ) {
+        Scan[] scans = compile(query);
+        if ((scans == null) || (_size == 0)) {
+            return 0;
+        }
+
+        LongAdder count = new LongAdder();
+        _pool.invoke(new ScanTask(scans, 0, _blocks, null, count));
+        return count.sum();
+    }
+
+    /**
+     * Finds the deals which satisfy the query
+     * @return their archive numbers, in ascending order
+     */
+    public long[] find(
+        final DealQuery query
+    ) {
+        Scan[] scans = compile(query);
+        if ((scans == null) || (_size == 0)) {
+            return new long[0];
+        }
+
+        long[] bitmap = new long[_blocks];
+        LongAdder count = new LongAdder();
+        _pool.invoke(new ScanTask(scans, 0, _blocks, bitmap, count));
+
+        long[] result = new long[(int) count.sum()];
+        int rx = 0;
+        for (int bx = 0; bx < _blocks; ++bx) {
+            for (long bits = bitmap[bx]; bits != 0; bits &= bits - 1) {
+                result[rx++] = _first + (long) bx * BLOCK_SIZE + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return result;
+    }
+}
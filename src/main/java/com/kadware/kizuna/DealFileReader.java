@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Reads the records of a PBN or LIN file, passing each to a consumer as it is parsed.
+ *
+ * The file is memory-mapped a chunk at a time, chunks ending on record boundaries, so only the chunks being parsed
+ * are mapped and nothing is kept once its record has been handed on - files far larger than memory can be read.
+ * forEach() goes through the chunks in order; parallelForEach() splits the file into smaller chunks which are
+ * parsed on a ForkJoinPool, calling the consumer from several threads at once and in no particular order.
+ */
+public class DealFileReader implements Closeable {
+
+    private static final long CHUNK_SIZE = 1L << 26;            //  64MB, for reading in order
+    private static final long MIN_PARALLEL_CHUNK_SIZE = 1L << 20;
+    private static final int PROBE_SIZE = 1 << 16;              //  first window to search for a record boundary
+
+    private final FileChannel _channel;
+    private final DealFormat _format;
+    private final ForkJoinPool _pool;
+    private final long _size;
+
+    /**
+     * Opens a file, choosing the format from its extension
+     */
+    public DealFileReader(
+        final Path path
+    ) throws IOException {
+        this(path, DealFormat.forPath(path), ForkJoinPool.commonPool());
+    }
+
+    public DealFileReader(
+        final Path path,
+        final DealFormat format,
+        final ForkJoinPool pool
+    ) throws IOException {
+        _channel = FileChannel.open(path, StandardOpenOption.READ);
+        _format = format;
+        _pool = pool;
+        _size = _channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        _channel.close();
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Finds the first record boundary at or after the given file offset - the start of the file, the end of the
+     * file, or the end of the record containing the offset
+     */
+    private long findBoundary(
+        final long offset
+    ) throws IOException {
+        if (offset <= 0) {
+            return 0;
+        }
+
+        long window = PROBE_SIZE;
+        while (offset < _size) {
+            int length = (int) Math.min(_size - offset, window);
+            MappedByteBuffer buffer = _channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            int end = _format.findRecordEnd(buffer, 0, length);
+            if ((end < length) || (offset + length == _size)) {
+                return offset + end;
+            }
+            window *= 2;
+        }
+        return _size;
+    }
+
+    /**
+     * Splits the file into chunks of about the given size, returning the offsets of the boundaries -
+     * first 0 and last the size of the file
+     */
+    private List<Long> getBoundaries(
+        final long chunkSize
+    ) throws IOException {
+        List<Long> result = new ArrayList<>();
+        long offset = 0;
+        result.add(offset);
+        while (offset < _size) {
+            long next = findBoundary(offset + chunkSize);
+            result.add(next);
+            offset = next;
+        }
+        return result;
+    }
+
+    /**
+     * Maps and parses the records in one chunk
+     * @return the number of records passed to the consumer
+     */
+    private long readChunk(
+        final long start,
+        final long end,
+        final Consumer<? super DealRecord> consumer
+    ) throws IOException {
+        int limit = (int) (end - start);
+        MappedByteBuffer buffer = _channel.map(FileChannel.MapMode.READ_ONLY, start, limit);
+        long count = 0;
+        int px = DealFormat.skipSpaces(buffer, 0, limit);
+        while (px < limit) {
+            int recordEnd = _format.findRecordEnd(buffer, px, limit);
+            DealRecord record = _format.parse(buffer, px, recordEnd);
+            if (record != null) {
+                consumer.accept(record);
+                ++count;
+            }
+            px = DealFormat.skipSpaces(buffer, recordEnd, limit);
+        }
+        return count;
+    }
+
+    /**
+     * Passes each record in the file to the consumer, in file order
+     * @return the number of records
+     */
+    public long forEach(
+        final Consumer<? super DealRecord> consumer
+    ) throws IOException {
+        long count = 0;
+        long offset = 0;
+        while (offset < _size) {
+            long next = findBoundary(offset + CHUNK_SIZE);
+            count += readChunk(offset, next, consumer);
+            offset = next;
+        }
+        return count;
+    }
+
+    /**
+     * Parses a range of chunks, splitting it until it is a single chunk
+     */
+    @SuppressWarnings("serial")
+    private class Task extends RecursiveAction {
+
+        private final List<Long> _boundaries;
+        private final int _first;
+        private final int _limit;
+        private final Consumer<? super DealRecord> _consumer;
+        private final LongAdder _count;
+
+        private Task(
+            final List<Long> boundaries,
+            final int first,
+            final int limit,
+            final Consumer<? super DealRecord> consumer,
+            final LongAdder count
+        ) {
+            _boundaries = boundaries;
+            _first = first;
+            _limit = limit;
+            _consumer = consumer;
+            _count = count;
+        }
+
+        @Override
+        protected void compute() {
+            if (_limit - _first > 1) {
+                int middle = _first + (_limit - _first) / 2;
+                invokeAll(new Task(_boundaries, _first, middle, _consumer, _count),
+                          new Task(_boundaries, middle, _limit, _consumer, _count));
+                return;
+            }
+
+            try {
+                _count.add(readChunk(_boundaries.get(_first), _boundaries.get(_first + 1), _consumer));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Passes each record in the file to the consumer, parsing chunks of the file in parallel.
+     * The consumer is called from several threads at once, and in no particular order.
+     * @return the number of records
+     */
+    public long parallelForEach(
+        final Consumer<? super DealRecord> consumer
+    ) throws IOException {
+        long chunkSize = Math.max(MIN_PARALLEL_CHUNK_SIZE, Math.min(CHUNK_SIZE, _size / (4L * _pool.getParallelism())));
+        List<Long> boundaries = getBoundaries(chunkSize);
+        if (boundaries.size() < 2) {
+            return 0;
+        }
+
+        LongAdder count = new LongAdder();
+        try {
+            _pool.invoke(new Task(boundaries, 0, boundaries.size() - 1, consumer, count));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        return count.sum();
+    }
+}
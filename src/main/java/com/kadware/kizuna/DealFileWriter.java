@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes DealRecords to a PBN or LIN file, one at a time
+ */
+public class DealFileWriter implements Closeable, Flushable {
+
+    private final Writer _writer;
+    private final DealFormat _format;
+    private final StringBuilder _buffer = new StringBuilder();
+
+    /**
+     * Creates (or replaces) a file, choosing the format from its extension
+     */
+    public DealFileWriter(
+        final Path path
+    ) throws IOException {
+        this(Files.newBufferedWriter(path, StandardCharsets.US_ASCII), DealFormat.forPath(path));
+    }
+
+    public DealFileWriter(
+        final Writer writer,
+        final DealFormat format
+    ) {
+        _writer = writer;
+        _format = format;
+    }
+
+    public void write(
+        final DealRecord record
+    ) throws IOException {
+        _buffer.setLength(0);
+        _format.write(record, _buffer);
+        _writer.append(_buffer);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        _writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        _writer.close();
+    }
+}
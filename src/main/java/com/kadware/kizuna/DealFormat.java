@@ -0,0 +1,779 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A text format for files of deals - PBN (Portable Bridge Notation) or LIN (Bridge Base Online).
+ * Records are parsed straight from the bytes of a (usually memory-mapped) buffer, without decoding the file to
+ * characters, and each record can be found without looking at any other - which is what lets DealFileReader
+ * split a file into chunks at record boundaries and parse the chunks independently.
+ *
+ * Only what DealRecord holds is read or written: board number, dealer, vulnerability, the deal, and the auction.
+ * Other tags (players, event, play, commentary) are skipped.
+ */
+public abstract class DealFormat {
+
+    public static final DealFormat PBN = new Pbn();
+    public static final DealFormat LIN = new Lin();
+
+    //  Rank characters, indexed by bit within a CardMask holding
+    private static final String RANKS = "23456789TJQKA";
+    private static final String STRAINS = "CDHSN";
+
+    //  Holding bit for each rank character, and 1 + Suit._bidOrder for each suit character, indexed by byte (0 if none)
+    private static final int[] RANK_BITS = new int[256];
+    private static final int[] SUITS = new int[256];
+    static {
+        for (int rx = 0; rx < RANKS.length(); ++rx) {
+            RANK_BITS[RANKS.charAt(rx)] = 1 << rx;
+            RANK_BITS[Character.toLowerCase(RANKS.charAt(rx))] = 1 << rx;
+        }
+        for (int sx = 0; sx < 4; ++sx) {
+            SUITS[STRAINS.charAt(sx)] = sx + 1;
+            SUITS[Character.toLowerCase(STRAINS.charAt(sx))] = sx + 1;
+        }
+    }
+
+    DealFormat() {}
+
+    /**
+     * Selects the format from a file name's extension - .pbn or .lin
+     */
+    public static DealFormat forPath(
+        final Path path
+    ) {
+        String name = path.getFileName().toString().toLowerCase();
+        if (name.endsWith(".pbn")) {
+            return PBN;
+        } else if (name.endsWith(".lin")) {
+            return LIN;
+        }
+        throw new RuntimeException("Unknown deal file format for " + path);
+    }
+
+    /**
+     * Finds the end of the record which begins at start (or, from the middle of a record, the end of that record)
+     * @return the index just past the record, or limit if the record runs to the end of the buffer
+     */
+    abstract int findRecordEnd(
+        final ByteBuffer buffer,
+        final int start,
+        final int limit
+    );
+
+    /**
+     * Parses the record occupying buffer[start] to buffer[end - 1]
+     * @return the record, or null if it holds no deal (e.g., a file header)
+     */
+    abstract DealRecord parse(
+        final ByteBuffer buffer,
+        final int start,
+        final int end
+    );
+
+    /**
+     * Appends the record, in this format, to the given StringBuilder
+     */
+    public abstract void write(
+        final DealRecord record,
+        final StringBuilder sb
+    );
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+    //  Helpers shared by the formats
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    static boolean isSpace(
+        final byte b
+    ) {
+        return (b == ' ') || (b == '\t') || (b == '\r') || (b == '\n');
+    }
+
+    /**
+     * Index of the first byte at or after start which is not white space, or limit
+     */
+    static int skipSpaces(
+        final ByteBuffer buffer,
+        final int start,
+        final int limit
+    ) {
+        int px = start;
+        while ((px < limit) && isSpace(buffer.get(px))) {
+            ++px;
+        }
+        return px;
+    }
+
+    /**
+     * Index of the first occurrence of the given byte at or after start, or limit
+     */
+    static int indexOf(
+        final ByteBuffer buffer,
+        final byte target,
+        final int start,
+        final int limit
+    ) {
+        int px = start;
+        while ((px < limit) && (buffer.get(px) != target)) {
+            ++px;
+        }
+        return px;
+    }
+
+    /**
+     * Compares buffer[start] to buffer[end - 1] with the given string, ignoring case
+     */
+    static boolean matches(
+        final ByteBuffer buffer,
+        final int start,
+        final int end,
+        final String text
+    ) {
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int cx = 0; cx < text.length(); ++cx) {
+            if (Character.toUpperCase((char) buffer.get(start + cx)) != Character.toUpperCase(text.charAt(cx))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses an unsigned decimal number at buffer[start], stopping at the first non-digit or end
+     * @return the number, or 0 if there are no digits
+     */
+    static int parseNumber(
+        final ByteBuffer buffer,
+        final int start,
+        final int end
+    ) {
+        int result = 0;
+        for (int px = start; px < end; ++px) {
+            int digit = buffer.get(px) - '0';
+            if ((digit < 0) || (digit > 9)) {
+                break;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the bit within a holding for a rank character (A K Q J T 9 ... 2, either case), or 0 if it is not one
+     */
+    static int getRankBit(
+        final byte b
+    ) {
+        return RANK_BITS[b & 0xFF];
+    }
+
+    static Suit getSuit(
+        final byte b
+    ) {
+        int sx = SUITS[b & 0xFF];
+        return (sx == 0) ? null : Suit.values()[sx - 1];
+    }
+
+    static Position getPosition(
+        final byte b
+    ) {
+        switch (Character.toUpperCase((char) b)) {
+            case 'S': return Position.SOUTH;
+            case 'W': return Position.WEST;
+            case 'N': return Position.NORTH;
+            case 'E': return Position.EAST;
+        }
+        return null;
+    }
+
+    /**
+     * Next position clockwise
+     */
+    static Position getNext(
+        final Position position
+    ) {
+        return Position.values()[(position.ordinal() + 1) & 3];
+    }
+
+    /**
+     * Parses a contract bid - level digit, then strain C D H S N or NT (either case)
+     * @return the Bid._code, or -1 if the text is not a contract bid
+     */
+    static int parseContractBid(
+        final ByteBuffer buffer,
+        final int start,
+        final int end
+    ) {
+        if (end - start < 2) {
+            return -1;
+        }
+        int level = buffer.get(start) - '0';
+        int strain = STRAINS.indexOf(Character.toUpperCase((char) buffer.get(start + 1)));
+        if ((level < 1) || (level > 7) || (strain < 0)) {
+            return -1;
+        }
+        if ((end - start == 2) || ((strain == Bid.NO_TRUMP) && matches(buffer, start + 1, end, "NT"))) {
+            return Bid.getCode(level, strain);
+        }
+        return -1;
+    }
+
+    /**
+     * Fills in a single unknown hand (mask 0) with the cards the other three do not hold
+     */
+    static void completeHands(
+        final long[] hands
+    ) {
+        int unknown = -1;
+        long all = 0;
+        for (int hx = 0; hx < 4; ++hx) {
+            if (hands[hx] == 0) {
+                if (unknown >= 0) {
+                    return;
+                }
+                unknown = hx;
+            }
+            all |= hands[hx];
+        }
+        if ((unknown >= 0) && (Long.bitCount(all) == 39)) {
+            hands[unknown] = CardMask.FULL_DECK & ~all;
+        }
+    }
+
+    /**
+     * Builds the auction from the given call codes, the first by the dealer
+     * @param allPass if set, passes are added until the auction is over
+     */
+    static Auction buildAuction(
+        final Position dealer,
+        final int[] codes,
+        final int count,
+        final boolean allPass
+    ) {
+        Auction auction = Auction.EMPTY;
+        Position position = dealer;
+        for (int cx = 0; cx < count; ++cx) {
+            auction = auction.append(Bid.of(position, codes[cx]));
+            position = getNext(position);
+        }
+        while (allPass && !auction.isPassedOut()) {
+            auction = auction.append(Bid.getPass(position));
+            position = getNext(position);
+        }
+        return auction;
+    }
+
+    /**
+     * Appends a holding's ranks, ace first
+     */
+    static void appendHolding(
+        final StringBuilder sb,
+        final int holding
+    ) {
+        for (int bit = CardMask.RANKS_PER_SUIT - 1; bit >= 0; --bit) {
+            if ((holding & (1 << bit)) != 0) {
+                sb.append(RANKS.charAt(bit));
+            }
+        }
+    }
+
+    /**
+     * Appends a contract bid as level and strain, e.g. 1S or 3NT
+     */
+    static void appendContractBid(
+        final StringBuilder sb,
+        final Bid bid
+    ) {
+        int index = bid._code - Bid.FIRST_CONTRACT;
+        sb.append(index / 5 + 1);
+        sb.append((index % 5 == Bid.NO_TRUMP) ? "NT" : Suit.values()[index % 5]._symbol);
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Portable Bridge Notation - tag pairs such as [Deal "N:AKQ.JT9.876.5432 ..."], one game per group of lines,
+     * games separated by blank lines. The auction section follows its [Auction "N"] tag.
+     */
+    private static class Pbn extends DealFormat {
+
+        private static final String[] VULNERABILITIES = { "None", "NS", "EW", "All" };
+
+        /**
+         * A record ends at the first empty line after its first line, other than one within a {...} commentary -
+         * braces within a tag's quoted value or a ; or % comment don't count.
+         * Started from the middle of a record, this can't tell whether it is within a commentary already, so an empty
+         * line further on in that commentary would be taken for the end; such lines are rare, and DealFileReader only
+         * starts from the middle of a record to find the end of a chunk.
+         */
+        @Override
+        int findRecordEnd(
+            final ByteBuffer buffer,
+            final int start,
+            final int limit
+        ) {
+            int depth = 0;
+            boolean firstLine = true;
+            boolean emptyLine = true;
+            int lineStart = start;
+            for (int px = start; px < limit; ++px) {
+                byte b = buffer.get(px);
+                if (b == '\n') {
+                    if (emptyLine && !firstLine && (depth == 0)) {
+                        return lineStart;
+                    }
+                    firstLine = false;
+                    emptyLine = true;
+                    lineStart = px + 1;
+                } else if (!isSpace(b)) {
+                    emptyLine = false;
+                    if (b == '{') {
+                        ++depth;
+                    } else if (b == '}') {
+                        depth = Math.max(0, depth - 1);
+                    } else if ((depth == 0) && ((b == ';') || (b == '%') || (b == '"'))) {
+                        //  to the end of the comment or value, but not past the end of the line
+                        int lineEnd = indexOf(buffer, (byte) '\n', px + 1, limit);
+                        int skipEnd = (b == '"') ? indexOf(buffer, (byte) '"', px + 1, lineEnd) : lineEnd;
+                        px = Math.min(skipEnd, lineEnd - 1);
+                    }
+                }
+            }
+            return limit;
+        }
+
+        @Override
+        DealRecord parse(
+            final ByteBuffer buffer,
+            final int start,
+            final int end
+        ) {
+            int boardNumber = 0;
+            Position dealer = null;
+            int vulnerability = DealRecord.NONE_VULNERABLE;
+            long[] hands = null;
+            Position firstHand = null;
+            Position auctionDealer = null;
+            boolean inAuction = false;
+            boolean allPass = false;
+            int[] codes = new int[16];
+            int count = 0;
+
+            int px = start;
+            while (px < end) {
+                int lineEnd = indexOf(buffer, (byte) '\n', px, end);
+                int tx = skipSpaces(buffer, px, lineEnd);
+                byte first = (tx < lineEnd) ? buffer.get(tx) : 0;
+                if (first == '[') {
+                    inAuction = false;
+                    int nameEnd = tx + 1;
+                    while ((nameEnd < lineEnd) && !isSpace(buffer.get(nameEnd)) && (buffer.get(nameEnd) != '"')) {
+                        ++nameEnd;
+                    }
+                    int valueStart = indexOf(buffer, (byte) '"', nameEnd, lineEnd) + 1;
+                    int valueEnd = indexOf(buffer, (byte) '"', valueStart, lineEnd);
+                    if (valueStart > lineEnd) {
+                        valueStart = lineEnd;
+                        valueEnd = lineEnd;
+                    }
+
+                    if (matches(buffer, tx + 1, nameEnd, "Board")) {
+                        boardNumber = parseNumber(buffer, valueStart, valueEnd);
+                    } else if (matches(buffer, tx + 1, nameEnd, "Dealer")) {
+                        dealer = (valueEnd > valueStart) ? getPosition(buffer.get(valueStart)) : null;
+                    } else if (matches(buffer, tx + 1, nameEnd, "Vulnerable")) {
+                        vulnerability = parseVulnerability(buffer, valueStart, valueEnd);
+                    } else if (matches(buffer, tx + 1, nameEnd, "Deal")) {
+                        firstHand = (valueEnd > valueStart) ? getPosition(buffer.get(valueStart)) : null;
+                        hands = parseDeal(buffer, valueStart, valueEnd);
+                    } else if (matches(buffer, tx + 1, nameEnd, "Auction")) {
+                        auctionDealer = (valueEnd > valueStart) ? getPosition(buffer.get(valueStart)) : null;
+                        inAuction = true;
+                    }
+                    px = lineEnd + 1;
+                } else if ((first == '%') || (first == ';')) {
+                    px = lineEnd + 1;
+                } else if (first == '{') {
+                    px = indexOf(buffer, (byte) '}', tx, end) + 1;
+                } else if (inAuction && (tx < lineEnd)) {
+                    //  Calls are separated by white space - the rest is notes, annotations, and comments
+                    int next = lineEnd + 1;
+                    int cx = tx;
+                    while (cx < lineEnd) {
+                        int tokenEnd = cx;
+                        while ((tokenEnd < lineEnd) && !isSpace(buffer.get(tokenEnd))) {
+                            ++tokenEnd;
+                        }
+                        byte b = buffer.get(cx);
+                        if (b == '{') {
+                            //  a commentary may run on for several lines, and calls may follow it
+                            next = indexOf(buffer, (byte) '}', cx, end) + 1;
+                            break;
+                        } else if (b == ';') {
+                            break;
+                        }
+
+                        int callEnd = tokenEnd;
+                        while ((callEnd > cx) && ((buffer.get(callEnd - 1) == '!') || (buffer.get(callEnd - 1) == '?'))) {
+                            --callEnd;
+                        }
+                        if (matches(buffer, cx, callEnd, "AP")) {
+                            allPass = true;
+                        } else if ((b != '=') && (b != '$') && (b != '*') && (b != '-') && (b != '+') && (callEnd > cx)) {
+                            if (count == codes.length) {
+                                codes = Arrays.copyOf(codes, count * 2);
+                            }
+                            codes[count++] = parseCall(buffer, cx, callEnd);
+                        }
+                        cx = skipSpaces(buffer, tokenEnd, lineEnd);
+                    }
+                    px = next;
+                } else {
+                    px = lineEnd + 1;
+                }
+            }
+
+            if (hands == null) {
+                return null;
+            }
+            if (firstHand != null) {
+                //  Hands are given clockwise from the first position; rotate them into Position.ordinal() order
+                long[] rotated = new long[4];
+                for (int hx = 0; hx < 4; ++hx) {
+                    rotated[(firstHand.ordinal() + hx) & 3] = hands[hx];
+                }
+                hands = rotated;
+            }
+            completeHands(hands);
+            if (dealer == null) {
+                dealer = (auctionDealer != null) ? auctionDealer : ((firstHand != null) ? firstHand : Position.NORTH);
+            }
+
+            Auction auction = buildAuction((auctionDealer != null) ? auctionDealer : dealer, codes, count, allPass);
+            return new DealRecord(boardNumber, dealer, vulnerability, new Deal(hands), auction);
+        }
+
+        private static int parseVulnerability(
+            final ByteBuffer buffer,
+            final int start,
+            final int end
+        ) {
+            if (matches(buffer, start, end, "NS")) {
+                return DealRecord.NORTH_SOUTH_VULNERABLE;
+            } else if (matches(buffer, start, end, "EW")) {
+                return DealRecord.EAST_WEST_VULNERABLE;
+            } else if (matches(buffer, start, end, "All") || matches(buffer, start, end, "Both")) {
+                return DealRecord.BOTH_VULNERABLE;
+            }
+            return DealRecord.NONE_VULNERABLE;
+        }
+
+        /**
+         * Parses the value of a Deal tag - first position and colon, then four hands (spades.hearts.diamonds.clubs,
+         * or - if unknown) clockwise from that position
+         * @return the CardMasks, in the order given
+         */
+        private static long[] parseDeal(
+            final ByteBuffer buffer,
+            final int start,
+            final int end
+        ) {
+            long[] hands = new long[4];
+            int px = indexOf(buffer, (byte) ':', start, end) + 1;
+            for (int hx = 0; hx < 4; ++hx) {
+                px = skipSpaces(buffer, px, end);
+                int suitIndex = 3;
+                while ((px < end) && !isSpace(buffer.get(px))) {
+                    byte b = buffer.get(px++);
+                    if (b == '.') {
+                        --suitIndex;
+                    } else if ((b != '-') && (suitIndex >= 0)) {
+                        int bit = getRankBit(b);
+                        if (bit == 0) {
+                            throw new RuntimeException("Invalid card in PBN deal: " + (char) b);
+                        }
+                        hands[hx] |= CardMask.getMask(Suit.values()[suitIndex], bit);
+                    }
+                }
+            }
+            return hands;
+        }
+
+        private static int parseCall(
+            final ByteBuffer buffer,
+            final int start,
+            final int end
+        ) {
+            if (matches(buffer, start, end, "Pass") || matches(buffer, start, end, "P")) {
+                return Bid.PASS;
+            } else if (matches(buffer, start, end, "X")) {
+                return Bid.DOUBLE;
+            } else if (matches(buffer, start, end, "XX")) {
+                return Bid.REDOUBLE;
+            }
+            int code = parseContractBid(buffer, start, end);
+            if (code < 0) {
+                byte[] text = new byte[end - start];
+                buffer.get(start, text);
+                throw new RuntimeException("Invalid call in PBN auction: " + new String(text));
+            }
+            return code;
+        }
+
+        @Override
+        public void write(
+            final DealRecord record,
+            final StringBuilder sb
+        ) {
+            if (record._boardNumber > 0) {
+                sb.append("[Board \"").append(record._boardNumber).append("\"]\n");
+            }
+            sb.append("[Dealer \"").append(record._dealer.toString().charAt(0)).append("\"]\n");
+            sb.append("[Vulnerable \"").append(VULNERABILITIES[record._vulnerability]).append("\"]\n");
+
+            sb.append("[Deal \"").append(record._dealer.toString().charAt(0)).append(':');
+            Position position = record._dealer;
+            for (int hx = 0; hx < 4; ++hx) {
+                if (hx > 0) {
+                    sb.append(' ');
+                }
+                long cards = record._deal.getCards(position);
+                for (int sx = 3; sx >= 0; --sx) {
+                    appendHolding(sb, CardMask.getHolding(cards, Suit.values()[sx]));
+                    if (sx > 0) {
+                        sb.append('.');
+                    }
+                }
+                position = getNext(position);
+            }
+            sb.append("\"]\n");
+
+            Auction auction = record._auction;
+            if (auction.size() > 0) {
+                if (auction.isPassedOut()) {
+                    Contract contract = auction.getContract();
+                    if (contract == null) {
+                        sb.append("[Contract \"Pass\"]\n");
+                    } else {
+                        sb.append("[Declarer \"").append(contract._declarer.toString().charAt(0)).append("\"]\n");
+                        sb.append("[Contract \"");
+                        appendContractBid(sb, auction.getHighestBid());
+                        if (contract._doubling == Contract.DOUBLED) {
+                            sb.append("X");
+                        } else if (contract._doubling == Contract.REDOUBLED) {
+                            sb.append("XX");
+                        }
+                        sb.append("\"]\n");
+                    }
+                }
+
+                sb.append("[Auction \"").append(record._dealer.toString().charAt(0)).append("\"]\n");
+                int cx = 0;
+                for (Bid call : auction.toList()) {
+                    switch (call._code) {
+                        case Bid.PASS:      sb.append("Pass"); break;
+                        case Bid.DOUBLE:    sb.append("X"); break;
+                        case Bid.REDOUBLE:  sb.append("XX"); break;
+                        default:            appendContractBid(sb, call); break;
+                    }
+                    sb.append((++cx % 4 == 0) ? '\n' : ' ');
+                }
+                if (cx % 4 != 0) {
+                    sb.setLength(sb.length() - 1);
+                    sb.append('\n');
+                }
+            }
+            sb.append('\n');
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Bridge Base Online LIN - pipe-separated tag|value| pairs, one board per line.
+     * md|3SAKQHJT9D876C5432,...| gives the dealer (1 south, 2 west, 3 north, 4 east) then the hands of south, west,
+     * north, and east (the last may be left out); sv| the vulnerability; ah|Board n| the board; and each mb| a call.
+     */
+    private static class Lin extends DealFormat {
+
+        private static final char[] VULNERABILITIES = { 'o', 'n', 'e', 'b' };
+
+        @Override
+        int findRecordEnd(
+            final ByteBuffer buffer,
+            final int start,
+            final int limit
+        ) {
+            int px = indexOf(buffer, (byte) '\n', start, limit);
+            return (px < limit) ? px + 1 : limit;
+        }
+
+        @Override
+        DealRecord parse(
+            final ByteBuffer buffer,
+            final int start,
+            final int end
+        ) {
+            int boardNumber = 0;
+            Position dealer = null;
+            int vulnerability = DealRecord.NONE_VULNERABLE;
+            long[] hands = null;
+            int[] codes = new int[16];
+            int count = 0;
+
+            int px = skipSpaces(buffer, start, end);
+            while (px < end) {
+                int tagEnd = indexOf(buffer, (byte) '|', px, end);
+                int valueStart = Math.min(tagEnd + 1, end);
+                int valueEnd = indexOf(buffer, (byte) '|', valueStart, end);
+
+                if (matches(buffer, px, tagEnd, "md")) {
+                    dealer = (valueEnd > valueStart) ? getDealer(buffer.get(valueStart)) : null;
+                    hands = parseDeal(buffer, valueStart + 1, valueEnd);
+                } else if (matches(buffer, px, tagEnd, "sv")) {
+                    vulnerability = parseVulnerability(buffer, valueStart, valueEnd);
+                } else if (matches(buffer, px, tagEnd, "ah")) {
+                    int dx = valueStart;
+                    while ((dx < valueEnd) && !Character.isDigit((char) buffer.get(dx))) {
+                        ++dx;
+                    }
+                    boardNumber = parseNumber(buffer, dx, valueEnd);
+                } else if (matches(buffer, px, tagEnd, "mb")) {
+                    int callEnd = valueEnd;
+                    while ((callEnd > valueStart) && ((buffer.get(callEnd - 1) == '!') || (buffer.get(callEnd - 1) == '?'))) {
+                        --callEnd;
+                    }
+                    if (count == codes.length) {
+                        codes = Arrays.copyOf(codes, count * 2);
+                    }
+                    codes[count++] = parseCall(buffer, valueStart, callEnd);
+                }
+
+                px = skipSpaces(buffer, Math.min(valueEnd + 1, end), end);
+            }
+
+            if ((hands == null) || (dealer == null)) {
+                return null;
+            }
+            completeHands(hands);
+            return new DealRecord(boardNumber, dealer, vulnerability, new Deal(hands), buildAuction(dealer, codes, count, false));
+        }
+
+        private static Position getDealer(
+            final byte b
+        ) {
+            int dx = b - '1';
+            return ((dx < 0) || (dx > 3)) ? null : Position.values()[dx];
+        }
+
+        private static int parseVulnerability(
+            final ByteBuffer buffer,
+            final int start,
+            final int end
+        ) {
+            if (end > start) {
+                switch (Character.toLowerCase((char) buffer.get(start))) {
+                    case 'n': return DealRecord.NORTH_SOUTH_VULNERABLE;
+                    case 'e': return DealRecord.EAST_WEST_VULNERABLE;
+                    case 'b': return DealRecord.BOTH_VULNERABLE;
+                }
+            }
+            return DealRecord.NONE_VULNERABLE;
+        }
+
+        /**
+         * Parses the hands of an md value (after the dealer digit) - south, west, north, east, separated by commas,
+         * each a sequence of suit letters followed by their ranks
+         * @return the CardMasks, in Position.ordinal() order
+         */
+        private static long[] parseDeal(
+            final ByteBuffer buffer,
+            final int start,
+            final int end
+        ) {
+            long[] hands = new long[4];
+            int hx = 0;
+            Suit suit = null;
+            for (int px = start; (px < end) && (hx < 4); ++px) {
+                byte b = buffer.get(px);
+                if (b == ',') {
+                    ++hx;
+                    suit = null;
+                } else if (getSuit(b) != null) {
+                    suit = getSuit(b);
+                } else if ((suit != null) && (getRankBit(b) != 0)) {
+                    hands[hx] |= CardMask.getMask(suit, getRankBit(b));
+                } else if (!isSpace(b)) {
+                    throw new RuntimeException("Invalid card in LIN deal: " + (char) b);
+                }
+            }
+            return hands;
+        }
+
+        private static int parseCall(
+            final ByteBuffer buffer,
+            final int start,
+            final int end
+        ) {
+            if (matches(buffer, start, end, "p")) {
+                return Bid.PASS;
+            } else if (matches(buffer, start, end, "d")) {
+                return Bid.DOUBLE;
+            } else if (matches(buffer, start, end, "r")) {
+                return Bid.REDOUBLE;
+            }
+            int code = parseContractBid(buffer, start, end);
+            if (code < 0) {
+                byte[] text = new byte[end - start];
+                buffer.get(start, text);
+                throw new RuntimeException("Invalid call in LIN auction: " + new String(text));
+            }
+            return code;
+        }
+
+        @Override
+        public void write(
+            final DealRecord record,
+            final StringBuilder sb
+        ) {
+            sb.append("md|").append(record._dealer.ordinal() + 1);
+            for (Position position : Position.values()) {
+                if (position.ordinal() > 0) {
+                    sb.append(',');
+                }
+                long cards = record._deal.getCards(position);
+                for (int sx = 3; sx >= 0; --sx) {
+                    Suit suit = Suit.values()[sx];
+                    sb.append(suit._symbol);
+                    appendHolding(sb, CardMask.getHolding(cards, suit));
+                }
+            }
+            sb.append("|sv|").append(VULNERABILITIES[record._vulnerability]).append('|');
+            if (record._boardNumber > 0) {
+                sb.append("ah|Board ").append(record._boardNumber).append('|');
+            }
+            for (Bid call : record._auction.toList()) {
+                sb.append("mb|");
+                switch (call._code) {
+                    case Bid.PASS:      sb.append('p'); break;
+                    case Bid.DOUBLE:    sb.append('d'); break;
+                    case Bid.REDOUBLE:  sb.append('r'); break;
+                    default:
+                        int index = call._code - Bid.FIRST_CONTRACT;
+                        sb.append(index / 5 + 1).append(STRAINS.charAt(index % 5));
+                        break;
+                }
+                sb.append('|');
+            }
+            sb.append('\n');
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+/**
+ * Produces uniformly random deals, as four CardMasks indexed by Position.ordinal().
+ * Each deal is an unbiased Fisher-Yates shuffle driven by a SplitMix64 generator,
+ * and nothing is allocated per deal.
+ *
+ * A generator describes a reproducible, numbered stream of deals: deal number N depends only upon
+ * the master seed and N, so any deal may be produced directly without generating the ones before it.
+ * Parallel workers should share a seed and partition the deal numbers between them; the deals (and hence
+ * any results aggregated over them) are then the same regardless of how many workers there are.
+ *
+ * Instances are not thread-safe - each thread or task should have its own generator.
+ */
+public class DealGenerator {
+
+    private static final byte[] IDENTITY = new byte[52];
+    static {
+        for (int cx = 0; cx < 52; ++cx) {
+            IDENTITY[cx] = (byte) cx;
+        }
+    }
+
+    private final byte[] _cards = new byte[52];     //  permutation of card indices, rebuilt for each deal
+    private final long _seed;
+    private long _index;                            //  number of the deal which next() will produce
+    private final DealRandom _random = new DealRandom();
+    private long _splits = 0;
+
+    public DealGenerator(
+        final long seed
+    ) {
+        this(seed, 0);
+    }
+
+    /**
+     * Creates a generator whose next() will first produce the deal with the given number
+     */
+    public DealGenerator(
+        final long seed,
+        final long index
+    ) {
+        _seed = seed;
+        _index = index;
+    }
+
+    /**
+     * Generates the deal with the given number into the given array, which must have at least four elements.
+     * Each element receives the CardMask for the Position with the corresponding ordinal.
+     * This does not affect the deal which next() produces.
+     */
+    public void deal(
+        final long index,
+        final long[] hands
+    ) {
+        _random.reset(_seed, index);
+
+        //  Fisher-Yates - swap each slot with a uniformly chosen slot at or below it
+        final byte[] cards = _cards;
+        System.arraycopy(IDENTITY, 0, cards, 0, 52);
+        for (int cx = 51; cx > 0; --cx) {
+            int sx = _random.nextInt(cx + 1);
+            byte temp = cards[cx];
+            cards[cx] = cards[sx];
+            cards[sx] = temp;
+        }
+
+        //  Each hand gets thirteen consecutive slots of the permutation
+        int cx = 0;
+        for (int hx = 0; hx < 4; ++hx) {
+            long mask = 0;
+            for (int limit = cx + 13; cx < limit; ++cx) {
+                mask |= 1L << cards[cx];
+            }
+            hands[hx] = mask;
+        }
+    }
+
+    /**
+     * Generates the deal with the given number
+     */
+    public Deal deal(
+        final long index
+    ) {
+        long[] hands = new long[4];
+        deal(index, hands);
+        return new Deal(hands);
+    }
+
+    /**
+     * Number of the deal which next() will produce
+     */
+    public long getIndex() {
+        return _index;
+    }
+
+    public long getSeed() {
+        return _seed;
+    }
+
+    /**
+     * Generates the next deal
+     */
+    public Deal next() {
+        return deal(_index++);
+    }
+
+    /**
+     * Generates the next deal into the given array - see deal(long, long[])
+     */
+    public void next(
+        final long[] hands
+    ) {
+        deal(_index++, hands);
+    }
+
+    /**
+     * Positions the stream so that next() produces the deal with the given number
+     */
+    public void seek(
+        final long index
+    ) {
+        _index = index;
+    }
+
+    /**
+     * Produces a new generator whose stream is independent of this one.
+     * The seeds of split generators derive from this generator's seed and the number of prior splits,
+     * so a given sequence of splits is reproducible.
+     */
+    public DealGenerator split() {
+        return new DealGenerator(DealRandom.mix(_seed ^ DealRandom.mix(++_splits * DealRandom.GOLDEN_GAMMA)));
+    }
+}
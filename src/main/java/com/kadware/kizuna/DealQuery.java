@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Describes the deals wanted from a DealDatabase - a list of conditions on the hands of particular positions,
+ * all of which must hold. For example, SOUTH 15-17 HCP balanced and NORTH 4+ hearts is
+ *
+ *      DealQuery.ANY.withHighCardPoints(Position.SOUTH, 15, 17)
+ *                   .withBalanced(Position.SOUTH)
+ *                   .withLength(Position.NORTH, Suit.HEARTS, 4, 13)
+ *
+ * Queries are immutable - the with...() methods produce new queries. A query says nothing about how it is run;
+ * the database compiles it into scans over its columns.
+ */
+public final class DealQuery {
+
+    static final int HIGH_CARD_POINTS = 0;
+    static final int QUICK_TRICK_HALVES = 1;
+    static final int LENGTH = 2;
+    static final int PATTERNS = 3;
+    static final int ALL_CARDS = 4;
+    static final int NO_CARDS = 5;
+
+    private static final long BALANCED_PATTERNS;
+    static {
+        long patterns = 0;
+        for (int px = 0; px < ShapeTable.PATTERNS; ++px) {
+            if (ShapeTable.isBalanced(px)) {
+                patterns |= 1L << px;
+            }
+        }
+        BALANCED_PATTERNS = patterns;
+    }
+
+    public static final DealQuery ANY = new DealQuery(new Condition[0]);
+
+    /**
+     * One condition on the hand of one position.
+     * _min and _max apply to HIGH_CARD_POINTS, QUICK_TRICK_HALVES and LENGTH (of the suit with bid order _suit);
+     * _mask is a set of pattern numbers for PATTERNS, or a CardMask for ALL_CARDS and NO_CARDS.
+     */
+    static final class Condition {
+
+        final int _kind;
+        final Position _position;
+        final int _suit;
+        final int _min;
+        final int _max;
+        final long _mask;
+
+        private Condition(
+            final int kind,
+            final Position position,
+            final int suit,
+            final int min,
+            final int max,
+            final long mask
+        ) {
+            _kind = kind;
+            _position = position;
+            _suit = suit;
+            _min = min;
+            _max = max;
+            _mask = mask;
+        }
+
+        @Override
+        public String toString() {
+            switch (_kind) {
+                case HIGH_CARD_POINTS:
+                    return String.format("%s HCP=%d-%d", _position, _min, _max);
+
+                case QUICK_TRICK_HALVES:
+                    return String.format("%s qt=%.1f-%.1f", _position, _min / 2.0f, _max / 2.0f);
+
+                case LENGTH:
+                    return String.format("%s %s=%d-%d", _position, Suit.values()[_suit]._symbol, _min, _max);
+
+                case PATTERNS: {
+                    if (_mask == BALANCED_PATTERNS) {
+                        return _position + " balanced";
+                    }
+                    StringBuilder sb = new StringBuilder();
+                    for (int px = 0; px < ShapeTable.PATTERNS; ++px) {
+                        if ((_mask & (1L << px)) != 0) {
+                            sb.append(sb.length() == 0 ? "" : ",").append(ShapeTable.getPatternString(px));
+                        }
+                    }
+                    return _position + " pattern=" + sb;
+                }
+
+                case ALL_CARDS:
+                    return _position + " holds " + new Distribution(_mask);
+
+                default:
+                    return _position + " lacks " + new Distribution(_mask);
+            }
+        }
+    }
+
+    private final Condition[] _conditions;
+
+    private DealQuery(
+        final Condition[] conditions
+    ) {
+        _conditions = conditions;
+    }
+
+    /**
+     * Produces a query requiring each position's hand to satisfy the corresponding HandSpec
+     */
+    public static DealQuery of(
+        final Map<Position, HandSpec> specs
+    ) {
+        DealQuery result = ANY;
+        for (Map.Entry<Position, HandSpec> entry : specs.entrySet()) {
+            result = result.withSpec(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    Condition[] getConditions() {
+        return _conditions;
+    }
+
+    private DealQuery with(
+        final int kind,
+        final Position position,
+        final int suit,
+        final int min,
+        final int max,
+        final long mask
+    ) {
+        Condition[] conditions = Arrays.copyOf(_conditions, _conditions.length + 1);
+        conditions[_conditions.length] = new Condition(kind, position, suit, min, max, mask);
+        return new DealQuery(conditions);
+    }
+
+    /**
+     * Produces a query which additionally requires the given position's hand to be balanced,
+     * in the sense of Distribution.isBalanced()
+     */
+    public DealQuery withBalanced(
+        final Position position
+    ) {
+        return with(PATTERNS, position, 0, 0, 0, BALANCED_PATTERNS);
+    }
+
+    /**
+     * Produces a query which additionally requires the given position to hold all of the given cards
+     */
+    public DealQuery withCards(
+        final Position position,
+        final long cards
+    ) {
+        return with(ALL_CARDS, position, 0, 0, 0, cards);
+    }
+
+    /**
+     * Produces a query with an (inclusive) high-card point range for the given position
+     */
+    public DealQuery withHighCardPoints(
+        final Position position,
+        final int min,
+        final int max
+    ) {
+        return with(HIGH_CARD_POINTS, position, 0, min, max, 0);
+    }
+
+    /**
+     * Produces a query with an (inclusive) length range for the given position's holding in the given suit
+     */
+    public DealQuery withLength(
+        final Position position,
+        final Suit suit,
+        final int min,
+        final int max
+    ) {
+        return with(LENGTH, position, suit._bidOrder, min, max, 0);
+    }
+
+    /**
+     * Produces a query which additionally requires the given position's hand to have one of the given
+     * ShapeTable pattern numbers
+     */
+    public DealQuery withPatterns(
+        final Position position,
+        final int... patterns
+    ) {
+        long mask = 0;
+        for (int pattern : patterns) {
+            if ((pattern < 0) || (pattern >= ShapeTable.PATTERNS)) {
+                throw new RuntimeException("Invalid pattern number");
+            }
+            mask |= 1L << pattern;
+        }
+        return with(PATTERNS, position, 0, 0, 0, mask);
+    }
+
+    /**
+     * Produces a query with an (inclusive) range of quick tricks, as counted by Hand.countQuickTricks(),
+     * for the given position
+     */
+    public DealQuery withQuickTricks(
+        final Position position,
+        final float min,
+        final float max
+    ) {
+        return with(QUICK_TRICK_HALVES, position, 0, (int) Math.ceil(min * 2), (int) Math.floor(max * 2), 0);
+    }
+
+    /**
+     * Produces a query which additionally requires the given position's hand to satisfy the given spec
+     */
+    public DealQuery withSpec(
+        final Position position,
+        final HandSpec spec
+    ) {
+        if (spec.isFixed()) {
+            return withCards(position, spec._cards);
+        }
+
+        DealQuery result = this;
+        if ((spec._minHighCardPoints > 0) || (spec._maxHighCardPoints < HandSpec.MAX_HIGH_CARD_POINTS)) {
+            result = result.withHighCardPoints(position, spec._minHighCardPoints, spec._maxHighCardPoints);
+        }
+        for (Suit suit : Suit.values()) {
+            if ((spec.getMinLength(suit) > 0) || (spec.getMaxLength(suit) < 13)) {
+                result = result.withLength(position, suit, spec.getMinLength(suit), spec.getMaxLength(suit));
+            }
+        }
+        if (spec._balanced) {
+            result = result.withBalanced(position);
+        }
+        return result;
+    }
+
+    /**
+     * Produces a query which additionally requires the given position to hold none of the given cards
+     */
+    public DealQuery withoutCards(
+        final Position position,
+        final long cards
+    ) {
+        return with(NO_CARDS, position, 0, 0, 0, cards);
+    }
+
+    @Override
+    public String toString() {
+        if (_conditions.length == 0) {
+            return "any deal";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (Condition condition : _conditions) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(condition);
+        }
+        return sb.toString();
+    }
+}
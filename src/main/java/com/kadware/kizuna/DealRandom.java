@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+/**
+ * SplitMix64 random source shared by the deal generators.
+ * The stream is restarted for each deal from the master seed and deal number, which is what makes
+ * the deal streams seekable.
+ */
+final class DealRandom {
+
+    static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long _state;
+
+    /**
+     * SplitMix64 finalizer
+     */
+    static long mix(
+        final long value
+    ) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Restarts the stream for the given deal number
+     */
+    void reset(
+        final long seed,
+        final long index
+    ) {
+        _state = mix(seed + mix(index));
+    }
+
+    long nextLong() {
+        return mix(_state += GOLDEN_GAMMA);
+    }
+
+    /**
+     * Uniform value from 0 to bound - 1, using Lemire's multiply-and-reject method
+     */
+    int nextInt(
+        final int bound
+    ) {
+        long product = (nextLong() >>> 32) * bound;
+        int low = (int) product;
+        if (Integer.compareUnsigned(low, bound) < 0) {
+            int threshold = Integer.remainderUnsigned(-bound, bound);
+            while (Integer.compareUnsigned(low, threshold) < 0) {
+                product = (nextLong() >>> 32) * bound;
+                low = (int) product;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    /**
+     * Uniform value from 0 to bound - 1, for any positive bound
+     */
+    long nextLong(
+        final long bound
+    ) {
+        long bits = nextLong() >>> 1;
+        long value = bits % bound;
+        while (bits - value + (bound - 1) < 0) {
+            bits = nextLong() >>> 1;
+            value = bits % bound;
+        }
+        return value;
+    }
+}
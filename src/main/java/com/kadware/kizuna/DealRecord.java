@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+/**
+ * One board as kept in a deal file - board number, dealer, vulnerability, the deal itself, and the auction if any
+ */
+public final class DealRecord {
+
+    public static final int NONE_VULNERABLE = 0;
+    public static final int NORTH_SOUTH_VULNERABLE = 1;
+    public static final int EAST_WEST_VULNERABLE = 2;
+    public static final int BOTH_VULNERABLE = 3;
+
+    public final int _boardNumber;      //  0 if not known
+    public final Position _dealer;
+    public final int _vulnerability;    //  NONE_VULNERABLE, NORTH_SOUTH_VULNERABLE, EAST_WEST_VULNERABLE, or BOTH_VULNERABLE
+    public final Deal _deal;
+    public final Auction _auction;      //  Auction.EMPTY if there is none
+
+    public DealRecord(
+        final int boardNumber,
+        final Position dealer,
+        final int vulnerability,
+        final Deal deal,
+        final Auction auction
+    ) {
+        if ((vulnerability < NONE_VULNERABLE) || (vulnerability > BOTH_VULNERABLE)) {
+            throw new RuntimeException("Invalid vulnerability for deal record");
+        }
+
+        _boardNumber = boardNumber;
+        _dealer = dealer;
+        _vulnerability = vulnerability;
+        _deal = deal;
+        _auction = auction;
+    }
+
+    /**
+     * Indicates whether the given position's side is vulnerable
+     */
+    public boolean isVulnerable(
+        final Position position
+    ) {
+        //  SOUTH and NORTH have even ordinals
+        int side = ((position.ordinal() & 1) == 0) ? NORTH_SOUTH_VULNERABLE : EAST_WEST_VULNERABLE;
+        return (_vulnerability & side) != 0;
+    }
+
+    @Override
+    public boolean equals(
+        final Object obj
+    ) {
+        if (obj instanceof DealRecord) {
+            DealRecord record = (DealRecord) obj;
+            return (record._boardNumber == _boardNumber)
+                && (record._dealer == _dealer)
+                && (record._vulnerability == _vulnerability)
+                && record._deal.equals(_deal)
+                && record._auction.equals(_auction);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((_boardNumber * 4 + _dealer.ordinal()) * 4 + _vulnerability) * 31 + _deal.hashCode() * 17 + _auction.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Board %d dealer %s: %s : %s", _boardNumber, _dealer, _deal, _auction);
+    }
+}
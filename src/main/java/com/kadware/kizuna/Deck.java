@@ -4,65 +4,61 @@
 
 package com.kadware.kizuna;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.Map;
-import java.util.Random;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * A shuffle-and-deal convenience wrapper around a DealGenerator.
+ * A Deck is not thread-safe, but it shares no state with any other Deck, so each thread may have its own.
+ */
 public class Deck {
 
-    private final LinkedList<Card> _deck = new LinkedList<>();
-    private final Random _random = new Random(System.currentTimeMillis());
-    private static final Deck _instance = new Deck();
+    private static final AtomicLong _seeds = new AtomicLong(System.currentTimeMillis());
+    private static final ThreadLocal<Deck> _instances = ThreadLocal.withInitial(Deck::new);
+
+    private final DealGenerator _generator;
+    private final long[] _hands = new long[4];      //  CardMask for each Position, by ordinal
 
     public Deck() {
+        this(_seeds.getAndAdd(DealRandom.GOLDEN_GAMMA));
+    }
+
+    /**
+     * Creates a Deck whose sequence of shuffles is reproducible - see DealGenerator
+     */
+    public Deck(
+        final long seed
+    ) {
+        _generator = new DealGenerator(seed);
+
+        //  Until the first shuffle, the cards are dealt in order, one to each position in turn
+        int cx = 0;
         for (Suit suit : Suit.values()) {
             for (Rank rank : Rank.values()) {
-                _deck.add(new Card(suit, rank));
+                _hands[cx++ % 4] |= CardMask.getMask(suit, CardMask.getBit(rank));
             }
         }
     }
 
     public Map<Position, Hand> deal() {
-        int cx = 0;
-        while (cx < 52) {
-            for (Position pos : Position.values()) {
-                Card card = _deck.get(cx++);
-                card._position = pos;
-                card._played = false;
-            }
-        }
-
-        Map<Position, Set<Card>> temporaryDistribution = new HashMap<>();
-        for (Position pos : Position.values()) {
-            temporaryDistribution.put(pos, new HashSet<Card>());
-        }
-
-        for (Card card : _deck) {
-            temporaryDistribution.get(card._position).add(card);
-        }
-
-        HashMap<Position, Hand> result = new HashMap<>();
-        for (Map.Entry<Position, Set<Card>> entry : temporaryDistribution.entrySet()) {
-            Position pos = entry.getKey();
-            result.put(pos, new Hand(pos, entry.getValue()));
-        }
+        return getDeal().getHands();
+    }
 
-        return result;
+    /**
+     * Retrieves the current deal - this does not change until the next shuffle
+     */
+    public Deal getDeal() {
+        return new Deal(_hands);
     }
 
+    /**
+     * Retrieves the Deck belonging to the calling thread
+     */
     public static Deck getInstance() {
-        return _instance;
+        return _instances.get();
     }
 
     public void shuffle() {
-        for (int i = 0; i < 250; ++i) {
-            int from = _random.nextInt(52);
-            int to = _random.nextInt(52);
-            Card card = _deck.remove(from);
-            _deck.add(to, card);
-        }
+        _generator.next(_hands);
     }
 }
@@ -4,82 +4,141 @@
 
 package com.kadware.kizuna;
 
-import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.AbstractList;
 import java.util.Set;
-import java.util.TreeMap;
 
 /**
  * Describes the entirety of a player's hand.
  * SuitSet objects are list in decreasing order of set size.
  */
-public class Distribution extends LinkedList<SuitSet> {
+public class Distribution extends AbstractList<SuitSet> {
 
     public static final int[] ND_4_3_3_3 = { 4, 3, 3, 3 };
     public static final int[] ND_4_4_3_2 = { 4, 4, 3, 2 };
     public static final int[] ND_4_4_4_1 = { 4, 4, 4, 1 };
     public static final int[] ND_5_3_3_2 = { 5, 3, 3, 2 };
 
-    public final int[] _numericalDistribution;
+    public final int _shape;                                    //  see ShapeTable - -1 unless the hand has 13 cards
+    public final int _pattern;                                  //  see ShapeTable - -1 unless the hand has 13 cards
+    private final int[] _numericalDistribution;                 //  suit lengths, longest first - shared with ShapeTable
+                                                                //  for a full hand, so never modified or handed out
+    private final SuitSet[] _suitSets = new SuitSet[4];         //  longest first
+    private final SuitSet[] _suitSetsBySuit = new SuitSet[4];   //  indexed by Suit._bidOrder
 
     public Distribution(
         final Set<Card> cards
     ) {
-        //  Create a temporary container of directly-addressable-by-suit SuitSets.
-        Map<Suit, SuitSet> tempMap = new TreeMap<>();
-        for (Suit suit : Suit.values()) {
-            tempMap.put(suit, new SuitSet(suit));
-        }
+        this(CardMask.getMask(cards));
+    }
 
-        //  Load the SuitSets from the given set of all cards in the hand
-        for (Card card : cards) {
-            tempMap.get(card._suit).add(card);
+    /**
+     * Builds the distribution from a CardMask.
+     * A full hand is classified by ShapeTable; anything else (such as the cards left in an ending) has no shape or
+     * pattern, and its suits are ordered here.
+     */
+    public Distribution(
+        final long cards
+    ) {
+        for (Suit suit : Suit.values()) {
+            _suitSetsBySuit[suit._bidOrder] = new SuitSet(suit, CardMask.getHolding(cards, suit));
         }
 
-        //  Load our list with the SuitSets, ordered by the length of each set - longest first
-        _numericalDistribution = new int[4];
-        int nx = 0;
-        for (int len = 13; len >= 0; len--) {
-            for (SuitSet suitSet : tempMap.values()) {
-                if (suitSet.size() == len) {
-                    add(suitSet);
-                    _numericalDistribution[nx++] = len;
+        //  Order the SuitSets by the length of each set - longest first.
+        //  Sets of equal length remain in suit order, clubs first.
+        if (CardMask.count(cards) == 13) {
+            _shape = ShapeTable.getShape(cards);
+            _pattern = ShapeTable.getPattern(_shape);
+            _numericalDistribution = ShapeTable.getSharedPatternLengths(_pattern);
+            for (int sx = 0; sx < 4; ++sx) {
+                _suitSets[sx] = _suitSetsBySuit[ShapeTable.getSuitOrder(_shape, sx)];
+            }
+        } else {
+            _shape = -1;
+            _pattern = -1;
+            int[] lengths = new int[4];
+            for (SuitSet suitSet : _suitSetsBySuit) {
+                int len = suitSet.size();
+                int sx = suitSet._suit._bidOrder;
+                while ((sx > 0) && (lengths[sx - 1] < len)) {
+                    _suitSets[sx] = _suitSets[sx - 1];
+                    lengths[sx] = lengths[sx - 1];
+                    --sx;
                 }
+                _suitSets[sx] = suitSet;
+                lengths[sx] = len;
             }
+            _numericalDistribution = lengths;
+        }
+    }
+
+    @Override
+    public SuitSet get(
+        final int index
+    ) {
+        return _suitSets[index];
+    }
+
+    /**
+     * Retrieves the CardMask describing all the cards in the hand
+     */
+    public long getCards() {
+        long result = 0;
+        for (SuitSet suitSet : _suitSets) {
+            result |= CardMask.getMask(suitSet._suit, suitSet.getHolding());
         }
+        return result;
     }
 
     public String getDistributionString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append(_numericalDistribution[0]);
-        sb.append('-');
-        sb.append(_numericalDistribution[1]);
-        sb.append('-');
-        sb.append(_numericalDistribution[2]);
-        sb.append('-');
-        sb.append(_numericalDistribution[3]);
-        return sb.toString();
+        if (_pattern >= 0) {
+            return ShapeTable.getPatternString(_pattern);
+        }
+        return String.format("%d-%d-%d-%d",
+                             _numericalDistribution[0],
+                             _numericalDistribution[1],
+                             _numericalDistribution[2],
+                             _numericalDistribution[3]);
+    }
+
+    /**
+     * Length of the index'th longest suit (0 is the longest)
+     */
+    public int getLength(
+        final int index
+    ) {
+        return _numericalDistribution[index];
+    }
+
+    /**
+     * Suit lengths, longest first, as a new array - e.g. for comparing with the ND_* constants
+     */
+    public int[] getNumericalDistribution() {
+        return _numericalDistribution.clone();
+    }
+
+    /**
+     * Retrieves the longest SuitSet
+     */
+    public SuitSet getFirst() {
+        return _suitSets[0];
     }
 
     public SuitSet getSuitSet(
         final Suit suit
     ) {
-        for (SuitSet suitSet : this) {
-            if (suitSet._suit == suit) {
-                return suitSet;
-            }
-        }
-        throw new RuntimeException("Impossible failure");
+        return _suitSetsBySuit[suit._bidOrder];
     }
 
     /**
-     * Indicates whether the hand is balanced - i.e., 4-4-3-2, 4-3-3-3, 5-3-3-2
+     * Indicates whether the hand is balanced - i.e., 4-4-3-2, 4-3-3-3, 5-3-3-2 (which needs 13 cards)
      */
     public boolean isBalanced() {
-        return Arrays.equals(_numericalDistribution, ND_4_3_3_3)
-            || Arrays.equals(_numericalDistribution, ND_4_4_3_2)
-            || Arrays.equals(_numericalDistribution, ND_5_3_3_2);
+        return (_pattern >= 0) && ShapeTable.isBalanced(_pattern);
+    }
+
+    @Override
+    public int size() {
+        return 4;
     }
 
     @Override
@@ -0,0 +1,1242 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.Arrays;
+
+/**
+ * Determines how many tricks declarer takes in a given strain, with all four hands visible and perfect play.
+ *
+ * The hands are CardMasks indexed by Position.ordinal(), which is also the order of play (SOUTH, WEST, NORTH, EAST),
+ * and the play state is just the cards remaining in each hand, so no Card objects are involved.
+ * The search is a sequence of null-window (can the leading side take at least N tricks?) alpha-beta searches, using:
+ *  - a bounded transposition table, probed at the start of each trick. Ranks are taken relative to the cards still
+ *      in play, and each bound records only the cards whose ranks decided it, so that one entry covers every
+ *      position with the same suit lengths in which those cards lie in the same hands;
+ *  - equivalent-card pruning (only one card of a sequence is tried), and once a card has failed, no other card of
+ *      its suit is tried which is as low as it, relative to the cards which decided the result;
+ *  - move ordering (the best lead from the table, cheapest winners over what is still to come, low cards when partner
+ *      is sure to win the trick, ...);
+ *  - quick-trick bounds for the side on lead (top winners, and the long cards they set up), and sure trump tricks
+ *      for either side.
+ *
+ * Instances are not thread-safe; a solver keeps its transposition table between calls, which pays off when
+ * the same deal is solved for several declarers.
+ */
+public class DoubleDummySolver {
+
+    public static final int DEFAULT_TABLE_BITS = 18;
+
+    private static final int NO_TRUMP = 4;
+    private static final int RANKS = CardMask.RANKS_PER_SUIT;
+    private static final int HOLDING = CardMask.HOLDING_MASK;
+    private static final long TOP_CARDS = 0x0008_0040_0200_1000L;  //  the highest rank of each suit
+
+    //  Transposition table, in buckets of TABLE_WAYS entries selected by the suit lengths of each hand.
+    //  Ranks are relative (the highest card still in play in a suit is an ace, and so on), and an entry only records
+    //  the cards which mattered to the result - the top few cards of each suit, as given by its mask. Each bound has
+    //  its own mask within that one, and applies to any position with the same suit lengths in which the cards of
+    //  its mask are held by the same hands.
+    //  The packed word holds trump, leader, the lower and upper bounds of the tricks north-south can take from there,
+    //  and the best lead (as suit and relative rank).
+    //  Positions with the same lengths differ in many ways, so buckets are large; the entry which settles a probe
+    //  is moved to the front of its bucket, where the next probe finds it first. Entries fill a bucket from the front,
+    //  so a scan stops at the first empty one.
+    private static final int TABLE_WAYS = 64;
+    private static final int MIN_TABLE_BITS = 6;                //  one bucket
+    private static final int MAX_TABLE_BITS = 26;
+    private static final int META_LOWER_SHIFT = 4;
+    private static final int META_UPPER_SHIFT = 8;
+    private static final int META_LEADER_SHIFT = 12;
+    private static final int META_BEST_SHIFT = 17;
+    private static final int ENTRY_MASK = 0;
+    private static final int ENTRY_KEYS = 1;       //  three of them - the fourth hand has whatever is left
+    private static final int ENTRY_META = 4;
+    private static final int ENTRY_LOWER_MASK = 5;
+    private static final int ENTRY_UPPER_MASK = 6;
+    private static final int ENTRY_SIZE = 7;
+    private final int _bucketMask;
+    private final long[] _tableLengths;            //  by entry, apart from the rest so that a bucket is quick to scan; 0 if empty
+    private final long[] _table;
+    private int _nextWay;
+
+    //  compress() in two steps - the high seven bits and the low six bits of a holding, indexed by (inPlay, holding)
+    private static final byte[] COMPRESS_HIGH = new byte[1 << 14];
+    private static final byte[] COMPRESS_LOW = new byte[1 << 12];
+    static {
+        for (int inPlay = 0; inPlay < (1 << 7); ++inPlay) {
+            for (int holding = inPlay; ; holding = (holding - 1) & inPlay) {
+                int result = 0;
+                int bit = 1;
+                for (int mx = 0; mx < 7; ++mx) {
+                    if ((inPlay & (1 << mx)) != 0) {
+                        if ((holding & (1 << mx)) != 0) {
+                            result |= bit;
+                        }
+                        bit <<= 1;
+                    }
+                }
+                COMPRESS_HIGH[(inPlay << 7) | holding] = (byte) result;
+                if (inPlay < (1 << 6)) {
+                    COMPRESS_LOW[(inPlay << 6) | holding] = (byte) result;
+                }
+                if (holding == 0) {
+                    break;
+                }
+            }
+        }
+    }
+
+    //  Search state
+    private final long[] _hands = new long[4];
+    private int _trump;
+    private int _maxSide;                       //  the side whose trick count is being maximized (0 for NS, 1 for EW)
+    private int _won;                           //  tricks won by _maxSide during the search so far
+    private final int[] _sequence = new int[52];    //  card indices in the order played, indexed by depth
+    private final int[][] _moves = new int[52][RANKS];
+    private final int[][] _scores = new int[52][RANKS];
+    private final long[] _pruned = new long[52];            //  cards left out by generateMoves(), indexed by depth
+    private final long[] _key = new long[4];                //  normalized hands from the most recent probe()
+    private long _lengths;                                  //  suit lengths from the most recent probe()
+    private final long[] _savedKeys = new long[14 * 4];     //  keys held while searching, by tricks remaining
+    private int _cutoff;                                    //  the move which ended the most recent searchMoves(), or -1
+    private long _relevant;                                 //  cards whose ranks decided the most recent search()
+    private final int[] _quickTricks = new int[4];          //  by suit, from the most recent countQuickTricks()
+    private final int[] _quickPlayers = new int[4];         //  by suit, the player who cashes those tricks
+    private final int[] _leaderTricks = new int[4];
+    private final int[] _partnerTricks = new int[4];
+    private int _entrySuit;                                 //  suit led to partner's winner, or -1
+
+    //  Results of the most recent probe() - the best bounds found, and the mask of relative ranks which each depends upon
+    private int _probeLowerNS;
+    private int _probeUpperNS;
+    private long _probeLowerMask;
+    private long _probeUpperMask;
+    private int _probeBest;
+    private long _nodes;
+
+    public DoubleDummySolver() {
+        this(DEFAULT_TABLE_BITS);
+    }
+
+    /**
+     * Creates a solver whose transposition table has 2^tableBits entries
+     * @param tableBits from 6 (a single bucket) to 26
+     */
+    public DoubleDummySolver(
+        final int tableBits
+    ) {
+        if ((tableBits < MIN_TABLE_BITS) || (tableBits > MAX_TABLE_BITS)) {
+            throw new RuntimeException(String.format("Table size must be 2^%d to 2^%d entries", MIN_TABLE_BITS, MAX_TABLE_BITS));
+        }
+        _bucketMask = (1 << tableBits) / TABLE_WAYS - 1;
+        _tableLengths = new long[1 << tableBits];
+        _table = new long[ENTRY_SIZE << tableBits];
+    }
+
+    /**
+     * Discards everything in the transposition table
+     */
+    public void clear() {
+        Arrays.fill(_tableLengths, 0);
+    }
+
+    /**
+     * Number of search nodes visited since this solver was created
+     */
+    public long getNodes() {
+        return _nodes;
+    }
+
+    /**
+     * Solves for the given declarer - the opening lead is made by declarer's left-hand opponent.
+     * @param trumps trump suit, or null for no-trump
+     * @return number of tricks declarer takes
+     */
+    public int solve(
+        final Deal deal,
+        final Suit trumps,
+        final Position declarer
+    ) {
+        long[] hands = new long[4];
+        deal.getHands(hands);
+        return solve(hands, trumps, declarer);
+    }
+
+    /**
+     * Solves for the given declarer - the opening lead is made by declarer's left-hand opponent.
+     * @param hands CardMasks indexed by Position.ordinal(); all four must have the same number of cards
+     * @param trumps trump suit, or null for no-trump
+     * @return number of tricks declarer takes
+     */
+    public int solve(
+        final long[] hands,
+        final Suit trumps,
+        final Position declarer
+    ) {
+        int leader = (declarer.ordinal() + 1) & 3;
+        int trump = (trumps == null) ? NO_TRUMP : trumps._bidOrder;
+        int tricks = CardMask.count(hands[0] | hands[1] | hands[2] | hands[3]) / 4;
+        return tricks - solveLeader(hands, trump, leader, estimateTricks(hands, trump, leader, tricks));
+    }
+
+    /**
+     * A rough guess at the tricks the side on lead can take, for the first null-window search - half of them, and
+     * about one more for every six high-card points and every two and a half trumps more than the opponents hold
+     */
+    private static int estimateTricks(
+        final long[] hands,
+        final int trump,
+        final int leader,
+        final int tricks
+    ) {
+        long ours = hands[leader] | hands[leader ^ 2];
+        long theirs = hands[(leader + 1) & 3] | hands[(leader + 3) & 3];
+        int points = 0;
+        for (int sx = 0; sx < 4; ++sx) {
+            points += HoldingTable.getHighCardPoints(CardMask.getHolding(ours, sx))
+                - HoldingTable.getHighCardPoints(CardMask.getHolding(theirs, sx));
+        }
+        double estimate = tricks / 2.0 + points * 0.175;
+        if (trump != NO_TRUMP) {
+            long trumps = ((long) HOLDING) << (trump * RANKS);
+            estimate += (CardMask.count(ours & trumps) - CardMask.count(theirs & trumps)) * 0.4;
+        }
+        return (int) Math.round(estimate);
+    }
+
+    /**
+     * Number of tricks the side on lead can take.
+     * The guess only decides where the search starts, but a good one (such as the result for a closely-related problem
+     * whose positions are still in the transposition table) saves most of the work.
+     * Package-private for the batch solver.
+     * @param trump trump suit's _bidOrder, or 4 for no-trump
+     */
+    int solveLeader(
+        final long[] hands,
+        final int trump,
+        final int leader,
+        final int guess
+    ) {
+        long all = 0;
+        for (int px = 0; px < 4; ++px) {
+            if (CardMask.count(hands[px]) != CardMask.count(hands[0])) {
+                throw new RuntimeException("All hands must have the same number of cards");
+            }
+            if ((all & hands[px]) != 0) {
+                throw new RuntimeException("Card held in more than one hand");
+            }
+            all |= hands[px];
+        }
+
+        System.arraycopy(hands, 0, _hands, 0, 4);
+        _trump = trump;
+        _maxSide = leader & 1;
+
+        //  Null-window searches - the guess and its neighbor first, then a binary search of whatever range is left
+        int lo = 0;
+        int hi = CardMask.count(all) / 4;
+        int target = Math.max(1, Math.min(hi, guess));
+        for (int step = 0; lo < hi; ++step) {
+            _won = 0;
+            boolean result = search(leader, leader, 0, target);
+            if (result) {
+                lo = target;
+            } else {
+                hi = target - 1;
+            }
+            if (step == 0) {
+                target = result ? lo + 1 : hi;
+            } else {
+                target = (lo + hi + 1) / 2;
+            }
+        }
+        return lo;
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+    //  Search
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Determines whether _maxSide can take at least target tricks in total from the current position.
+     * Sets _relevant to the cards whose ranks (as opposed to suit lengths) the answer depends upon.
+     * @param player position next to play
+     * @param leader position which led to the current trick
+     * @param played number of cards already played to the current trick
+     */
+    private boolean search(
+        final int player,
+        final int leader,
+        final int played,
+        final int target
+    ) {
+        ++_nodes;
+        if (played == 0) {
+            return searchTrick(leader, target);
+        }
+        return searchMoves(player, leader, played, target, -1);
+    }
+
+    /**
+     * Tries each of the player's moves in turn, starting with the preferred move if there is one (it may be -1).
+     * A move which fails also settles the lower cards of its suit, if it was below all of the cards which decided
+     * its result - playing one of those instead only exchanges two cards which did not matter.
+     */
+    private boolean searchMoves(
+        final int player,
+        final int leader,
+        final int played,
+        final int target,
+        final int preferred
+    ) {
+        int depth = 52 - CardMask.count(_hands[0] | _hands[1] | _hands[2] | _hands[3]);
+        int[] moves = _moves[depth];
+        int base = depth - played;  //  depth of the lead to this trick
+        int count = generateMoves(player, played, base, depth, moves, _scores[depth]);
+        if (preferred >= 0) {
+            for (int mx = 1; mx < count; ++mx) {
+                if (moves[mx] == preferred) {
+                    System.arraycopy(moves, 0, moves, 1, mx);
+                    moves[0] = preferred;
+                    break;
+                }
+            }
+        }
+
+        boolean maximizing = (player & 1) == _maxSide;
+        int next = (player + 1) & 3;
+        long relevant = 0;
+        long equivalent = 0;
+        for (int mx = 0; mx < count; ++mx) {
+            int card = moves[mx];
+            long bit = 1L << card;
+            if ((equivalent & bit) != 0) {
+                continue;
+            }
+            _hands[player] ^= bit;
+            _sequence[depth] = card;
+
+            boolean result;
+            if (played == 3) {
+                int seat = getTrickWinner(base);
+                int winner = (leader + seat) & 3;
+                int gained = ((winner & 1) == _maxSide) ? 1 : 0;
+                _won += gained;
+                result = search(winner, winner, 0, target);
+                _won -= gained;
+                _relevant |= getWinnerRelevance(base, seat);
+            } else {
+                result = search(next, leader, played + 1, target);
+            }
+
+            _hands[player] ^= bit;
+            if (result == maximizing) {
+                _cutoff = card;
+                return result;
+            }
+            relevant |= _relevant;
+
+            //  Any other card of the suit below the cards which decided that would fail in the same way
+            int shift = (card / RANKS) * RANKS;
+            int lowest = Integer.lowestOneBit((int) (_relevant >>> shift) & HOLDING);
+            long below = ((long) ((lowest == 0) ? HOLDING : lowest - 1)) << shift;
+            if ((below & bit) != 0) {
+                equivalent |= below;
+            }
+        }
+
+        _cutoff = -1;
+        _relevant = relevant | getPrunedRelevance(relevant, moves, count, _pruned[depth]);
+        return !maximizing;
+    }
+
+    /**
+     * Cards left out by generateMoves() which a result found by trying every other move depends upon.
+     * Cards of a suit below the lowest relevant one are all alike, so the move tried for any of them stands for
+     * the rest - but if every such card was left out as equivalent to one above it, nothing was tried which would
+     * stand for them in a position where they are not (AK over partner's 10, as against K5), so they are relevant too.
+     */
+    private static long getPrunedRelevance(
+        final long relevant,
+        final int[] moves,
+        final int count,
+        final long pruned
+    ) {
+        if (pruned == 0) {
+            return 0;
+        }
+        long tried = 0;
+        for (int mx = 0; mx < count; ++mx) {
+            tried |= 1L << moves[mx];
+        }
+        long result = 0;
+        for (int sx = 0; sx < 4; ++sx) {
+            int shift = sx * RANKS;
+            int lowest = Integer.lowestOneBit((int) (relevant >>> shift) & HOLDING);
+            int below = lowest - 1;
+            if ((lowest != 0) && ((((int) (tried >>> shift)) & below) == 0)) {
+                result |= ((long) (((int) (pruned >>> shift)) & below)) << shift;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * search() for the start of a trick - this is where the bounds and the transposition table come in
+     */
+    private boolean searchTrick(
+        final int leader,
+        final int target
+    ) {
+        int remaining = CardMask.count(_hands[0] | _hands[1] | _hands[2] | _hands[3]) / 4;
+        int needed = target - _won;
+        _relevant = 0;
+        if (needed <= 0) {
+            return true;
+        } else if (needed > remaining) {
+            return false;
+        }
+
+        //  Quick tricks for the side on lead
+        int quick = countQuickTricks(leader);
+        if ((leader & 1) == _maxSide) {
+            if (quick >= needed) {
+                _relevant = getQuickTrickRelevance(leader, needed);
+                return true;
+            }
+        } else if (remaining - quick < needed) {
+            _relevant = getQuickTrickRelevance(leader, remaining - needed + 1);
+            return false;
+        }
+
+        //  Sure trump tricks for either side
+        if (_trump != NO_TRUMP) {
+            int sure = countSureTrumpTricks(_maxSide);
+            if (sure >= needed) {
+                _relevant = getTopTrumps();
+                return true;
+            }
+            sure = countSureTrumpTricks(_maxSide ^ 1);
+            if (remaining - sure < needed) {
+                _relevant = getTopTrumps();
+                return false;
+            }
+        }
+
+        //  Transposition table - bounds are kept in terms of north-south tricks
+        probe(leader, remaining, (_maxSide == 0) ? needed : remaining - needed + 1);
+        if (_maxSide == 0) {
+            if (_probeLowerNS >= needed) {
+                _relevant = getCards(_probeLowerMask);
+                return true;
+            } else if (_probeUpperNS < needed) {
+                _relevant = getCards(_probeUpperMask);
+                return false;
+            }
+        } else {
+            if (remaining - _probeUpperNS >= needed) {
+                _relevant = getCards(_probeUpperMask);
+                return true;
+            } else if (remaining - _probeLowerNS < needed) {
+                _relevant = getCards(_probeLowerMask);
+                return false;
+            }
+        }
+
+        //  Search the trick, then record what we learned along with the bound we already had on the other side
+        long lengths = _lengths;
+        int lowerNS = _probeLowerNS;
+        int upperNS = _probeUpperNS;
+        long lowerMask = _probeLowerMask;
+        long upperMask = _probeUpperMask;
+        int best = _probeBest;
+        System.arraycopy(_key, 0, _savedKeys, remaining * 4, 4);
+
+        boolean result = searchMoves(leader, leader, 0, target, decodeLead(best));
+        if (_cutoff >= 0) {
+            best = encodeLead(_cutoff);
+        }
+        if (result == (_maxSide == 0)) {
+            lowerNS = (_maxSide == 0) ? needed : remaining - needed + 1;
+            lowerMask = getMask(_relevant);
+        } else {
+            upperNS = (_maxSide == 0) ? needed - 1 : remaining - needed;
+            upperMask = getMask(_relevant);
+        }
+        store(remaining, leader, lengths, lowerMask, upperMask, lowerNS, upperNS, best);
+        return result;
+    }
+
+    /**
+     * Encodes a lead as its suit and its rank among the cards in play, so that it applies to equivalent positions.
+     * Zero means no lead.
+     */
+    private int encodeLead(
+        final int card
+    ) {
+        int suit = card / RANKS;
+        int shift = suit * RANKS;
+        int inPlay = (int) ((_hands[0] | _hands[1] | _hands[2] | _hands[3]) >>> shift) & HOLDING;
+        int higher = Integer.bitCount(inPlay & -(1 << (card - shift + 1)));
+        return 1 + ((suit << 4) | higher);
+    }
+
+    private int decodeLead(
+        final int encoded
+    ) {
+        if (encoded == 0) {
+            return -1;
+        }
+        int suit = (encoded - 1) >>> 4;
+        int shift = suit * RANKS;
+        int inPlay = (int) ((_hands[0] | _hands[1] | _hands[2] | _hands[3]) >>> shift) & HOLDING;
+        for (int higher = (encoded - 1) & 0x0F; higher > 0; --higher) {
+            inPlay ^= Integer.highestOneBit(inPlay);
+        }
+        return (inPlay == 0) ? -1 : shift + Integer.numberOfTrailingZeros(Integer.highestOneBit(inPlay));
+    }
+
+    /**
+     * Position within the trick led at the given depth (0 to 3, relative to the leader) of the card which wins it
+     */
+    private int getTrickWinner(
+        final int base
+    ) {
+        int best = 0;
+        int bestCard = _sequence[base];
+        for (int tx = 1; tx < 4; ++tx) {
+            int card = _sequence[base + tx];
+            int suit = card / RANKS;
+            int bestSuit = bestCard / RANKS;
+            if (suit == bestSuit) {
+                if (card > bestCard) {
+                    best = tx;
+                    bestCard = card;
+                }
+            } else if (suit == _trump) {
+                best = tx;
+                bestCard = card;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The card which won the trick led at the given depth, if it won by rank (that is, some other card of its suit
+     * was played to the trick) - otherwise zero.
+     */
+    private long getWinnerRelevance(
+        final int base,
+        final int seat
+    ) {
+        int card = _sequence[base + seat];
+        int suit = card / RANKS;
+        for (int tx = 0; tx < 4; ++tx) {
+            if ((tx != seat) && (_sequence[base + tx] / RANKS == suit)) {
+                return 1L << card;
+            }
+        }
+        return 0;
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+    //  Bounds
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Counts tricks which the side on lead can cash immediately without losing the lead - either the leader's own
+     * winners, or partner's if the leader can lead a suit in which partner has a winner, or in no-trump (or when
+     * the opponents have no trumps) the leader's winners in some suits followed by partner's in the others.
+     * Leaves the count for each suit in _quickTricks, and the suit led to partner (if any) in _entrySuit.
+     */
+    private int countQuickTricks(
+        final int leader
+    ) {
+        _entrySuit = -1;
+        int result = countWinners(leader, _leaderTricks);
+        System.arraycopy(_leaderTricks, 0, _quickTricks, 0, 4);
+        int partner = leader ^ 2;
+        Arrays.fill(_quickPlayers, leader);
+        long theirs = _hands[(leader + 1) & 3] | _hands[(leader + 3) & 3];
+        int entrySuit = -1;
+        for (int sx = 0; sx < 4; ++sx) {
+            int shift = sx * RANKS;
+            int myHolding = (int) (_hands[leader] >>> shift) & HOLDING;
+            int partnerHolding = (int) (_hands[partner] >>> shift) & HOLDING;
+            int theirHolding = (int) (theirs >>> shift) & HOLDING;
+            if ((myHolding != 0)
+                && (Integer.highestOneBit(partnerHolding) > theirHolding)
+                && (Integer.lowestOneBit(myHolding) < Integer.highestOneBit(partnerHolding))
+                && !isRuffable(leader, sx)) {
+                entrySuit = sx;
+                break;
+            }
+        }
+        if (entrySuit < 0) {
+            return result;
+        }
+
+        int viaPartner = countWinners(partner, _partnerTricks);
+        if (viaPartner > result) {
+            System.arraycopy(_partnerTricks, 0, _quickTricks, 0, 4);
+            Arrays.fill(_quickPlayers, partner);
+            _entrySuit = entrySuit;
+            result = viaPartner;
+        }
+
+        //  Cash some suits first, then cross to partner for the rest. This needs both hands to have enough spare
+        //  cards to discard while the other cashes, and nobody who could ruff.
+        if ((_trump != NO_TRUMP) && (((theirs >>> (_trump * RANKS)) & HOLDING) != 0)) {
+            return result;
+        }
+        int combined = 0;
+        int myCashed = 0;           //  cards the leader plays from the suits which the leader cashes
+        int myDiscards = 0;         //  cards the leader must throw while partner cashes
+        int myKept = 1;             //  cards the leader must keep - the card to reach partner, and those in partner's suits
+        int partnerKept = 0;
+        int partnerDiscards = 0;
+        for (int sx = 0; sx < 4; ++sx) {
+            int shift = sx * RANKS;
+            int myLength = Integer.bitCount((int) (_hands[leader] >>> shift) & HOLDING);
+            int partnerLength = Integer.bitCount((int) (_hands[partner] >>> shift) & HOLDING);
+            if ((sx != entrySuit) && (_leaderTricks[sx] >= _partnerTricks[sx])) {
+                combined += _leaderTricks[sx];
+                myCashed += _leaderTricks[sx];
+                partnerDiscards += Math.max(0, _leaderTricks[sx] - partnerLength);
+            } else {
+                int available = (sx == entrySuit) ? myLength - 1 : myLength;
+                combined += _partnerTricks[sx];
+                partnerKept += _partnerTricks[sx];
+                myKept += available;
+                myDiscards += Math.max(0, _partnerTricks[sx] - (sx == entrySuit ? 1 : 0) - available);
+            }
+        }
+        int cards = CardMask.count(_hands[leader]);
+        if ((combined > result)
+            && (partnerDiscards <= cards - partnerKept)
+            && (myDiscards <= cards - myCashed - myKept)) {
+            for (int sx = 0; sx < 4; ++sx) {
+                boolean byLeader = (sx != entrySuit) && (_leaderTricks[sx] >= _partnerTricks[sx]);
+                _quickTricks[sx] = byLeader ? _leaderTricks[sx] : _partnerTricks[sx];
+                _quickPlayers[sx] = byLeader ? leader : partner;
+            }
+            _entrySuit = entrySuit;
+            result = combined;
+        }
+        return result;
+    }
+
+    /**
+     * Counts tricks which the given player could cash if on lead, keeping the lead.
+     * In each suit these are the player's cards which outrank all of the opponents' cards in the suit, led from the top
+     * for as long as partner can follow with something lower. In a side suit of a trump contract, cashing stops once
+     * an opponent who has trumps could ruff.
+     * @param bySuit receives the count for each suit
+     */
+    private int countWinners(
+        final int player,
+        final int[] bySuit
+    ) {
+        long mine = _hands[player];
+        long ours = _hands[player ^ 2];
+        long lho = _hands[(player + 1) & 3];
+        long rho = _hands[(player + 3) & 3];
+        long theirs = lho | rho;
+
+        int total = 0;
+        for (int sx = 0; sx < 4; ++sx) {
+            bySuit[sx] = 0;
+            int shift = sx * RANKS;
+            int myHolding = (int) (mine >>> shift) & HOLDING;
+            if (myHolding == 0) {
+                continue;
+            }
+            int theirHolding = (int) (theirs >>> shift) & HOLDING;
+            int partnerHolding = (int) (ours >>> shift) & HOLDING;
+
+            //  Our cards above the opponents' best card, with partner playing low under each
+            int above = (theirHolding == 0) ? HOLDING : -(Integer.highestOneBit(theirHolding) << 1) & HOLDING;
+            int winners = 0;
+            for (int cashing = myHolding & above; cashing != 0; ++winners) {
+                int bit = Integer.highestOneBit(cashing);
+                cashing ^= bit;
+                int low = Integer.lowestOneBit(partnerHolding);
+                if (low > bit) {
+                    break;
+                }
+                partnerHolding ^= low;
+            }
+            if (winners == 0) {
+                continue;
+            }
+
+            //  Once those have drawn the opponents' cards in the suit, the rest of ours are good too - provided that
+            //  partner has nothing left to overtake them with, and that nobody could ruff
+            int lhoLength = Integer.bitCount((int) (lho >>> shift) & HOLDING);
+            int rhoLength = Integer.bitCount((int) (rho >>> shift) & HOLDING);
+            if ((winners >= Math.max(lhoLength, rhoLength))
+                && (partnerHolding == 0)
+                && ((_trump == NO_TRUMP) || (sx == _trump) || (((theirs >>> (_trump * RANKS)) & HOLDING) == 0))) {
+                winners = Integer.bitCount(myHolding);
+            }
+
+            if ((_trump != NO_TRUMP) && (sx != _trump)) {
+                //  An opponent holding trumps may ruff once out of the suit
+                int trumpShift = _trump * RANKS;
+                if ((((lho >>> trumpShift) & HOLDING) != 0)) {
+                    winners = Math.min(winners, Integer.bitCount((int) (lho >>> shift) & HOLDING));
+                }
+                if ((((rho >>> trumpShift) & HOLDING) != 0)) {
+                    winners = Math.min(winners, Integer.bitCount((int) (rho >>> shift) & HOLDING));
+                }
+            }
+
+            bySuit[sx] = winners;
+            total += winners;
+        }
+
+        return total;
+    }
+
+    /**
+     * Counts trump tricks which the given side (0 for NS, 1 for EW) must take however the play goes.
+     * Every trump in the run of top trumps held by the side wins whenever it is played, unless partner's card from
+     * the same run falls on the same trick - so each of the side's hands is sure of its share of the run.
+     */
+    private int countSureTrumpTricks(
+        final int side
+    ) {
+        int shift = _trump * RANKS;
+        int first = (int) (_hands[side] >>> shift) & HOLDING;
+        int second = (int) (_hands[side + 2] >>> shift) & HOLDING;
+        int theirs = (int) ((_hands[side ^ 1] | _hands[(side ^ 1) + 2]) >>> shift) & HOLDING;
+        int run = (theirs == 0) ? HOLDING : -(Integer.highestOneBit(theirs) << 1) & HOLDING;
+        return Math.max(Integer.bitCount(first & run), Integer.bitCount(second & run));
+    }
+
+    /**
+     * Cards which countSureTrumpTricks() depends upon - the run of top trumps held by one side, and the next trump
+     */
+    private long getTopTrumps() {
+        int shift = _trump * RANKS;
+        long ns = _hands[0] | _hands[2];
+        int holding = (int) ((ns | _hands[1] | _hands[3]) >>> shift) & HOLDING;
+        int top = Integer.highestOneBit(holding);
+        if (top == 0) {
+            return 0;
+        }
+        boolean topIsNS = ((ns >>> shift) & top) != 0;
+        int result = 0;
+        for (int bit = top; bit != 0; bit = Integer.highestOneBit(holding & (bit - 1))) {
+            result |= bit;
+            if ((((ns >>> shift) & bit) != 0) != topIsNS) {
+                break;
+            }
+        }
+        return ((long) result) << shift;
+    }
+
+    /**
+     * Cards which the given number of the tricks found by the most recent countQuickTricks() depend upon -
+     * in just enough suits to make up the tricks, those held by the side on lead which outrank all of the
+     * opponents' cards, down to the last one which has to be cashed (and the whole of the suit used to reach partner).
+     * Every hand's suit lengths are part of the table key, so partner's cards below those are still there to follow low.
+     */
+    private long getQuickTrickRelevance(
+        final int leader,
+        final int tricks
+    ) {
+        long ours = _hands[leader] | _hands[leader ^ 2];
+        long theirs = _hands[(leader + 1) & 3] | _hands[(leader + 3) & 3];
+        long result = 0;
+        int counted = 0;
+        for (int sx = 0; sx < 4; ++sx) {
+            if ((sx == _entrySuit) || ((counted < tricks) && (_quickTricks[sx] > 0))) {
+                int shift = sx * RANKS;
+                int theirHolding = (int) (theirs >>> shift) & HOLDING;
+                int above = (theirHolding == 0) ? HOLDING : -(Integer.highestOneBit(theirHolding) << 1) & HOLDING;
+                int cashing = (int) (_hands[_quickPlayers[sx]] >>> shift) & above;
+                int cashed = Math.min(_quickTricks[sx], tricks - counted);
+                if ((sx != _entrySuit) && (cashed > 0) && (cashed <= Integer.bitCount(cashing))) {
+                    int card = 0;
+                    for (int cx = 0; cx < cashed; ++cx) {
+                        card = Integer.highestOneBit(cashing);
+                        cashing ^= card;
+                    }
+                    above &= -card;
+                }
+                counted += _quickTricks[sx];
+                result |= ours & (((long) above) << shift);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indicates whether an opponent of the given player could ruff a lead of the given suit
+     */
+    private boolean isRuffable(
+        final int player,
+        final int suit
+    ) {
+        if ((_trump == NO_TRUMP) || (suit == _trump)) {
+            return false;
+        }
+        int shift = suit * RANKS;
+        int trumpShift = _trump * RANKS;
+        long lho = _hands[(player + 1) & 3];
+        long rho = _hands[(player + 3) & 3];
+        return ((((lho >>> shift) & HOLDING) == 0) && (((lho >>> trumpShift) & HOLDING) != 0))
+            || ((((rho >>> shift) & HOLDING) == 0) && (((rho >>> trumpShift) & HOLDING) != 0));
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+    //  Move generation
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Generates the distinct plays for the given player into moves[], best first. Returns the number of moves.
+     * Of several cards in the same hand which are adjacent among the cards still in play, only the highest is tried;
+     * the others are left in _pruned[depth].
+     */
+    private int generateMoves(
+        final int player,
+        final int played,
+        final int base,
+        final int depth,
+        final int[] moves,
+        final int[] scores
+    ) {
+        long hand = _hands[player];
+        long inPlay = _hands[0] | _hands[1] | _hands[2] | _hands[3];
+        for (int tx = 0; tx < played; ++tx) {
+            inPlay |= 1L << _sequence[base + tx];
+        }
+
+        long candidates = hand;
+        if (played > 0) {
+            long ledSuit = ((long) HOLDING) << ((_sequence[base] / RANKS) * RANKS);
+            if ((hand & ledSuit) != 0) {
+                candidates = hand & ledSuit;
+            }
+        }
+
+        //  The highest card of each sequence
+        long distinct = 0;
+        for (long bits = candidates; bits != 0; bits &= bits - 1) {
+            int card = Long.numberOfTrailingZeros(bits);
+            long above = inPlay & -(1L << (card + 1)) & (((long) HOLDING) << ((card / RANKS) * RANKS));
+            if ((above == 0) || ((hand & Long.lowestOneBit(above)) == 0)) {
+                distinct |= 1L << card;
+            }
+        }
+        _pruned[depth] = candidates ^ distinct;
+
+        if (played == 0) {
+            int count = 0;
+            for (long bits = distinct; bits != 0; bits &= bits - 1) {
+                int card = Long.numberOfTrailingZeros(bits);
+                int score = scoreLead(player, card, card / RANKS, inPlay);
+
+                //  insertion, keeping moves ordered by descending score
+                int mx = count++;
+                while ((mx > 0) && (scores[mx - 1] < score)) {
+                    moves[mx] = moves[mx - 1];
+                    scores[mx] = scores[mx - 1];
+                    --mx;
+                }
+                moves[mx] = card;
+                scores[mx] = score;
+            }
+            return count;
+        }
+
+        //  Current state of the trick, for ordering
+        int winnerCard = _sequence[base];
+        int winnerSeat = 0;
+        for (int tx = 1; tx < played; ++tx) {
+            if (beats(_sequence[base + tx], winnerCard)) {
+                winnerCard = _sequence[base + tx];
+                winnerSeat = tx;
+            }
+        }
+        boolean partnerWinning = ((played - winnerSeat) & 1) == 0;
+
+        //  Whether partner is sure to win the trick whatever this player does (so this player should play low), and
+        //  the card this player has to beat to win it - the best of the winning card and whatever the next player
+        //  (an opponent, if there is one still to play) could beat it with
+        boolean partnerWillWin = false;
+        int toBeat = winnerCard;
+        if ((played == 1) || (played == 2)) {
+            int ledSuit = _sequence[base] / RANKS;
+            int opponent = (player + 1) & 3;
+            int opponentBest = getBestCard(opponent, ledSuit, winnerCard);
+            if (partnerWinning) {
+                partnerWillWin = opponentBest < 0;
+            } else if (played == 1) {
+                int partnerBest = getBestCard(player ^ 2, ledSuit, (opponentBest < 0) ? winnerCard : opponentBest);
+                partnerWillWin = partnerBest >= 0;
+            }
+            if (opponentBest >= 0) {
+                toBeat = opponentBest;
+            }
+        }
+
+        //  Lowest first within each group: cards which win the trick, then (if an opponent is winning) those which
+        //  beat the card now winning, then the rest - side suits before trumps
+        long trumps = (_trump == NO_TRUMP) ? 0 : ((long) HOLDING) << (_trump * RANKS);
+        long winning = 0;
+        long overtaking = 0;
+        if (!partnerWillWin && !(partnerWinning && (played == 3))) {
+            winning = distinct & getBeaters(toBeat);
+            if (!partnerWinning) {
+                overtaking = distinct & ~winning & getBeaters(winnerCard);
+            }
+        }
+        long rest = distinct & ~winning & ~overtaking;
+        int count = addMoves(moves, 0, winning);
+        count = addMoves(moves, count, overtaking);
+        count = addMoves(moves, count, rest & ~trumps);
+        return addMoves(moves, count, rest & trumps);
+    }
+
+    /**
+     * Appends the given cards to moves[] from the lowest up, returning the new number of moves
+     */
+    private static int addMoves(
+        final int[] moves,
+        final int count,
+        final long cards
+    ) {
+        int result = count;
+        for (long bits = cards; bits != 0; bits &= bits - 1) {
+            moves[result++] = Long.numberOfTrailingZeros(bits);
+        }
+        return result;
+    }
+
+    /**
+     * The cards which would beat the given card, given the trump suit
+     */
+    private long getBeaters(
+        final int card
+    ) {
+        int suit = card / RANKS;
+        long result = (((long) HOLDING) << (suit * RANKS)) & -(1L << (card + 1));
+        if ((_trump != NO_TRUMP) && (suit != _trump)) {
+            result |= ((long) HOLDING) << (_trump * RANKS);
+        }
+        return result;
+    }
+
+    /**
+     * Ordering score for an opening lead to a trick
+     */
+    private int scoreLead(
+        final int player,
+        final int card,
+        final int suit,
+        final long inPlay
+    ) {
+        int shift = suit * RANKS;
+        int rank = card - shift;
+        int suitInPlay = (int) (inPlay >>> shift) & HOLDING;
+        int top = Integer.highestOneBit(suitInPlay);
+        int partnerHolding = (int) (_hands[player ^ 2] >>> shift) & HOLDING;
+
+        boolean ruffable = isRuffable(player, suit);
+        if (ruffable) {
+            return -50 - rank;
+        } else if ((1 << rank) == top) {
+            return 60 + rank;       //  cash a winner
+        } else if ((partnerHolding & top) != 0) {
+            return 40 - rank;       //  lead low to partner's winner
+        } else if ((partnerHolding == 0) && (_trump != NO_TRUMP) && (suit != _trump)
+                   && (((_hands[player ^ 2] >>> (_trump * RANKS)) & HOLDING) != 0)) {
+            return 30 - rank;       //  for partner to ruff
+        } else if ((suit == _trump) && (_trump != NO_TRUMP)) {
+            return 10 - rank;
+        } else {
+            return -rank;
+        }
+    }
+
+    /**
+     * Indicates whether card beats the currently-winning card, given the trump suit
+     */
+    private boolean beats(
+        final int card,
+        final int winningCard
+    ) {
+        int suit = card / RANKS;
+        int winningSuit = winningCard / RANKS;
+        if (suit == winningSuit) {
+            return card > winningCard;
+        }
+        return suit == _trump;
+    }
+
+    /**
+     * The highest card which the given player could play to a trick in the led suit, if it would beat the given card -
+     * otherwise -1. A player who cannot follow may ruff.
+     */
+    private int getBestCard(
+        final int player,
+        final int ledSuit,
+        final int card
+    ) {
+        long hand = _hands[player];
+        long suitCards = hand & (((long) HOLDING) << (ledSuit * RANKS));
+        if ((suitCards == 0) && (_trump != NO_TRUMP)) {
+            suitCards = hand & (((long) HOLDING) << (_trump * RANKS));
+        }
+        if (suitCards == 0) {
+            return -1;
+        }
+        int best = 63 - Long.numberOfLeadingZeros(suitCards);
+        return beats(best, card) ? best : -1;
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+    //  Transposition table
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Normalizes the current hands into _key, replacing the rank of each remaining card with its rank among
+     * the cards still in play, computes the suit lengths into _lengths, and looks the position up.
+     * The best bounds from the matching entries (if any) are left in the _probe... fields - the look-up stops
+     * at the first bound which settles whether north-south take at least the given number of tricks.
+     */
+    private void probe(
+        final int leader,
+        final int remaining,
+        final int targetNS
+    ) {
+        _key[0] = _key[1] = _key[2] = _key[3] = 0;
+        long lengths = 0;
+        for (int sx = 0; sx < 4; ++sx) {
+            int shift = sx * RANKS;
+            int h0 = (int) (_hands[0] >>> shift) & HOLDING;
+            int h1 = (int) (_hands[1] >>> shift) & HOLDING;
+            int h2 = (int) (_hands[2] >>> shift) & HOLDING;
+            int h3 = (int) (_hands[3] >>> shift) & HOLDING;
+            int inPlay = h0 | h1 | h2 | h3;
+            int count = Integer.bitCount(inPlay);
+            int align = RANKS - count;
+            int n0 = compress(h0, inPlay) << align;
+            int n1 = compress(h1, inPlay) << align;
+            int n2 = compress(h2, inPlay) << align;
+            int n3 = (HOLDING & -(1 << align)) ^ n0 ^ n1 ^ n2;
+            _key[0] |= ((long) n0) << shift;
+            _key[1] |= ((long) n1) << shift;
+            _key[2] |= ((long) n2) << shift;
+            _key[3] |= ((long) n3) << shift;
+            lengths |= ((long) Integer.bitCount(h0)) << (sx * 4)
+                | ((long) Integer.bitCount(h1)) << (16 + sx * 4)
+                | ((long) Integer.bitCount(h2)) << (32 + sx * 4)
+                | ((long) Integer.bitCount(h3)) << (48 + sx * 4);
+        }
+        _lengths = lengths;
+
+        _probeLowerNS = 0;
+        _probeUpperNS = remaining;
+        _probeBest = 0;
+        long foundLowerMask = 0;
+        long foundUpperMask = 0;
+        int first = getBucket(_key, 0, lengths, leader) * TABLE_WAYS;
+        for (int way = first; way < first + TABLE_WAYS; ++way) {
+            long entryLengths = _tableLengths[way];
+            if (entryLengths == 0) {
+                break;
+            } else if (entryLengths != lengths) {
+                continue;
+            }
+            int ex = way * ENTRY_SIZE;
+            int meta = (int) _table[ex + ENTRY_META];
+            if (((meta & 0x07) != _trump)
+                || (((meta >>> META_LEADER_SHIFT) & 0x03) != leader)) {
+                continue;
+            }
+            long differ = (_key[0] ^ _table[ex + ENTRY_KEYS])
+                | (_key[1] ^ _table[ex + ENTRY_KEYS + 1])
+                | (_key[2] ^ _table[ex + ENTRY_KEYS + 2]);
+            int lowerNS = (meta >>> META_LOWER_SHIFT) & 0x0F;
+            int upperNS = (meta >>> META_UPPER_SHIFT) & 0x0F;
+            long lowerMask = _table[ex + ENTRY_LOWER_MASK];
+            long upperMask = _table[ex + ENTRY_UPPER_MASK];
+            if ((lowerNS > _probeLowerNS) && ((differ & lowerMask) == 0)) {
+                _probeLowerNS = lowerNS;
+                foundLowerMask = lowerMask;
+            }
+            if ((upperNS < _probeUpperNS) && ((differ & upperMask) == 0)) {
+                _probeUpperNS = upperNS;
+                foundUpperMask = upperMask;
+            }
+            if ((_probeBest == 0) && (((differ & lowerMask) == 0) || ((differ & upperMask) == 0))) {
+                _probeBest = (meta >>> META_BEST_SHIFT) & 0x7F;
+            }
+            if ((_probeLowerNS >= targetNS) || (_probeUpperNS < targetNS)) {
+                if (way > first) {
+                    swapEntries(way, first);
+                }
+                break;
+            }
+        }
+        _probeLowerMask = foundLowerMask;
+        _probeUpperMask = foundUpperMask;
+    }
+
+    /**
+     * Gathers the bits of holding which are at the positions of the set bits of inPlay into the low-order bits
+     * (holding must be a subset of inPlay) - this is what turns ranks into ranks among the cards in play
+     */
+    private static int compress(
+        final int holding,
+        final int inPlay
+    ) {
+        int lowInPlay = inPlay & 0x3F;
+        int high = COMPRESS_HIGH[((inPlay >>> 6) << 7) | (holding >>> 6)];
+        int low = COMPRESS_LOW[(lowInPlay << 6) | (holding & 0x3F)];
+        return (high << Integer.bitCount(lowInPlay)) | low;
+    }
+
+    /**
+     * Selects a bucket from the suit lengths and the holder of the highest card of each suit.
+     * An entry whose mask ignores a suit is still only found when that suit's highest card is where it was when the
+     * entry was made, which costs some matches but spreads positions with the same lengths across many buckets.
+     */
+    private int getBucket(
+        final long[] keys,
+        final int offset,
+        final long lengths,
+        final int leader
+    ) {
+        //  The holder of each suit's highest card in two bits - hand 1 or 3 at the highest rank, hand 2 or 3 at the next
+        long owners = ((keys[offset + 1] | keys[offset + 3]) & TOP_CARDS)
+            | (((keys[offset + 2] | keys[offset + 3]) & TOP_CARDS) >>> 1);
+        long hash = (lengths ^ (owners * 0xC2B2AE3D27D4EB4FL) ^ ((leader << 3) | _trump)) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ (hash >>> 29)) * 0xBF58476D1CE4E5B9L;
+        return (int) (hash >>> 32) & _bucketMask;
+    }
+
+    /**
+     * Converts a mask of relative ranks (the top few of each suit) to the corresponding cards currently in play
+     */
+    private long getCards(
+        final long mask
+    ) {
+        long inPlay = _hands[0] | _hands[1] | _hands[2] | _hands[3];
+        long result = 0;
+        for (int sx = 0; sx < 4; ++sx) {
+            int shift = sx * RANKS;
+            int holding = (int) (inPlay >>> shift) & HOLDING;
+            for (int count = Integer.bitCount((int) (mask >>> shift) & HOLDING); count > 0; --count) {
+                int bit = Integer.highestOneBit(holding);
+                holding ^= bit;
+                result |= ((long) bit) << shift;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Converts the cards which decided a result to a mask of relative ranks - in each suit, everything from
+     * the lowest of those cards upward
+     */
+    private long getMask(
+        final long cards
+    ) {
+        long inPlay = _hands[0] | _hands[1] | _hands[2] | _hands[3];
+        long result = 0;
+        for (int sx = 0; sx < 4; ++sx) {
+            int shift = sx * RANKS;
+            int relevant = (int) (cards >>> shift) & HOLDING;
+            if (relevant != 0) {
+                int holding = (int) (inPlay >>> shift) & HOLDING;
+                int count = Integer.bitCount(holding & -Integer.lowestOneBit(relevant));
+                result |= ((long) (HOLDING & -(1 << (RANKS - count)))) << shift;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Records what is known about the current position, whose normalized hands were saved for the given number of
+     * remaining tricks. An entry with the same mask and key is updated; otherwise the first empty entry in the bucket
+     * is taken, or if there is none an arbitrary one is replaced.
+     * @param lowerMask relative ranks which the lower bound depends upon (zero if there is no bound)
+     * @param upperMask relative ranks which the upper bound depends upon (zero if there is no bound)
+     */
+    private void store(
+        final int remaining,
+        final int leader,
+        final long lengths,
+        final long lowerMask,
+        final long upperMask,
+        final int lowerNS,
+        final int upperNS,
+        final int best
+    ) {
+        long mask = lowerMask | upperMask;
+        int offset = remaining * 4;
+        int first = getBucket(_savedKeys, offset, lengths, leader) * TABLE_WAYS;
+        int way = -1;
+        for (int wx = first; wx < first + TABLE_WAYS; ++wx) {
+            if (_tableLengths[wx] == 0) {
+                way = wx;
+                break;
+            }
+            int ex = wx * ENTRY_SIZE;
+            int meta = (int) _table[ex + ENTRY_META];
+            if ((_tableLengths[wx] == lengths)
+                && (_table[ex + ENTRY_MASK] == mask)
+                && ((meta & 0x07) == _trump)
+                && (((meta >>> META_LEADER_SHIFT) & 0x03) == leader)
+                && ((_savedKeys[offset] & mask) == _table[ex + ENTRY_KEYS])
+                && ((_savedKeys[offset + 1] & mask) == _table[ex + ENTRY_KEYS + 1])
+                && ((_savedKeys[offset + 2] & mask) == _table[ex + ENTRY_KEYS + 2])) {
+                way = wx;
+                break;
+            }
+        }
+        if (way < 0) {
+            way = first + (_nextWay++ & (TABLE_WAYS - 1));
+        }
+
+        int entry = way * ENTRY_SIZE;
+        _tableLengths[way] = lengths;
+        _table[entry + ENTRY_MASK] = mask;
+        for (int hx = 0; hx < 3; ++hx) {
+            _table[entry + ENTRY_KEYS + hx] = _savedKeys[offset + hx] & mask;
+        }
+        _table[entry + ENTRY_LOWER_MASK] = lowerMask;
+        _table[entry + ENTRY_UPPER_MASK] = upperMask;
+        _table[entry + ENTRY_META] = (best << META_BEST_SHIFT)
+            | (leader << META_LEADER_SHIFT)
+            | (upperNS << META_UPPER_SHIFT)
+            | (lowerNS << META_LOWER_SHIFT)
+            | _trump;
+    }
+
+    /**
+     * Exchanges two entries of the transposition table
+     */
+    private void swapEntries(
+        final int way1,
+        final int way2
+    ) {
+        long lengths = _tableLengths[way1];
+        _tableLengths[way1] = _tableLengths[way2];
+        _tableLengths[way2] = lengths;
+        int ex1 = way1 * ENTRY_SIZE;
+        int ex2 = way2 * ENTRY_SIZE;
+        for (int x = 0; x < ENTRY_SIZE; ++x) {
+            long word = _table[ex1 + x];
+            _table[ex1 + x] = _table[ex2 + x];
+            _table[ex2 + x] = word;
+        }
+    }
+}
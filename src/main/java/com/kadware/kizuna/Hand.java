@@ -22,13 +22,24 @@ public class Hand {
         _distribution = new Distribution(cards);
     }
 
+    /**
+     * Builds the hand from a CardMask
+     */
+    public Hand(
+        final Position position,
+        final long cards
+    ) {
+        _position = position;
+        _distribution = new Distribution(cards);
+    }
+
     /**
      * Counts high-card points
      */
     public int countHighCardPoints() {
         int points = 0;
         for (SuitSet suitSet : _distribution) {
-            points += suitSet.countHighCardPoints();
+            points += HoldingTable.getHighCardPoints(suitSet.getHolding());
         }
         return points;
     }
@@ -108,23 +119,19 @@ public class Hand {
      * Count number of quick tricks
      */
     public float countQuickTricks() {
-        float result = 0;
+        int halves = 0;
         for (SuitSet suitSet : _distribution) {
-            boolean ace = suitSet.contains(new Card(suitSet._suit, Rank.ACE));
-            boolean king = suitSet.contains(new Card(suitSet._suit, Rank.KING));
-            boolean queen = suitSet.contains(new Card(suitSet._suit, Rank.QUEEN));
-            if (ace && king) {
-                result += 2.0f;
-            } else if (ace && queen) {
-                result += 1.5f;
-            } else if (ace || (king && queen)) {
-                result += 1.0f;
-            } else if (king && (suitSet.size() > 1)) {
-                result += 0.5f;
-            }
+            halves += HoldingTable.getQuickTrickHalves(suitSet.getHolding());
         }
 
-        return result;
+        return halves / 2.0f;
+    }
+
+    /**
+     * Retrieves the CardMask describing all the cards in the hand
+     */
+    public long getCards() {
+        return _distribution.getCards();
     }
 
     /**
@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An in-memory index of the hands in a range of a DealArchive, for finding the hands most like a given one.
+ *
+ * The distance between two hands is a weighted sum of the difference in HCP, the number of cards by which the
+ * suit lengths differ, the number of A-K-Q-J honors which are placed differently (held in one hand and not the
+ * other), and the difference in quick tricks (in halves). The weights are given when the index is built.
+ *
+ * Hands are bucketed by shape and HCP, so within a bucket the distance from a query hand is a fixed part,
+ * which is also a lower bound for the whole bucket, plus the honor and quick trick parts. A query visits the
+ * buckets in order of their lower bounds and stops at the first one which cannot beat the k'th best hand so far,
+ * so the answer is exact, and usually only a few buckets near the query's own are scanned.
+ *
+ * The index takes 8 bytes a hand (32 a deal), and another 6 a hand while it is being built. Each neighbor is
+ * identified by deal number and position; the cards come from the archive, and the deal (for example, to see how
+ * AmericanStandardSystem bids it with an AuctionDriver) from DealArchive.getDeal().
+ * Instances are thread-safe once built.
+ */
+public class HandIndex {
+
+    public static final int DEFAULT_HIGH_CARD_POINT_WEIGHT = 4;
+    public static final int DEFAULT_LENGTH_WEIGHT = 3;
+    public static final int DEFAULT_HONOR_WEIGHT = 2;
+    public static final int DEFAULT_QUICK_TRICK_WEIGHT = 1;
+
+    private static final int HCP_VALUES = HandSpec.MAX_HIGH_CARD_POINTS + 1;
+    private static final int BUCKETS = ShapeTable.SHAPES * HCP_VALUES;
+    private static final int BUILD_GRAIN = 1 << 16;     //  deals per leaf task while building
+    private static final int HONOR_BITS = 0xFFFF;       //  A-K-Q-J of each suit, four bits per suit by _bidOrder
+    private static final int QUICK_TRICK_SHIFT = 16;
+
+    /**
+     * One of the hands found by a query
+     */
+    public static final class Neighbor {
+
+        public final long _deal;            //  number of the deal in the archive
+        public final Position _position;
+        public final long _cards;
+        public final int _distance;
+
+        private Neighbor(
+            final long deal,
+            final Position position,
+            final long cards,
+            final int distance
+        ) {
+            _deal = deal;
+            _position = position;
+            _cards = cards;
+            _distance = distance;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("deal %d %s distance %d: %s", _deal, _position, _distance, new Distribution(_cards));
+        }
+    }
+
+    private final DealArchive _archive;
+    private final long _first;              //  archive number of the first deal
+    private final int _highCardPointWeight;
+    private final int _lengthWeight;
+    private final int _honorWeight;
+    private final int _quickTrickWeight;
+
+    private final int[] _bucketStarts;      //  index in _features and _hands of the first hand in each bucket, then the end
+    private final int[] _occupied;          //  the buckets which have any hands
+    private final int[] _features;          //  honor bits, and quick trick halves above them
+    private final int[] _hands;             //  (deal - _first) * 4 + Position.ordinal()
+
+    /**
+     * Indexes every hand in the archive, with the default weights
+     */
+    public HandIndex(
+        final DealArchive archive
+    ) {
+        this(archive,
+             0,
+             archive.size(),
+             DEFAULT_HIGH_CARD_POINT_WEIGHT,
+             DEFAULT_LENGTH_WEIGHT,
+             DEFAULT_HONOR_WEIGHT,
+             DEFAULT_QUICK_TRICK_WEIGHT,
+             ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Indexes the hands of the deals numbered first (inclusive) through limit (exclusive) in the archive
+     */
+    public HandIndex(
+        final DealArchive archive,
+        final long first,
+        final long limit,
+        final int highCardPointWeight,
+        final int lengthWeight,
+        final int honorWeight,
+        final int quickTrickWeight,
+        final ForkJoinPool pool
+    ) {
+        if ((first < 0) || (limit > archive.size()) || (first > limit)) {
+            throw new RuntimeException("Deal range out of range");
+        }
+        if (limit - first > Integer.MAX_VALUE / 4) {
+            throw new RuntimeException("Too many deals for one index");
+        }
+        if ((highCardPointWeight < 0) || (lengthWeight < 0) || (honorWeight < 0) || (quickTrickWeight < 0)) {
+            throw new RuntimeException("Weights may not be negative");
+        }
+
+        _archive = archive;
+        _first = first;
+        _highCardPointWeight = highCardPointWeight;
+        _lengthWeight = lengthWeight;
+        _honorWeight = honorWeight;
+        _quickTrickWeight = quickTrickWeight;
+
+        //  Evaluate every hand, then counting-sort them by bucket
+        int handCount = (int) (limit - first) * 4;
+        short[] buckets = new short[handCount];
+        int[] features = new int[handCount];
+        if (handCount > 0) {
+            pool.invoke(new BuildTask(0, handCount / 4, buckets, features));
+        }
+
+        _bucketStarts = new int[BUCKETS + 1];
+        for (short bucket : buckets) {
+            ++_bucketStarts[bucket + 1];
+        }
+        int occupied = 0;
+        for (int bx = 0; bx < BUCKETS; ++bx) {
+            occupied += (_bucketStarts[bx + 1] > 0) ? 1 : 0;
+            _bucketStarts[bx + 1] += _bucketStarts[bx];
+        }
+        _occupied = new int[occupied];
+        for (int bx = 0, ox = 0; bx < BUCKETS; ++bx) {
+            if (_bucketStarts[bx + 1] > _bucketStarts[bx]) {
+                _occupied[ox++] = bx;
+            }
+        }
+
+        _features = new int[handCount];
+        _hands = new int[handCount];
+        int[] next = Arrays.copyOf(_bucketStarts, BUCKETS);
+        for (int hx = 0; hx < handCount; ++hx) {
+            int ix = next[buckets[hx]]++;
+            _features[ix] = features[hx];
+            _hands[ix] = hx;
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    private static int getBucket(
+        final int shape,
+        final int highCardPoints
+    ) {
+        return shape * HCP_VALUES + highCardPoints;
+    }
+
+    private static int getHonorBits(
+        final long cards
+    ) {
+        int result = 0;
+        for (int sx = 0; sx < 4; ++sx) {
+            result |= (int) ((cards >>> (sx * CardMask.RANKS_PER_SUIT + 9)) & 0x0F) << (sx * 4);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the hands of a range of deals, splitting it until it is small enough for one task
+     */
+    @SuppressWarnings("serial")
+    private class BuildTask extends RecursiveAction {
+
+        private final int _firstDeal;
+        private final int _limitDeal;
+        private final short[] _handBuckets;
+        private final int[] _handFeatures;
+
+        private BuildTask(
+            final int firstDeal,
+            final int limitDeal,
+            final short[] buckets,
+            final int[] features
+        ) {
+            _firstDeal = firstDeal;
+            _limitDeal = limitDeal;
+            _handBuckets = buckets;
+            _handFeatures = features;
+        }
+
+        @Override
+        protected void compute() {
+            if (_limitDeal - _firstDeal > BUILD_GRAIN) {
+                int middle = _firstDeal + (_limitDeal - _firstDeal) / 2;
+                invokeAll(new BuildTask(_firstDeal, middle, _handBuckets, _handFeatures),
+                          new BuildTask(middle, _limitDeal, _handBuckets, _handFeatures));
+                return;
+            }
+
+            //  Hands are numbered four to a deal, so they can be evaluated in one batch
+            int count = (_limitDeal - _firstDeal) * 4;
+            long[] cards = new long[count];
+            _archive.forEach(_first + _firstDeal, _first + _limitDeal, (index, hands) -> {
+                System.arraycopy(hands, 0, cards, (int) (index - _first - _firstDeal) * 4, 4);
+            });
+            BatchEvaluator.Results results = new BatchEvaluator.Results(count);
+            BatchEvaluator.getInstance().evaluate(cards, results);
+
+            byte[] clubs = results._lengths[Suit.CLUBS._bidOrder];
+            byte[] diamonds = results._lengths[Suit.DIAMONDS._bidOrder];
+            byte[] hearts = results._lengths[Suit.HEARTS._bidOrder];
+            int base = _firstDeal * 4;
+            for (int hx = 0; hx < count; ++hx) {
+                int shape = ShapeTable.getShape(clubs[hx], diamonds[hx], hearts[hx]);
+                _handBuckets[base + hx] = (short) getBucket(shape, results._highCardPoints[hx]);
+                _handFeatures[base + hx] = getHonorBits(cards[hx]) | (results._quickTrickHalves[hx] << QUICK_TRICK_SHIFT);
+            }
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Number of hands in the index
+     */
+    public int size() {
+        return _hands.length;
+    }
+
+    /**
+     * HCP and quick trick halves of a hand, as BatchEvaluator counts them, in the low and high 16 bits
+     */
+    private static int getPointsAndQuickTricks(
+        final long cards
+    ) {
+        int highCardPoints = 0;
+        int quickTrickHalves = 0;
+        for (int sx = 0; sx < 4; ++sx) {
+            int holding = (int) (cards >>> (sx * CardMask.RANKS_PER_SUIT)) & CardMask.HOLDING_MASK;
+            highCardPoints += HoldingTable.getHighCardPoints(holding);
+            quickTrickHalves += HoldingTable.getQuickTrickHalves(holding);
+        }
+        return highCardPoints | (quickTrickHalves << 16);
+    }
+
+    /**
+     * Distance between two hands, as the index measures it
+     */
+    public int getDistance(
+        final long cards1,
+        final long cards2
+    ) {
+        int values1 = getPointsAndQuickTricks(cards1);
+        int values2 = getPointsAndQuickTricks(cards2);
+        int lengths = 0;
+        for (int sx = 0; sx < 4; ++sx) {
+            int length1 = Long.bitCount((cards1 >>> (sx * CardMask.RANKS_PER_SUIT)) & CardMask.HOLDING_MASK);
+            int length2 = Long.bitCount((cards2 >>> (sx * CardMask.RANKS_PER_SUIT)) & CardMask.HOLDING_MASK);
+            lengths += Math.abs(length1 - length2);
+        }
+        return Math.abs((values1 & 0xFFFF) - (values2 & 0xFFFF)) * _highCardPointWeight
+               + lengths * _lengthWeight
+               + Integer.bitCount(getHonorBits(cards1) ^ getHonorBits(cards2)) * _honorWeight
+               + Math.abs((values1 >>> 16) - (values2 >>> 16)) * _quickTrickWeight;
+    }
+
+    /**
+     * Finds the k hands nearest to the given one (which must have 13 cards, as the indexed hands do), nearest first.
+     * Hands at the same distance come in deal order; the given hand itself is included if it is indexed.
+     */
+    public Neighbor[] findNearest(
+        final long cards,
+        final int k
+    ) {
+        if (CardMask.count(cards) != 13) {
+            throw new RuntimeException("Hand must have 13 cards");
+        }
+        if (k <= 0) {
+            return new Neighbor[0];
+        }
+
+        int values = getPointsAndQuickTricks(cards);
+        int highCardPoints = values & 0xFFFF;
+        int quickTrickHalves = values >>> 16;
+        int shape = ShapeTable.getShape(cards);
+        int honors = getHonorBits(cards);
+
+        //  Lower bound of each occupied bucket - the HCP and length parts of the distance - ordered smallest first
+        int[] lengthDistances = new int[ShapeTable.SHAPES];
+        for (int sx = 0; sx < ShapeTable.SHAPES; ++sx) {
+            int difference = 0;
+            for (int bx = 0; bx < 4; ++bx) {
+                difference += Math.abs(ShapeTable.getLength(sx, bx) - ShapeTable.getLength(shape, bx));
+            }
+            lengthDistances[sx] = difference * _lengthWeight;
+        }
+        long[] bounds = new long[_occupied.length];
+        for (int ox = 0; ox < _occupied.length; ++ox) {
+            int bucket = _occupied[ox];
+            int bound = lengthDistances[bucket / HCP_VALUES]
+                        + Math.abs(bucket % HCP_VALUES - highCardPoints) * _highCardPointWeight;
+            bounds[ox] = ((long) bound << 32) | bucket;
+        }
+        Arrays.sort(bounds);
+
+        //  Max-heap of the best so far, as distance and then hand number, so the worst is on top
+        long[] heap = new long[Math.min(k, _hands.length)];
+        int heapSize = 0;
+        for (long entry : bounds) {
+            int bound = (int) (entry >>> 32);
+            if ((heapSize == heap.length) && (bound > (int) (heap[0] >>> 32))) {
+                break;
+            }
+
+            int bucket = (int) entry;
+            for (int ix = _bucketStarts[bucket]; ix < _bucketStarts[bucket + 1]; ++ix) {
+                int feature = _features[ix];
+                int distance = bound
+                               + Integer.bitCount((feature ^ honors) & HONOR_BITS) * _honorWeight
+                               + Math.abs((feature >>> QUICK_TRICK_SHIFT) - quickTrickHalves) * _quickTrickWeight;
+                long candidate = ((long) distance << 32) | _hands[ix];
+                if (heapSize < heap.length) {
+                    heap[heapSize] = candidate;
+                    siftUp(heap, heapSize++);
+                } else if (candidate < heap[0]) {
+                    heap[0] = candidate;
+                    siftDown(heap, heapSize);
+                }
+            }
+        }
+
+        long[] found = Arrays.copyOf(heap, heapSize);
+        Arrays.sort(found);
+        Neighbor[] result = new Neighbor[found.length];
+        for (int nx = 0; nx < found.length; ++nx) {
+            int handNumber = (int) found[nx];
+            long deal = _first + handNumber / 4;
+            Position position = Position.values()[handNumber % 4];
+            result[nx] = new Neighbor(deal, position, _archive.getCards(deal, position), (int) (found[nx] >>> 32));
+        }
+        return result;
+    }
+
+    private static void siftUp(
+        final long[] heap,
+        final int index
+    ) {
+        int ix = index;
+        while (ix > 0) {
+            int parent = (ix - 1) / 2;
+            if (heap[parent] >= heap[ix]) {
+                return;
+            }
+            long temp = heap[parent];
+            heap[parent] = heap[ix];
+            heap[ix] = temp;
+            ix = parent;
+        }
+    }
+
+    private static void siftDown(
+        final long[] heap,
+        final int size
+    ) {
+        int ix = 0;
+        while (true) {
+            int largest = ix;
+            int left = ix * 2 + 1;
+            int right = left + 1;
+            if ((left < size) && (heap[left] > heap[largest])) {
+                largest = left;
+            }
+            if ((right < size) && (heap[right] > heap[largest])) {
+                largest = right;
+            }
+            if (largest == ix) {
+                return;
+            }
+            long temp = heap[largest];
+            heap[largest] = heap[ix];
+            heap[ix] = temp;
+            ix = largest;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.Arrays;
+
+/**
+ * Describes the hands which are acceptable for a particular position when generating constrained deals.
+ * A spec either fixes the hand exactly, or restricts its high-card points, suit lengths and (optionally) requires
+ * it to be balanced in the sense of Distribution.isBalanced().
+ * Specs are immutable - the with...() methods produce new specs.
+ */
+public final class HandSpec {
+
+    public static final int MAX_HIGH_CARD_POINTS = 37;
+
+    public static final HandSpec ANY = new HandSpec(0,
+                                                    MAX_HIGH_CARD_POINTS,
+                                                    new int[]{ 0, 0, 0, 0 },
+                                                    new int[]{ 13, 13, 13, 13 },
+                                                    false,
+                                                    0);
+
+    public final int _minHighCardPoints;
+    public final int _maxHighCardPoints;
+    private final int[] _minLengths;    //  indexed by Suit._bidOrder
+    private final int[] _maxLengths;    //  indexed by Suit._bidOrder
+    public final boolean _balanced;
+    public final long _cards;           //  CardMask of the hand, if it is fixed - otherwise zero
+
+    private HandSpec(
+        final int minHighCardPoints,
+        final int maxHighCardPoints,
+        final int[] minLengths,
+        final int[] maxLengths,
+        final boolean balanced,
+        final long cards
+    ) {
+        _minHighCardPoints = minHighCardPoints;
+        _maxHighCardPoints = maxHighCardPoints;
+        _minLengths = minLengths;
+        _maxLengths = maxLengths;
+        _balanced = balanced;
+        _cards = cards;
+    }
+
+    /**
+     * Produces a spec which fixes the hand to exactly the given cards
+     */
+    public static HandSpec exact(
+        final long cards
+    ) {
+        if (CardMask.count(cards) != 13) {
+            throw new RuntimeException("A hand must have 13 cards");
+        }
+        return new HandSpec(0, MAX_HIGH_CARD_POINTS, ANY._minLengths, ANY._maxLengths, false, cards);
+    }
+
+    public int getMaxLength(
+        final Suit suit
+    ) {
+        return _maxLengths[suit._bidOrder];
+    }
+
+    public int getMinLength(
+        final Suit suit
+    ) {
+        return _minLengths[suit._bidOrder];
+    }
+
+    /**
+     * Indicates whether every hand satisfies this spec
+     */
+    public boolean isAny() {
+        return !isFixed()
+            && (_minHighCardPoints == 0)
+            && (_maxHighCardPoints >= MAX_HIGH_CARD_POINTS)
+            && Arrays.equals(_minLengths, ANY._minLengths)
+            && Arrays.equals(_maxLengths, ANY._maxLengths)
+            && !_balanced;
+    }
+
+    public boolean isFixed() {
+        return _cards != 0;
+    }
+
+    /**
+     * Indicates whether a hand with the given suit lengths (indexed by Suit._bidOrder) has an acceptable shape
+     */
+    public boolean acceptsShape(
+        final int[] lengths
+    ) {
+        for (int sx = 0; sx < 4; ++sx) {
+            if ((lengths[sx] < _minLengths[sx]) || (lengths[sx] > _maxLengths[sx])) {
+                return false;
+            }
+        }
+
+        if (_balanced) {
+            //  Only a full hand can be balanced - ShapeTable takes spades to be the rest of 13 cards
+            return (lengths[0] + lengths[1] + lengths[2] + lengths[3] == 13)
+                && ShapeTable.isBalanced(ShapeTable.getPattern(ShapeTable.getShape(lengths[0], lengths[1], lengths[2])));
+        }
+
+        return true;
+    }
+
+    /**
+     * Indicates whether the given hand satisfies this spec
+     */
+    public boolean matches(
+        final long cards
+    ) {
+        if (isFixed()) {
+            return cards == _cards;
+        }
+
+        int hcp = 0;
+        int[] lengths = new int[4];
+        for (Suit suit : Suit.values()) {
+            int holding = CardMask.getHolding(cards, suit);
+            hcp += HoldingTable.getHighCardPoints(holding);
+            lengths[suit._bidOrder] = HoldingTable.getLength(holding);
+        }
+
+        return (hcp >= _minHighCardPoints) && (hcp <= _maxHighCardPoints) && acceptsShape(lengths);
+    }
+
+    /**
+     * Produces a spec which additionally requires the hand to be balanced
+     */
+    public HandSpec withBalanced() {
+        checkNotFixed();
+        return new HandSpec(_minHighCardPoints, _maxHighCardPoints, _minLengths, _maxLengths, true, 0);
+    }
+
+    /**
+     * Produces a spec with the given (inclusive) high-card point range
+     */
+    public HandSpec withHighCardPoints(
+        final int min,
+        final int max
+    ) {
+        checkNotFixed();
+        return new HandSpec(min, max, _minLengths, _maxLengths, _balanced, 0);
+    }
+
+    /**
+     * Produces a spec with the given (inclusive) length range for the given suit
+     */
+    public HandSpec withLength(
+        final Suit suit,
+        final int min,
+        final int max
+    ) {
+        checkNotFixed();
+        int[] minLengths = Arrays.copyOf(_minLengths, 4);
+        int[] maxLengths = Arrays.copyOf(_maxLengths, 4);
+        minLengths[suit._bidOrder] = min;
+        maxLengths[suit._bidOrder] = max;
+        return new HandSpec(_minHighCardPoints, _maxHighCardPoints, minLengths, maxLengths, _balanced, 0);
+    }
+
+    private void checkNotFixed() {
+        if (isFixed()) {
+            throw new RuntimeException("Cannot further constrain a fixed hand");
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (isFixed()) {
+            return new Distribution(_cards).toString();
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("HCP=%d-%d", _minHighCardPoints, _maxHighCardPoints));
+        for (Suit suit : Suit.values()) {
+            int sx = suit._bidOrder;
+            if ((_minLengths[sx] > 0) || (_maxLengths[sx] < 13)) {
+                sb.append(String.format(" %s=%d-%d", suit._symbol, _minLengths[sx], _maxLengths[sx]));
+            }
+        }
+        if (_balanced) {
+            sb.append(" balanced");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+/**
+ * Precomputed per-suit evaluations for every one of the 8192 possible 13-bit holdings (see CardMask).
+ * Each entry packs all of the metrics for a holding into a single int, so that any per-suit
+ * evaluation is one array load.
+ */
+public final class HoldingTable {
+
+    private static final int HCP_SHIFT = 0;             //  4 bits, 0 to 10
+    private static final int HONORS_SHIFT = 4;          //  3 bits, 0 to 4
+    private static final int LENGTH_SHIFT = 8;          //  4 bits, 0 to 13
+    private static final int QUICK_TRICKS_SHIFT = 12;   //  3 bits, quick tricks in half-trick units, 0 to 4
+    private static final int STOPPER_FLAG = 1 << 16;
+    private static final int PROBABLE_STOPPER_FLAG = 1 << 17;
+
+    private static final int ACE = CardMask.getBit(Rank.ACE);
+    private static final int KING = CardMask.getBit(Rank.KING);
+    private static final int QUEEN = CardMask.getBit(Rank.QUEEN);
+    private static final int JACK = CardMask.getBit(Rank.JACK);
+    private static final int TEN = CardMask.getBit(Rank.TEN);
+    private static final int NINE = CardMask.getBit(Rank.NINE);
+    private static final int EIGHT = CardMask.getBit(Rank.EIGHT);
+
+    private static final int[] ENTRIES = new int[CardMask.HOLDING_MASK + 1];
+    static {
+        for (int holding = 0; holding <= CardMask.HOLDING_MASK; ++holding) {
+            ENTRIES[holding] = evaluate(holding);
+        }
+    }
+
+    private HoldingTable() {}
+
+    private static boolean has(
+        final int holding,
+        final int bit
+    ) {
+        return (holding & bit) != 0;
+    }
+
+    /**
+     * Generates the packed entry for a single holding
+     */
+    private static int evaluate(
+        final int holding
+    ) {
+        int length = Integer.bitCount(holding);
+        int hcp = 0;
+        int honors = 0;
+        for (Rank rank : Rank.values()) {
+            if (has(holding, CardMask.getBit(rank)) && (rank._highCardPoints > 0)) {
+                hcp += rank._highCardPoints;
+                ++honors;
+            }
+        }
+
+        boolean ace = has(holding, ACE);
+        boolean king = has(holding, KING);
+        boolean queen = has(holding, QUEEN);
+        boolean jack = has(holding, JACK);
+        boolean ten = has(holding, TEN);
+        boolean nine = has(holding, NINE);
+        boolean eight = has(holding, EIGHT);
+
+        int quickTrickHalves = 0;
+        if (ace && king) {
+            quickTrickHalves = 4;
+        } else if (ace && queen) {
+            quickTrickHalves = 3;
+        } else if (ace || (king && queen)) {
+            quickTrickHalves = 2;
+        } else if (king && (length > 1)) {
+            quickTrickHalves = 1;
+        }
+
+        boolean stopper = ace
+            || (king && queen)
+            || (queen && jack && ten)
+            || (jack && ten && nine && eight);
+        boolean probableStopper = (king && (length >= 2))
+            || (queen && (jack || ten) && (length >= 3));
+
+        return (hcp << HCP_SHIFT)
+            | (honors << HONORS_SHIFT)
+            | (length << LENGTH_SHIFT)
+            | (quickTrickHalves << QUICK_TRICKS_SHIFT)
+            | (stopper ? STOPPER_FLAG : 0)
+            | (probableStopper ? PROBABLE_STOPPER_FLAG : 0);
+    }
+
+    /**
+     * Retrieves the packed entry for the given holding, for callers which want several metrics at once
+     */
+    public static int getEntry(
+        final int holding
+    ) {
+        return ENTRIES[holding];
+    }
+
+    public static int getHighCardPoints(
+        final int holding
+    ) {
+        return (ENTRIES[holding] >>> HCP_SHIFT) & 0x0F;
+    }
+
+    /**
+     * Number of cards in the holding which carry high-card points
+     */
+    public static int getHonors(
+        final int holding
+    ) {
+        return (ENTRIES[holding] >>> HONORS_SHIFT) & 0x07;
+    }
+
+    public static int getLength(
+        final int holding
+    ) {
+        return (ENTRIES[holding] >>> LENGTH_SHIFT) & 0x0F;
+    }
+
+    /**
+     * Quick tricks for the holding, counted in half-trick units (0 to 4)
+     */
+    public static int getQuickTrickHalves(
+        final int holding
+    ) {
+        return (ENTRIES[holding] >>> QUICK_TRICKS_SHIFT) & 0x07;
+    }
+
+    public static boolean hasProbableStopper(
+        final int holding
+    ) {
+        return (ENTRIES[holding] & PROBABLE_STOPPER_FLAG) != 0;
+    }
+
+    public static boolean hasStopper(
+        final int holding
+    ) {
+        return (ENTRIES[holding] & STOPPER_FLAG) != 0;
+    }
+}
@@ -4,10 +4,6 @@
 
 package com.kadware.kizuna;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-
 public class Kizuna {
 
     public static final int POINTS_FOR_GAME_MAJORS = 26;
@@ -19,20 +15,20 @@ public class Kizuna {
     public static void main(
         final String[] args
     ) {
-        BiddingSystem system = new AmericanStandardSystem(false);
-        Board board = new Board();
+        BiddingSystem system = new AmericanStandardSystem(false, false, false);
         Deck deck = Deck.getInstance();
 
         deck.shuffle();
-        Map<Position, Hand> hands = deck.deal();
+        Deal deal = deck.getDeal();
         for (Position pos : Position.getValuesByOrdinal()) {
-            Hand hand = hands.get(pos);
-            System.out.println(hand.toString());
-            List<String> commentary = new LinkedList<>();
-            system.recommendBid(hand, board, commentary);
-            for (String c : commentary) {
-                System.out.println(":: " + c);
-            }
+            System.out.println(deal.getHand(pos).toString());
+        }
+
+        Commentary.Recorder commentary = new Commentary.Recorder();
+        AuctionDriver.Result result = new AuctionDriver(system).run(deal, Position.SOUTH, commentary);
+        for (String c : commentary.getDisplay()) {
+            System.out.println(":: " + c);
         }
+        System.out.println(result.toString());
     }
 }
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Monte Carlo simulation of opening bids.
+ * Deals boards from a seeded DealGenerator and, starting with the dealer (SOUTH), asks each position in turn
+ * for an opening bid until one of them opens or all four pass. The results are aggregated into frequencies
+ * of each opening bid, with HCP and shape histograms for each, and the pass-out rate.
+ *
+ * Deals are split into chunks which run on a ForkJoinPool. Each chunk tallies into local counters and
+ * then adds them into one of several striped counter arrays, so workers never lock or contend on a single array.
+ * Since deal N depends only upon the seed and N, the results do not depend upon the number of threads.
+ */
+public class OpeningBidSimulation {
+
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    //  Opening slots: 0 is passed out, 1 to 35 are the contract bids from 1C to 7NT
+    private static final int SLOTS = 36;
+    private static final int HCP_VALUES = HandSpec.MAX_HIGH_CARD_POINTS + 1;
+    private static final int PATTERNS = ShapeTable.PATTERNS;
+
+    //  Layout of the flat counter arrays
+    private static final int COUNT_OFFSET = 0;
+    private static final int SEAT_OFFSET = COUNT_OFFSET + SLOTS;
+    private static final int HCP_OFFSET = SEAT_OFFSET + SLOTS * 4;
+    private static final int PATTERN_OFFSET = HCP_OFFSET + SLOTS * HCP_VALUES;
+    private static final int COUNTERS = PATTERN_OFFSET + SLOTS * PATTERNS;
+
+    private final BiddingSystem _system;
+    private final long _seed;
+    private final ForkJoinPool _pool;
+
+    public OpeningBidSimulation(
+        final BiddingSystem system,
+        final long seed
+    ) {
+        this(system, seed, ForkJoinPool.commonPool());
+    }
+
+    public OpeningBidSimulation(
+        final BiddingSystem system,
+        final long seed,
+        final ForkJoinPool pool
+    ) {
+        _system = system;
+        _seed = seed;
+        _pool = pool;
+    }
+
+    /**
+     * Counters striped across several arrays; each chunk adds into the stripe selected by its thread
+     */
+    private static class StripedCounters {
+
+        private final AtomicLongArray[] _stripes;
+
+        private StripedCounters(
+            final int stripes
+        ) {
+            _stripes = new AtomicLongArray[stripes];
+            for (int sx = 0; sx < stripes; ++sx) {
+                _stripes[sx] = new AtomicLongArray(COUNTERS);
+            }
+        }
+
+        private void add(
+            final long[] counters
+        ) {
+            AtomicLongArray stripe = _stripes[(int) (Thread.currentThread().getId() % _stripes.length)];
+            for (int cx = 0; cx < COUNTERS; ++cx) {
+                if (counters[cx] != 0) {
+                    stripe.getAndAdd(cx, counters[cx]);
+                }
+            }
+        }
+
+        private long[] sum() {
+            long[] result = new long[COUNTERS];
+            for (AtomicLongArray stripe : _stripes) {
+                for (int cx = 0; cx < COUNTERS; ++cx) {
+                    result[cx] += stripe.get(cx);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Simulates a range of deal numbers, splitting it until it is no larger than a chunk
+     */
+    @SuppressWarnings("serial")
+    private class Task extends RecursiveAction {
+
+        private final long _first;
+        private final long _limit;
+        private final StripedCounters _counters;
+
+        private Task(
+            final long first,
+            final long limit,
+            final StripedCounters counters
+        ) {
+            _first = first;
+            _limit = limit;
+            _counters = counters;
+        }
+
+        @Override
+        protected void compute() {
+            if (_limit - _first > CHUNK_SIZE) {
+                long middle = _first + (_limit - _first) / 2;
+                invokeAll(new Task(_first, middle, _counters), new Task(middle, _limit, _counters));
+                return;
+            }
+
+            long[] counters = new long[COUNTERS];
+            DealGenerator generator = new DealGenerator(_seed);
+            long[] hands = new long[4];
+            Position[] positions = Position.getValuesByOrdinal();
+            for (long dx = _first; dx < _limit; ++dx) {
+                generator.deal(dx, hands);
+                Board board = new Board();
+                int slot = 0;
+                int seat = 0;
+                Hand opener = null;
+                for (; seat < 4; ++seat) {
+                    Position pos = positions[seat];
+                    Hand hand = new Hand(pos, hands[pos.ordinal()]);
+                    Bid bid = _system.recommendOpeningBid(hand, board, Commentary.DISABLED);
+                    slot = getSlot(bid);
+                    if (slot != 0) {
+                        opener = hand;
+                        break;
+                    }
+                    board.add(bid);
+                }
+
+                ++counters[COUNT_OFFSET + slot];
+                if (opener != null) {
+                    ++counters[SEAT_OFFSET + slot * 4 + seat];
+                    ++counters[HCP_OFFSET + slot * HCP_VALUES + opener.countHighCardPoints()];
+                    ++counters[PATTERN_OFFSET + slot * PATTERNS + opener._distribution._pattern];
+                }
+            }
+
+            _counters.add(counters);
+        }
+    }
+
+    /**
+     * Aggregated results of a simulation
+     */
+    public static class Results {
+
+        private final long[] _counters;
+        public final long _deals;
+        public final long _elapsedNanos;
+
+        private Results(
+            final long[] counters,
+            final long deals,
+            final long elapsedNanos
+        ) {
+            _counters = counters;
+            _deals = deals;
+            _elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Number of deals for which the given bid was the opening bid (the bid's position is ignored)
+         */
+        public long getCount(
+            final Bid bid
+        ) {
+            return _counters[COUNT_OFFSET + getSlot(bid)];
+        }
+
+        public double getDealsPerSecond() {
+            return _elapsedNanos == 0 ? 0.0 : _deals * 1e9 / _elapsedNanos;
+        }
+
+        /**
+         * Histogram of opener's high-card points for the given opening bid, indexed by HCP
+         */
+        public long[] getHighCardPointHistogram(
+            final Bid bid
+        ) {
+            long[] result = new long[HCP_VALUES];
+            System.arraycopy(_counters, HCP_OFFSET + getSlot(bid) * HCP_VALUES, result, 0, HCP_VALUES);
+            return result;
+        }
+
+        public long getPassedOut() {
+            return _counters[COUNT_OFFSET];
+        }
+
+        public double getPassOutRate() {
+            return _deals == 0 ? 0.0 : (double) getPassedOut() / _deals;
+        }
+
+        /**
+         * Number of times the given bid was opened in 1st, 2nd, 3rd and 4th seat
+         */
+        public long[] getSeatHistogram(
+            final Bid bid
+        ) {
+            long[] result = new long[4];
+            System.arraycopy(_counters, SEAT_OFFSET + getSlot(bid) * 4, result, 0, 4);
+            return result;
+        }
+
+        /**
+         * Histogram of opener's hand pattern (e.g., 4-4-3-2) for the given opening bid.
+         * Patterns which never occurred are omitted.
+         */
+        public Map<String, Long> getShapeHistogram(
+            final Bid bid
+        ) {
+            Map<String, Long> result = new LinkedHashMap<>();
+            int base = PATTERN_OFFSET + getSlot(bid) * PATTERNS;
+            for (int px = 0; px < PATTERNS; ++px) {
+                if (_counters[base + px] != 0) {
+                    result.put(ShapeTable.getPatternString(px), _counters[base + px]);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Generates an array of strings describing the results
+         */
+        public String[] getDisplay() {
+            List<String> result = new ArrayList<>();
+            result.add(String.format("Deals=%d  Passed out=%d (%.2f%%)  Deals/sec=%.0f",
+                                     _deals,
+                                     getPassedOut(),
+                                     100.0 * getPassOutRate(),
+                                     getDealsPerSecond()));
+            for (int slot = 1; slot < SLOTS; ++slot) {
+                long count = _counters[COUNT_OFFSET + slot];
+                if (count == 0) {
+                    continue;
+                }
+
+                long points = 0;
+                for (int hcp = 0; hcp < HCP_VALUES; ++hcp) {
+                    points += hcp * _counters[HCP_OFFSET + slot * HCP_VALUES + hcp];
+                }
+                int px = 0;
+                for (int x = 1; x < PATTERNS; ++x) {
+                    if (_counters[PATTERN_OFFSET + slot * PATTERNS + x] > _counters[PATTERN_OFFSET + slot * PATTERNS + px]) {
+                        px = x;
+                    }
+                }
+                result.add(String.format("  %-4s %10d (%6.2f%%)  avg HCP=%5.2f  most common pattern=%s",
+                                         getSlotName(slot),
+                                         count,
+                                         100.0 * count / _deals,
+                                         (double) points / count,
+                                         ShapeTable.getPatternString(px)));
+            }
+            return result.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Opening slot for a bid - 0 for anything other than a contract bid
+     */
+    private static int getSlot(
+        final Bid bid
+    ) {
+        return bid.isContract() ? bid._code - Bid.FIRST_CONTRACT + 1 : 0;
+    }
+
+    private static String getSlotName(
+        final int slot
+    ) {
+        int level = (slot - 1) / 5 + 1;
+        int strain = (slot - 1) % 5;
+        return String.format("%d%s", level, strain == 4 ? "NT" : Suit.values()[strain]._symbol);
+    }
+
+    /**
+     * Simulates deal numbers 0 through deals - 1
+     */
+    public Results run(
+        final long deals
+    ) {
+        return run(0, deals);
+    }
+
+    /**
+     * Simulates the given number of deals, starting with the given deal number
+     */
+    public Results run(
+        final long firstDeal,
+        final long deals
+    ) {
+        long startTime = System.nanoTime();
+        StripedCounters counters = new StripedCounters(Math.max(1, _pool.getParallelism()) * 2);
+        _pool.invoke(new Task(firstDeal, firstDeal + deals, counters));
+        return new Results(counters.sum(), deals, System.nanoTime() - startTime);
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * The opening-bid rules of AmericanStandardSystem, compiled into lookup tables.
+ *
+ * The rules look at a hand only through its shape, its total HCP and quick tricks, and a few facts about each suit
+ * (length, honors, HCP, stoppers, and whether it is a lead-directing suit) - so the decision is found from:
+ *  - a shape table, indexed by ShapeTable shape, giving the order the rules consider the suits in,
+ *      the shape flags (rebiddable suit, length in majors, five spades, balanced) and which suit a weak
+ *      (under 13 HCP) or strong hand opens
+ *  - an opening table, indexed by seat, HCP, quick tricks of 2 or more, and the shape flags, giving whether to pass,
+ *      open, or open only with a lead-directing suit
+ *  - a no-trump table, indexed by HCP and three stopper/strong suit flags, giving the no-trump level if any
+ * The per-suit facts come from HoldingTable, plus the lead-directing flag kept here for each holding.
+ *
+ * AmericanStandardSystem.verifyOpeningTable() proves that the tables agree with the rules, by trying one hand
+ * from every combination of per-suit facts which the rules can tell apart.
+ */
+final class OpeningTable {
+
+    //  Opening table entries
+    private static final byte PASS = 0;
+    private static final byte OPEN = 1;
+    private static final byte OPEN_IF_LEAD_DIRECTING = 2;
+
+    //  Suit choices in the shape table - a suit's _bidOrder, or one of these
+    private static final int STRONGER_MINOR = 4;
+    private static final int NO_CHOICE = 5;
+
+    //  Shape table entry layout
+    private static final int ORDER_SHIFT = 0;           //  8 bits, _bidOrder of each suit longest first, 2 bits each
+    private static final int FLAGS_SHIFT = 8;           //  3 bits, as for the opening table index
+    private static final int REBIDDABLE_FLAG = 1;
+    private static final int LENGTH_IN_MAJORS_FLAG = 2;
+    private static final int FIVE_SPADES_FLAG = 4;
+    private static final int BALANCED_FLAG = 1 << 11;
+    private static final int WEAK_CHOICE_SHIFT = 12;    //  3 bits
+    private static final int STRONG_CHOICE_SHIFT = 15;  //  3 bits
+
+    private static final int HCP_VALUES = HandSpec.MAX_HIGH_CARD_POINTS + 1;
+
+    //  Holdings which qualify for a lead-directing opening - four or more cards headed by A-K-Q or A-Q-J
+    private static final boolean[] LEAD_DIRECTING = new boolean[CardMask.HOLDING_MASK + 1];
+    static {
+        int ace = CardMask.getBit(Rank.ACE);
+        int king = CardMask.getBit(Rank.KING);
+        int queen = CardMask.getBit(Rank.QUEEN);
+        int jack = CardMask.getBit(Rank.JACK);
+        for (int holding = 0; holding <= CardMask.HOLDING_MASK; ++holding) {
+            LEAD_DIRECTING[holding] = (Integer.bitCount(holding) >= 4)
+                && ((holding & ace) != 0)
+                && ((holding & queen) != 0)
+                && ((holding & (king | jack)) != 0);
+        }
+    }
+
+    private final int[] _shapes = new int[ShapeTable.SHAPES];
+    private final byte[] _openings = new byte[4 * HCP_VALUES * 2 * 8];
+    private final byte[] _noTrumps = new byte[HCP_VALUES * 8];
+
+    OpeningTable(
+        final boolean fiveCardMajors
+    ) {
+        compileShapes(fiveCardMajors);
+        compileOpenings();
+        compileNoTrumps();
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Shape table - follows AmericanStandardSystem.selectOpeningBid() for everything but the lead-directing bid,
+     * no-trump, and comparing the minors' strength
+     */
+    private void compileShapes(
+        final boolean fiveCardMajors
+    ) {
+        for (int shape = 0; shape < ShapeTable.SHAPES; ++shape) {
+            int pattern = ShapeTable.getPattern(shape);
+            int[] dist = ShapeTable.getPatternLengths(pattern);
+            int[] order = new int[4];
+            for (int ox = 0; ox < 4; ++ox) {
+                order[ox] = ShapeTable.getSuitOrder(shape, ox);
+            }
+            int hearts = ShapeTable.getLength(shape, Suit.HEARTS._bidOrder);
+            int spades = ShapeTable.getLength(shape, Suit.SPADES._bidOrder);
+
+            int flags = 0;
+            if (dist[0] >= 5) {
+                flags |= REBIDDABLE_FLAG;
+            }
+            if (((spades >= 5) && (hearts >= 3)) || ((hearts >= 5) && (spades >= 3)) || ((hearts == 4) && (spades == 4))) {
+                flags |= LENGTH_IN_MAJORS_FLAG;
+            }
+            if (spades >= 5) {
+                flags |= FIVE_SPADES_FLAG;
+            }
+
+            int entry = (order[0] | (order[1] << 2) | (order[2] << 4) | (order[3] << 6)) << ORDER_SHIFT;
+            entry |= flags << FLAGS_SHIFT;
+            if (ShapeTable.isBalanced(pattern)) {
+                entry |= BALANCED_FLAG;
+            }
+            entry |= chooseSuit(pattern, order, false, fiveCardMajors) << WEAK_CHOICE_SHIFT;
+            entry |= chooseSuit(pattern, order, true, fiveCardMajors) << STRONG_CHOICE_SHIFT;
+            _shapes[shape] = entry;
+        }
+    }
+
+    private static int chooseSuit(
+        final int pattern,
+        final int[] order,
+        final boolean strong,
+        final boolean fiveCardMajors
+    ) {
+        int[] dist = ShapeTable.getPatternLengths(pattern);
+        int higher = Math.max(order[0], order[1]);
+        int lower = Math.min(order[0], order[1]);
+        if ((dist[0] >= 7) || ((dist[0] == 6) && (dist[1] < 5)) || ((dist[0] == 5) && (dist[1] < 4))) {
+            return order[0];
+        } else if (((dist[0] == 6) || (dist[0] == 5)) && (dist[0] == dist[1])) {
+            return higher;
+        } else if ((dist[0] == 6) && (dist[1] == 5)) {
+            return strong ? order[0] : higher;
+        } else if ((dist[0] == 5) && (dist[1] == 4)) {
+            if (strong) {
+                return order[0];
+            }
+            return (fiveCardMajors && ((higher == Suit.SPADES._bidOrder) || (higher == Suit.HEARTS._bidOrder)))
+                ? order[0]
+                : higher;
+        } else if (pattern == ShapeTable.PATTERN_4_4_4_1) {
+            if (order[3] == Suit.CLUBS._bidOrder) {
+                return Suit.DIAMONDS._bidOrder;
+            } else if (order[3] == Suit.DIAMONDS._bidOrder) {
+                return Suit.CLUBS._bidOrder;
+            }
+            return STRONGER_MINOR;
+        } else if ((dist[0] == 4) && !fiveCardMajors) {
+            return STRONGER_MINOR;
+        } else if (pattern == ShapeTable.PATTERN_4_4_3_2) {
+            return (higher - lower == 1) ? higher : lower;
+        } else if (pattern == ShapeTable.PATTERN_4_3_3_3) {
+            return order[0];
+        }
+        return NO_CHOICE;
+    }
+
+    /**
+     * Opening table - follows AmericanStandardSystem.shouldOpen()
+     */
+    private void compileOpenings() {
+        for (int passes = 0; passes < 4; ++passes) {
+            for (int hcp = 0; hcp < HCP_VALUES; ++hcp) {
+                for (int qt = 0; qt < 2; ++qt) {
+                    for (int flags = 0; flags < 8; ++flags) {
+                        boolean quickTricks = qt != 0;
+                        boolean rebiddable = (flags & REBIDDABLE_FLAG) != 0;
+                        boolean lengthInMajors = (flags & LENGTH_IN_MAJORS_FLAG) != 0;
+                        boolean fiveSpades = (flags & FIVE_SPADES_FLAG) != 0;
+
+                        byte entry = PASS;
+                        if (hcp >= 14) {
+                            entry = OPEN;
+                        } else if ((hcp >= 12) && quickTricks && rebiddable) {
+                            entry = OPEN;
+                        } else if (hcp >= 10) {
+                            boolean good = quickTricks && rebiddable && lengthInMajors;
+                            if (passes == 2) {
+                                entry = good ? OPEN : OPEN_IF_LEAD_DIRECTING;
+                            } else if (passes == 3) {
+                                entry = (good && fiveSpades) ? OPEN : PASS;
+                            } else {
+                                entry = good ? OPEN : PASS;
+                            }
+                        }
+                        _openings[getOpeningIndex(passes, hcp, qt, flags)] = entry;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int getOpeningIndex(
+        final int passes,
+        final int hcp,
+        final int quickTricks,
+        final int flags
+    ) {
+        return ((passes * HCP_VALUES + hcp) * 2 + quickTricks) * 8 + flags;
+    }
+
+    /**
+     * No-trump table - follows AmericanStandardSystem.selectOpeningNoTrump().
+     * Flags are 1 if the longest suit is a five-card suit with three or more honors, 2 if every suit has a stopper
+     * or probable stopper, and 4 if every suit has a stopper.
+     */
+    private void compileNoTrumps() {
+        for (int hcp = 0; hcp < HCP_VALUES; ++hcp) {
+            for (int flags = 0; flags < 8; ++flags) {
+                int level = 0;
+                if (((flags & 1) == 0) && ((flags & 2) != 0)) {
+                    boolean stopped = (flags & 4) != 0;
+                    if ((hcp >= 16) && (hcp <= 18)) {
+                        level = 1;
+                    } else if ((hcp >= 22) && (hcp <= 24) && stopped) {
+                        level = 2;
+                    } else if ((hcp >= 25) && (hcp <= 27) && stopped) {
+                        level = 3;
+                    }
+                }
+                _noTrumps[hcp * 8 + flags] = (byte) level;
+            }
+        }
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Finds the opening call for the given cards after the given number of passes (0 to 3)
+     * @return the call's Bid._code
+     */
+    int getOpeningCode(
+        final long cards,
+        final int passes
+    ) {
+        int hcp = 0;
+        int quickTrickHalves = 0;
+        int stoppers = 0;
+        int probableStoppers = 0;
+        for (int sx = 0; sx < 4; ++sx) {
+            int holding = CardMask.getHolding(cards, sx);
+            hcp += HoldingTable.getHighCardPoints(holding);
+            quickTrickHalves += HoldingTable.getQuickTrickHalves(holding);
+            if (HoldingTable.hasStopper(holding)) {
+                ++stoppers;
+            } else if (HoldingTable.hasProbableStopper(holding)) {
+                ++probableStoppers;
+            }
+        }
+
+        int shape = _shapes[ShapeTable.getShape(HoldingTable.getLength(CardMask.getHolding(cards, 0)),
+                                                HoldingTable.getLength(CardMask.getHolding(cards, 1)),
+                                                HoldingTable.getLength(CardMask.getHolding(cards, 2)))];
+        int flags = (shape >>> FLAGS_SHIFT) & 0x07;
+        int qt = (quickTrickHalves >= 4) ? 1 : 0;
+        byte opening = _openings[getOpeningIndex(passes, hcp, qt, flags)];
+        if (opening == PASS) {
+            return Bid.PASS;
+        }
+
+        if (opening == OPEN_IF_LEAD_DIRECTING) {
+            for (int ox = 0; ox < 4; ++ox) {
+                int suit = (shape >>> (ORDER_SHIFT + 2 * ox)) & 0x03;
+                if (LEAD_DIRECTING[CardMask.getHolding(cards, suit)]) {
+                    return Bid.getCode(1, suit);
+                }
+            }
+            return Bid.PASS;
+        }
+
+        if ((shape & BALANCED_FLAG) != 0) {
+            int longest = CardMask.getHolding(cards, shape & 0x03);
+            int ntFlags = ((HoldingTable.getLength(longest) == 5) && (HoldingTable.getHonors(longest) > 2)) ? 1 : 0;
+            if (stoppers + probableStoppers == 4) {
+                ntFlags |= 2;
+            }
+            if (stoppers == 4) {
+                ntFlags |= 4;
+            }
+            int level = _noTrumps[hcp * 8 + ntFlags];
+            if (level > 0) {
+                return Bid.getCode(level, Bid.NO_TRUMP);
+            }
+        }
+
+        int choice = (shape >>> ((hcp >= 13) ? STRONG_CHOICE_SHIFT : WEAK_CHOICE_SHIFT)) & 0x07;
+        if (choice == STRONGER_MINOR) {
+            choice = (getStrength(CardMask.getHolding(cards, Suit.CLUBS))
+                      > getStrength(CardMask.getHolding(cards, Suit.DIAMONDS)))
+                ? Suit.CLUBS._bidOrder
+                : Suit.DIAMONDS._bidOrder;
+        } else if (choice == NO_CHOICE) {
+            throw new RuntimeException("Fell through all the possibilities");
+        }
+        return Bid.getCode(1, choice);
+    }
+
+    /**
+     * Orders suits as AmericanStandardSystem.selectStrongestSuit() does - by length, then honors, then HCP
+     */
+    private static int getStrength(
+        final int holding
+    ) {
+        return (HoldingTable.getLength(holding) << 8)
+            | (HoldingTable.getHonors(holding) << 4)
+            | HoldingTable.getHighCardPoints(holding);
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Calls the consumer with one hand (as a CardMask) for every combination of per-suit facts the opening rules can
+     * distinguish - about eight million hands. Two holdings of the same length are alike if they have the same honors,
+     * HCP, quick tricks, stopper and probable stopper flags, and lead-directing flag.
+     */
+    static void forEachDistinctHand(
+        final LongConsumer consumer
+    ) {
+        forEachDistinctHand(Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * As above, but for at most the given number of hands of each shape, spread evenly over that shape's
+     * combinations of holdings - so that a quick check still covers every shape
+     */
+    static void forEachDistinctHand(
+        final long perShape,
+        final LongConsumer consumer
+    ) {
+        //  One representative holding of each kind, by length
+        int[][] representatives = new int[14][];
+        for (int length = 0; length <= 13; ++length) {
+            int[] found = new int[0];
+            int[] keys = new int[0];
+            for (int holding = 0; holding <= CardMask.HOLDING_MASK; ++holding) {
+                if (Integer.bitCount(holding) != length) {
+                    continue;
+                }
+                int key = HoldingTable.getEntry(holding) | (LEAD_DIRECTING[holding] ? (1 << 30) : 0);
+                boolean known = false;
+                for (int k : keys) {
+                    if (k == key) {
+                        known = true;
+                        break;
+                    }
+                }
+                if (!known) {
+                    keys = Arrays.copyOf(keys, keys.length + 1);
+                    keys[keys.length - 1] = key;
+                    found = Arrays.copyOf(found, found.length + 1);
+                    found[found.length - 1] = holding;
+                }
+            }
+            representatives[length] = found;
+        }
+
+        for (int clubs = 0; clubs <= 13; ++clubs) {
+            for (int diamonds = 0; clubs + diamonds <= 13; ++diamonds) {
+                for (int hearts = 0; clubs + diamonds + hearts <= 13; ++hearts) {
+                    int spades = 13 - clubs - diamonds - hearts;
+                    int[] c = representatives[clubs];
+                    int[] d = representatives[diamonds];
+                    int[] h = representatives[hearts];
+                    int[] s = representatives[spades];
+                    long combinations = (long) c.length * d.length * h.length * s.length;
+                    long count = Math.min(combinations, perShape);
+                    long stride = getStride(combinations, count);
+                    for (long kx = 0; kx < count; ++kx) {
+                        long rest = (kx * stride) % combinations;
+                        int sx = (int) (rest % s.length);
+                        rest /= s.length;
+                        int hx = (int) (rest % h.length);
+                        rest /= h.length;
+                        int dx = (int) (rest % d.length);
+                        consumer.accept(CardMask.getMask(Suit.CLUBS, c[(int) (rest / d.length)])
+                                        | CardMask.getMask(Suit.DIAMONDS, d[dx])
+                                        | CardMask.getMask(Suit.HEARTS, h[hx])
+                                        | CardMask.getMask(Suit.SPADES, s[sx]));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Step between the combinations visited by forEachDistinctHand() - one to visit them all, otherwise a step near
+     * the golden ratio of the range, and with no factor in common with it, so that the visits are distinct and
+     * no suit keeps the same holding from one visit to the next
+     */
+    private static long getStride(
+        final long combinations,
+        final long count
+    ) {
+        if (count == combinations) {
+            return 1;
+        }
+        long stride = (long) (combinations * 0.6180339887) | 1;
+        while (true) {
+            long a = combinations;
+            long b = stride;
+            while (b != 0) {
+                long t = a % b;
+                a = b;
+                b = t;
+            }
+            if (a == 1) {
+                return stride;
+            }
+            stride += 2;
+        }
+    }
+}
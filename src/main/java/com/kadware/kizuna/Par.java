@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+/**
+ * The par result for a deal - the contract which would be reached if both sides bid perfectly, knowing
+ * the double-dummy results, with any contract which fails being doubled.
+ *
+ * Par is found by backward induction over a simple bidding game. Starting with the dealer's side, a side either
+ * passes, leaving the current contract (if any) to be played, or bids any higher contract, to be played by whichever
+ * of its players takes more tricks in that strain. Working down from 7NT, the value of each contract to the side
+ * which must respond to it is known from the values of the contracts above it.
+ */
+public final class Par {
+
+    private static final int CONTRACTS = 35;    //  1C through 7NT, as (level - 1) * 5 + strain
+
+    public final Contract _contract;            //  null if the deal is passed out
+    public final int _tricks;                   //  tricks taken by the par contract's declarer
+    public final int _score;                    //  from north-south's point of view
+
+    private Par(
+        final Contract contract,
+        final int tricks,
+        final int score
+    ) {
+        _contract = contract;
+        _tricks = tricks;
+        _score = score;
+    }
+
+    /**
+     * Computes par for a deal
+     * @param table double-dummy tricks for the deal
+     * @param dealer first side to have the chance to bid
+     * @param northSouthVulnerable true if north-south are vulnerable
+     * @param eastWestVulnerable true if east-west are vulnerable
+     */
+    public static Par compute(
+        final TrickTable table,
+        final Position dealer,
+        final boolean northSouthVulnerable,
+        final boolean eastWestVulnerable
+    ) {
+        //  Each side's better declarer in each strain - sides are 0 for north-south and 1 for east-west,
+        //  matching the parity of Position.ordinal()
+        int[][] declarers = new int[2][TrickTable.STRAINS];
+        int[][] tricks = new int[2][TrickTable.STRAINS];
+        for (int side = 0; side < 2; ++side) {
+            for (int strain = 0; strain < TrickTable.STRAINS; ++strain) {
+                int first = table.getTricks(strain, side);
+                int second = table.getTricks(strain, side + 2);
+                declarers[side][strain] = (second > first) ? side + 2 : side;
+                tricks[side][strain] = Math.max(first, second);
+            }
+        }
+
+        //  Score (north-south's view) if the given side plays the given contract, doubled if it fails
+        int[][] results = new int[2][CONTRACTS];
+        for (int side = 0; side < 2; ++side) {
+            boolean vulnerable = (side == 0) ? northSouthVulnerable : eastWestVulnerable;
+            for (int cx = 0; cx < CONTRACTS; ++cx) {
+                int level = cx / 5 + 1;
+                int strain = cx % 5;
+                int taken = tricks[side][strain];
+                int doubling = (taken < level + 6) ? Contract.DOUBLED : Contract.UNDOUBLED;
+                int score = Contract.getScore(level, getTrumps(strain), doubling, vulnerable, taken);
+                results[side][cx] = (side == 0) ? score : -score;
+            }
+        }
+
+        //  values[side][cx] - outcome once the given side has bid contract cx and the other side is to act.
+        //  choices[side][cx] - the other side's best response; -1 to pass, otherwise the contract it bids.
+        int[][] values = new int[2][CONTRACTS];
+        int[][] choices = new int[2][CONTRACTS];
+        for (int cx = CONTRACTS - 1; cx >= 0; --cx) {
+            for (int side = 0; side < 2; ++side) {
+                int other = side ^ 1;
+                int best = results[side][cx];
+                int choice = -1;
+                for (int higher = cx + 1; higher < CONTRACTS; ++higher) {
+                    if (isBetter(other, values[other][higher], best)) {
+                        best = values[other][higher];
+                        choice = higher;
+                    }
+                }
+                values[side][cx] = best;
+                choices[side][cx] = choice;
+            }
+        }
+
+        //  The opening: the dealer's side may bid, or pass and let the other side bid (or pass it out)
+        int first = dealer.ordinal() & 1;
+        int second = first ^ 1;
+        int secondBest = 0;
+        int secondChoice = -1;
+        for (int cx = 0; cx < CONTRACTS; ++cx) {
+            if (isBetter(second, values[second][cx], secondBest)) {
+                secondBest = values[second][cx];
+                secondChoice = cx;
+            }
+        }
+        int best = secondBest;
+        int side = second;
+        int cx = secondChoice;
+        for (int opening = 0; opening < CONTRACTS; ++opening) {
+            if (isBetter(first, values[first][opening], best)) {
+                best = values[first][opening];
+                side = first;
+                cx = opening;
+            }
+        }
+
+        if (cx < 0) {
+            return new Par(null, 0, 0);
+        }
+
+        //  Follow the best responses until somebody passes
+        while (choices[side][cx] >= 0) {
+            cx = choices[side][cx];
+            side ^= 1;
+        }
+        int level = cx / 5 + 1;
+        int strain = cx % 5;
+        int taken = tricks[side][strain];
+        int doubling = (taken < level + 6) ? Contract.DOUBLED : Contract.UNDOUBLED;
+        Position declarer = Position.getValuesByOrdinal()[declarers[side][strain]];
+        return new Par(new Contract(level, getTrumps(strain), declarer, doubling), taken, best);
+    }
+
+    /**
+     * Indicates whether the given side strictly prefers score to incumbent (both from north-south's point of view)
+     */
+    private static boolean isBetter(
+        final int side,
+        final int score,
+        final int incumbent
+    ) {
+        return (side == 0) ? (score > incumbent) : (score < incumbent);
+    }
+
+    private static Suit getTrumps(
+        final int strain
+    ) {
+        return (strain == TrickTable.NO_TRUMP) ? null : Suit.values()[strain];
+    }
+
+    @Override
+    public String toString() {
+        if (_contract == null) {
+            return "Passed out";
+        }
+        return String.format("%s, %d tricks, NS %+d", _contract, _tricks, _score);
+    }
+}
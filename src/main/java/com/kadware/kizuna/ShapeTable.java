@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+/**
+ * Precomputed properties of hand shapes and patterns.
+ * A shape is the length of each suit in a hand - there are 560 of them, numbered 0 to 559.
+ * A pattern is the suit lengths longest first, regardless of suit - there are 39 of them, numbered 0 (13-0-0-0)
+ * to 38 (4-3-3-3) in decreasing order of the lengths.
+ * Shape and pattern numbers index small tables, so classifying a hand is an array load or two.
+ */
+public final class ShapeTable {
+
+    public static final int SHAPES = 560;
+    public static final int PATTERNS = 39;
+
+    //  Shape numbers, indexed by (clubs * 14 + diamonds) * 14 + hearts
+    private static final short[] SHAPE_IDS = new short[14 * 14 * 14];
+
+    //  For each shape - suit lengths in bits 0 to 15 (4 bits each, indexed by Suit._bidOrder),
+    //  suit order longest first in bits 16 to 23 (2 bits each, equal lengths in suit order, clubs first),
+    //  and pattern number from bit 24
+    private static final int[] SHAPE_ENTRIES = new int[SHAPES];
+    private static final double[] SHAPE_PROBABILITIES = new double[SHAPES];
+
+    private static final int[][] PATTERN_LENGTHS = new int[PATTERNS][];
+    private static final String[] PATTERN_STRINGS = new String[PATTERNS];
+    private static final boolean[] PATTERN_BALANCED = new boolean[PATTERNS];
+    private static final double[] PATTERN_PROBABILITIES = new double[PATTERNS];
+
+    static {
+        int[] patternIds = new int[14 * 14 * 14];
+        int px = 0;
+        for (int a = 13; a >= 0; --a) {
+            for (int b = Math.min(a, 13 - a); b >= 0; --b) {
+                for (int c = Math.min(b, 13 - a - b); c >= 0; --c) {
+                    int d = 13 - a - b - c;
+                    if (d <= c) {
+                        patternIds[(a * 14 + b) * 14 + c] = px;
+                        PATTERN_LENGTHS[px] = new int[]{ a, b, c, d };
+                        PATTERN_STRINGS[px] = String.format("%d-%d-%d-%d", a, b, c, d);
+                        PATTERN_BALANCED[px] = ((a == 4) && (b == 3) && (c == 3))
+                                               || ((a == 4) && (b == 4) && (c == 3))
+                                               || ((a == 5) && (b == 3) && (c == 3));
+                        ++px;
+                    }
+                }
+            }
+        }
+
+        long[] binomials = new long[14];
+        for (int k = 0; k <= 13; ++k) {
+            binomials[k] = binomial(13, k);
+        }
+        double deals = binomial(52, 13);
+
+        int sx = 0;
+        for (int clubs = 0; clubs <= 13; ++clubs) {
+            for (int diamonds = 0; clubs + diamonds <= 13; ++diamonds) {
+                for (int hearts = 0; clubs + diamonds + hearts <= 13; ++hearts) {
+                    int spades = 13 - clubs - diamonds - hearts;
+                    int[] lengths = { clubs, diamonds, hearts, spades };
+
+                    //  Longest first, equal lengths in suit order - as an insertion sort would leave them
+                    int[] order = new int[4];
+                    int[] sorted = new int[4];
+                    for (int suit = 0; suit < 4; ++suit) {
+                        int ox = suit;
+                        while ((ox > 0) && (sorted[ox - 1] < lengths[suit])) {
+                            order[ox] = order[ox - 1];
+                            sorted[ox] = sorted[ox - 1];
+                            --ox;
+                        }
+                        order[ox] = suit;
+                        sorted[ox] = lengths[suit];
+                    }
+
+                    int pattern = patternIds[(sorted[0] * 14 + sorted[1]) * 14 + sorted[2]];
+                    SHAPE_IDS[(clubs * 14 + diamonds) * 14 + hearts] = (short) sx;
+                    SHAPE_ENTRIES[sx] = clubs | (diamonds << 4) | (hearts << 8) | (spades << 12)
+                                        | (order[0] << 16) | (order[1] << 18) | (order[2] << 20) | (order[3] << 22)
+                                        | (pattern << 24);
+                    SHAPE_PROBABILITIES[sx] =
+                        binomials[clubs] * binomials[diamonds] * binomials[hearts] * binomials[spades] / deals;
+                    PATTERN_PROBABILITIES[pattern] += SHAPE_PROBABILITIES[sx];
+                    ++sx;
+                }
+            }
+        }
+    }
+
+    public static final int PATTERN_4_3_3_3 = getPattern(4, 3, 3);
+    public static final int PATTERN_4_4_3_2 = getPattern(4, 4, 3);
+    public static final int PATTERN_4_4_4_1 = getPattern(4, 4, 4);
+    public static final int PATTERN_5_3_3_2 = getPattern(5, 3, 3);
+
+    private ShapeTable() {}
+
+    private static long binomial(
+        final int n,
+        final int k
+    ) {
+        long result = 1;
+        for (int x = 1; x <= k; ++x) {
+            result = result * (n - k + x) / x;
+        }
+        return result;
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Retrieves the shape number for the given suit lengths - spades have the rest of the 13 cards,
+     * so this only makes sense for a full hand
+     * @throws RuntimeException if a length is negative, or the three come to more than 13
+     */
+    public static int getShape(
+        final int clubs,
+        final int diamonds,
+        final int hearts
+    ) {
+        if (((clubs | diamonds | hearts) < 0) || (clubs + diamonds + hearts > 13)) {
+            throw new RuntimeException(String.format("Invalid suit lengths for a shape: %d-%d-%d", clubs, diamonds, hearts));
+        }
+        return SHAPE_IDS[(clubs * 14 + diamonds) * 14 + hearts];
+    }
+
+    /**
+     * Retrieves the shape number for the 13 cards in the given CardMask
+     * @throws RuntimeException if there are not 13 cards
+     */
+    public static int getShape(
+        final long cards
+    ) {
+        if (Long.bitCount(cards) != 13) {
+            throw new RuntimeException("A shape needs 13 cards");
+        }
+        return getShape(Long.bitCount(cards & CardMask.HOLDING_MASK),
+                        Long.bitCount((cards >>> CardMask.RANKS_PER_SUIT) & CardMask.HOLDING_MASK),
+                        Long.bitCount((cards >>> (2 * CardMask.RANKS_PER_SUIT)) & CardMask.HOLDING_MASK));
+    }
+
+    /**
+     * Length of the suit with the given Suit._bidOrder in the given shape
+     */
+    public static int getLength(
+        final int shape,
+        final int bidOrder
+    ) {
+        return (SHAPE_ENTRIES[shape] >>> (4 * bidOrder)) & 0x0F;
+    }
+
+    /**
+     * Suit._bidOrder of the index'th longest suit in the given shape (0 is the longest)
+     * Suits of equal length are in suit order, clubs first.
+     */
+    public static int getSuitOrder(
+        final int shape,
+        final int index
+    ) {
+        return (SHAPE_ENTRIES[shape] >>> (16 + 2 * index)) & 0x03;
+    }
+
+    public static int getPattern(
+        final int shape
+    ) {
+        return SHAPE_ENTRIES[shape] >>> 24;
+    }
+
+    /**
+     * Chance that a random hand has the given shape
+     */
+    public static double getShapeProbability(
+        final int shape
+    ) {
+        return SHAPE_PROBABILITIES[shape];
+    }
+
+    //  ----------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Retrieves the pattern number for the given lengths, longest first - the fourth is the rest of the 13 cards
+     */
+    public static int getPattern(
+        final int first,
+        final int second,
+        final int third
+    ) {
+        return getPattern(getShape(first, second, third));
+    }
+
+    /**
+     * Length of the index'th longest suit in the given pattern (0 is the longest)
+     */
+    public static int getPatternLength(
+        final int pattern,
+        final int index
+    ) {
+        return PATTERN_LENGTHS[pattern][index];
+    }
+
+    /**
+     * Suit lengths of the given pattern, longest first - the table's own array, which callers must not modify
+     */
+    static int[] getSharedPatternLengths(
+        final int pattern
+    ) {
+        return PATTERN_LENGTHS[pattern];
+    }
+
+    /**
+     * Suit lengths of the given pattern, longest first, as a new array
+     */
+    public static int[] getPatternLengths(
+        final int pattern
+    ) {
+        return PATTERN_LENGTHS[pattern].clone();
+    }
+
+    /**
+     * The pattern as a string, e.g. "4-4-3-2"
+     */
+    public static String getPatternString(
+        final int pattern
+    ) {
+        return PATTERN_STRINGS[pattern];
+    }
+
+    /**
+     * Indicates whether the pattern is balanced - i.e., 4-4-3-2, 4-3-3-3, 5-3-3-2
+     */
+    public static boolean isBalanced(
+        final int pattern
+    ) {
+        return PATTERN_BALANCED[pattern];
+    }
+
+    /**
+     * Chance that a random hand has the given pattern
+     */
+    public static double getPatternProbability(
+        final int pattern
+    ) {
+        return PATTERN_PROBABILITIES[pattern];
+    }
+}
@@ -7,8 +7,8 @@ package com.kadware.kizuna;
 public enum Suit {
     CLUBS("C", true, false, 0, 3),
     DIAMONDS("D", true, false, 1, 2),
-    HEARTS("H", true, false, 2, 1 ),
-    SPADES("S", true, false, 3, 0);
+    HEARTS("H", false, true, 2, 1 ),
+    SPADES("S", false, true, 3, 0);
 
     public final String _symbol;
     public final boolean _isMinor;
@@ -4,80 +4,154 @@
 
 package com.kadware.kizuna;
 
-import java.util.TreeSet;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * A container of all the cards in a player's hand, of a particular suit.
+ * The cards are held as a 13-bit holding (see CardMask), and are iterated from highest to lowest rank.
  */
-public class SuitSet extends TreeSet<Card> {
+public class SuitSet extends AbstractSet<Card> {
 
     public final Suit _suit;
+    private int _holding;
 
     public SuitSet(
         final Suit suit
     ) {
-        super();
         _suit = suit;
+        _holding = 0;
     }
 
     public SuitSet(
         final Suit suit,
-        final TreeSet<Card> cards
+        final int holding
     ) {
-        super(cards);
         _suit = suit;
+        _holding = holding & CardMask.HOLDING_MASK;
     }
 
-    public int countHighCardPoints() {
-        int points = 0;
-        for (Card card : this) {
-            points += card._rank._highCardPoints;
+    public SuitSet(
+        final Suit suit,
+        final Collection<Card> cards
+    ) {
+        _suit = suit;
+        _holding = 0;
+        addAll(cards);
+    }
+
+    /**
+     * Retrieves the 13-bit holding for this suit
+     */
+    public int getHolding() {
+        return _holding;
+    }
+
+    @Override
+    public boolean add(
+        final Card card
+    ) {
+        if (card._suit != _suit) {
+            throw new RuntimeException("Card does not belong to this suit");
         }
-        return points;
+
+        int bit = CardMask.getBit(card._rank);
+        boolean result = (_holding & bit) == 0;
+        _holding |= bit;
+        return result;
     }
 
-    public int countHonors() {
-        int honors = 0;
-        for (Card card : this) {
-            if (card._rank._highCardPoints > 0) {
-                ++honors;
+    @Override
+    public void clear() {
+        _holding = 0;
+    }
+
+    @Override
+    public boolean contains(
+        final Object obj
+    ) {
+        return (obj instanceof Card)
+            && (((Card) obj)._suit == _suit)
+            && ((_holding & CardMask.getBit(((Card) obj)._rank)) != 0);
+    }
+
+    @Override
+    public Iterator<Card> iterator() {
+        return new Iterator<Card>() {
+            private int _remaining = _holding;
+            private int _last = 0;
+
+            @Override
+            public boolean hasNext() {
+                return _remaining != 0;
             }
-        }
-        return honors;
+
+            @Override
+            public Card next() {
+                if (_remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                _last = Integer.highestOneBit(_remaining);
+                _remaining ^= _last;
+                return Card.get(_suit._bidOrder * CardMask.RANKS_PER_SUIT + Integer.numberOfTrailingZeros(_last));
+            }
+
+            @Override
+            public void remove() {
+                if (_last == 0) {
+                    throw new IllegalStateException();
+                }
+                _holding &= ~_last;
+                _last = 0;
+            }
+        };
     }
 
-    public boolean hasProbableStopper() {
-        boolean king = contains(new Card(_suit, Rank.KING));
-        if (king && (size() >= 2)) {
-            return true;
+    @Override
+    public boolean remove(
+        final Object obj
+    ) {
+        if (!contains(obj)) {
+            return false;
         }
+        _holding &= ~CardMask.getBit(((Card) obj)._rank);
+        return true;
+    }
 
-        boolean queen = contains(new Card(_suit, Rank.QUEEN));
-        boolean jack = contains(new Card(_suit, Rank.JACK));
-        boolean ten = contains(new Card(_suit, Rank.TEN));
-        return queen && (jack || ten) && (size() >= 3);
+    @Override
+    public int size() {
+        return Integer.bitCount(_holding);
     }
 
-    public boolean hasStopper() {
-        if (contains(new Card(_suit, Rank.ACE))) {
-            return true;
-        }
+    public int countHighCardPoints() {
+        return HoldingTable.getHighCardPoints(_holding);
+    }
 
-        boolean king = contains(new Card(_suit, Rank.KING));
-        boolean queen = contains(new Card(_suit, Rank.QUEEN));
-        if (king && queen) {
-            return true;
-        }
+    public int countHonors() {
+        return HoldingTable.getHonors(_holding);
+    }
 
-        boolean jack = contains(new Card(_suit, Rank.JACK));
-        boolean ten = contains(new Card(_suit, Rank.TEN));
-        if (queen && jack && ten) {
-            return true;
-        }
+    /**
+     * Quick tricks in this suit, counted in half-trick units
+     */
+    public int countQuickTrickHalves() {
+        return HoldingTable.getQuickTrickHalves(_holding);
+    }
+
+    public boolean hasProbableStopper() {
+        return HoldingTable.hasProbableStopper(_holding);
+    }
+
+    public boolean hasRank(
+        final Rank rank
+    ) {
+        return (_holding & CardMask.getBit(rank)) != 0;
+    }
 
-        boolean nine = contains(new Card(_suit, Rank.NINE));
-        boolean eight = contains(new Card(_suit, Rank.EIGHT));
-        return jack && ten && nine && eight;
+    public boolean hasStopper() {
+        return HoldingTable.hasStopper(_holding);
     }
 
     @Override
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.Arrays;
+
+/**
+ * Double-dummy tricks for a deal - for each strain (the four suits and no-trump) and each declarer, the number of
+ * tricks declarer takes with the opening lead made by declarer's left-hand opponent.
+ * Produced by TrickTableSolver.
+ */
+public final class TrickTable {
+
+    public static final int STRAINS = 5;
+    public static final int NO_TRUMP = 4;       //  strain index for no-trump - suits are indexed by Suit._bidOrder
+
+    private final int[] _tricks;                //  indexed by strain * 4 + declarer's Position.ordinal()
+
+    TrickTable(
+        final int[] tricks
+    ) {
+        _tricks = Arrays.copyOf(tricks, STRAINS * 4);
+    }
+
+    /**
+     * Number of tricks the given declarer takes in the given strain
+     * @param trumps trump suit, or null for no-trump
+     */
+    public int getTricks(
+        final Suit trumps,
+        final Position declarer
+    ) {
+        return getTricks((trumps == null) ? NO_TRUMP : trumps._bidOrder, declarer.ordinal());
+    }
+
+    /**
+     * As above, with the strain as an index (Suit._bidOrder, or NO_TRUMP) and declarer as a Position ordinal
+     */
+    public int getTricks(
+        final int strain,
+        final int declarer
+    ) {
+        return _tricks[strain * 4 + declarer];
+    }
+
+    /**
+     * Generates an array of strings describing the table - one heading line, then one line per declarer
+     */
+    public String[] getDisplay() {
+        String[] result = new String[5];
+        result[0] = String.format("%-6s%4s%4s%4s%4s%4s", "", "C", "D", "H", "S", "NT");
+        for (Position pos : Position.getValuesByOrdinal()) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%-6s", pos));
+            for (int strain = 0; strain < STRAINS; ++strain) {
+                sb.append(String.format("%4d", getTricks(strain, pos.ordinal())));
+            }
+            result[pos.ordinal() + 1] = sb.toString();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(
+        final Object obj
+    ) {
+        return (obj instanceof TrickTable) && Arrays.equals(((TrickTable) obj)._tricks, _tricks);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(_tricks);
+    }
+
+    @Override
+    public String toString() {
+        return String.join("\n", getDisplay());
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * BatchEvaluator using the incubating Vector API - eight hands (one per 64-bit lane) at a time.
+ * Suit lengths, HCP, and the length-in-majors and long-suit predicates are computed in the lanes with shifts and
+ * masks. Each suit is moved into a 16-bit field of its own, so the four lengths are counted at once, SWAR-fashion
+ * (the incubator API has no lane-wise bit count). Quick tricks and stoppers depend on the exact holding,
+ * so they come from HoldingTable in a scalar pass.
+ *
+ * Only loaded through BatchEvaluator.getInstance(), so the rest of the code runs without the incubator module.
+ */
+final class VectorBatchEvaluator extends BatchEvaluator {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_512;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_64;
+
+    private static final long FIELD_ONES = 0x0001000100010001L;
+
+    VectorBatchEvaluator() {
+        this(true);
+    }
+
+    /**
+     * @param requireHardware if false, the evaluator is built even on a machine without 512-bit vectors - the Vector
+     *                        API then emulates them, far more slowly but with the same results, so that tests can
+     *                        check the lane logic on any machine
+     */
+    VectorBatchEvaluator(
+        final boolean requireHardware
+    ) {
+        if (requireHardware && (LongVector.SPECIES_PREFERRED.vectorBitSize() < LONGS.vectorBitSize())) {
+            throw new UnsupportedOperationException("No 512-bit vectors on this machine");
+        }
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    void evaluateRange(
+        final long[] cards,
+        final int offset,
+        final int count,
+        final Results results
+    ) {
+        //  Separate passes over the batch, each small enough for the JIT to inline all of the vector operations -
+        //  in one large loop it gives up inlining part way, and the vectors end up as objects on the heap
+        int limit = LONGS.loopBound(count);
+        evaluateLengths(cards, offset, limit, results);
+        evaluateHighCardPoints(cards, offset, limit, results);
+        evaluateHoldings(cards, offset, limit, results);
+        evaluateScalar(cards, offset, limit, count, results);
+    }
+
+    /**
+     * Suit lengths, length in majors, and long suit
+     */
+    private static void evaluateLengths(
+        final long[] cards,
+        final int offset,
+        final int limit,
+        final Results results
+    ) {
+        for (int hx = 0; hx < limit; hx += LONGS.length()) {
+            LongVector lengths = countFields(spread(LongVector.fromArray(LONGS, cards, offset + hx)));
+            LongVector clubs = lengths.and(0x1FL);
+            LongVector diamonds = lengths.lanewise(VectorOperators.LSHR, 16).and(0x1FL);
+            LongVector hearts = lengths.lanewise(VectorOperators.LSHR, 32).and(0x1FL);
+            LongVector spades = lengths.lanewise(VectorOperators.LSHR, 48);
+            store(clubs, results._lengths[Suit.CLUBS._bidOrder], hx);
+            store(diamonds, results._lengths[Suit.DIAMONDS._bidOrder], hx);
+            store(hearts, results._lengths[Suit.HEARTS._bidOrder], hx);
+            store(spades, results._lengths[Suit.SPADES._bidOrder], hx);
+
+            //  A suit of five or more cards is one whose count plus three is eight or more
+            lengths.add(0x0003000300030003L)
+                .and(0x0018001800180018L)
+                .compare(VectorOperators.NE, 0)
+                .intoArray(results._longSuit, hx);
+            spades.compare(VectorOperators.GE, 5).and(hearts.compare(VectorOperators.GE, 3))
+                .or(hearts.compare(VectorOperators.GE, 5).and(spades.compare(VectorOperators.GE, 3)))
+                .or(hearts.compare(VectorOperators.EQ, 4).and(spades.compare(VectorOperators.EQ, 4)))
+                .intoArray(results._lengthInMajors, hx);
+        }
+    }
+
+    private static void evaluateHighCardPoints(
+        final long[] cards,
+        final int offset,
+        final int limit,
+        final Results results
+    ) {
+        for (int hx = 0; hx < limit; hx += LONGS.length()) {
+            //  HCP of each suit in its 16-bit field, then the four fields added together
+            LongVector spread = spread(LongVector.fromArray(LONGS, cards, offset + hx));
+            LongVector points = spread.lanewise(VectorOperators.LSHR, 12).and(FIELD_ONES).mul(4)
+                .add(spread.lanewise(VectorOperators.LSHR, 11).and(FIELD_ONES).mul(3))
+                .add(spread.lanewise(VectorOperators.LSHR, 10).and(FIELD_ONES).mul(2))
+                .add(spread.lanewise(VectorOperators.LSHR, 9).and(FIELD_ONES));
+            points = points.add(points.lanewise(VectorOperators.LSHR, 32));
+            points = points.add(points.lanewise(VectorOperators.LSHR, 16)).and(0x3FL);
+            store(points, results._highCardPoints, hx);
+        }
+    }
+
+    /**
+     * Quick tricks and stoppers, which need the HoldingTable entry for each suit
+     */
+    private static void evaluateHoldings(
+        final long[] cards,
+        final int offset,
+        final int limit,
+        final Results results
+    ) {
+        for (int hx = 0; hx < limit; ++hx) {
+            long hand = cards[offset + hx];
+            int quickTrickHalves = 0;
+            int stoppers = 0;
+            int probableStoppers = 0;
+            for (int sx = 0; sx < 4; ++sx) {
+                int holding = (int) (hand >>> (sx * CardMask.RANKS_PER_SUIT)) & CardMask.HOLDING_MASK;
+                quickTrickHalves += HoldingTable.getQuickTrickHalves(holding);
+                stoppers |= (HoldingTable.hasStopper(holding) ? 1 : 0) << sx;
+                probableStoppers |= (HoldingTable.hasProbableStopper(holding) ? 1 : 0) << sx;
+            }
+            results._quickTrickHalves[hx] = (byte) quickTrickHalves;
+            results._stoppers[hx] = (byte) stoppers;
+            results._probableStoppers[hx] = (byte) probableStoppers;
+        }
+    }
+
+    /**
+     * Moves each suit of the CardMasks in the lanes into its own 16-bit field - clubs in bits 0 to 12,
+     * diamonds in bits 16 to 28, and so on
+     */
+    private static LongVector spread(
+        final LongVector hands
+    ) {
+        return hands.and(CardMask.HOLDING_MASK)
+            .or(hands.lanewise(VectorOperators.LSHL, 3).and((long) CardMask.HOLDING_MASK << 16))
+            .or(hands.lanewise(VectorOperators.LSHL, 6).and((long) CardMask.HOLDING_MASK << 32))
+            .or(hands.lanewise(VectorOperators.LSHL, 9).and((long) CardMask.HOLDING_MASK << 48));
+    }
+
+    /**
+     * Number of bits set in each 16-bit field of each lane
+     */
+    private static LongVector countFields(
+        final LongVector fields
+    ) {
+        LongVector x = fields.sub(fields.lanewise(VectorOperators.LSHR, 1).and(0x5555555555555555L));
+        x = x.and(0x3333333333333333L).add(x.lanewise(VectorOperators.LSHR, 2).and(0x3333333333333333L));
+        x = x.add(x.lanewise(VectorOperators.LSHR, 4)).and(0x0F0F0F0F0F0F0F0FL);
+        return x.add(x.lanewise(VectorOperators.LSHR, 8)).and(0x001F001F001F001FL);
+    }
+
+    /**
+     * Stores the low byte of each lane into the column at the given index
+     */
+    private static void store(
+        final LongVector values,
+        final byte[] column,
+        final int index
+    ) {
+        ((ByteVector) values.convertShape(VectorOperators.L2B, BYTES, 0)).intoArray(column, index);
+    }
+}
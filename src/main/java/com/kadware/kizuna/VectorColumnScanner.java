@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * ColumnScanner using the incubating Vector API - a block of byte entries is one 512-bit vector, so a range test
+ * is two compares. A block of CardMasks is eight vectors of eight lanes, each contributing its entries' bits to
+ * one vector which is ORed together at the end.
+ *
+ * Only loaded through ColumnScanner.getInstance(), so the rest of the code runs without the incubator module.
+ */
+final class VectorColumnScanner extends ColumnScanner {
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_512;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_512;
+
+    private static final LongVector BYTE_SHIFTS = LongVector.fromArray(LONGS, new long[]{ 0, 8, 16, 24, 32, 40, 48, 56 }, 0);
+    private static final long[] ENTRY_BITS = new long[BLOCK_SIZE];     //  bit N for entry N of a block
+    static {
+        for (int ex = 0; ex < BLOCK_SIZE; ++ex) {
+            ENTRY_BITS[ex] = 1L << ex;
+        }
+    }
+
+    VectorColumnScanner() {
+        this(true);
+    }
+
+    /**
+     * @param requireHardware if false, the scanner is built even on a machine without 512-bit vectors - the Vector
+     *                        API then emulates them, far more slowly but with the same results, so that tests can
+     *                        check the lane logic on any machine
+     */
+    VectorColumnScanner(
+        final boolean requireHardware
+    ) {
+        if ((requireHardware && (ByteVector.SPECIES_PREFERRED.vectorBitSize() < BYTES.vectorBitSize()))
+            || (BYTES.length() != BLOCK_SIZE)) {
+            throw new UnsupportedOperationException("No 512-bit vectors on this machine");
+        }
+    }
+
+    @Override
+    boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    long matchRange(
+        final byte[] column,
+        final int offset,
+        final int min,
+        final int max
+    ) {
+        //  VectorMask.toLong() is not an intrinsic in this JDK, so the mask becomes a 1 in each passing byte,
+        //  which a multiply in each long lane gathers into a byte of the result
+        ByteVector values = ByteVector.fromArray(BYTES, column, offset);
+        VectorMask<Byte> passed = values.compare(VectorOperators.GE, (byte) min)
+                                        .and(values.compare(VectorOperators.LE, (byte) max));
+        return ByteVector.zero(BYTES)
+                         .blend((byte) 1, passed)
+                         .reinterpretAsLongs()
+                         .mul(GATHER_BYTES)
+                         .lanewise(VectorOperators.LSHR, 56)
+                         .lanewise(VectorOperators.LSHL, BYTE_SHIFTS)
+                         .reduceLanes(VectorOperators.OR);
+    }
+
+    @Override
+    long matchAll(
+        final long[] column,
+        final int offset,
+        final long mask
+    ) {
+        LongVector result = LongVector.zero(LONGS);
+        for (int ex = 0; ex < BLOCK_SIZE; ex += LONGS.length()) {
+            VectorMask<Long> passed = LongVector.fromArray(LONGS, column, offset + ex)
+                                                .and(mask)
+                                                .compare(VectorOperators.EQ, mask);
+            result = result.or(LongVector.zero(LONGS).blend(LongVector.fromArray(LONGS, ENTRY_BITS, ex), passed));
+        }
+        return result.reduceLanes(VectorOperators.OR);
+    }
+
+    @Override
+    long matchAny(
+        final long[] column,
+        final int offset,
+        final long mask
+    ) {
+        LongVector result = LongVector.zero(LONGS);
+        for (int ex = 0; ex < BLOCK_SIZE; ex += LONGS.length()) {
+            VectorMask<Long> passed = LongVector.fromArray(LONGS, column, offset + ex)
+                                                .and(mask)
+                                                .compare(VectorOperators.NE, 0);
+            result = result.or(LongVector.zero(LONGS).blend(LongVector.fromArray(LONGS, ENTRY_BITS, ex), passed));
+        }
+        return result.reduceLanes(VectorOperators.OR);
+    }
+}
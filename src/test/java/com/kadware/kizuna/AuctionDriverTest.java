@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class AuctionDriverTest {
+
+    /**
+     * A system which answers recommendBid() from a script - the script's entry at the board's size,
+     * or null once the script runs out
+     */
+    private static class ScriptedSystem extends BiddingSystem {
+
+        private final Bid[] _script;
+
+        private ScriptedSystem(
+            final Bid... script
+        ) {
+            _script = script;
+        }
+
+        @Override
+        public Bid recommendBid(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            return (biddingBoard.size() < _script.length) ? _script[biddingBoard.size()] : null;
+        }
+
+        @Override
+        public Bid recommendOpeningBid(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            throw new RuntimeException("Not scripted");
+        }
+
+        @Override
+        public Bid recommendOpeningResponse(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            throw new RuntimeException("Not scripted");
+        }
+
+        @Override
+        public Bid recommendOvercall(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            throw new RuntimeException("Not scripted");
+        }
+    }
+
+    private static final Deal DEAL = new DealGenerator(1).deal(0);
+
+    /**
+     * Missing calls, insufficient bids, doubles of partner, and calls for the wrong position are all passes
+     */
+    @Test
+    public void substitutions() {
+        AuctionDriver.Result result = new AuctionDriver(new ScriptedSystem()).run(DEAL, Position.NORTH);
+        assertEquals(4, result._substitutions);
+        assertEquals(List.of(Bid.getPass(Position.NORTH),
+                             Bid.getPass(Position.EAST),
+                             Bid.getPass(Position.SOUTH),
+                             Bid.getPass(Position.WEST)),
+                     result._auction.toList());
+        assertNull(result.getContract());
+
+        ScriptedSystem system = new ScriptedSystem(Bid.getSuitBid(Position.WEST, 1, Suit.HEARTS),
+                                                   Bid.getSuitBid(Position.NORTH, 1, Suit.CLUBS),          //  insufficient
+                                                   Bid.getDouble(Position.EAST),                           //  partner's bid
+                                                   Bid.getSuitBid(Position.NORTH, 2, Suit.HEARTS));        //  not South
+        result = new AuctionDriver(system).run(DEAL, Position.WEST);
+        assertEquals(3, result._substitutions);
+        assertEquals(List.of(Bid.getSuitBid(Position.WEST, 1, Suit.HEARTS),
+                             Bid.getPass(Position.NORTH),
+                             Bid.getPass(Position.EAST),
+                             Bid.getPass(Position.SOUTH)),
+                     result._auction.toList());
+        assertEquals(new Contract(1, Suit.HEARTS, Position.WEST, Contract.UNDOUBLED), result.getContract());
+    }
+
+    /**
+     * Legal calls are made as given, and the auction runs from the dealer round the table until it is over
+     */
+    @Test
+    public void legalCallsKept() {
+        ScriptedSystem system = new ScriptedSystem(Bid.getPass(Position.EAST),
+                                                   Bid.getNoTrumpBid(Position.SOUTH, 1),
+                                                   Bid.getDouble(Position.WEST),
+                                                   Bid.getRedouble(Position.NORTH),
+                                                   Bid.getPass(Position.EAST),
+                                                   Bid.getPass(Position.SOUTH),
+                                                   Bid.getPass(Position.WEST));
+        AuctionDriver.Result result = new AuctionDriver(system).run(DEAL, Position.EAST);
+        assertEquals(0, result._substitutions);
+        assertEquals(7, result._auction.size());
+        assertEquals(new Contract(1, null, Position.SOUTH, Contract.REDOUBLED), result.getContract());
+    }
+
+    /**
+     * A batch gives the same auctions, in the same order, as bidding its deals one at a time - whatever the pool,
+     * and whatever kind of list the deals come in - and its totals add up over those auctions
+     */
+    @Test
+    public void batchMatchesSequential() {
+        BiddingSystem system = new AmericanStandardSystem(true, false, true);
+        DealGenerator generator = new DealGenerator(16);
+        List<Deal> deals = new ArrayList<>();
+        for (int dx = 0; dx < 3000; ++dx) {
+            deals.add(generator.next());
+        }
+
+        AuctionDriver sequential = new AuctionDriver(system);
+        for (Position dealer : Position.values()) {
+            List<AuctionDriver.Result> expected = new ArrayList<>();
+            for (Deal deal : deals) {
+                expected.add(sequential.run(deal, dealer));
+            }
+
+            for (int threads : new int[] { 1, 4 }) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    AuctionDriver driver = new AuctionDriver(system, pool);
+                    List<Deal> source = (threads == 1) ? new LinkedList<>(deals) : deals;
+                    AuctionDriver.Batch batch = driver.runAll(source, dealer);
+                    assertEquals(expected.size(), batch._results.size());
+
+                    long calls = 0;
+                    long passedOut = 0;
+                    long substitutions = 0;
+                    for (int dx = 0; dx < expected.size(); ++dx) {
+                        AuctionDriver.Result result = batch._results.get(dx);
+                        assertEquals(expected.get(dx)._auction, result._auction);
+                        assertEquals(expected.get(dx)._substitutions, result._substitutions);
+                        assertTrue(result._auction.isPassedOut());
+                        assertEquals(dealer, result._auction.get(0)._position);
+                        calls += result._auction.size();
+                        passedOut += (result.getContract() == null) ? 1 : 0;
+                        substitutions += result._substitutions;
+                    }
+                    assertEquals(calls, batch.getCalls());
+                    assertEquals(passedOut, batch.getPassedOut());
+                    assertEquals(substitutions, batch.getSubstitutions());
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+
+        assertTrue(sequential.runAll(List.of(), Position.SOUTH)._results.isEmpty());
+    }
+
+    /**
+     * Asking for commentary does not change the calls
+     */
+    @Test
+    public void commentaryLeavesCalls() {
+        AuctionDriver driver = new AuctionDriver(new AmericanStandardSystem(true, false, true));
+        DealGenerator generator = new DealGenerator(17);
+        for (int dx = 0; dx < 200; ++dx) {
+            Deal deal = generator.next();
+            Commentary.Recorder recorder = new Commentary.Recorder();
+            assertEquals(driver.run(deal, Position.SOUTH)._auction, driver.run(deal, Position.SOUTH, recorder)._auction);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class AuctionTest {
+
+    /**
+     * Checks every query of the auction against a Board holding the same calls (BoardTest checks Board against
+     * the calls themselves)
+     */
+    private static void checkState(
+        final Auction auction,
+        final List<Bid> calls
+    ) {
+        Board board = new Board();
+        board.addAll(calls);
+
+        assertEquals(calls.size(), auction.size());
+        assertEquals(calls, auction.toList());
+        for (int cx = 0; cx < calls.size(); ++cx) {
+            assertSame(calls.get(cx), auction.get(cx));
+        }
+        assertSame(calls.isEmpty() ? null : calls.get(calls.size() - 1), auction.getLastCall());
+        assertSame(board._highestBid, auction.getHighestBid());
+        assertSame(board._openingBid, auction.getOpeningBid());
+        assertEquals(board.getConsecutivePasses(), auction.getConsecutivePasses());
+        assertSame(board.getDeclarer(), auction.getDeclarer());
+        assertEquals(board.getDoubling(), auction.getDoubling());
+        assertEquals(board.isDoubled(), auction.isDoubled());
+        assertEquals(board.isRedoubled(), auction.isRedoubled());
+        assertEquals(board.isPassedOut(), auction.isPassedOut());
+        for (Position position : Position.values()) {
+            assertEquals(board.getLegalCalls(position), auction.getLegalCalls(position));
+        }
+    }
+
+    /**
+     * Builds random legal auctions a call at a time, checking the state of every prefix
+     */
+    @Test
+    public void stateFollowsCalls() {
+        Random random = new Random(15);
+        for (int ax = 0; ax < 1000; ++ax) {
+            List<Bid> calls = BoardTest.createAuction(random, Position.values()[random.nextInt(4)]);
+            Auction auction = Auction.EMPTY;
+            checkState(auction, calls.subList(0, 0));
+            for (int cx = 0; cx < calls.size(); ++cx) {
+                assertTrue(auction.isLegal(calls.get(cx)));
+                Auction next = auction.append(calls.get(cx));
+                assertSame(auction, next.getParent());
+                auction = next;
+                checkState(auction, calls.subList(0, cx + 1));
+            }
+            assertEquals(auction, Auction.of(calls));
+        }
+        assertNull(Auction.EMPTY.getParent());
+        assertThrows(IndexOutOfBoundsException.class, () -> Auction.EMPTY.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> Auction.EMPTY.append(Bid.getPass(Position.SOUTH)).get(-1));
+    }
+
+    /**
+     * Appending every legal call to the same auction - as a search does - leaves that auction, and everything it
+     * shares with its children, as it was
+     */
+    @Test
+    public void appendLeavesPrefix() {
+        Random random = new Random(16);
+        for (int ax = 0; ax < 200; ++ax) {
+            List<Bid> calls = BoardTest.createAuction(random, Position.values()[random.nextInt(4)]);
+            List<Bid> prefix = calls.subList(0, random.nextInt(calls.size()));
+            Auction base = Auction.of(prefix);
+            Position next = (prefix.isEmpty() ? calls.get(0)._position
+                                              : Position.values()[(prefix.get(prefix.size() - 1)._position.ordinal() + 1) & 3]);
+
+            List<Auction> children = new ArrayList<>();
+            long legal = base.getLegalCalls(next);
+            for (int code = 0; code < Bid.CODES; ++code) {
+                if ((legal & (1L << code)) != 0) {
+                    Auction child = base.append(Bid.of(next, code));
+                    children.add(child.append(Bid.getPass(Position.values()[(next.ordinal() + 1) & 3])));
+                }
+            }
+            checkState(base, prefix);
+
+            for (Auction grandchild : children) {
+                Auction child = grandchild.getParent();
+                assertSame(base, child.getParent());
+                List<Bid> expected = new ArrayList<>(prefix);
+                expected.add(child.getLastCall());
+                checkState(child, expected);
+                expected.add(grandchild.getLastCall());
+                checkState(grandchild, expected);
+            }
+        }
+    }
+
+    /**
+     * There is a contract only once the auction is over, and none at all if it was passed out
+     */
+    @Test
+    public void contract() {
+        Auction auction = Auction.EMPTY;
+        for (Position position : new Position[] { Position.SOUTH, Position.WEST, Position.NORTH }) {
+            auction = auction.append(Bid.getPass(position));
+            assertFalse(auction.isPassedOut());
+            assertNull(auction.getContract());
+        }
+        Auction passedOut = auction.append(Bid.getPass(Position.EAST));
+        assertTrue(passedOut.isPassedOut());
+        assertNull(passedOut.getContract());
+        assertEquals(0, passedOut.getLegalCalls(Position.SOUTH));
+
+        auction = auction.append(Bid.getSuitBid(Position.EAST, 1, Suit.HEARTS))
+                         .append(Bid.getDouble(Position.SOUTH))
+                         .append(Bid.getSuitBid(Position.WEST, 2, Suit.HEARTS))
+                         .append(Bid.getPass(Position.NORTH))
+                         .append(Bid.getSuitBid(Position.EAST, 4, Suit.HEARTS))
+                         .append(Bid.getDouble(Position.SOUTH))
+                         .append(Bid.getPass(Position.WEST))
+                         .append(Bid.getPass(Position.NORTH));
+        assertNull(auction.getContract());
+        Auction redoubled = auction.append(Bid.getRedouble(Position.EAST));
+        auction = auction.append(Bid.getPass(Position.EAST));
+        assertTrue(auction.isPassedOut());
+        assertEquals(new Contract(4, Suit.HEARTS, Position.EAST, Contract.DOUBLED), auction.getContract());
+
+        for (Position position : new Position[] { Position.SOUTH, Position.WEST, Position.NORTH }) {
+            redoubled = redoubled.append(Bid.getPass(position));
+        }
+        assertEquals(new Contract(4, Suit.HEARTS, Position.EAST, Contract.REDOUBLED), redoubled.getContract());
+
+        //  the first of a side to name the strain declares, even when partner made the final bid
+        Auction notrump = Auction.EMPTY.append(Bid.getNoTrumpBid(Position.NORTH, 1))
+                                       .append(Bid.getPass(Position.EAST))
+                                       .append(Bid.getNoTrumpBid(Position.SOUTH, 3));
+        for (Position position : new Position[] { Position.WEST, Position.NORTH, Position.EAST }) {
+            notrump = notrump.append(Bid.getPass(position));
+        }
+        assertEquals(new Contract(3, null, Position.NORTH, Contract.UNDOUBLED), notrump.getContract());
+    }
+
+    /**
+     * toBoard() gives a board which holds the same calls and agrees with the auction
+     */
+    @Test
+    public void toBoard() {
+        Random random = new Random(17);
+        for (int ax = 0; ax < 200; ++ax) {
+            List<Bid> calls = BoardTest.createAuction(random, Position.values()[random.nextInt(4)]);
+            Auction auction = Auction.of(calls.subList(0, random.nextInt(calls.size() + 1)));
+            Board board = auction.toBoard();
+            assertEquals(auction.toList(), board);
+            assertSame(auction.getHighestBid(), board._highestBid);
+            assertSame(auction.getDeclarer(), board.getDeclarer());
+            assertEquals(auction.getDoubling(), board.getDoubling());
+            assertEquals(auction.isPassedOut(), board.isPassedOut());
+
+            //  the board is a copy - adding to it leaves the auction alone
+            if (!board.isPassedOut()) {
+                board.add(Bid.getPass(Position.SOUTH));
+                assertEquals(board.size() - 1, auction.size());
+            }
+        }
+    }
+
+    /**
+     * Auctions built separately from the same calls are equal and hash alike; a change to any call, or to who
+     * made it, makes them unequal
+     */
+    @Test
+    public void equalsAndHashCode() {
+        Random random = new Random(18);
+        assertEquals(Auction.EMPTY, Auction.of(List.of()));
+        assertNotEquals(Auction.EMPTY, null);
+        assertNotEquals(Auction.EMPTY, List.of());
+
+        for (int ax = 0; ax < 500; ++ax) {
+            List<Bid> calls = BoardTest.createAuction(random, Position.values()[random.nextInt(4)]);
+            Auction auction = Auction.of(calls);
+            Auction copy = Auction.of(new ArrayList<>(calls));
+            assertEquals(auction, copy);
+            assertEquals(copy, auction);
+            assertEquals(auction.hashCode(), copy.hashCode());
+            assertNotEquals(auction, auction.getParent());
+            assertEquals(auction.toString(), copy.toString());
+
+            int cx = random.nextInt(calls.size());
+            Bid call = calls.get(cx);
+            List<Bid> changed = new ArrayList<>(calls);
+            changed.set(cx, Bid.of(call._position, (call._code + 1) % Bid.CODES));
+            assertNotEquals(auction, Auction.of(changed));
+            changed.set(cx, Bid.of(call._position.getPartner(), call._code));
+            assertNotEquals(auction, Auction.of(changed));
+        }
+    }
+}
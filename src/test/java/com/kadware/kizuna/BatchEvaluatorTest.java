@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class BatchEvaluatorTest {
+
+    //  Offsets and counts which leave the vector loops with a partial batch at one end or the other, or both
+    private static final int[] OFFSETS = { 0, 1, 3, 7, 8, 13 };
+    private static final int[] COUNTS = { 0, 1, 7, 8, 9, 15, 63, 64, 65, 257 };
+    private static final byte UNTOUCHED = -1;
+
+    /**
+     * Full hands from generated deals, mixed with hands of random sizes so that every suit length turns up
+     */
+    private static long[] createHands() {
+        long[] result = new long[400];
+        DealGenerator generator = new DealGenerator(19);
+        Random random = new Random(19);
+        long[] deal = new long[4];
+        for (int hx = 0; hx < result.length; ++hx) {
+            generator.deal(hx / 4, deal);
+            result[hx] = ((hx & 8) == 0) ? deal[hx % 4] : deal[hx % 4] & random.nextLong();
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates every combination of OFFSETS and COUNTS, checking each hand against Hand, and checking that
+     * nothing is written past the end of the batch
+     */
+    private static void checkAgainstHands(
+        final BatchEvaluator evaluator
+    ) {
+        long[] cards = createHands();
+        for (int offset : OFFSETS) {
+            for (int count : COUNTS) {
+                BatchEvaluator.Results results = new BatchEvaluator.Results(count + 8);
+                Arrays.fill(results._highCardPoints, UNTOUCHED);
+                Arrays.fill(results._quickTrickHalves, UNTOUCHED);
+                Arrays.fill(results._stoppers, UNTOUCHED);
+                for (byte[] lengths : results._lengths) {
+                    Arrays.fill(lengths, UNTOUCHED);
+                }
+                evaluator.evaluate(cards, offset, count, results);
+
+                for (int hx = 0; hx < count; ++hx) {
+                    Hand hand = new Hand(Position.SOUTH, cards[offset + hx]);
+                    String message = String.format("offset %d count %d hand %s", offset, count, hand);
+                    assertEquals(hand.countHighCardPoints(), results._highCardPoints[hx], message);
+                    assertEquals((int) (hand.countQuickTricks() * 2), results._quickTrickHalves[hx], message);
+                    int stoppers = 0;
+                    int probableStoppers = 0;
+                    for (Suit suit : Suit.values()) {
+                        SuitSet suitSet = hand._distribution.getSuitSet(suit);
+                        assertEquals(suitSet.size(), results._lengths[suit._bidOrder][hx], message);
+                        stoppers |= (suitSet.hasStopper() ? 1 : 0) << suit._bidOrder;
+                        probableStoppers |= (suitSet.hasProbableStopper() ? 1 : 0) << suit._bidOrder;
+                    }
+                    assertEquals(stoppers, results._stoppers[hx], message);
+                    assertEquals(probableStoppers, results._probableStoppers[hx], message);
+                    assertEquals(hand.hasLengthInMajors(), results._lengthInMajors[hx], message);
+                    assertEquals(hand.hasLongSuit(), results._longSuit[hx], message);
+                }
+
+                for (int hx = count; hx < results.getCapacity(); ++hx) {
+                    String message = String.format("offset %d count %d index %d", offset, count, hx);
+                    assertEquals(UNTOUCHED, results._highCardPoints[hx], message);
+                    assertEquals(UNTOUCHED, results._quickTrickHalves[hx], message);
+                    assertEquals(UNTOUCHED, results._stoppers[hx], message);
+                    for (byte[] lengths : results._lengths) {
+                        assertEquals(UNTOUCHED, lengths[hx], message);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void scalar() {
+        checkAgainstHands(BatchEvaluator.getScalarInstance());
+    }
+
+    /**
+     * Needs --add-modules jdk.incubator.vector, which the build gives the tests. On a machine without 512-bit
+     * vectors the Vector API emulates them, so the lane logic is checked everywhere.
+     */
+    @Test
+    public void vector() {
+        checkAgainstHands(new VectorBatchEvaluator(false));
+    }
+
+    /**
+     * Whatever getInstance() chose - the vector evaluator on a machine with 512-bit vectors
+     */
+    @Test
+    public void instance() {
+        checkAgainstHands(BatchEvaluator.getInstance());
+    }
+}
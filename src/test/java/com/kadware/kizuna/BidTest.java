@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class BidTest {
+
+    /**
+     * The codes run PASS, DOUBLE, REDOUBLE, then 1C 1D 1H 1S 1NT 2C ... 7NT - so code order is the order in which
+     * contract bids may be made. The golden bidding runs rely on the codes fitting in six bits.
+     */
+    @Test
+    public void codes() {
+        assertEquals(0, Bid.PASS);
+        assertEquals(1, Bid.DOUBLE);
+        assertEquals(2, Bid.REDOUBLE);
+        assertEquals(3, Bid.FIRST_CONTRACT);
+        assertEquals(38, Bid.CODES);
+        assertTrue(Bid.CODES <= 64);
+
+        int expected = Bid.FIRST_CONTRACT;
+        for (int level = 1; level <= 7; ++level) {
+            for (int strain = 0; strain <= Bid.NO_TRUMP; ++strain) {
+                assertEquals(expected++, Bid.getCode(level, strain));
+            }
+        }
+        assertEquals(Bid.CODES, expected);
+
+        for (Position position : Position.values()) {
+            assertEquals(Bid.getCode(1, Suit.CLUBS._bidOrder), Bid.getSuitBid(position, 1, Suit.CLUBS)._code);
+            assertEquals(Bid.CODES - 1, Bid.getNoTrumpBid(position, 7)._code);
+            for (int level = 1; level <= 7; ++level) {
+                Bid previous = (level == 1) ? Bid.getRedouble(position) : Bid.getNoTrumpBid(position, level - 1);
+                for (Suit suit : new Suit[] { Suit.CLUBS, Suit.DIAMONDS, Suit.HEARTS, Suit.SPADES }) {
+                    Bid.SuitBid bid = Bid.getSuitBid(position, level, suit);
+                    assertEquals(previous._code + 1, bid._code, bid::toString);
+                    assertTrue(bid.compareTo(previous) > 0);
+                    assertTrue(previous.compareTo(bid) < 0);
+                    assertEquals(level, bid._level);
+                    assertSame(suit, bid._suit);
+                    previous = bid;
+                }
+                Bid.NoTrumpBid noTrump = Bid.getNoTrumpBid(position, level);
+                assertEquals(previous._code + 1, noTrump._code);
+                assertEquals(level, noTrump._level);
+            }
+        }
+    }
+
+    /**
+     * There is one instance of each call by each position, whichever factory it comes from, of the right class
+     */
+    @Test
+    public void interned() {
+        for (Position position : Position.values()) {
+            for (int code = 0; code < Bid.CODES; ++code) {
+                Bid bid = Bid.of(position, code);
+                assertSame(bid, Bid.of(position, code));
+                assertSame(position, bid._position);
+                assertEquals(code, bid._code);
+                assertEquals(code >= Bid.FIRST_CONTRACT, bid.isContract());
+            }
+            assertSame(Bid.getPass(position), Bid.of(position, Bid.PASS));
+            assertSame(Bid.getDouble(position), Bid.of(position, Bid.DOUBLE));
+            assertSame(Bid.getRedouble(position), Bid.of(position, Bid.REDOUBLE));
+            assertSame(Bid.getSuitBid(position, 3, Suit.HEARTS), Bid.of(position, Bid.getCode(3, Suit.HEARTS._bidOrder)));
+            assertSame(Bid.getNoTrumpBid(position, 2), Bid.of(position, Bid.getCode(2, Bid.NO_TRUMP)));
+            assertTrue(Bid.of(position, Bid.getCode(4, Suit.SPADES._bidOrder)) instanceof Bid.SuitBid);
+            assertTrue(Bid.of(position, Bid.getCode(4, Bid.NO_TRUMP)) instanceof Bid.NoTrumpBid);
+        }
+        assertNotEquals(Bid.getPass(Position.NORTH).toString(), Bid.getPass(Position.SOUTH).toString());
+        assertEquals("WEST:1NT", Bid.getNoTrumpBid(Position.WEST, 1).toString());
+        assertEquals("EAST:DOUBLE", Bid.getDouble(Position.EAST).toString());
+    }
+
+    /**
+     * Calls are equal, hash and compare by code alone - the same call by different positions is equal
+     */
+    @Test
+    public void equality() {
+        for (int code = 0; code < Bid.CODES; ++code) {
+            for (Position first : Position.values()) {
+                Bid bid = Bid.of(first, code);
+                for (Position second : Position.values()) {
+                    Bid other = Bid.of(second, code);
+                    assertEquals(bid, other);
+                    assertEquals(bid.hashCode(), other.hashCode());
+                    assertEquals(0, bid.compareTo(other));
+                }
+                for (int otherCode = 0; otherCode < Bid.CODES; ++otherCode) {
+                    Bid other = Bid.of(first, otherCode);
+                    assertEquals(code == otherCode, bid.equals(other));
+                    assertEquals(Integer.signum(code - otherCode), Integer.signum(bid.compareTo(other)));
+                }
+                assertFalse(bid.equals(null));
+                assertFalse(bid.equals(Integer.valueOf(code)));
+            }
+        }
+    }
+
+    @Test
+    public void bounds() {
+        assertThrows(RuntimeException.class, () -> Bid.of(Position.SOUTH, -1));
+        assertThrows(RuntimeException.class, () -> Bid.of(Position.SOUTH, Bid.CODES));
+        assertThrows(RuntimeException.class, () -> Bid.getSuitBid(Position.SOUTH, 0, Suit.CLUBS));
+        assertThrows(RuntimeException.class, () -> Bid.getSuitBid(Position.SOUTH, 8, Suit.CLUBS));
+        assertThrows(RuntimeException.class, () -> Bid.getNoTrumpBid(Position.SOUTH, 0));
+        assertThrows(RuntimeException.class, () -> Bid.getNoTrumpBid(Position.SOUTH, 8));
+    }
+}
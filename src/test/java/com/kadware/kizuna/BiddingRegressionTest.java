@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BiddingRegressionTest {
+
+    /**
+     * Bids the cheapest contract above the last one, up to the given limit, regardless of the cards
+     */
+    private static class StepSystem extends BiddingSystem {
+
+        private final int _limit;
+
+        private StepSystem(
+            final int limit
+        ) {
+            _limit = limit;
+        }
+
+        @Override
+        public Bid recommendBid(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            int code = (biddingBoard._highestBid == null) ? Bid.FIRST_CONTRACT : biddingBoard._highestBid._code + 1;
+            return (code <= _limit) ? Bid.of(hand._position, code) : Bid.getPass(hand._position);
+        }
+
+        @Override
+        public Bid recommendOpeningBid(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            return null;
+        }
+
+        @Override
+        public Bid recommendOpeningResponse(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            return null;
+        }
+
+        @Override
+        public Bid recommendOvercall(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            return null;
+        }
+    }
+
+    /**
+     * Makes the longest possible auction - three passes, then every contract in turn, each passed round to a double,
+     * passed round to a redouble, and passed round again - 319 calls
+     */
+    private static class LongestSystem extends StepSystem {
+
+        private LongestSystem() {
+            super(Bid.CODES - 1);
+        }
+
+        @Override
+        public Bid recommendBid(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            int calls = biddingBoard.size();
+            if (calls >= 3) {
+                switch ((calls - 3) % 9) {
+                    case 0:
+                        return super.recommendBid(hand, biddingBoard, commentary);
+                    case 3:
+                        return Bid.getDouble(hand._position);
+                    case 6:
+                        return Bid.getRedouble(hand._position);
+                }
+            }
+            return Bid.getPass(hand._position);
+        }
+    }
+
+    /**
+     * Bids as StepSystem, but only to the two level when asked to explain itself
+     */
+    private static class InconsistentSystem extends StepSystem {
+
+        private InconsistentSystem() {
+            super(Bid.getCode(3, Bid.NO_TRUMP));
+        }
+
+        @Override
+        public Bid recommendBid(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            if ((commentary != Commentary.DISABLED) && (biddingBoard._highestBid != null)
+                && (biddingBoard._highestBid._code >= Bid.getCode(2, Bid.NO_TRUMP))) {
+                return Bid.getPass(hand._position);
+            }
+            return super.recommendBid(hand, biddingBoard, commentary);
+        }
+    }
+
+    @Test
+    public void longAuctions() {
+        BiddingRegression regression = new BiddingRegression(new StepSystem(Bid.getCode(3, Bid.NO_TRUMP)), 25, 1000);
+        BiddingRegression.Run run = regression.run();
+        assertEquals(0, run._inconsistentCalls);
+        assertEquals(1000 * 18L, run.getPathCalls(0));      //  1C to 3NT, then three passes
+        assertTrue(regression.check(run, 1.0, 0.0).isPassed());
+    }
+
+    @Test
+    public void longestAuctions() {
+        BiddingRegression regression = new BiddingRegression(new LongestSystem(), 25, 1000);
+        BiddingRegression.Run run = regression.run();
+        assertEquals(1000 * 319L, run.getPathCalls(0));
+        assertTrue(regression.check(run, 1.0, 0.0).isPassed());
+    }
+
+    @Test
+    public void changedCalls() {
+        BiddingRegression.Run golden = new BiddingRegression(new StepSystem(Bid.getCode(3, Bid.NO_TRUMP)), 25, 1000).run();
+        BiddingRegression.Report report =
+            new BiddingRegression(new StepSystem(Bid.getCode(4, Bid.NO_TRUMP)), 25, 1000).check(golden, 1.0, 0.0);
+        assertFalse(report.isPassed());
+        assertEquals(1000, report._changedDeals);
+    }
+
+    @Test
+    public void inconsistentCalls() {
+        BiddingRegression regression = new BiddingRegression(new InconsistentSystem(), 25, 1000);
+        BiddingRegression.Run run = regression.run();
+        assertEquals(1000 * 5L, run._inconsistentCalls);      //  3C to 3NT
+        BiddingRegression.Report report = regression.check(run, 1.0, 0.0);
+        assertEquals(0, report._changedDeals);
+        assertFalse(report.isPassed());
+    }
+
+    @Test
+    public void writeAndRead(
+        @TempDir final Path directory
+    ) throws IOException {
+        BiddingRegression regression = new BiddingRegression(new LongestSystem(), 25, 100);
+        Path path = directory.resolve("golden.kzg");
+        regression.run().write(path);
+        BiddingRegression.Run golden = BiddingRegression.Run.read(path);
+        assertEquals(100, golden._deals);
+        assertEquals(100 * 319L, golden.getPathCalls(0));
+        assertTrue(regression.check(golden, 1.0, 0.0).isPassed());
+    }
+
+    /**
+     * Replays the checked-in golden run of the default AmericanStandardSystem, recorded with
+     *      BiddingRegression record src/test/resources/com/kadware/kizuna/golden.kzg 20000
+     * Only the decisions are compared, so this passes on any machine; re-record the file when a change to the
+     * rules is meant to change them.
+     */
+    @Test
+    public void goldenDecisions() throws IOException, URISyntaxException {
+        BiddingRegression.Run golden = BiddingRegression.Run.read(Paths.get(getClass().getResource("golden.kzg").toURI()));
+        assertEquals(BiddingRegression.DEFAULT_SEED, golden._seed);
+        assertEquals(20000, golden._deals);
+        BiddingRegression regression =
+            new BiddingRegression(new AmericanStandardSystem(false, false, false), golden._seed, golden._deals);
+        BiddingRegression.Report report = regression.checkDecisions(golden);
+        assertTrue(report.isPassed(), () -> String.join("\n", report.getDisplay()));
+        assertTrue(report._slowerPaths.isEmpty());
+    }
+
+    @Test
+    public void decisionsOnly() {
+        BiddingRegression regression = new BiddingRegression(new StepSystem(Bid.getCode(3, Bid.NO_TRUMP)), 25, 1000);
+        BiddingRegression.Run run = regression.run();
+        BiddingRegression.Report report = regression.checkDecisions(run);
+        assertTrue(report.isPassed());
+        assertEquals(0.0, report._minimumDealsPerSecond);
+
+        report = new BiddingRegression(new StepSystem(Bid.getCode(4, Bid.NO_TRUMP)), 25, 1000).checkDecisions(run);
+        assertFalse(report.isPassed());
+        assertEquals(1000, report._changedDeals);
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class BoardTest {
+
+    /**
+     * A random legal auction, starting with the given position - mostly passes and small raises, so that many
+     * auctions run well past the sixteen calls the board starts with room for
+     */
+    static List<Bid> createAuction(
+        final Random random,
+        final Position first
+    ) {
+        Board board = new Board();
+        Bid[] calls = new Bid[Bid.CODES];
+        Position position = first;
+        while (!board.isPassedOut()) {
+            int count = board.getLegalCalls(position, calls);
+            int choice = random.nextInt(10);
+            Bid call;
+            if ((choice < 5) && (board.getConsecutivePasses() < 2)) {
+                call = calls[0];                            //  pass
+            } else {
+                call = calls[random.nextInt(Math.min(count, 4))];
+            }
+            board.add(call);
+            position = Position.values()[(position.ordinal() + 1) & 3];
+        }
+        return new ArrayList<>(board);
+    }
+
+    /**
+     * Checks every query of the board against the same thing worked out afresh from the calls
+     */
+    private static void checkState(
+        final Board board,
+        final List<Bid> calls
+    ) {
+        assertEquals(calls.size(), board.size());
+        for (int cx = 0; cx < calls.size(); ++cx) {
+            assertSame(calls.get(cx), board.get(cx));
+            assertEquals(calls.get(cx)._code, board.getCode(cx));
+            assertEquals(calls.get(cx)._position, board.getPosition(cx));
+        }
+
+        int passes = 0;
+        for (int cx = calls.size() - 1; (cx >= 0) && (calls.get(cx)._code == Bid.PASS); --cx) {
+            ++passes;
+        }
+        assertEquals(passes, board.getConsecutivePasses());
+
+        Bid opening = null;
+        Bid highest = null;
+        int highestIndex = -1;
+        for (int cx = 0; cx < calls.size(); ++cx) {
+            if (calls.get(cx).isContract()) {
+                if (opening == null) {
+                    opening = calls.get(cx);
+                }
+                highest = calls.get(cx);
+                highestIndex = cx;
+            }
+        }
+        assertSame(opening, board._openingBid);
+        assertSame(highest, board._highestBid);
+
+        int doubling = Contract.UNDOUBLED;
+        for (int cx = highestIndex + 1; cx < calls.size(); ++cx) {
+            if (calls.get(cx)._code == Bid.DOUBLE) {
+                doubling = Contract.DOUBLED;
+            } else if (calls.get(cx)._code == Bid.REDOUBLE) {
+                doubling = Contract.REDOUBLED;
+            }
+        }
+        assertEquals(doubling, board.getDoubling());
+        assertEquals(doubling != Contract.UNDOUBLED, board.isDoubled());
+        assertEquals(doubling == Contract.REDOUBLED, board.isRedoubled());
+        assertEquals((highest == null) ? passes == 4 : passes == 3, board.isPassedOut());
+
+        Position declarer = null;
+        if (highest != null) {
+            int strain = (highest._code - Bid.FIRST_CONTRACT) % 5;
+            for (Bid call : calls) {
+                if (call.isContract()
+                    && ((call._code - Bid.FIRST_CONTRACT) % 5 == strain)
+                    && (((call._position.ordinal() ^ highest._position.ordinal()) & 1) == 0)) {
+                    declarer = call._position;
+                    break;
+                }
+            }
+        }
+        assertSame(declarer, board.getDeclarer());
+
+        for (Suit suit : Suit.values()) {
+            Position openedBy = null;
+            boolean supported = false;
+            boolean rebid = false;
+            for (Bid call : calls) {
+                if ((call instanceof Bid.SuitBid) && (((Bid.SuitBid) call)._suit == suit)) {
+                    if (openedBy == null) {
+                        openedBy = call._position;
+                    } else if (call._position == openedBy) {
+                        rebid = true;
+                    } else if (call._position == openedBy.getPartner()) {
+                        supported = true;
+                    }
+                }
+            }
+            Board.SuitMention mention = board._suitMentions.get(suit);
+            if (openedBy == null) {
+                assertEquals(null, mention);
+            } else {
+                assertSame(openedBy, mention._openedBy);
+                assertEquals(supported, mention._supported);
+                assertEquals(rebid, mention._rebid);
+            }
+        }
+    }
+
+    /**
+     * Builds random legal auctions a call at a time, checking the running state after every call
+     */
+    @Test
+    public void stateFollowsCalls() {
+        Random random = new Random(13);
+        Board board = new Board();
+        for (int ax = 0; ax < 2000; ++ax) {
+            List<Bid> auction = createAuction(random, Position.values()[random.nextInt(4)]);
+            board.clear();
+            checkState(board, auction.subList(0, 0));
+            for (int cx = 0; cx < auction.size(); ++cx) {
+                if ((cx & 1) == 0) {
+                    board.add(auction.get(cx));
+                } else {
+                    assertTrue(board.establishBid(auction.get(cx)));
+                }
+                checkState(board, auction.subList(0, cx + 1));
+            }
+        }
+    }
+
+    /**
+     * Board is a List which may only be appended to or cleared
+     */
+    @Test
+    public void listContract() {
+        Board board = new Board();
+        Bid opening = Bid.getSuitBid(Position.SOUTH, 1, Suit.SPADES);
+        Bid pass = Bid.getPass(Position.WEST);
+        board.add(opening);
+        board.add(1, pass);
+        assertEquals(List.of(opening, pass), board);
+        assertEquals(List.of(opening, pass).hashCode(), board.hashCode());
+
+        Bid next = Bid.getPass(Position.NORTH);
+        assertThrows(UnsupportedOperationException.class, () -> board.add(0, next));
+        assertThrows(UnsupportedOperationException.class, () -> board.add(3, next));
+        assertThrows(UnsupportedOperationException.class, () -> board.set(1, next));
+        assertThrows(UnsupportedOperationException.class, () -> board.remove(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> board.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> board.get(-1));
+        checkState(board, List.of(opening, pass));
+
+        Iterator<Bid> iterator = board.iterator();
+        iterator.next();
+        board.add(next);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        board.clear();
+        assertTrue(board.isEmpty());
+        checkState(board, List.of());
+    }
+
+    /**
+     * The calls the given position may make after the given calls, worked out rule by rule as the board did before it
+     * had a generator - by looking back through the calls - but with the double and redouble rules it was meant to
+     * have. Before, a double was allowed whenever there had been a contract bid (doubling your own side included),
+     * and a redouble whenever the contract was doubled or redoubled.
+     */
+    private static long getReferenceCalls(
+        final List<Bid> calls,
+        final Position position
+    ) {
+        int passes = 0;
+        for (int cx = calls.size() - 1; (cx >= 0) && (calls.get(cx)._code == Bid.PASS); --cx) {
+            ++passes;
+        }
+        Bid highest = null;
+        boolean doubled = false;
+        boolean redoubled = false;
+        for (int cx = calls.size() - 1; cx >= 0; --cx) {
+            Bid call = calls.get(cx);
+            if (call.isContract()) {
+                highest = call;
+                break;
+            }
+            doubled |= call._code == Bid.DOUBLE;
+            redoubled |= call._code == Bid.REDOUBLE;
+        }
+        if ((highest == null) ? passes == 4 : passes == 3) {
+            return 0;
+        }
+
+        long result = 0;
+        for (int code = 0; code < Bid.CODES; ++code) {
+            Bid call = Bid.of(position, code);
+            boolean ours = (highest != null)
+                && ((highest._position == position) || (highest._position == position.getPartner()));
+            boolean legal;
+            if (code == Bid.PASS) {
+                legal = true;
+            } else if (code == Bid.DOUBLE) {
+                legal = (highest != null) && !ours && !doubled && !redoubled;
+            } else if (code == Bid.REDOUBLE) {
+                legal = (highest != null) && ours && doubled && !redoubled;
+            } else {
+                legal = (highest == null) || (call._code > highest._code);
+            }
+            if (legal) {
+                result |= 1L << code;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks the legal calls of every position after every call of random legal auctions against the reference,
+     * along with isDoubleAllowed(), isRedoubleAllowed(), the array form, and establishBid() for every candidate
+     */
+    @Test
+    public void legalCalls() {
+        Random random = new Random(14);
+        Bid[] calls = new Bid[Bid.CODES];
+        for (int ax = 0; ax < 1000; ++ax) {
+            List<Bid> auction = createAuction(random, Position.values()[random.nextInt(4)]);
+            Board board = new Board();
+            for (int cx = 0; cx <= auction.size(); ++cx) {
+                List<Bid> sofar = auction.subList(0, cx);
+                for (Position position : Position.values()) {
+                    long expected = getReferenceCalls(sofar, position);
+                    assertEquals(expected, board.getLegalCalls(position), () -> sofar + " " + position);
+                    if (!board.isPassedOut()) {
+                        //  these two look only at the doubling, not at whether the auction is over
+                        assertEquals((expected & (1L << Bid.DOUBLE)) != 0, board.isDoubleAllowed(position));
+                        assertEquals((expected & (1L << Bid.REDOUBLE)) != 0, board.isRedoubleAllowed(position));
+                    }
+
+                    int count = board.getLegalCalls(position, calls);
+                    assertEquals(Long.bitCount(expected), count);
+                    for (int lx = 0; lx < count; ++lx) {
+                        assertSame(position, calls[lx]._position);
+                        assertTrue((expected & (1L << calls[lx]._code)) != 0);
+                        assertTrue((lx == 0) || (calls[lx - 1]._code < calls[lx]._code));
+                    }
+                }
+                if (cx < auction.size()) {
+                    Position next = auction.get(cx)._position;
+                    long expected = getReferenceCalls(sofar, next);
+                    for (int code = 0; code < Bid.CODES; ++code) {
+                        if (((expected & (1L << code)) == 0) && (code != auction.get(cx)._code)) {
+                            assertFalse(board.establishBid(Bid.of(next, code)));
+                        }
+                    }
+                    assertEquals(sofar.size(), board.size());
+                    assertTrue(board.establishBid(auction.get(cx)));
+                }
+            }
+        }
+    }
+
+    /**
+     * The cases which the rules before the generator got wrong, or could get wrong
+     */
+    @Test
+    public void doublesAndRedoubles() {
+        Board board = new Board();
+        board.add(Bid.getSuitBid(Position.SOUTH, 1, Suit.SPADES));
+
+        //  doubling your own side
+        assertFalse(board.isDoubleAllowed(Position.NORTH));
+        assertFalse(board.isDoubleAllowed(Position.SOUTH));
+        assertFalse(board.establishBid(Bid.getDouble(Position.NORTH)));
+        assertTrue(board.isDoubleAllowed(Position.WEST));
+        assertTrue(board.establishBid(Bid.getDouble(Position.WEST)));
+
+        //  a double may be redoubled by the doubled side only, and only once
+        assertFalse(board.isDoubleAllowed(Position.EAST));
+        assertFalse(board.isRedoubleAllowed(Position.EAST));
+        assertTrue(board.isRedoubleAllowed(Position.NORTH));
+        assertTrue(board.establishBid(Bid.getRedouble(Position.NORTH)));
+        assertFalse(board.isRedoubleAllowed(Position.SOUTH));
+        assertFalse(board.isDoubleAllowed(Position.EAST));
+        assertFalse(board.establishBid(Bid.getRedouble(Position.EAST)));
+        assertTrue(board.establishBid(Bid.getPass(Position.EAST)));
+
+        //  a new contract may be doubled again, even by the side which doubled the last one
+        assertTrue(board.establishBid(Bid.getSuitBid(Position.SOUTH, 2, Suit.SPADES)));
+        assertEquals(Contract.UNDOUBLED, board.getDoubling());
+        assertTrue(board.isDoubleAllowed(Position.WEST));
+        assertFalse(board.isRedoubleAllowed(Position.NORTH));
+        assertTrue(board.establishBid(Bid.getDouble(Position.WEST)));
+        assertTrue(board.establishBid(Bid.getSuitBid(Position.NORTH, 3, Suit.CLUBS)));
+        assertTrue(board.isDoubleAllowed(Position.EAST));
+        assertFalse(board.isRedoubleAllowed(Position.SOUTH));
+
+        //  nothing once the auction is over
+        for (Position position : new Position[] { Position.EAST, Position.SOUTH, Position.WEST }) {
+            assertTrue(board.establishBid(Bid.getPass(position)));
+        }
+        assertTrue(board.isPassedOut());
+        assertEquals(0, board.getLegalCalls(Position.NORTH));
+        assertFalse(board.establishBid(Bid.getPass(Position.NORTH)));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Double-dummy results by plain minimax over every legal card, for checking the real solvers on small endings.
+ * The only refinements are alpha-beta cutoffs within a trick, and remembering the exact result for each position
+ * at the start of a trick.
+ */
+final class BruteForceSolver {
+
+    private static final int RANKS = CardMask.RANKS_PER_SUIT;
+
+    private final int _trump;
+    private final Map<Key, Integer> _known = new HashMap<>();
+
+    /**
+     * A position at the start of a trick
+     */
+    private static final class Key {
+
+        private final long[] _hands;
+        private final int _leader;
+
+        private Key(
+            final long[] hands,
+            final int leader
+        ) {
+            _hands = hands.clone();
+            _leader = leader;
+        }
+
+        @Override
+        public boolean equals(
+            final Object obj
+        ) {
+            return (obj instanceof Key)
+                && (((Key) obj)._leader == _leader)
+                && Arrays.equals(((Key) obj)._hands, _hands);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(_hands) * 31 + _leader;
+        }
+    }
+
+    /**
+     * @param trump trump suit's _bidOrder, or 4 for no-trump
+     */
+    BruteForceSolver(
+        final int trump
+    ) {
+        _trump = trump;
+    }
+
+    /**
+     * Number of tricks declarer (a Position ordinal) takes - the opening lead is made by declarer's left-hand opponent
+     */
+    int solve(
+        final long[] hands,
+        final int declarer
+    ) {
+        int tricks = CardMask.count(hands[0]);
+        int northSouth = solveTrick(hands.clone(), (declarer + 1) & 3);
+        return ((declarer & 1) == 0) ? northSouth : tricks - northSouth;
+    }
+
+    /**
+     * Tricks north-south take from the start of a trick
+     */
+    private int solveTrick(
+        final long[] hands,
+        final int leader
+    ) {
+        if (hands[0] == 0) {
+            return 0;
+        }
+        Key key = new Key(hands, leader);
+        Integer known = _known.get(key);
+        if (known == null) {
+            known = play(hands, leader, new int[4], 0, -1, Integer.MAX_VALUE);
+            _known.put(key, known);
+        }
+        return known;
+    }
+
+    private int play(
+        final long[] hands,
+        final int leader,
+        final int[] trick,
+        final int played,
+        final int alpha,
+        final int beta
+    ) {
+        if (played == 4) {
+            int winner = 0;
+            for (int tx = 1; tx < 4; ++tx) {
+                int suit = trick[tx] / RANKS;
+                int winningSuit = trick[winner] / RANKS;
+                if ((suit == winningSuit) ? trick[tx] > trick[winner] : suit == _trump) {
+                    winner = tx;
+                }
+            }
+            int position = (leader + winner) & 3;
+            return (((position & 1) == 0) ? 1 : 0) + solveTrick(hands, position);
+        }
+
+        int player = (leader + played) & 3;
+        long legal = hands[player];
+        if (played > 0) {
+            long ledSuit = ((long) CardMask.HOLDING_MASK) << ((trick[0] / RANKS) * RANKS);
+            if ((legal & ledSuit) != 0) {
+                legal &= ledSuit;
+            }
+        }
+
+        boolean northSouth = (player & 1) == 0;
+        int low = alpha;
+        int high = beta;
+        for (long bits = legal; bits != 0; bits &= bits - 1) {
+            int card = Long.numberOfTrailingZeros(bits);
+            hands[player] ^= 1L << card;
+            trick[played] = card;
+            int result = play(hands, leader, trick, played + 1, low, high);
+            hands[player] ^= 1L << card;
+            if (northSouth) {
+                low = Math.max(low, result);
+            } else {
+                high = Math.min(high, result);
+            }
+            if (low >= high) {
+                break;
+            }
+        }
+        return northSouth ? low : high;
+    }
+
+    /**
+     * An ending of the given number of cards in each hand, chosen at random from a random deal
+     */
+    static long[] createEnding(
+        final Random random,
+        final int cards
+    ) {
+        long[] deal = new long[4];
+        new DealGenerator(random.nextLong()).deal(0, deal);
+        long[] hands = new long[4];
+        for (int px = 0; px < 4; ++px) {
+            long remaining = deal[px];
+            for (int cx = 0; cx < cards; ++cx) {
+                long bits = remaining;
+                for (int skip = random.nextInt(Long.bitCount(bits)); skip > 0; --skip) {
+                    bits &= bits - 1;
+                }
+                long bit = Long.lowestOneBit(bits);
+                hands[px] |= bit;
+                remaining ^= bit;
+            }
+        }
+        return hands;
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class CachingBiddingSystemTest {
+
+    /**
+     * Answers each method with a call which depends on everything a recommendation may depend on - the method,
+     * the hand and its position, and every call so far - so that two situations sharing a cache key would almost
+     * certainly get different answers. Counts the questions it is asked.
+     */
+    private static class KeySystem extends BiddingSystem {
+
+        private final AtomicInteger _asked = new AtomicInteger();
+
+        private Bid answer(
+            final int method,
+            final Hand hand,
+            final Board biddingBoard
+        ) {
+            _asked.incrementAndGet();
+            long hash = method * 31L + hand._position.ordinal();
+            hash = hash * 0x9E3779B97F4A7C15L + hand.getCards();
+            for (int cx = 0; cx < biddingBoard.size(); ++cx) {
+                hash = hash * 0x9E3779B97F4A7C15L + biddingBoard.getPosition(cx).ordinal() * 64 + biddingBoard.getCode(cx);
+            }
+            hash ^= hash >>> 31;
+            return Bid.of(hand._position, (int) Long.remainderUnsigned(hash, Bid.CODES));
+        }
+
+        @Override
+        public Bid recommendBid(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            return answer(0, hand, biddingBoard);
+        }
+
+        @Override
+        public Bid recommendOpeningBid(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            return answer(1, hand, biddingBoard);
+        }
+
+        @Override
+        public Bid recommendOpeningResponse(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            return answer(2, hand, biddingBoard);
+        }
+
+        @Override
+        public Bid recommendOvercall(
+            final Hand hand,
+            final Board biddingBoard,
+            final Commentary commentary
+        ) {
+            return answer(3, hand, biddingBoard);
+        }
+    }
+
+    /**
+     * A hand and an auction, asked about through one of the four methods
+     */
+    private static class Situation {
+
+        private final Hand _hand;
+        private final Board _board;
+        private final int _method;
+
+        private Situation(
+            final Hand hand,
+            final Board board,
+            final int method
+        ) {
+            _hand = hand;
+            _board = board;
+            _method = method;
+        }
+
+        private Bid ask(
+            final BiddingSystem system
+        ) {
+            switch (_method) {
+                case 0:     return system.recommendBid(_hand, _board, Commentary.DISABLED);
+                case 1:     return system.recommendOpeningBid(_hand, _board, Commentary.DISABLED);
+                case 2:     return system.recommendOpeningResponse(_hand, _board, Commentary.DISABLED);
+                default:    return system.recommendOvercall(_hand, _board, Commentary.DISABLED);
+            }
+        }
+    }
+
+    /**
+     * A legal auction of random calls, starting with the given position, with at most the given number of calls
+     */
+    private static Board createAuction(
+        final Random random,
+        final Position first,
+        final int maxCalls
+    ) {
+        Board board = new Board();
+        Bid[] calls = new Bid[Bid.CODES];
+        Position position = first;
+        while ((board.size() < maxCalls) && !board.isPassedOut()) {
+            int count = board.getLegalCalls(position, calls);
+            //  mostly passes and low bids, so that auctions get long
+            int cx = random.nextBoolean() ? 0 : random.nextInt(Math.min(count, 6));
+            board.add(calls[cx]);
+            position = Position.values()[(position.ordinal() + 1) & 3];
+        }
+        return board;
+    }
+
+    /**
+     * Situations which differ in every part of the key, including pairs which differ only in one part - the position,
+     * the method, the first bidder, or a single call past the first eight
+     */
+    private static List<Situation> createSituations(
+        final Random random,
+        final int count
+    ) {
+        DealGenerator generator = new DealGenerator(random.nextLong());
+        long[] hands = new long[4];
+        List<Situation> result = new ArrayList<>(count);
+        while (result.size() < count) {
+            generator.deal(result.size(), hands);
+            Position position = Position.values()[random.nextInt(4)];
+            Hand hand = new Hand(position, hands[position.ordinal()]);
+            Board board = createAuction(random, Position.values()[random.nextInt(4)], random.nextInt(19));
+            int method = random.nextInt(4);
+            result.add(new Situation(hand, board, method));
+            result.add(new Situation(new Hand(position.getPartner(), hands[position.ordinal()]), board, method));
+            result.add(new Situation(hand, board, (method + 1) & 3));
+            if (board.size() > 0) {
+                Board shifted = new Board();
+                for (Bid bid : board) {
+                    shifted.add(Bid.of(Position.values()[(bid._position.ordinal() + 1) & 3], bid._code));
+                }
+                result.add(new Situation(hand, shifted, method));
+            }
+            if (board.size() > 9) {
+                Board changed = new Board();
+                for (int cx = 0; cx < board.size(); ++cx) {
+                    int code = board.getCode(cx);
+                    changed.add(Bid.of(board.getPosition(cx), (cx == board.size() - 1) ? (code + 1) % Bid.CODES : code));
+                }
+                result.add(new Situation(hand, changed, method));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void hitsAndMisses() {
+        KeySystem system = new KeySystem();
+        CachingBiddingSystem cache = new CachingBiddingSystem(system);
+        Situation situation = createSituations(new Random(1), 1).get(0);
+        Bid expected = situation.ask(system);
+        assertEquals(1, system._asked.get());
+
+        assertSame(expected, situation.ask(cache));
+        assertSame(expected, situation.ask(cache));
+        assertSame(expected, situation.ask(cache));
+        assertEquals(2, system._asked.get());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(2.0 / 3.0, cache.getHitRate(), 1e-9);
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertSame(expected, situation.ask(cache));
+        assertEquals(3, system._asked.get());
+        assertEquals(2, cache.getMisses());
+    }
+
+    /**
+     * Situations which differ in any part of the key must not share an entry
+     */
+    @Test
+    public void keysTellSituationsApart() {
+        KeySystem system = new KeySystem();
+        CachingBiddingSystem cache = new CachingBiddingSystem(system);
+        List<Situation> situations = createSituations(new Random(2), 2000);
+        for (int pass = 0; pass < 2; ++pass) {
+            for (Situation situation : situations) {
+                assertSame(situation.ask(system), situation.ask(cache));
+            }
+        }
+        assertTrue(cache.getHits() > 0);
+        assertEquals(2L * situations.size(), cache.getHits() + cache.getMisses());
+    }
+
+    /**
+     * Longer auctions than the key can hold, and calls made with commentary, go straight to the wrapped system
+     */
+    @Test
+    public void passThrough() {
+        KeySystem system = new KeySystem();
+        CachingBiddingSystem cache = new CachingBiddingSystem(system);
+        Board board = new Board();
+        Position position = Position.NORTH;
+        for (int cx = 0; cx < 19; ++cx) {
+            board.add((cx % 4 == 3) ? Bid.of(position, Bid.FIRST_CONTRACT + cx) : Bid.getPass(position));
+            position = Position.values()[(position.ordinal() + 1) & 3];
+        }
+        Situation situation = new Situation(new Hand(position, 0x1FFFL), board, 0);
+        Bid expected = situation.ask(system);
+        assertSame(expected, situation.ask(cache));
+        assertSame(expected, situation.ask(cache));
+        assertEquals(3, system._asked.get());
+
+        Hand hand = new Hand(Position.SOUTH, 0x1FFFL);
+        Board empty = new Board();
+        Commentary.Recorder recorder = new Commentary.Recorder();
+        cache.recommendBid(hand, empty, recorder);
+        cache.recommendBid(hand, empty, recorder);
+        assertEquals(5, system._asked.get());
+        assertEquals(0, cache.getHits() + cache.getMisses());
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * However many situations are asked about, the cache holds no more than its capacity, and whatever it drops
+     * is counted as evicted
+     */
+    @Test
+    public void evictionBound() {
+        KeySystem system = new KeySystem();
+        CachingBiddingSystem cache = new CachingBiddingSystem(system, 300);
+        List<Situation> situations = createSituations(new Random(3), 3000);
+        for (Situation situation : situations) {
+            assertSame(situation.ask(system), situation.ask(cache));
+        }
+        assertTrue(cache.size() <= 256);
+        assertTrue(cache.getEvictions() > 0);
+        assertEquals(cache.getMisses() - cache.size(), cache.getEvictions());
+
+        assertThrows(RuntimeException.class, () -> new CachingBiddingSystem(system, 63));
+    }
+
+    /**
+     * Threads sharing a cache which is too small for all the situations (so entries are being replaced while others
+     * read them) all get the wrapped system's answers, and every lookup is counted once
+     */
+    @Test
+    public void concurrentAccess() throws Exception {
+        KeySystem system = new KeySystem();
+        CachingBiddingSystem cache = new CachingBiddingSystem(system, 256);
+        List<Situation> situations = createSituations(new Random(4), 600);
+        List<Bid> expected = new ArrayList<>(situations.size());
+        for (Situation situation : situations) {
+            expected.add(situation.ask(system));
+        }
+
+        int threads = 4;
+        int lookups = 20000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int tx = 0; tx < threads; ++tx) {
+                long seed = tx;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    int wrong = 0;
+                    for (int lx = 0; lx < lookups; ++lx) {
+                        int sx = random.nextInt(situations.size());
+                        if (situations.get(sx).ask(cache) != expected.get(sx)) {
+                            ++wrong;
+                        }
+                    }
+                    return wrong;
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(0, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals((long) threads * lookups, cache.getHits() + cache.getMisses());
+        assertTrue(cache.size() <= 256);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class CardMaskTest {
+
+    /**
+     * Thirteen bits per suit, clubs lowest; within a suit, the two is the lowest bit and the ace the highest
+     */
+    @Test
+    public void layout() {
+        assertEquals(0, CardMask.getIndex(Suit.CLUBS, Rank.TWO));
+        assertEquals(12, CardMask.getIndex(Suit.CLUBS, Rank.ACE));
+        assertEquals(13, CardMask.getIndex(Suit.DIAMONDS, Rank.TWO));
+        assertEquals(26, CardMask.getIndex(Suit.HEARTS, Rank.TWO));
+        assertEquals(39, CardMask.getIndex(Suit.SPADES, Rank.TWO));
+        assertEquals(51, CardMask.getIndex(Suit.SPADES, Rank.ACE));
+
+        assertEquals(1, CardMask.getBit(Rank.TWO));
+        assertEquals(1 << 12, CardMask.getBit(Rank.ACE));
+        assertEquals(1 << 8, CardMask.getBit(Rank.TEN));
+
+        long all = 0;
+        for (Suit suit : Suit.values()) {
+            int previous = -1;
+            for (int rx = Rank.values().length - 1; rx >= 0; --rx) {
+                Rank rank = Rank.values()[rx];
+                int index = CardMask.getIndex(suit, rank);
+                assertEquals(previous + 1, index % 13, () -> rank + " " + suit);
+                assertEquals(suit._bidOrder, index / 13);
+                assertEquals(1L << index, CardMask.getMask(suit, CardMask.getBit(rank)));
+                assertEquals(index, Card.get(suit, rank)._index);
+                assertSame(Card.get(suit, rank), Card.get(index));
+                assertEquals(1L << index, Card.get(index).getMask());
+                previous = index % 13;
+                all |= 1L << index;
+            }
+        }
+        assertEquals(CardMask.FULL_DECK, all);
+        assertEquals(52, CardMask.count(CardMask.FULL_DECK));
+    }
+
+    /**
+     * getHolding() and getMask() are inverses, for each suit and by suit number
+     */
+    @Test
+    public void holdings() {
+        Random random = new Random(1);
+        for (int tx = 0; tx < 1000; ++tx) {
+            long cards = random.nextLong() & CardMask.FULL_DECK;
+            long rebuilt = 0;
+            for (Suit suit : Suit.values()) {
+                int holding = CardMask.getHolding(cards, suit);
+                assertEquals(holding, CardMask.getHolding(cards, suit._bidOrder));
+                assertEquals(holding, (int) (cards >>> (13 * suit._bidOrder)) & 0x1FFF);
+                rebuilt |= CardMask.getMask(suit, holding);
+            }
+            assertEquals(cards, rebuilt);
+            assertEquals(Long.bitCount(cards), CardMask.count(cards));
+        }
+
+        //  bits above the holding are dropped
+        assertEquals(CardMask.getMask(Suit.HEARTS, 1), CardMask.getMask(Suit.HEARTS, 0x2001));
+        assertEquals(0L, CardMask.getMask(Suit.SPADES, 0));
+        assertEquals(CardMask.HOLDING_MASK, CardMask.getHolding(CardMask.FULL_DECK, Suit.SPADES));
+
+        List<Card> cards = List.of(Card.get(Suit.CLUBS, Rank.TWO), Card.get(Suit.SPADES, Rank.ACE), Card.get(Suit.HEARTS, Rank.TEN));
+        assertEquals(1L | (1L << 51) | (1L << 34), CardMask.getMask(cards));
+    }
+
+    /**
+     * A SuitSet holds its cards as a holding in the same layout, and iterates them from the ace down
+     */
+    @Test
+    public void suitSets() {
+        SuitSet set = new SuitSet(Suit.DIAMONDS, 0x1000 | 0x0100 | 0x0001);    //  A, 10, 2
+        assertEquals(3, set.size());
+        assertTrue(set.contains(Card.get(Suit.DIAMONDS, Rank.TEN)));
+        assertTrue(set.hasRank(Rank.ACE));
+        assertFalse(set.contains(Card.get(Suit.HEARTS, Rank.TEN)));
+        assertFalse(set.hasRank(Rank.KING));
+
+        List<Rank> ranks = new ArrayList<>();
+        for (Card card : set) {
+            assertEquals(Suit.DIAMONDS, card._suit);
+            ranks.add(card._rank);
+        }
+        assertEquals(List.of(Rank.ACE, Rank.TEN, Rank.TWO), ranks);
+
+        assertTrue(set.add(Card.get(Suit.DIAMONDS, Rank.KING)));
+        assertFalse(set.add(Card.get(Suit.DIAMONDS, Rank.KING)));
+        assertEquals(0x1800 | 0x0100 | 0x0001, set.getHolding());
+        assertTrue(set.remove(Card.get(Suit.DIAMONDS, Rank.TWO)));
+        assertFalse(set.remove(Card.get(Suit.DIAMONDS, Rank.TWO)));
+        Iterator<Card> iterator = set.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(0x0800 | 0x0100, set.getHolding());
+        assertThrows(RuntimeException.class, () -> set.add(Card.get(Suit.CLUBS, Rank.TWO)));
+
+        //  bits above the holding are dropped
+        assertEquals(CardMask.HOLDING_MASK, new SuitSet(Suit.CLUBS, -1).getHolding());
+        assertEquals(0x1001, new SuitSet(Suit.SPADES, List.of(Card.get(Suit.SPADES, Rank.ACE),
+                                                              Card.get(Suit.SPADES, Rank.TWO))).getHolding());
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class CommentaryTest {
+
+    /**
+     * Renders its arguments joined by commas, after its name
+     */
+    private static class ListRule implements Commentary.Rule {
+
+        private final String _name;
+        private final int _count;
+
+        private ListRule(
+            final String name,
+            final int count
+        ) {
+            _name = name;
+            _count = count;
+        }
+
+        @Override
+        public String render(
+            final int[] arguments,
+            final int offset
+        ) {
+            StringBuilder sb = new StringBuilder(_name);
+            for (int ax = 0; ax < _count; ++ax) {
+                sb.append(ax == 0 ? ":" : ",").append(arguments[offset + ax]);
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final ListRule[] RULES = {
+        new ListRule("zero", 0),
+        new ListRule("one", 1),
+        new ListRule("two", 2),
+        new ListRule("three", 3),
+        new ListRule("four", 4),
+    };
+
+    /**
+     * Adds remark number n, with n % 5 arguments - n, n + 1, and so on - and returns the text it should render as
+     */
+    private static String addRemark(
+        final Commentary commentary,
+        final int n
+    ) {
+        switch (n % 5) {
+            case 0:  commentary.add(RULES[0]); return "zero";
+            case 1:  commentary.add(RULES[1], n); return String.format("one:%d", n);
+            case 2:  commentary.add(RULES[2], n, n + 1); return String.format("two:%d,%d", n, n + 1);
+            case 3:  commentary.add(RULES[3], n, n + 1, n + 2); return String.format("three:%d,%d,%d", n, n + 1, n + 2);
+            default: commentary.add(RULES[4], n, n + 1, n + 2, n + 3);
+                     return String.format("four:%d,%d,%d,%d", n, n + 1, n + 2, n + 3);
+        }
+    }
+
+    /**
+     * Many more remarks and arguments than the recorder starts with room for, then again after clear()
+     */
+    @Test
+    public void recorder() {
+        Commentary.Recorder recorder = new Commentary.Recorder();
+        assertTrue(recorder.isEnabled());
+        assertEquals(0, recorder.size());
+
+        for (int remarks : new int[] { 100, 3, 40 }) {
+            recorder.clear();
+            assertEquals(0, recorder.size());
+            List<String> expected = new ArrayList<>();
+            for (int rx = 0; rx < remarks; ++rx) {
+                expected.add(addRemark(recorder, rx));
+            }
+            assertEquals(remarks, recorder.size());
+            for (int rx = 0; rx < remarks; ++rx) {
+                assertSame(RULES[rx % 5], recorder.getRule(rx));
+                assertEquals(rx % 5, recorder.getArgumentCount(rx));
+                for (int ax = 0; ax < rx % 5; ++ax) {
+                    assertEquals(rx + ax, recorder.getArgument(rx, ax));
+                }
+                assertEquals(expected.get(rx), recorder.getText(rx));
+            }
+            assertArrayEquals(expected.toArray(new String[0]), recorder.getDisplay());
+            assertEquals(String.join("\n", expected), recorder.toString());
+        }
+
+        //  one remark with more arguments than there is room for, first thing after clear()
+        recorder.clear();
+        addRemark(recorder, 1);
+        for (int rx = 0; rx < 10; ++rx) {
+            addRemark(recorder, 4);
+        }
+        assertEquals(11, recorder.size());
+        assertEquals("four:4,5,6,7", recorder.getText(10));
+        assertEquals("one:1", recorder.getText(0));
+    }
+
+    @Test
+    public void disabled() {
+        assertFalse(Commentary.DISABLED.isEnabled());
+        for (int rx = 0; rx < 5; ++rx) {
+            addRemark(Commentary.DISABLED, rx);
+        }
+    }
+
+    private static Hand createHand(
+        final Position position,
+        final int clubs,
+        final int diamonds,
+        final int hearts,
+        final int spades
+    ) {
+        return new Hand(position,
+                        CardMask.getMask(Suit.CLUBS, clubs)
+                            | CardMask.getMask(Suit.DIAMONDS, diamonds)
+                            | CardMask.getMask(Suit.HEARTS, hearts)
+                            | CardMask.getMask(Suit.SPADES, spades));
+    }
+
+    /**
+     * Records the opening-bid commentary for the hand, checks that it made the same call as without commentary,
+     * and that the summary line reads as the system's String.format() of the hand's figures always did
+     */
+    private static String[] explainOpening(
+        final Hand hand,
+        final Board board,
+        final Bid expected
+    ) {
+        BiddingSystem system = new AmericanStandardSystem(true, false, true);
+        Commentary.Recorder recorder = new Commentary.Recorder();
+        assertEquals(expected, system.recommendOpeningBid(hand, board, recorder));
+        assertEquals(expected, system.recommendOpeningBid(hand, board, Commentary.DISABLED));
+
+        int passes = board.getConsecutivePasses();
+        String summary = String.format("HCP=%d QTricks=%f reBiddableSuit=%s lengthInMajors=%s position=%d 3rd=%s 4th=%s",
+                                       hand.countHighCardPoints(),
+                                       hand.countQuickTricks(),
+                                       hand.hasLongSuit(),
+                                       hand.hasLengthInMajors(),
+                                       passes + 1,
+                                       passes == 2,
+                                       passes == 3);
+        assertEquals(summary, recorder.getText(1));
+        return recorder.getDisplay();
+    }
+
+    @Test
+    public void openings() {
+        //  S:AKJ52 H:KQ3 D:Q4 C:J32, third seat
+        Hand hand = createHand(Position.WEST, 0x0203, 0x0404, 0x0C02, 0x1A09);
+        Board board = new Board();
+        board.add(Bid.getPass(Position.EAST));
+        board.add(Bid.getPass(Position.SOUTH));
+        assertArrayEquals(new String[] {
+                              "Checking opening bid for player WEST",
+                              "HCP=16 QTricks=3.000000 reBiddableSuit=true lengthInMajors=true position=3 3rd=true 4th=false",
+                              "Sufficient HCP, needs nothing else to proceed",
+                              "Balanced Hand - considering NoTrump...",
+                              "Strong hand has strong 5-card suit; bid suit",
+                              "One biddable suit",
+                              "Recommending WEST:1SPADES",
+                          },
+                          explainOpening(hand, board, Bid.getSuitBid(Position.WEST, 1, Suit.SPADES)));
+
+        //  S:Q52 H:J1032 D:943 C:K86, third seat
+        hand = createHand(Position.WEST, 0x0850, 0x0086, 0x0303, 0x0409);
+        assertArrayEquals(new String[] {
+                              "Checking opening bid for player WEST",
+                              "HCP=6 QTricks=0.500000 reBiddableSuit=false lengthInMajors=false position=3 3rd=true 4th=false",
+                              "Nothing worth bidding.",
+                              "Recommending pass",
+                          },
+                          explainOpening(hand, board, Bid.getPass(Position.WEST)));
+
+        //  S:AQ3 H:KJ4 D:K852 C:K73, first seat - numeric arguments
+        hand = createHand(Position.NORTH, 0x0822, 0x0849, 0x0A04, 0x1402);
+        assertArrayEquals(new String[] {
+                              "Checking opening bid for player NORTH",
+                              "HCP=16 QTricks=3.000000 reBiddableSuit=false lengthInMajors=false position=1 3rd=false 4th=false",
+                              "Sufficient HCP, needs nothing else to proceed",
+                              "Balanced Hand - considering NoTrump...",
+                              "  Stoppers=1  Probable Stoppers=3",
+                              "  16-18 points with sufficient stoppers, recommending 1NT",
+                              "Recommending NORTH:1NT",
+                          },
+                          explainOpening(hand, new Board(), Bid.getNoTrumpBid(Position.NORTH, 1)));
+
+        //  S:AK52 H:KQ73 D:A842 C:5, first seat - a suit argument
+        hand = createHand(Position.NORTH, 0x0008, 0x1045, 0x0C22, 0x1809);
+        assertArrayEquals(new String[] {
+                              "Checking opening bid for player NORTH",
+                              "HCP=16 QTricks=4.000000 reBiddableSuit=false lengthInMajors=true position=1 3rd=false 4th=false",
+                              "Sufficient HCP, needs nothing else to proceed",
+                              "4-4-4-1 distribution, singleton is CLUBS",
+                              "Recommending NORTH:1DIAMONDS",
+                          },
+                          explainOpening(hand, new Board(), Bid.getSuitBid(Position.NORTH, 1, Suit.DIAMONDS)));
+    }
+}
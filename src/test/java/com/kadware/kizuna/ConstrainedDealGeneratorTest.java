@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class ConstrainedDealGeneratorTest {
+
+    /**
+     * Checks that the hands are a deal - four disjoint thirteen-card hands making up the deck - and that each
+     * satisfies its spec
+     */
+    private static void checkDeal(
+        final Map<Position, HandSpec> specs,
+        final long[] hands
+    ) {
+        long all = 0;
+        for (Position position : Position.values()) {
+            long cards = hands[position.ordinal()];
+            assertEquals(13, Long.bitCount(cards));
+            assertEquals(0, all & cards);
+            all |= cards;
+            HandSpec spec = specs.getOrDefault(position, HandSpec.ANY);
+            assertTrue(HandSpecTest.isSatisfied(spec, cards), () -> position + " " + spec + " " + new Distribution(cards));
+        }
+        assertEquals(CardMask.FULL_DECK, all);
+    }
+
+    /**
+     * Random specs for one or two positions, sometimes with a fixed hand for another.
+     * Only each spec on its own is checked when the generator is made - specs which cannot be met together fail
+     * only after the generator has given up dealing - so the second spec only caps points and lengths, which
+     * the first can always leave room for.
+     */
+    @Test
+    public void dealsMeetSpecs() {
+        Random random = new Random(6);
+        DealGenerator fixedSource = new DealGenerator(6);
+        long[] hands = new long[4];
+        int generators = 0;
+        for (int gx = 0; gx < 200; ++gx) {
+            Map<Position, HandSpec> specs = new EnumMap<>(Position.class);
+            Position[] positions = Position.values();
+            int first = random.nextInt(4);
+            specs.put(positions[first], HandSpecTest.createSpec(random));
+            if (random.nextBoolean()) {
+                HandSpec second = HandSpec.ANY.withHighCardPoints(0, 10 + random.nextInt(10));
+                Suit suit = Suit.values()[random.nextInt(4)];
+                specs.put(positions[(first + 1) & 3], second.withLength(suit, 0, 3 + random.nextInt(3)));
+            }
+            if (random.nextBoolean()) {
+                fixedSource.next(hands);
+                specs.put(positions[(first + 2) & 3], HandSpec.exact(hands[0]));
+            }
+
+            ConstrainedDealGenerator generator;
+            try {
+                generator = new ConstrainedDealGenerator(gx, specs);
+            } catch (RuntimeException ex) {
+                //  some random specs cannot be met - those which can should be the great majority
+                continue;
+            }
+            ++generators;
+            for (int dx = 0; dx < 20; ++dx) {
+                generator.next(hands);
+                checkDeal(specs, hands);
+            }
+        }
+        assertTrue(generators > 150);
+    }
+
+    /**
+     * Fixed hands are dealt exactly, and the other hands are made from the remaining cards
+     */
+    @Test
+    public void fixedCards() {
+        DealGenerator source = new DealGenerator(7);
+        long[] fixed = new long[4];
+        long[] hands = new long[4];
+        source.next(fixed);
+
+        Map<Position, HandSpec> specs = new HashMap<>();
+        specs.put(Position.NORTH, HandSpec.exact(fixed[Position.NORTH.ordinal()]));
+        specs.put(Position.EAST, HandSpec.exact(fixed[Position.EAST.ordinal()]));
+        ConstrainedDealGenerator generator = new ConstrainedDealGenerator(7, specs);
+        long rest = fixed[Position.SOUTH.ordinal()] | fixed[Position.WEST.ordinal()];
+        boolean differs = false;
+        for (int dx = 0; dx < 200; ++dx) {
+            generator.next(hands);
+            checkDeal(specs, hands);
+            assertEquals(rest, hands[Position.SOUTH.ordinal()] | hands[Position.WEST.ordinal()]);
+            differs |= hands[Position.SOUTH.ordinal()] != fixed[Position.SOUTH.ordinal()];
+        }
+        assertTrue(differs);
+
+        //  all four fixed leaves nothing to choose
+        for (Position position : Position.values()) {
+            specs.put(position, HandSpec.exact(fixed[position.ordinal()]));
+        }
+        generator = new ConstrainedDealGenerator(7, specs);
+        generator.deal(5, hands);
+        assertArrayEquals(fixed, hands);
+    }
+
+    /**
+     * Specs which no hand can meet are rejected when the generator is made
+     */
+    @Test
+    public void impossibleSpecs() {
+        Map<Position, HandSpec> specs = new EnumMap<>(Position.class);
+        specs.put(Position.SOUTH, HandSpec.ANY.withHighCardPoints(38, 40));
+        assertThrows(RuntimeException.class, () -> new ConstrainedDealGenerator(1, specs));
+
+        specs.put(Position.SOUTH, HandSpec.ANY.withLength(Suit.CLUBS, 6, 13).withBalanced());
+        assertThrows(RuntimeException.class, () -> new ConstrainedDealGenerator(1, specs));
+
+        specs.put(Position.SOUTH, HandSpec.ANY.withLength(Suit.CLUBS, 5, 13).withLength(Suit.DIAMONDS, 5, 13).withLength(Suit.HEARTS, 4, 13));
+        assertThrows(RuntimeException.class, () -> new ConstrainedDealGenerator(1, specs));
+
+        //  only the jacks are left when the fixed hand holds every ace, king and queen
+        long honors = CardMask.getMask(Suit.CLUBS, 0x1C01)
+            | CardMask.getMask(Suit.DIAMONDS, 0x1C00)
+            | CardMask.getMask(Suit.HEARTS, 0x1C00)
+            | CardMask.getMask(Suit.SPADES, 0x1C00);
+        specs.put(Position.NORTH, HandSpec.exact(honors));
+        specs.put(Position.SOUTH, HandSpec.ANY.withHighCardPoints(0, 3));
+        new ConstrainedDealGenerator(1, specs).next();
+        specs.put(Position.SOUTH, HandSpec.ANY.withHighCardPoints(5, 37));
+        assertThrows(RuntimeException.class, () -> new ConstrainedDealGenerator(1, specs));
+
+        specs.put(Position.SOUTH, HandSpec.exact(CardMask.getMask(Suit.SPADES, CardMask.HOLDING_MASK)));
+        assertThrows(RuntimeException.class, () -> new ConstrainedDealGenerator(1, specs));
+    }
+
+    /**
+     * Deal number N depends only upon the seed and N - not on which deals came before it
+     */
+    @Test
+    public void repeatable() {
+        Map<Position, HandSpec> specs = new EnumMap<>(Position.class);
+        specs.put(Position.NORTH, HandSpec.ANY.withHighCardPoints(15, 17).withBalanced());
+        specs.put(Position.SOUTH, HandSpec.ANY.withLength(Suit.HEARTS, 5, 13));
+
+        ConstrainedDealGenerator first = new ConstrainedDealGenerator(42, specs);
+        ConstrainedDealGenerator second = new ConstrainedDealGenerator(42, specs);
+        ConstrainedDealGenerator other = new ConstrainedDealGenerator(43, specs);
+        Deal[] deals = new Deal[100];
+        int same = 0;
+        for (int dx = 0; dx < deals.length; ++dx) {
+            deals[dx] = first.next();
+            assertEquals(deals[dx], second.deal(dx));
+            same += deals[dx].equals(other.deal(dx)) ? 1 : 0;
+        }
+        assertEquals(0, same);
+        assertEquals(deals.length, first.getIndex());
+
+        //  backwards, and after a seek
+        for (int dx = deals.length - 1; dx >= 0; --dx) {
+            assertEquals(deals[dx], second.deal(dx));
+        }
+        first.seek(37);
+        assertEquals(deals[37], first.next());
+        assertEquals(deals[38], first.next());
+    }
+
+    /**
+     * With a single constrained position, each conforming hand is equally likely. Twelve spades leave 13 x 39
+     * possible hands; a chi-square statistic over those should be near its 506 degrees of freedom.
+     */
+    @Test
+    public void uniform() {
+        Map<Position, HandSpec> specs = Map.of(Position.WEST, HandSpec.ANY.withLength(Suit.SPADES, 12, 12));
+        ConstrainedDealGenerator generator = new ConstrainedDealGenerator(8, specs);
+        Map<Long, Integer> counts = new HashMap<>();
+        long[] hands = new long[4];
+        int samples = 507 * 40;
+        for (int dx = 0; dx < samples; ++dx) {
+            generator.next(hands);
+            counts.merge(hands[Position.WEST.ordinal()], 1, Integer::sum);
+        }
+        assertEquals(507, counts.size());
+        double chiSquare = 0.0;
+        for (int count : counts.values()) {
+            chiSquare += (count - 40.0) * (count - 40.0) / 40.0;
+        }
+        assertTrue(chiSquare < 650.0, "chi-square " + chiSquare);
+    }
+}
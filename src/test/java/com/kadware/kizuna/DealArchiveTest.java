@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DealArchiveTest {
+
+    //  more than two of DealArchive's parallel grains, so that parallelForEach() splits the range
+    private static final int DEALS = 150_000;
+    private static final long SEED = 21;
+
+    private static Path writeArchive(
+        final Path directory,
+        final int deals
+    ) throws IOException {
+        Path path = directory.resolve("deals.kza");
+        DealGenerator generator = new DealGenerator(SEED);
+        long[] hands = new long[4];
+        try (DealArchiveWriter writer = new DealArchiveWriter(path)) {
+            for (int dx = 0; dx < deals; ++dx) {
+                if ((dx & 1) == 0) {
+                    generator.deal(dx, hands);
+                    writer.write(hands);
+                } else {
+                    writer.write(generator.deal(dx));
+                }
+            }
+            assertEquals(deals, writer.getCount());
+        }
+        return path;
+    }
+
+    /**
+     * Every deal reads back as it was written, through each of the getters
+     */
+    @Test
+    public void roundTrip(
+        @TempDir final Path directory
+    ) throws IOException {
+        Path path = writeArchive(directory, 5000);
+        assertEquals(DealArchive.HEADER_SIZE + 5000L * DealArchive.DEAL_SIZE, Files.size(path));
+
+        DealGenerator generator = new DealGenerator(SEED);
+        long[] expected = new long[4];
+        long[] hands = new long[4];
+        try (DealArchive archive = new DealArchive(path)) {
+            assertEquals(5000, archive.size());
+            for (int dx = 0; dx < 5000; ++dx) {
+                generator.deal(dx, expected);
+                archive.getHands(dx, hands);
+                assertArrayEquals(expected, hands);
+                assertEquals(new Deal(expected), archive.getDeal(dx));
+                for (Position position : Position.values()) {
+                    assertEquals(expected[position.ordinal()], archive.getCards(dx, position));
+                    assertEquals(expected[position.ordinal()], archive.getHands(dx).get(position).getCards());
+                }
+            }
+        }
+    }
+
+    /**
+     * The fixed deals which are easiest to get wrong - each hand a suit, and each hand every fourth card
+     */
+    @Test
+    public void encodeDecode() {
+        long[][] deals = new long[2][4];
+        for (Suit suit : Suit.values()) {
+            deals[0][suit._bidOrder] = CardMask.getMask(suit, CardMask.HOLDING_MASK);
+        }
+        for (int cx = 0; cx < 52; ++cx) {
+            deals[1][cx & 3] |= 1L << cx;
+        }
+
+        for (long[] deal : deals) {
+            byte[] buffer = new byte[DealArchive.DEAL_SIZE + 2];
+            DealArchive.encode(deal, buffer, 1);
+            assertEquals(0, buffer[0]);
+            assertEquals(0, buffer[buffer.length - 1]);
+            for (int cx = 0; cx < 52; ++cx) {
+                int code = (buffer[1 + cx / 4] >>> ((cx % 4) * 2)) & 0x03;
+                assertTrue((deal[code] & (1L << cx)) != 0);
+            }
+        }
+    }
+
+    /**
+     * Anything but four disjoint hands covering the deck is refused - including a card held twice, which covers
+     * the deck just as well
+     */
+    @Test
+    public void incompleteDeals() {
+        long[] hands = new long[4];
+        new DealGenerator(SEED).deal(0, hands);
+        byte[] buffer = new byte[DealArchive.DEAL_SIZE];
+
+        long[] missing = hands.clone();
+        missing[2] &= missing[2] - 1;
+        assertThrows(RuntimeException.class, () -> DealArchive.encode(missing, buffer, 0));
+
+        long[] twice = hands.clone();
+        twice[1] |= Long.lowestOneBit(twice[2]);
+        assertThrows(RuntimeException.class, () -> DealArchive.encode(twice, buffer, 0));
+
+        long[] moved = hands.clone();
+        moved[3] |= moved[0];
+        assertThrows(RuntimeException.class, () -> DealArchive.encode(moved, buffer, 0));
+
+        long[] beyond = hands.clone();
+        beyond[0] |= 1L << 52;
+        assertThrows(RuntimeException.class, () -> DealArchive.encode(beyond, buffer, 0));
+    }
+
+    /**
+     * The header is the magic number and eight reserved bytes; files without it, or with part of a deal at the end,
+     * are refused
+     */
+    @Test
+    public void header(
+        @TempDir final Path directory
+    ) throws IOException {
+        Path empty = directory.resolve("empty.kza");
+        new DealArchiveWriter(empty).close();
+        byte[] header = Files.readAllBytes(empty);
+        assertEquals(DealArchive.HEADER_SIZE, header.length);
+        assertEquals("KZKDEAL1", new String(header, 0, 8, StandardCharsets.US_ASCII));
+        try (DealArchive archive = new DealArchive(empty)) {
+            assertEquals(0, archive.size());
+            archive.forEach((index, hands) -> { throw new RuntimeException("No deals to visit"); });
+            archive.parallelForEach((index, hands) -> { throw new RuntimeException("No deals to visit"); });
+        }
+
+        Path path = writeArchive(directory, 10);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Path truncated = directory.resolve("truncated.kza");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(RuntimeException.class, () -> new DealArchive(truncated));
+
+        Path tooShort = directory.resolve("short.kza");
+        Files.write(tooShort, Arrays.copyOf(bytes, DealArchive.HEADER_SIZE - 1));
+        assertThrows(RuntimeException.class, () -> new DealArchive(tooShort));
+
+        Path wrong = directory.resolve("wrong.kza");
+        bytes[7] = '2';
+        Files.write(wrong, bytes);
+        assertThrows(RuntimeException.class, () -> new DealArchive(wrong));
+    }
+
+    /**
+     * Deal numbers and ranges outside the archive are refused
+     */
+    @Test
+    public void rangeChecks(
+        @TempDir final Path directory
+    ) throws IOException {
+        try (DealArchive archive = new DealArchive(writeArchive(directory, 100))) {
+            long[] hands = new long[4];
+            DealArchive.Visitor visitor = (index, cards) -> {};
+            assertThrows(RuntimeException.class, () -> archive.getHands(-1, hands));
+            assertThrows(RuntimeException.class, () -> archive.getHands(100, hands));
+            assertThrows(RuntimeException.class, () -> archive.getDeal(100));
+            assertThrows(RuntimeException.class, () -> archive.forEach(-1, 10, visitor));
+            assertThrows(RuntimeException.class, () -> archive.forEach(0, 101, visitor));
+            assertThrows(RuntimeException.class, () -> archive.forEach(11, 10, visitor));
+            archive.forEach(100, 100, (index, cards) -> { throw new RuntimeException("Empty range"); });
+            archive.getHands(99, hands);
+        }
+    }
+
+    /**
+     * forEach() visits a range in order with the right hands; parallelForEach() visits every deal exactly once
+     */
+    @Test
+    public void scans(
+        @TempDir final Path directory
+    ) throws IOException {
+        Path path = writeArchive(directory, DEALS);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try (DealArchive archive = new DealArchive(path, pool)) {
+            DealGenerator generator = new DealGenerator(SEED);
+            long[] expected = new long[4];
+
+            long[] next = { 1234 };
+            archive.forEach(1234, 98_765, (index, hands) -> {
+                assertEquals(next[0]++, index);
+                generator.deal(index, expected);
+                assertArrayEquals(expected, hands);
+            });
+            assertEquals(98_765, next[0]);
+
+            AtomicIntegerArray visits = new AtomicIntegerArray(DEALS);
+            AtomicLong checksum = new AtomicLong();
+            archive.parallelForEach((index, hands) -> {
+                visits.incrementAndGet((int) index);
+                checksum.addAndGet(hands[0] * (index + 1));
+            });
+            long expectedChecksum = 0;
+            for (int dx = 0; dx < DEALS; ++dx) {
+                assertEquals(1, visits.get(dx));
+                generator.deal(dx, expected);
+                expectedChecksum += expected[0] * (dx + 1);
+            }
+            assertEquals(expectedChecksum, checksum.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DealDatabaseTest {
+
+    private static final int DEALS = 20 * ColumnScanner.BLOCK_SIZE + 37;       //  the last block is partial
+
+    private static final long SPADE_ACE = CardMask.getMask(Suit.SPADES, CardMask.getBit(Rank.ACE));
+    private static final long SPADE_KING = CardMask.getMask(Suit.SPADES, CardMask.getBit(Rank.KING));
+    private static final long HEART_QUEEN = CardMask.getMask(Suit.HEARTS, CardMask.getBit(Rank.QUEEN));
+
+    /**
+     * A query, and the same test made directly of the hands (by Position ordinal)
+     */
+    private static class Case {
+
+        private final DealQuery _query;
+        private final Predicate<Hand[]> _expected;
+
+        private Case(
+            final DealQuery query,
+            final Predicate<Hand[]> expected
+        ) {
+            _query = query;
+            _expected = expected;
+        }
+    }
+
+    private static final Case[] CASES = {
+        new Case(DealQuery.ANY, hands -> true),
+        new Case(DealQuery.ANY.withHighCardPoints(Position.SOUTH, 12, 17).withBalanced(Position.SOUTH),
+                 hands -> (hands[0].countHighCardPoints() >= 12) && (hands[0].countHighCardPoints() <= 17)
+                     && hands[0]._distribution.isBalanced()),
+        new Case(DealQuery.ANY.withLength(Position.NORTH, Suit.HEARTS, 4, 13).withQuickTricks(Position.EAST, 1.5f, 3.0f),
+                 hands -> (hands[2]._distribution.getSuitSet(Suit.HEARTS).size() >= 4)
+                     && (hands[3].countQuickTricks() >= 1.5f) && (hands[3].countQuickTricks() <= 3.0f)),
+        new Case(DealQuery.ANY.withCards(Position.WEST, SPADE_ACE).withoutCards(Position.EAST, SPADE_KING | HEART_QUEEN),
+                 hands -> ((hands[1].getCards() & SPADE_ACE) != 0)
+                     && ((hands[3].getCards() & (SPADE_KING | HEART_QUEEN)) == 0)),
+        new Case(DealQuery.ANY.withPatterns(Position.EAST, ShapeTable.PATTERN_4_4_3_2, ShapeTable.PATTERN_4_4_4_1)
+                              .withHighCardPoints(Position.WEST, 0, 9)
+                              .withHighCardPoints(Position.WEST, 6, 20),
+                 hands -> ((hands[3]._distribution._pattern == ShapeTable.PATTERN_4_4_3_2)
+                           || (hands[3]._distribution._pattern == ShapeTable.PATTERN_4_4_4_1))
+                     && (hands[1].countHighCardPoints() >= 6) && (hands[1].countHighCardPoints() <= 9)),
+        new Case(DealQuery.ANY.withLength(Position.SOUTH, Suit.CLUBS, 0, 1).withLength(Position.SOUTH, Suit.DIAMONDS, 0, 1),
+                 hands -> (hands[0]._distribution.getSuitSet(Suit.CLUBS).size() <= 1)
+                     && (hands[0]._distribution.getSuitSet(Suit.DIAMONDS).size() <= 1)),
+        new Case(DealQuery.ANY.withHighCardPoints(Position.NORTH, 20, 37).withHighCardPoints(Position.NORTH, 0, 10),
+                 hands -> false),
+        new Case(DealQuery.ANY.withCards(Position.SOUTH, SPADE_ACE).withCards(Position.NORTH, SPADE_ACE),
+                 hands -> false),
+    };
+
+    private static Path writeArchive(
+        final Path directory
+    ) throws IOException {
+        Path path = directory.resolve("deals.kza");
+        DealGenerator generator = new DealGenerator(22);
+        long[] hands = new long[4];
+        try (DealArchiveWriter writer = new DealArchiveWriter(path)) {
+            for (int dx = 0; dx < DEALS; ++dx) {
+                generator.deal(dx, hands);
+                writer.write(hands);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Runs every case over the deals numbered first through limit, checking find() and count() against the hands
+     */
+    private static void checkAgainstHands(
+        final DealArchive archive,
+        final long first,
+        final long limit,
+        final ColumnScanner scanner
+    ) {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            DealDatabase database = new DealDatabase(archive, first, limit, pool, scanner);
+            assertEquals(limit - first, database.size());
+
+            long[] hands = new long[4];
+            for (Case c : CASES) {
+                List<Long> expected = new ArrayList<>();
+                for (long dx = first; dx < limit; ++dx) {
+                    archive.getHands(dx, hands);
+                    Hand[] handArray = new Hand[4];
+                    for (Position position : Position.values()) {
+                        handArray[position.ordinal()] = new Hand(position, hands[position.ordinal()]);
+                    }
+                    if (c._expected.test(handArray)) {
+                        expected.add(dx);
+                    }
+                }
+
+                String message = String.format("%s over %d-%d", c._query, first, limit);
+                assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), database.find(c._query), message);
+                assertEquals(expected.size(), database.count(c._query), message);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void checkRanges(
+        final Path directory,
+        final ColumnScanner scanner
+    ) throws IOException {
+        try (DealArchive archive = new DealArchive(writeArchive(directory))) {
+            assertEquals(DEALS, archive.size());
+            checkAgainstHands(archive, 0, DEALS, scanner);
+            checkAgainstHands(archive, 5, DEALS - 3, scanner);
+            checkAgainstHands(archive, 64, 64 + 63, scanner);
+            checkAgainstHands(archive, 7, 7, scanner);
+        }
+    }
+
+    @Test
+    public void scalar(
+        @TempDir final Path directory
+    ) throws IOException {
+        checkRanges(directory, ColumnScanner.getScalarInstance());
+    }
+
+    /**
+     * Needs --add-modules jdk.incubator.vector, which the build gives the tests. On a machine without 512-bit
+     * vectors the Vector API emulates them, so the lane logic is checked everywhere.
+     */
+    @Test
+    public void vector(
+        @TempDir final Path directory
+    ) throws IOException {
+        checkRanges(directory, new VectorColumnScanner(false));
+    }
+
+    /**
+     * Whatever getInstance() chose - the vector scanner on a machine with 512-bit vectors
+     */
+    @Test
+    public void instance(
+        @TempDir final Path directory
+    ) throws IOException {
+        checkRanges(directory, ColumnScanner.getInstance());
+    }
+
+    /**
+     * The cases aren't vacuous - every one that can match some deal does so, and none matches all of them
+     */
+    @Test
+    public void casesMatchSome(
+        @TempDir final Path directory
+    ) throws IOException {
+        try (DealArchive archive = new DealArchive(writeArchive(directory))) {
+            DealDatabase database = new DealDatabase(archive);
+            for (int cx = 1; cx < CASES.length - 2; ++cx) {
+                long count = database.count(CASES[cx]._query);
+                assertTrue((count > 0) && (count < DEALS), CASES[cx]._query.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DealFormatTest {
+
+    /**
+     * Records for generated deals, with every dealer and vulnerability, and auctions which are empty, passed out,
+     * doubled, redoubled, and unfinished
+     */
+    private static List<DealRecord> createRecords() {
+        int[][] auctions = {
+            {},
+            { Bid.PASS, Bid.PASS, Bid.PASS, Bid.PASS },
+            { Bid.getCode(1, Bid.NO_TRUMP), Bid.PASS, Bid.getCode(3, Bid.NO_TRUMP), Bid.PASS, Bid.PASS, Bid.PASS },
+            { Bid.PASS, Bid.getCode(1, Suit.SPADES._bidOrder), Bid.DOUBLE, Bid.getCode(4, Suit.SPADES._bidOrder),
+              Bid.DOUBLE, Bid.REDOUBLE, Bid.PASS, Bid.PASS, Bid.PASS },
+            { Bid.getCode(2, Suit.CLUBS._bidOrder), Bid.PASS, Bid.getCode(2, Suit.DIAMONDS._bidOrder) },
+        };
+        DealGenerator generator = new DealGenerator(20);
+        List<DealRecord> result = new ArrayList<>();
+        for (int rx = 0; rx < 20; ++rx) {
+            Position dealer = Position.values()[rx & 3];
+            int[] codes = auctions[rx % auctions.length];
+            Auction auction = DealFormat.buildAuction(dealer, codes, codes.length, false);
+            result.add(new DealRecord(rx + 1, dealer, (rx / 4) & 3, generator.deal(rx), auction));
+        }
+        return result;
+    }
+
+    private static String write(
+        final DealFormat format,
+        final List<DealRecord> records
+    ) {
+        StringBuilder sb = new StringBuilder();
+        for (DealRecord record : records) {
+            format.write(record, sb);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Splits the text into records and parses them, as DealFileReader does for each chunk
+     */
+    private static List<DealRecord> parse(
+        final DealFormat format,
+        final String text
+    ) {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+        int limit = buffer.limit();
+        List<DealRecord> result = new ArrayList<>();
+        int px = DealFormat.skipSpaces(buffer, 0, limit);
+        while (px < limit) {
+            int recordEnd = format.findRecordEnd(buffer, px, limit);
+            DealRecord record = format.parse(buffer, px, recordEnd);
+            if (record != null) {
+                result.add(record);
+            }
+            px = DealFormat.skipSpaces(buffer, recordEnd, limit);
+        }
+        return result;
+    }
+
+    @Test
+    public void pbnRoundTrip() {
+        List<DealRecord> records = createRecords();
+        assertEquals(records, parse(DealFormat.PBN, write(DealFormat.PBN, records)));
+    }
+
+    @Test
+    public void linRoundTrip() {
+        List<DealRecord> records = createRecords();
+        assertEquals(records, parse(DealFormat.LIN, write(DealFormat.LIN, records)));
+    }
+
+    @Test
+    public void crlf() {
+        List<DealRecord> records = createRecords();
+        assertEquals(records, parse(DealFormat.PBN, write(DealFormat.PBN, records).replace("\n", "\r\n")));
+        assertEquals(records, parse(DealFormat.LIN, write(DealFormat.LIN, records).replace("\n", "\r\n")));
+    }
+
+    /**
+     * Commentary in braces may hold empty lines, which don't end the record - whether it stands between tags or
+     * among the calls of the auction. Braces in comments and tag values don't count.
+     */
+    @Test
+    public void pbnCommentary() {
+        List<DealRecord> records = createRecords().subList(2, 4);
+        String text = write(DealFormat.PBN, records);
+        String first = text.substring(0, text.indexOf("\n\n") + 2);
+        String rest = text.substring(first.length());
+
+        assertTrue(first.contains("1NT Pass") && rest.contains("[Deal"));
+        String annotated = "% header {\n\n"
+            + "[Event \"{Club\"]\n"
+            + first.replace("[Vulnerable", "{A deal with\n\nsome words about it}\n[Vulnerable")
+                   .replace("1NT Pass", "1NT {strong,\n\n15-17} Pass ; {\n")
+            + rest.replace("[Deal", "{\n}\n[Deal");
+        assertEquals(records, parse(DealFormat.PBN, annotated));
+    }
+
+    /**
+     * AP ends the auction with passes all round
+     */
+    @Test
+    public void pbnAllPass() {
+        DealRecord record = createRecords().get(2);
+        String text = write(DealFormat.PBN, Collections.singletonList(record));
+        assertTrue(text.contains("3NT Pass\nPass Pass\n"));
+        text = text.replace("3NT Pass\nPass Pass\n", "3NT AP\n");
+        assertEquals(Collections.singletonList(record), parse(DealFormat.PBN, text));
+    }
+
+    /**
+     * A hand left out is whatever the other three don't hold
+     */
+    @Test
+    public void missingFourthHand() {
+        DealRecord record = createRecords().get(1);
+        String pbn = write(DealFormat.PBN, Collections.singletonList(record));
+        int dealEnd = pbn.indexOf("\"]", pbn.indexOf("[Deal"));
+        pbn = pbn.substring(0, pbn.lastIndexOf(' ', dealEnd) + 1) + "-" + pbn.substring(dealEnd);
+        assertEquals(Collections.singletonList(record), parse(DealFormat.PBN, pbn));
+
+        String lin = write(DealFormat.LIN, Collections.singletonList(record));
+        int handsEnd = lin.indexOf('|', 3);
+        lin = lin.substring(0, lin.lastIndexOf(',', handsEnd) + 1) + lin.substring(handsEnd);
+        assertEquals(Collections.singletonList(record), parse(DealFormat.LIN, lin));
+    }
+
+    /**
+     * Whole files, in order and in parallel, with commentary that holds empty lines
+     */
+    @Test
+    public void readFiles(
+        @TempDir final Path directory
+    ) throws IOException {
+        List<DealRecord> records = createRecords();
+        for (DealFormat format : new DealFormat[] { DealFormat.PBN, DealFormat.LIN }) {
+            String text = write(format, records);
+            Path path = directory.resolve((format == DealFormat.PBN) ? "deals.pbn" : "deals.lin");
+            if (format == DealFormat.PBN) {
+                text = text.replace("[Vulnerable", "{Notes\n\n}\n[Vulnerable");
+            }
+            Files.writeString(path, text, StandardCharsets.US_ASCII);
+
+            try (DealFileReader reader = new DealFileReader(path)) {
+                List<DealRecord> read = new ArrayList<>();
+                assertEquals(records.size(), reader.forEach(read::add));
+                assertEquals(records, read);
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try (DealFileReader reader = new DealFileReader(path, format, pool)) {
+                List<DealRecord> read = Collections.synchronizedList(new ArrayList<>());
+                assertEquals(records.size(), reader.parallelForEach(read::add));
+                read.sort((r1, r2) -> Integer.compare(r1._boardNumber, r2._boardNumber));
+                assertEquals(records, read);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+public class DealGeneratorTest {
+
+    private static double chiSquare(
+        final long[] counts,
+        final double expected
+    ) {
+        double result = 0.0;
+        for (long count : counts) {
+            result += (count - expected) * (count - expected) / expected;
+        }
+        return result;
+    }
+
+    /**
+     * Each card goes to each position a quarter of the time. There are 52 x 4 counts, and each card's four add up
+     * to the number of deals, so a chi-square statistic over them should be near its 156 degrees of freedom.
+     */
+    @Test
+    public void uniform() {
+        DealGenerator generator = new DealGenerator(3);
+        int deals = 300_000;
+        long[] counts = new long[52 * 4];
+        long[] hands = new long[4];
+        for (int dx = 0; dx < deals; ++dx) {
+            generator.next(hands);
+            for (int hx = 0; hx < 4; ++hx) {
+                assertEquals(13, Long.bitCount(hands[hx]));
+                for (long cards = hands[hx]; cards != 0; cards &= cards - 1) {
+                    ++counts[Long.numberOfTrailingZeros(cards) * 4 + hx];
+                }
+            }
+        }
+        double chiSquare = chiSquare(counts, deals / 4.0);
+        assertTrue(chiSquare < 250.0, "chi-square " + chiSquare);
+    }
+
+    /**
+     * Bounded draws are unbiased - including bounds near the size of the random value, for which taking the
+     * remainder would make the low third of the range half as likely again as the rest
+     */
+    @Test
+    public void boundedDraws() {
+        DealRandom random = new DealRandom();
+        random.reset(3, 0);
+        int samples = 300_000;
+
+        for (int bound : new int[] { 2, 3, 7, 13, 52 }) {
+            long[] counts = new long[bound];
+            for (int sx = 0; sx < samples; ++sx) {
+                ++counts[random.nextInt(bound)];
+            }
+            double chiSquare = chiSquare(counts, (double) samples / bound);
+            assertTrue(chiSquare < bound + 6.0 * Math.sqrt(2.0 * bound), bound + ": chi-square " + chiSquare);
+        }
+
+        int intBound = 3 << 29;
+        long[] counts = new long[3];
+        for (int sx = 0; sx < samples; ++sx) {
+            int value = random.nextInt(intBound);
+            assertTrue((value >= 0) && (value < intBound));
+            ++counts[value / (1 << 29)];
+        }
+        double chiSquare = chiSquare(counts, samples / 3.0);
+        assertTrue(chiSquare < 20.0, "int chi-square " + chiSquare);
+
+        long longBound = 3L << 61;
+        counts = new long[3];
+        for (int sx = 0; sx < samples; ++sx) {
+            long value = random.nextLong(longBound);
+            assertTrue((value >= 0) && (value < longBound));
+            ++counts[(int) (value / (1L << 61))];
+        }
+        chiSquare = chiSquare(counts, samples / 3.0);
+        assertTrue(chiSquare < 20.0, "long chi-square " + chiSquare);
+    }
+
+    /**
+     * Deal number N is the N-th deal of next(), whichever way it is asked for, and depends only upon the seed and N
+     */
+    @Test
+    public void numbered() {
+        DealGenerator stream = new DealGenerator(5);
+        DealGenerator direct = new DealGenerator(5);
+        DealGenerator other = new DealGenerator(6);
+        Deal[] deals = new Deal[200];
+        long[] hands = new long[4];
+        int same = 0;
+        for (int dx = 0; dx < deals.length; ++dx) {
+            assertEquals(dx, stream.getIndex());
+            deals[dx] = stream.next();
+            assertEquals(deals[dx], direct.deal(dx));
+            direct.deal(dx, hands);
+            assertEquals(deals[dx], new Deal(hands));
+            same += deals[dx].equals(other.deal(dx)) ? 1 : 0;
+        }
+        assertEquals(0, same);
+
+        //  deal() leaves the stream alone, and backwards gives the same deals
+        assertEquals(0, direct.getIndex());
+        for (int dx = deals.length - 1; dx >= 0; --dx) {
+            assertEquals(deals[dx], direct.deal(dx));
+        }
+        assertEquals(deals[0], direct.next());
+
+        //  a generator may start anywhere
+        DealGenerator started = new DealGenerator(5, 150);
+        assertEquals(150, started.getIndex());
+        assertEquals(deals[150], started.next());
+        assertEquals(5, started.getSeed());
+    }
+
+    /**
+     * After seek(), next() carries on from the given deal - forwards, backwards, and far beyond the deals so far
+     */
+    @Test
+    public void seek() {
+        DealGenerator generator = new DealGenerator(7);
+        Deal[] deals = new Deal[100];
+        for (int dx = 0; dx < deals.length; ++dx) {
+            deals[dx] = generator.next();
+        }
+
+        generator.seek(37);
+        assertEquals(37, generator.getIndex());
+        for (int dx = 37; dx < 60; ++dx) {
+            assertEquals(deals[dx], generator.next());
+        }
+        generator.seek(90);
+        for (int dx = 90; dx < deals.length; ++dx) {
+            assertEquals(deals[dx], generator.next());
+        }
+        generator.seek(0);
+        assertEquals(deals[0], generator.next());
+
+        long far = 1L << 40;
+        generator.seek(far);
+        Deal farDeal = generator.next();
+        assertEquals(far + 1, generator.getIndex());
+        assertEquals(farDeal, new DealGenerator(7).deal(far));
+    }
+
+    /**
+     * Split streams differ from their parent and from each other, and the same sequence of splits of the same
+     * generator gives the same streams
+     */
+    @Test
+    public void split() {
+        DealGenerator first = new DealGenerator(9);
+        DealGenerator second = new DealGenerator(9);
+        Set<Deal> seen = new HashSet<>();
+        for (int dx = 0; dx < 100; ++dx) {
+            seen.add(first.deal(dx));
+        }
+
+        Set<Long> seeds = new HashSet<>();
+        seeds.add(first.getSeed());
+        for (int sx = 0; sx < 20; ++sx) {
+            DealGenerator child = first.split();
+            DealGenerator again = second.split();
+            assertEquals(again.getSeed(), child.getSeed());
+            assertTrue(seeds.add(child.getSeed()));
+            assertEquals(0, child.getIndex());
+            for (int dx = 0; dx < 100; ++dx) {
+                Deal deal = child.next();
+                assertEquals(deal, again.next());
+                assertTrue(seen.add(deal));
+            }
+        }
+
+        //  splitting the parent does not move its stream
+        assertEquals(0, first.getIndex());
+        assertEquals(new DealGenerator(9).deal(0), first.next());
+
+        //  splits of a split are distinct from the parent's splits
+        DealGenerator grandchild = new DealGenerator(9).split().split();
+        assertTrue(seeds.add(grandchild.getSeed()));
+    }
+
+    /**
+     * Totals over a range of deals, each task dealing its own chunk of the range with its own generator, are the same
+     * on pools of one, three and eight threads
+     */
+    @Test
+    public void independentOfThreads() {
+        int chunk = 1000;
+        long deals = 100 * chunk;
+        long[] expected = null;
+        for (int threads : new int[] { 1, 3, 8 }) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long[] totals = pool.submit(() -> LongStream.range(0, deals / chunk)
+                    .parallel()
+                    .collect(() -> new long[3],
+                             (result, cx) -> {
+                                 DealGenerator generator = new DealGenerator(11);
+                                 generator.seek(cx * chunk);
+                                 long[] hands = new long[4];
+                                 for (int dx = 0; dx < chunk; ++dx) {
+                                     long index = generator.getIndex();
+                                     generator.next(hands);
+                                     result[0] += HandSpecTest.countHighCardPoints(hands[0]);
+                                     result[1] += hands[2] * (index + 1);
+                                     result[2] ^= hands[3] * DealRandom.GOLDEN_GAMMA;
+                                 }
+                             },
+                             (left, right) -> {
+                                 left[0] += right[0];
+                                 left[1] += right[1];
+                                 left[2] ^= right[2];
+                             })).join();
+                if (expected == null) {
+                    expected = totals;
+                } else {
+                    assertArrayEquals(expected, totals);
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        //  and the same as the single stream, dealt in order
+        DealGenerator generator = new DealGenerator(11);
+        long[] hands = new long[4];
+        long[] sequential = new long[3];
+        for (long dx = 0; dx < deals; ++dx) {
+            generator.next(hands);
+            sequential[0] += HandSpecTest.countHighCardPoints(hands[0]);
+            sequential[1] += hands[2] * (dx + 1);
+            sequential[2] ^= hands[3] * DealRandom.GOLDEN_GAMMA;
+        }
+        assertArrayEquals(sequential, expected);
+        assertNotEquals(0, expected[0]);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class DistributionTest {
+
+    /**
+     * Full hands are classified by ShapeTable - check that against the suit lengths counted directly
+     */
+    @Test
+    public void fullHands() {
+        DealGenerator generator = new DealGenerator(18);
+        long[] hands = new long[4];
+        for (int dx = 0; dx < 1000; ++dx) {
+            generator.deal(dx, hands);
+            for (long cards : hands) {
+                Distribution distribution = new Distribution(cards);
+                assertTrue(distribution._pattern >= 0);
+                int previous = 14;
+                int previousSuit = -1;
+                StringBuilder sb = new StringBuilder();
+                for (int sx = 0; sx < 4; ++sx) {
+                    SuitSet suitSet = distribution.get(sx);
+                    int length = CardMask.count(cards & CardMask.getMask(suitSet._suit, CardMask.HOLDING_MASK));
+                    assertEquals(length, suitSet.size());
+                    assertEquals(length, distribution.getLength(sx));
+                    assertTrue((length < previous) || ((length == previous) && (suitSet._suit._bidOrder > previousSuit)));
+                    previous = length;
+                    previousSuit = suitSet._suit._bidOrder;
+                    sb.append((sx == 0) ? "" : "-").append(length);
+                }
+                assertEquals(sb.toString(), distribution.getDistributionString());
+                assertEquals(cards, distribution.getCards());
+            }
+        }
+    }
+
+    /**
+     * Anything short of 13 cards has no shape, but its suits are still ordered and counted
+     */
+    @Test
+    public void partialHand() {
+        long cards = CardMask.getMask(Suit.SPADES, 0x1800) | CardMask.getMask(Suit.HEARTS, 0x0001);
+        Distribution distribution = new Distribution(cards);
+        assertEquals(-1, distribution._shape);
+        assertEquals(-1, distribution._pattern);
+        assertArrayEquals(new int[]{ 2, 1, 0, 0 }, distribution.getNumericalDistribution());
+        assertEquals("2-1-0-0", distribution.getDistributionString());
+        assertEquals(Suit.SPADES, distribution.getFirst()._suit);
+        assertEquals(Suit.HEARTS, distribution.get(1)._suit);
+        assertEquals(Suit.CLUBS, distribution.get(2)._suit);
+        assertEquals(Suit.DIAMONDS, distribution.get(3)._suit);
+        assertFalse(distribution.isBalanced());
+        assertEquals(cards, distribution.getCards());
+    }
+
+    /**
+     * Four cards in each suit is 16 cards, which would be 4-4-4-1 if spades were taken to be the rest of 13
+     */
+    @Test
+    public void overfullHand() {
+        long cards = 0;
+        for (Suit suit : Suit.values()) {
+            cards |= CardMask.getMask(suit, 0x000F);
+        }
+        Distribution distribution = new Distribution(cards);
+        assertEquals("4-4-4-4", distribution.getDistributionString());
+        assertEquals(Suit.CLUBS, distribution.getFirst()._suit);
+        assertFalse(distribution.isBalanced());
+    }
+
+    /**
+     * Full hands of the same pattern share ShapeTable's lengths - changing the copy a distribution hands out
+     * must not change another hand's lengths
+     */
+    @Test
+    public void lengthsNotShared() {
+        long first = CardMask.getMask(Suit.SPADES, 0x000F)
+            | CardMask.getMask(Suit.HEARTS, 0x0007)
+            | CardMask.getMask(Suit.DIAMONDS, 0x0007)
+            | CardMask.getMask(Suit.CLUBS, 0x0007);
+        long second = CardMask.getMask(Suit.CLUBS, 0x00F0)
+            | CardMask.getMask(Suit.DIAMONDS, 0x0070)
+            | CardMask.getMask(Suit.HEARTS, 0x0070)
+            | CardMask.getMask(Suit.SPADES, 0x0070);
+        Distribution distribution = new Distribution(first);
+        int[] lengths = distribution.getNumericalDistribution();
+        assertArrayEquals(Distribution.ND_4_3_3_3, lengths);
+        lengths[0] = 13;
+        assertEquals(4, distribution.getLength(0));
+        assertArrayEquals(Distribution.ND_4_3_3_3, new Distribution(second).getNumericalDistribution());
+        assertArrayEquals(Distribution.ND_4_3_3_3, ShapeTable.getPatternLengths(distribution._pattern));
+
+        ShapeTable.getPatternLengths(distribution._pattern)[0] = 13;
+        assertEquals(4, ShapeTable.getPatternLength(distribution._pattern, 0));
+        assertEquals(4, new Distribution(second).getLength(0));
+    }
+
+    /**
+     * The ND_* constants are the lengths of the matching ShapeTable patterns
+     */
+    @Test
+    public void patternConstants() {
+        assertArrayEquals(Distribution.ND_4_3_3_3, ShapeTable.getPatternLengths(ShapeTable.PATTERN_4_3_3_3));
+        assertArrayEquals(Distribution.ND_4_4_3_2, ShapeTable.getPatternLengths(ShapeTable.PATTERN_4_4_3_2));
+        assertArrayEquals(Distribution.ND_4_4_4_1, ShapeTable.getPatternLengths(ShapeTable.PATTERN_4_4_4_1));
+        assertArrayEquals(Distribution.ND_5_3_3_2, ShapeTable.getPatternLengths(ShapeTable.PATTERN_5_3_3_2));
+    }
+
+    /**
+     * A shape is only found for lengths which could be a full hand
+     */
+    @Test
+    public void invalidShapes() {
+        assertEquals(ShapeTable.getShape(0, 0, 0), ShapeTable.getShape(CardMask.getMask(Suit.SPADES, CardMask.HOLDING_MASK)));
+        assertEquals(ShapeTable.getShape(13, 0, 0), ShapeTable.getShape(CardMask.getMask(Suit.CLUBS, CardMask.HOLDING_MASK)));
+        assertThrows(RuntimeException.class, () -> ShapeTable.getShape(5, 5, 4));
+        assertThrows(RuntimeException.class, () -> ShapeTable.getShape(14, 0, 0));
+        assertThrows(RuntimeException.class, () -> ShapeTable.getShape(-1, 7, 7));
+        assertThrows(RuntimeException.class, () -> ShapeTable.getShape(3, -2, 4));
+        assertThrows(RuntimeException.class, () -> ShapeTable.getShape(0x000FL));
+        assertThrows(RuntimeException.class, () -> ShapeTable.getShape(CardMask.FULL_DECK));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class DoubleDummySolverTest {
+
+    private static final int HOLDING = CardMask.HOLDING_MASK;
+    private static final int RANKS = CardMask.RANKS_PER_SUIT;
+
+    /**
+     * Solves random endings of the given size in every strain with a random declarer, on one solver which keeps its
+     * transposition table throughout, and checks each result against brute force
+     */
+    private static void checkEndings(
+        final long seed,
+        final int cards,
+        final int endings
+    ) {
+        Random random = new Random(seed);
+        DoubleDummySolver solver = new DoubleDummySolver(14);
+        for (int ex = 0; ex < endings; ++ex) {
+            long[] hands = BruteForceSolver.createEnding(random, cards);
+            for (int strain = 0; strain < 5; ++strain) {
+                Suit trumps = (strain == 4) ? null : Suit.values()[strain];
+                int declarer = random.nextInt(4);
+                int expected = new BruteForceSolver(strain).solve(hands, declarer);
+                int actual = solver.solve(hands, trumps, Position.values()[declarer]);
+                assertEquals(expected,
+                             actual,
+                             String.format("%s in %s by %s", Arrays.toString(hands), trumps, Position.values()[declarer]));
+            }
+        }
+    }
+
+    /**
+     * Solves a full deal in every strain for every declarer, on one solver, and checks the tricks against
+     * expected[strain][declarer] (strains from clubs to no-trump, declarers by Position.ordinal())
+     */
+    private static void checkDeal(
+        final DoubleDummySolver solver,
+        final long[] hands,
+        final int[][] expected
+    ) {
+        for (int strain = 0; strain < 5; ++strain) {
+            Suit trumps = (strain == 4) ? null : Suit.values()[strain];
+            for (Position declarer : Position.values()) {
+                assertEquals(expected[strain][declarer.ordinal()],
+                             solver.solve(hands, trumps, declarer),
+                             String.format("%s in %s by %s", Arrays.toString(hands), trumps, declarer));
+            }
+        }
+    }
+
+    @Test
+    public void threeCardEndings() {
+        checkEndings(3, 3, 4000);
+    }
+
+    @Test
+    public void fourCardEndings() {
+        checkEndings(4, 4, 4000);
+    }
+
+    @Test
+    public void fiveCardEndings() {
+        checkEndings(5, 5, 600);
+    }
+
+    @Test
+    public void sixCardEndings() {
+        checkEndings(6, 6, 40);
+    }
+
+    /**
+     * Equivalent cards which were never tried (HK under HA) once let a transposition table entry stand for
+     * a position in which they are not equivalent (HK and H5, with partner's HT between)
+     */
+    @Test
+    public void prunedCardsDecideResult() {
+        long[] hands = { 2216219967488L, 2393638961152000L, 9208946753536L, 271056897L };
+        assertEquals(4, new BruteForceSolver(Suit.HEARTS._bidOrder).solve(hands, Position.NORTH.ordinal()));
+        assertEquals(4, new DoubleDummySolver().solve(hands, Suit.HEARTS, Position.NORTH));
+    }
+
+    /**
+     * Each hand holds a whole suit. In no-trump the opening leader runs it; otherwise the side with the trumps
+     * ruffs the opening lead if it has to, and then runs them.
+     */
+    @Test
+    public void oneSuitEach() {
+        long[] hands = {
+            CardMask.getMask(Suit.SPADES, HOLDING),
+            CardMask.getMask(Suit.HEARTS, HOLDING),
+            CardMask.getMask(Suit.DIAMONDS, HOLDING),
+            CardMask.getMask(Suit.CLUBS, HOLDING),
+        };
+        checkDeal(new DoubleDummySolver(),
+                  hands,
+                  new int[][] { { 0, 13, 0, 13 }, { 13, 0, 13, 0 }, { 0, 13, 0, 13 }, { 13, 0, 13, 0 }, { 0, 0, 0, 0 } });
+    }
+
+    /**
+     * South has the top three cards of every suit and the jack of spades, and west and east have as many cards as
+     * south in every suit, so they can never ruff - south wins every trick
+     */
+    @Test
+    public void southHasEverything() {
+        long[] hands = new long[4];
+        for (Suit suit : Suit.values()) {
+            boolean spades = suit == Suit.SPADES;
+            hands[Position.SOUTH.ordinal()] |= CardMask.getMask(suit, spades ? 0x1E00 : 0x1C00);
+            hands[Position.WEST.ordinal()] |= CardMask.getMask(suit, spades ? 0x01E0 : 0x0380);
+            hands[Position.EAST.ordinal()] |= CardMask.getMask(suit, spades ? 0x001E : 0x0070);
+            hands[Position.NORTH.ordinal()] |= CardMask.getMask(suit, spades ? 0x0001 : 0x000F);
+        }
+        int[] northSouth = { 13, 0, 13, 0 };
+        checkDeal(new DoubleDummySolver(),
+                  hands,
+                  new int[][] { northSouth, northSouth, northSouth, northSouth, northSouth });
+    }
+
+    /**
+     * The strongest seven cards of each hand of a few generated deals - by rank, whatever the suit - so that the
+     * endings keep the shape and the honors of real deals, solved for every strain and declarer on one solver
+     */
+    @Test
+    public void reducedDeals() {
+        DealGenerator generator = new DealGenerator(1);
+        DoubleDummySolver solver = new DoubleDummySolver();
+        long[] deal = new long[4];
+        for (int dx = 0; dx < 3; ++dx) {
+            generator.deal(dx, deal);
+            long[] hands = new long[4];
+            for (int px = 0; px < 4; ++px) {
+                int kept = 0;
+                for (int rank = RANKS - 1; (rank >= 0) && (kept < 7); --rank) {
+                    for (int sx = 0; (sx < 4) && (kept < 7); ++sx) {
+                        long bit = 1L << (sx * RANKS + rank);
+                        if ((deal[px] & bit) != 0) {
+                            hands[px] |= bit;
+                            ++kept;
+                        }
+                    }
+                }
+            }
+
+            int[][] expected = new int[5][4];
+            for (int strain = 0; strain < 5; ++strain) {
+                BruteForceSolver bruteForce = new BruteForceSolver(strain);
+                for (int declarer = 0; declarer < 4; ++declarer) {
+                    expected[strain][declarer] = bruteForce.solve(hands, declarer);
+                }
+            }
+            checkDeal(solver, hands, expected);
+        }
+    }
+
+    /**
+     * The table must hold at least one bucket
+     */
+    @Test
+    public void tableTooSmall() {
+        assertThrows(RuntimeException.class, () -> new DoubleDummySolver(5));
+        new DoubleDummySolver(6).solve(new long[] { 0x1L, 0x2L, 0x4L, 0x8L }, null, Position.SOUTH);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HandIndexTest {
+
+    private static final int DEALS = 400;
+    private static final int FIRST = 3;
+    private static final int LIMIT = 300;
+
+    //  HCP, length, honor and quick trick weights - the defaults, some which make ties common, and all ties
+    private static final int[][] WEIGHTS = {
+        { HandIndex.DEFAULT_HIGH_CARD_POINT_WEIGHT,
+          HandIndex.DEFAULT_LENGTH_WEIGHT,
+          HandIndex.DEFAULT_HONOR_WEIGHT,
+          HandIndex.DEFAULT_QUICK_TRICK_WEIGHT },
+        { 1, 1, 0, 0 },
+        { 0, 1, 0, 0 },
+        { 0, 0, 1, 1 },
+        { 0, 0, 0, 0 },
+    };
+
+    private static final int[] KS = { 1, 5, 40, 4 * (LIMIT - FIRST), 4 * (LIMIT - FIRST) + 1, 5000 };
+
+    private static Path writeArchive(
+        final Path directory
+    ) throws IOException {
+        Path path = directory.resolve("deals.kza");
+        DealGenerator generator = new DealGenerator(23);
+        long[] hands = new long[4];
+        try (DealArchiveWriter writer = new DealArchiveWriter(path)) {
+            for (int dx = 0; dx < DEALS; ++dx) {
+                generator.deal(dx, hands);
+                writer.write(hands);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Distance as the HandIndex javadoc defines it, counted from Hand
+     */
+    private static int getDistance(
+        final int[] weights,
+        final long cards1,
+        final long cards2
+    ) {
+        Hand hand1 = new Hand(Position.SOUTH, cards1);
+        Hand hand2 = new Hand(Position.SOUTH, cards2);
+        int lengths = 0;
+        int honors = 0;
+        for (Suit suit : Suit.values()) {
+            lengths += Math.abs(hand1._distribution.getSuitSet(suit).size() - hand2._distribution.getSuitSet(suit).size());
+            for (Rank rank : new Rank[] { Rank.ACE, Rank.KING, Rank.QUEEN, Rank.JACK }) {
+                long card = CardMask.getMask(suit, CardMask.getBit(rank));
+                honors += (((cards1 ^ cards2) & card) != 0) ? 1 : 0;
+            }
+        }
+        return Math.abs(hand1.countHighCardPoints() - hand2.countHighCardPoints()) * weights[0]
+               + lengths * weights[1]
+               + honors * weights[2]
+               + Math.abs((int) (hand1.countQuickTricks() * 2) - (int) (hand2.countQuickTricks() * 2)) * weights[3];
+    }
+
+    /**
+     * Every indexed hand, as distance and then hand number (deal * 4 + position), in the order findNearest()
+     * should give them
+     */
+    private static long[] scanLinearly(
+        final DealArchive archive,
+        final int[] weights,
+        final long cards
+    ) {
+        long[] result = new long[4 * (LIMIT - FIRST)];
+        long[] hands = new long[4];
+        for (int dx = FIRST; dx < LIMIT; ++dx) {
+            archive.getHands(dx, hands);
+            for (int hx = 0; hx < 4; ++hx) {
+                int handNumber = (dx - FIRST) * 4 + hx;
+                result[handNumber] = ((long) getDistance(weights, cards, hands[hx]) << 32) | handNumber;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Hands to look for - some indexed, some in the archive outside the index, and some from elsewhere
+     */
+    private static long[] createQueries(
+        final DealArchive archive
+    ) {
+        long[] result = new long[16];
+        for (int qx = 0; qx < 8; ++qx) {
+            result[qx] = archive.getCards(FIRST + qx * 37, Position.values()[qx % 4]);
+        }
+        result[8] = archive.getCards(0, Position.NORTH);
+        result[9] = archive.getCards(LIMIT + 10, Position.EAST);
+        DealGenerator generator = new DealGenerator(230);
+        long[] hands = new long[4];
+        for (int qx = 10; qx < result.length; ++qx) {
+            generator.deal(qx, hands);
+            result[qx] = hands[qx % 4];
+        }
+        return result;
+    }
+
+    @Test
+    public void findNearest(
+        @TempDir final Path directory
+    ) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try (DealArchive archive = new DealArchive(writeArchive(directory))) {
+            long[] queries = createQueries(archive);
+            for (int[] weights : WEIGHTS) {
+                HandIndex index = new HandIndex(archive, FIRST, LIMIT, weights[0], weights[1], weights[2], weights[3], pool);
+                assertEquals(4 * (LIMIT - FIRST), index.size());
+
+                for (long cards : queries) {
+                    long[] expected = scanLinearly(archive, weights, cards);
+                    for (int k : KS) {
+                        HandIndex.Neighbor[] neighbors = index.findNearest(cards, k);
+                        String message =
+                            String.format("weights %s k %d query %s", Arrays.toString(weights), k, new Distribution(cards));
+                        assertEquals(Math.min(k, expected.length), neighbors.length, message);
+                        for (int nx = 0; nx < neighbors.length; ++nx) {
+                            int handNumber = (int) expected[nx];
+                            long deal = FIRST + handNumber / 4;
+                            Position position = Position.values()[handNumber % 4];
+                            HandIndex.Neighbor neighbor = neighbors[nx];
+                            assertEquals(deal, neighbor._deal, message);
+                            assertEquals(position, neighbor._position, message);
+                            assertEquals(archive.getCards(deal, position), neighbor._cards, message);
+                            assertEquals((int) (expected[nx] >>> 32), neighbor._distance, message);
+                            assertEquals(neighbor._distance, index.getDistance(cards, neighbor._cards), message);
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * An indexed hand is its own nearest neighbor, at distance zero
+     */
+    @Test
+    public void findSelf(
+        @TempDir final Path directory
+    ) throws IOException {
+        try (DealArchive archive = new DealArchive(writeArchive(directory))) {
+            HandIndex index = new HandIndex(archive);
+            for (int dx = 0; dx < DEALS; dx += 13) {
+                for (Position position : Position.values()) {
+                    HandIndex.Neighbor[] neighbors = index.findNearest(archive.getCards(dx, position), 1);
+                    assertEquals(1, neighbors.length);
+                    assertEquals(0, neighbors[0]._distance);
+                    assertTrue((neighbors[0]._deal < dx)
+                               || ((neighbors[0]._deal == dx) && (neighbors[0]._position.ordinal() <= position.ordinal())));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void emptyIndex(
+        @TempDir final Path directory
+    ) throws IOException {
+        try (DealArchive archive = new DealArchive(writeArchive(directory))) {
+            HandIndex index = new HandIndex(archive, 7, 7, 1, 1, 1, 1, ForkJoinPool.commonPool());
+            assertEquals(0, index.size());
+            assertEquals(0, index.findNearest(archive.getCards(7, Position.SOUTH), 10).length);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class HandSpecTest {
+
+    /**
+     * High-card points of a hand, counted card by card
+     */
+    static int countHighCardPoints(
+        final long cards
+    ) {
+        int points = 0;
+        for (Suit suit : Suit.values()) {
+            int holding = CardMask.getHolding(cards, suit);
+            for (int bit = 9; bit < 13; ++bit) {
+                if ((holding & (1 << bit)) != 0) {
+                    points += bit - 8;
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Suit lengths of a hand, indexed by Suit._bidOrder
+     */
+    static int[] countLengths(
+        final long cards
+    ) {
+        int[] lengths = new int[4];
+        for (Suit suit : Suit.values()) {
+            lengths[suit._bidOrder] = Integer.bitCount(CardMask.getHolding(cards, suit));
+        }
+        return lengths;
+    }
+
+    /**
+     * Whether a hand is 4-3-3-3, 4-4-3-2 or 5-3-3-2, worked out from its sorted lengths
+     */
+    static boolean isBalanced(
+        final int[] lengths
+    ) {
+        int[] sorted = Arrays.copyOf(lengths, 4);
+        Arrays.sort(sorted);
+        return (sorted[0] >= 2) && (sorted[1] >= 3) && (sorted[3] <= 5);
+    }
+
+    /**
+     * Whether a hand satisfies the spec, worked out afresh from its cards
+     */
+    static boolean isSatisfied(
+        final HandSpec spec,
+        final long cards
+    ) {
+        if (spec.isFixed()) {
+            return cards == spec._cards;
+        }
+        int points = countHighCardPoints(cards);
+        if ((points < spec._minHighCardPoints) || (points > spec._maxHighCardPoints)) {
+            return false;
+        }
+        int[] lengths = countLengths(cards);
+        for (Suit suit : Suit.values()) {
+            int length = lengths[suit._bidOrder];
+            if ((length < spec.getMinLength(suit)) || (length > spec.getMaxLength(suit))) {
+                return false;
+            }
+        }
+        return !spec._balanced || isBalanced(lengths);
+    }
+
+    /**
+     * A random spec with a point range, and maybe a length range for a suit or two and a need to be balanced
+     */
+    static HandSpec createSpec(
+        final Random random
+    ) {
+        int min = random.nextInt(20);
+        HandSpec spec = HandSpec.ANY.withHighCardPoints(min, min + random.nextInt(10));
+        for (Suit suit : Suit.values()) {
+            if (random.nextInt(3) == 0) {
+                int length = random.nextInt(7);
+                spec = spec.withLength(suit, length, length + random.nextInt(4));
+            }
+        }
+        return (random.nextInt(4) == 0) ? spec.withBalanced() : spec;
+    }
+
+    @Test
+    public void matches() {
+        Random random = new Random(6);
+        DealGenerator generator = new DealGenerator(6);
+        long[] hands = new long[4];
+        int accepted = 0;
+        for (int sx = 0; sx < 500; ++sx) {
+            HandSpec spec = createSpec(random);
+            for (int dx = 0; dx < 50; ++dx) {
+                generator.next(hands);
+                for (long cards : hands) {
+                    boolean expected = isSatisfied(spec, cards);
+                    assertEquals(expected, spec.matches(cards), () -> spec + " " + new Distribution(cards));
+                    int points = countHighCardPoints(cards);
+                    if ((points >= spec._minHighCardPoints) && (points <= spec._maxHighCardPoints)) {
+                        assertEquals(expected, spec.acceptsShape(countLengths(cards)));
+                    }
+                    accepted += expected ? 1 : 0;
+                }
+            }
+        }
+        assertTrue(accepted > 1000);
+    }
+
+    @Test
+    public void shapes() {
+        HandSpec balanced = HandSpec.ANY.withBalanced();
+        assertTrue(balanced.acceptsShape(new int[]{ 3, 3, 3, 4 }));
+        assertTrue(balanced.acceptsShape(new int[]{ 2, 4, 4, 3 }));
+        assertTrue(balanced.acceptsShape(new int[]{ 5, 3, 2, 3 }));
+        assertFalse(balanced.acceptsShape(new int[]{ 5, 4, 2, 2 }));
+        assertFalse(balanced.acceptsShape(new int[]{ 6, 3, 2, 2 }));
+        assertFalse(balanced.acceptsShape(new int[]{ 4, 4, 4, 1 }));
+        //  a partial hand is never balanced
+        assertFalse(balanced.acceptsShape(new int[]{ 3, 3, 3, 3 }));
+
+        HandSpec spades = HandSpec.ANY.withLength(Suit.SPADES, 5, 6);
+        assertTrue(spades.acceptsShape(new int[]{ 3, 3, 2, 5 }));
+        assertTrue(spades.acceptsShape(new int[]{ 3, 2, 2, 6 }));
+        assertFalse(spades.acceptsShape(new int[]{ 3, 3, 3, 4 }));
+        assertFalse(spades.acceptsShape(new int[]{ 2, 2, 2, 7 }));
+    }
+
+    @Test
+    public void construction() {
+        assertTrue(HandSpec.ANY.isAny());
+        assertFalse(HandSpec.ANY.isFixed());
+        assertFalse(HandSpec.ANY.withBalanced().isAny());
+        assertFalse(HandSpec.ANY.withHighCardPoints(0, 10).isAny());
+        assertTrue(HandSpec.ANY.withLength(Suit.HEARTS, 0, 13).isAny());
+        assertFalse(HandSpec.ANY.withLength(Suit.HEARTS, 1, 13).isAny());
+
+        //  with...() leaves the original alone
+        HandSpec spec = HandSpec.ANY.withLength(Suit.CLUBS, 4, 6);
+        HandSpec both = spec.withLength(Suit.DIAMONDS, 0, 2);
+        assertEquals(0, spec.getMinLength(Suit.DIAMONDS));
+        assertEquals(13, spec.getMaxLength(Suit.DIAMONDS));
+        assertEquals(4, both.getMinLength(Suit.CLUBS));
+        assertEquals(2, both.getMaxLength(Suit.DIAMONDS));
+        assertEquals(String.format("HCP=0-37 %s=4-6", Suit.CLUBS._symbol), spec.toString());
+
+        long hand = CardMask.getMask(Suit.SPADES, CardMask.HOLDING_MASK);
+        HandSpec exact = HandSpec.exact(hand);
+        assertTrue(exact.isFixed());
+        assertFalse(exact.isAny());
+        assertTrue(exact.matches(hand));
+        assertFalse(exact.matches(CardMask.getMask(Suit.HEARTS, CardMask.HOLDING_MASK)));
+        assertThrows(RuntimeException.class, () -> HandSpec.exact(hand & ~(1L << 51)));
+        assertThrows(RuntimeException.class, () -> HandSpec.exact(hand | 1L));
+        assertThrows(RuntimeException.class, exact::withBalanced);
+        assertThrows(RuntimeException.class, () -> exact.withHighCardPoints(0, 10));
+        assertThrows(RuntimeException.class, () -> exact.withLength(Suit.SPADES, 13, 13));
+    }
+}
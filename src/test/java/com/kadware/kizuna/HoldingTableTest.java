@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class HoldingTableTest {
+
+    /**
+     * The ranks in a holding - bit 12 is the ace, down to bit 0 for the two
+     */
+    private static Set<Rank> getRanks(
+        final int holding
+    ) {
+        Set<Rank> ranks = EnumSet.noneOf(Rank.class);
+        for (Rank rank : Rank.values()) {
+            if ((holding & (1 << (12 - rank._sortOrder))) != 0) {
+                ranks.add(rank);
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * Quick tricks in half-trick units - AK 2, AQ 1.5, A or KQ 1, Kx 0.5
+     */
+    private static int countQuickTrickHalves(
+        final Set<Rank> ranks
+    ) {
+        boolean ace = ranks.contains(Rank.ACE);
+        boolean king = ranks.contains(Rank.KING);
+        boolean queen = ranks.contains(Rank.QUEEN);
+        if (ace && king) {
+            return 4;
+        } else if (ace && queen) {
+            return 3;
+        } else if (ace || (king && queen)) {
+            return 2;
+        } else if (king && (ranks.size() > 1)) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * A, KQ, QJ10, or J1098
+     */
+    private static boolean hasStopper(
+        final Set<Rank> ranks
+    ) {
+        return ranks.contains(Rank.ACE)
+            || ranks.containsAll(EnumSet.of(Rank.KING, Rank.QUEEN))
+            || ranks.containsAll(EnumSet.of(Rank.QUEEN, Rank.JACK, Rank.TEN))
+            || ranks.containsAll(EnumSet.of(Rank.JACK, Rank.TEN, Rank.NINE, Rank.EIGHT));
+    }
+
+    /**
+     * Kx or longer, or QJx or Q10x or longer
+     */
+    private static boolean hasProbableStopper(
+        final Set<Rank> ranks
+    ) {
+        return (ranks.contains(Rank.KING) && (ranks.size() >= 2))
+            || (ranks.contains(Rank.QUEEN) && (ranks.contains(Rank.JACK) || ranks.contains(Rank.TEN)) && (ranks.size() >= 3));
+    }
+
+    /**
+     * Every one of the 8192 entries matches the metrics worked out afresh from the ranks in the holding
+     */
+    @Test
+    public void everyHolding() {
+        int stoppers = 0;
+        for (int holding = 0; holding <= CardMask.HOLDING_MASK; ++holding) {
+            Set<Rank> ranks = getRanks(holding);
+            int points = 0;
+            int honors = 0;
+            for (Rank rank : ranks) {
+                points += rank._highCardPoints;
+                honors += (rank._highCardPoints > 0) ? 1 : 0;
+            }
+            String message = ranks.toString();
+            assertEquals(points, HoldingTable.getHighCardPoints(holding), message);
+            assertEquals(honors, HoldingTable.getHonors(holding), message);
+            assertEquals(ranks.size(), HoldingTable.getLength(holding), message);
+            assertEquals(countQuickTrickHalves(ranks), HoldingTable.getQuickTrickHalves(holding), message);
+            assertEquals(hasStopper(ranks), HoldingTable.hasStopper(holding), message);
+            assertEquals(hasProbableStopper(ranks), HoldingTable.hasProbableStopper(holding), message);
+            stoppers += hasStopper(ranks) ? 1 : 0;
+        }
+
+        //  half the holdings have the ace; of the rest, a quarter have KQ; then QJ10 without A or K,
+        //  and J1098 without A or Q
+        assertEquals(4096 + 1024 + 256 + 128, stoppers);
+    }
+
+    /**
+     * A few holdings worked out by hand
+     */
+    @Test
+    public void examples() {
+        int akq = CardMask.getBit(Rank.ACE) | CardMask.getBit(Rank.KING) | CardMask.getBit(Rank.QUEEN);
+        assertEquals(9, HoldingTable.getHighCardPoints(akq));
+        assertEquals(4, HoldingTable.getQuickTrickHalves(akq));
+
+        int kx = CardMask.getBit(Rank.KING) | CardMask.getBit(Rank.TWO);
+        assertEquals(1, HoldingTable.getQuickTrickHalves(kx));
+        assertEquals(0, HoldingTable.getQuickTrickHalves(CardMask.getBit(Rank.KING)));
+        assertTrue(HoldingTable.hasProbableStopper(kx));
+        assertFalse(HoldingTable.hasStopper(kx));
+
+        int jt98 = CardMask.getBit(Rank.JACK) | CardMask.getBit(Rank.TEN) | CardMask.getBit(Rank.NINE) | CardMask.getBit(Rank.EIGHT);
+        assertTrue(HoldingTable.hasStopper(jt98));
+        assertFalse(HoldingTable.hasStopper(jt98 & ~CardMask.getBit(Rank.EIGHT)));
+        assertEquals(1, HoldingTable.getHonors(jt98));
+        assertEquals(13, HoldingTable.getLength(CardMask.HOLDING_MASK));
+        assertEquals(10, HoldingTable.getHighCardPoints(CardMask.HOLDING_MASK));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class OpeningBidSimulationTest {
+
+    private static final BiddingSystem SYSTEM = new AmericanStandardSystem(true, false, true);
+
+    /**
+     * Every contract bid, as an opening bid by SOUTH
+     */
+    private static List<Bid> getOpeningBids() {
+        List<Bid> result = new ArrayList<>();
+        for (int code = Bid.FIRST_CONTRACT; code < Bid.CODES; ++code) {
+            result.add(Bid.of(Position.SOUTH, code));
+        }
+        return result;
+    }
+
+    private static void assertSameResults(
+        final OpeningBidSimulation.Results expected,
+        final OpeningBidSimulation.Results actual
+    ) {
+        assertEquals(expected._deals, actual._deals);
+        assertEquals(expected.getPassedOut(), actual.getPassedOut());
+        for (Bid bid : getOpeningBids()) {
+            assertEquals(expected.getCount(bid), actual.getCount(bid), bid::toString);
+            assertArrayEquals(expected.getSeatHistogram(bid), actual.getSeatHistogram(bid), bid::toString);
+            assertArrayEquals(expected.getHighCardPointHistogram(bid), actual.getHighCardPointHistogram(bid), bid::toString);
+            assertEquals(expected.getShapeHistogram(bid), actual.getShapeHistogram(bid), bid::toString);
+        }
+    }
+
+    /**
+     * Each total is the number of deals, and each histogram adds up to the number of openings it describes
+     */
+    private static void checkTotals(
+        final OpeningBidSimulation.Results results
+    ) {
+        long openings = 0;
+        for (Bid bid : getOpeningBids()) {
+            long count = results.getCount(bid);
+            openings += count;
+            assertEquals(count, sum(results.getSeatHistogram(bid)));
+            assertEquals(count, sum(results.getHighCardPointHistogram(bid)));
+            assertEquals(count, results.getShapeHistogram(bid).values().stream().mapToLong(Long::longValue).sum());
+        }
+        assertEquals(results._deals, openings + results.getPassedOut());
+        assertEquals(results.getPassedOut(), results.getCount(Bid.getPass(Position.SOUTH)));
+        assertEquals((double) results.getPassedOut() / results._deals, results.getPassOutRate(), 1e-12);
+    }
+
+    private static long sum(
+        final long[] values
+    ) {
+        long result = 0;
+        for (long value : values) {
+            result += value;
+        }
+        return result;
+    }
+
+    /**
+     * Several chunks' worth of deals give the same results on pools of one, three and eight threads
+     */
+    @Test
+    public void independentOfThreads() {
+        long deals = 70_000;
+        OpeningBidSimulation.Results expected = null;
+        for (int threads : new int[] { 1, 3, 8 }) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                OpeningBidSimulation.Results results = new OpeningBidSimulation(SYSTEM, 7, pool).run(deals);
+                checkTotals(results);
+                if (expected == null) {
+                    expected = results;
+                } else {
+                    assertSameResults(expected, results);
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        assertTrue(expected.getPassedOut() > 0);
+        assertTrue(expected.getCount(Bid.getSuitBid(Position.SOUTH, 1, Suit.CLUBS)) > 0);
+    }
+
+    /**
+     * A range of deals gives what asking each seat in turn gives, deal by deal; and two adjacent ranges add up
+     * to the range which covers both
+     */
+    @Test
+    public void matchesSequential() {
+        long first = 1_000;
+        long deals = 5_000;
+        OpeningBidSimulation simulation = new OpeningBidSimulation(SYSTEM, 11);
+        OpeningBidSimulation.Results results = simulation.run(first, deals);
+        checkTotals(results);
+
+        long[] counts = new long[Bid.CODES];
+        long[][] seats = new long[Bid.CODES][4];
+        long[][] points = new long[Bid.CODES][HandSpec.MAX_HIGH_CARD_POINTS + 1];
+        DealGenerator generator = new DealGenerator(11);
+        long[] hands = new long[4];
+        for (long dx = first; dx < first + deals; ++dx) {
+            generator.deal(dx, hands);
+            Board board = new Board();
+            Position[] positions = Position.getValuesByOrdinal();
+            for (int seat = 0; seat < 4; ++seat) {
+                Hand hand = new Hand(positions[seat], hands[positions[seat].ordinal()]);
+                Bid bid = SYSTEM.recommendOpeningBid(hand, board, Commentary.DISABLED);
+                if (bid.isContract()) {
+                    ++counts[bid._code];
+                    ++seats[bid._code][seat];
+                    ++points[bid._code][hand.countHighCardPoints()];
+                    break;
+                }
+                board.add(bid);
+            }
+        }
+
+        long opened = 0;
+        for (Bid bid : getOpeningBids()) {
+            assertEquals(counts[bid._code], results.getCount(bid));
+            assertArrayEquals(seats[bid._code], results.getSeatHistogram(bid));
+            assertArrayEquals(points[bid._code], results.getHighCardPointHistogram(bid));
+            opened += counts[bid._code];
+        }
+        assertEquals(deals - opened, results.getPassedOut());
+
+        OpeningBidSimulation.Results low = simulation.run(first, 2_000);
+        OpeningBidSimulation.Results high = simulation.run(first + 2_000, deals - 2_000);
+        assertEquals(results.getPassedOut(), low.getPassedOut() + high.getPassedOut());
+        for (Bid bid : getOpeningBids()) {
+            assertEquals(results.getCount(bid), low.getCount(bid) + high.getCount(bid));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+public class OpeningTableTest {
+
+    /**
+     * The compiled tables agree with the rules, for a few hundred hands of every shape
+     */
+    @Test
+    public void verifySample() {
+        for (boolean fiveCardMajors : new boolean[] { false, true }) {
+            assertTrue(new AmericanStandardSystem(fiveCardMajors, false, false, true).verifyOpeningTable(200) > 0);
+        }
+    }
+
+    /**
+     * The sample holds every shape, and no hand twice
+     */
+    @Test
+    public void sampleCoversShapes() {
+        Set<Long> hands = new HashSet<>();
+        Set<Integer> shapes = new HashSet<>();
+        OpeningTable.forEachDistinctHand(200, cards -> {
+            assertTrue(hands.add(cards));
+            assertEquals(13, Long.bitCount(cards));
+            shapes.add(new Distribution(cards)._shape);
+        });
+        assertEquals(ShapeTable.SHAPES, shapes.size());
+    }
+
+    /**
+     * The compiled tables agree with the rules, for every kind of hand the rules can tell apart.
+     * This takes a minute or two, so it runs only with -Pexhaustive.
+     */
+    @Test
+    @Tag("exhaustive")
+    public void verify() {
+        for (boolean fiveCardMajors : new boolean[] { false, true }) {
+            assertTrue(new AmericanStandardSystem(fiveCardMajors, false, false, true).verifyOpeningTable() > 0);
+        }
+    }
+}
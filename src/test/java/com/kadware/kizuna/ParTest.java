@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class ParTest {
+
+    /**
+     * A table in which both north and south, and both east and west, take the given tricks in each strain
+     * (clubs through no-trump)
+     */
+    private static TrickTable createTable(
+        final int[] northSouth,
+        final int[] eastWest
+    ) {
+        int[] tricks = new int[TrickTable.STRAINS * 4];
+        for (int strain = 0; strain < TrickTable.STRAINS; ++strain) {
+            for (int declarer = 0; declarer < 4; ++declarer) {
+                tricks[strain * 4 + declarer] = ((declarer & 1) == 0) ? northSouth[strain] : eastWest[strain];
+            }
+        }
+        return new TrickTable(tricks);
+    }
+
+    @Test
+    public void passedOut() {
+        TrickTable table = createTable(new int[] { 6, 6, 6, 6, 6 }, new int[] { 6, 6, 6, 6, 6 });
+        Par par = Par.compute(table, Position.NORTH, false, false);
+        assertNull(par._contract);
+        assertEquals(0, par._score);
+    }
+
+    @Test
+    public void bestMakingContract() {
+        //  3NT making ten tricks scores more than four of a suit
+        TrickTable table = createTable(new int[] { 10, 10, 10, 10, 10 }, new int[] { 3, 3, 3, 3, 3 });
+        Par par = Par.compute(table, Position.NORTH, false, false);
+        assertEquals(430, par._score);
+        assertNull(par._contract._trumps);
+        assertEquals(Contract.UNDOUBLED, par._contract._doubling);
+        assertEquals(0, par._contract._declarer.ordinal() & 1);
+    }
+
+    @Test
+    public void sacrifice() {
+        //  4S makes for +420, so east-west go two down in 5H doubled (-300) - north-south can't make 5S
+        TrickTable table = createTable(new int[] { 6, 6, 4, 10, 6 }, new int[] { 7, 7, 9, 3, 7 });
+        Par par = Par.compute(table, Position.NORTH, false, false);
+        assertEquals(300, par._score);
+        assertEquals(5, par._contract._level);
+        assertEquals(Suit.HEARTS, par._contract._trumps);
+        assertEquals(Contract.DOUBLED, par._contract._doubling);
+        assertEquals(1, par._contract._declarer.ordinal() & 1);
+        assertEquals(9, par._tricks);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020 by Kurt Duncan - All Rights Reserved
+ */
+
+package com.kadware.kizuna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class TrickTableSolverTest {
+
+    /**
+     * Solves a batch of random endings of the given size, then checks every entry of every table against brute force.
+     * Each strain's declarers are solved one after the other on the same solver (and transposition table),
+     * and the later ones start from the earlier results, so this covers all of that reuse.
+     */
+    private static void checkEndings(
+        final long seed,
+        final int cards,
+        final int endings
+    ) {
+        Random random = new Random(seed);
+        List<Deal> deals = new ArrayList<>(endings);
+        for (int ex = 0; ex < endings; ++ex) {
+            deals.add(new Deal(BruteForceSolver.createEnding(random, cards)));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            List<TrickTable> tables = new TrickTableSolver(pool, 14).solveAll(deals);
+            long[] hands = new long[4];
+            for (int dx = 0; dx < endings; ++dx) {
+                deals.get(dx).getHands(hands);
+                for (int strain = 0; strain < TrickTable.STRAINS; ++strain) {
+                    BruteForceSolver bruteForce = new BruteForceSolver(strain);
+                    for (int declarer = 0; declarer < 4; ++declarer) {
+                        assertEquals(bruteForce.solve(hands, declarer),
+                                     tables.get(dx).getTricks(strain, declarer),
+                                     String.format("%s strain %d declarer %d", Arrays.toString(hands), strain, declarer));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void fourCardEndings() {
+        checkEndings(40, 4, 1000);
+    }
+
+    @Test
+    public void fiveCardEndings() {
+        checkEndings(50, 5, 200);
+    }
+
+    @Test
+    public void emptyBatch() {
+        assertEquals(0, new TrickTableSolver().solveAll(new ArrayList<>()).size());
+    }
+}